@@ -0,0 +1,159 @@
+package gym.benchmarks;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Inbox;
+import gym.customers.InboxRetention;
+import gym.customers.Person;
+import gym.management.ForumType;
+import gym.management.Gym;
+import gym.management.GymSnapshot;
+import gym.management.Instructor;
+import gym.management.Secretary;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures taking a columnar snapshot of the gym and the aggregations over it, as registrations grow.
+ * The gym has one client for every 40 registrations asked for, each registered to the same 40 sessions of 4 types.
+ * The sessions cycle through the forum types, which turn some clients away, so about 60% of the registrations are
+ * made. 40 more sessions are left empty, and every session is taught by one of 8 instructors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AnalyticsBenchmark {
+    private static final long SEED = 42;
+    private static final int FULL_SESSIONS = 40;
+    private static final int INSTRUCTORS = 8;
+    private static final LocalDateTime FIRST_HOUR = LocalDateTime.of(2099, 1, 1, 0, 0);
+    private static final DateTimeFormatter SESSION_TIME = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    @Param({"100000", "1000000", "10000000"})
+    private int registrations;
+
+    private Gym gym;
+    private GymSnapshot snapshot;
+
+    /**
+     * Builds the gym and takes a first snapshot for the aggregations.
+     *
+     * @throws Exception if the gym cannot be built.
+     */
+    @Setup(Level.Trial)
+    public void buildGym() throws Exception {
+        Inbox.setDefaultRetention(InboxRetention.of(1, null));
+        gym = Gym.getInstance();
+        gym.setSecretary(new Person("Secretary", 0, Gender.Female, "01-01-1980"), 9000);
+        Secretary secretary = gym.getSecretary();
+        SessionType[] types = {
+                SessionType.register("Spinning", 30, Integer.MAX_VALUE),
+                SessionType.register("Yoga", 40, Integer.MAX_VALUE),
+                SessionType.register("Boxing", 50, Integer.MAX_VALUE),
+                SessionType.register("Rowing", 60, Integer.MAX_VALUE)};
+        ArrayList<SessionType> qualifications = new ArrayList<>(List.of(types));
+        Instructor[] instructors = new Instructor[INSTRUCTORS];
+        for (int i = 0; i < INSTRUCTORS; i++)
+            instructors[i] = secretary.hireInstructor(new Person("Instructor" + i, 0, Gender.Male, "01-01-1980"),
+                    40 + i, qualifications);
+
+        SplittableRandom random = new SplittableRandom(SEED);
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < registrations / FULL_SESSIONS; i++) {
+            String bDay = String.format("01-01-%d", 1940 + random.nextInt(60));
+            Gender gender = random.nextBoolean() ? Gender.Female : Gender.Male;
+            clients.add(secretary.registerClient(new Person("Client" + i, Integer.MAX_VALUE, gender, bDay)));
+        }
+        ForumType[] forums = ForumType.values();
+        for (int i = 0; i < 2 * FULL_SESSIONS; i++) {
+            Session session = secretary.addSession(types[i % types.length], FIRST_HOUR.plusHours(i).format(SESSION_TIME),
+                    forums[i / 2 % forums.length], instructors[i % INSTRUCTORS]);
+            secretary.registerClientsToLesson(i % 2 == 0 ? clients : Collections.emptyList(), session);
+        }
+        gym.awaitNotifications();
+        snapshot = gym.analyticsSnapshot();
+    }
+
+    /**
+     * Takes a snapshot of the gym.
+     *
+     * @return the snapshot.
+     */
+    @Benchmark
+    public GymSnapshot takeSnapshot() {
+        return gym.analyticsSnapshot();
+    }
+
+    /**
+     * Computes the revenue per session type.
+     *
+     * @return the revenue by type.
+     */
+    @Benchmark
+    public long[] revenuePerSessionType() {
+        return snapshot.revenuePerSessionType();
+    }
+
+    /**
+     * Computes the fill rate per forum type.
+     *
+     * @return the fill rate by forum type.
+     */
+    @Benchmark
+    public double[] fillRatePerForum() {
+        return snapshot.fillRatePerForum();
+    }
+
+    /**
+     * Computes the utilisation of each instructor.
+     *
+     * @return the utilisation by instructor.
+     */
+    @Benchmark
+    public double[] instructorUtilisation() {
+        return snapshot.instructorUtilisation();
+    }
+
+    /**
+     * Computes the age distribution of the clients.
+     *
+     * @return the number of clients by age.
+     */
+    @Benchmark
+    public int[] ageDistribution() {
+        return snapshot.ageDistribution();
+    }
+
+    /**
+     * Computes the registrations by age bracket, which joins the registrations to their clients.
+     *
+     * @return the number of registrations by age bracket.
+     */
+    @Benchmark
+    public int[] registrationsPerAgeBracket() {
+        return snapshot.registrationsPerAgeBracket();
+    }
+}
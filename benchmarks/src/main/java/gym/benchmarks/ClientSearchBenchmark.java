@@ -0,0 +1,110 @@
+package gym.benchmarks;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.GymClock;
+import gym.customers.Person;
+import gym.management.AgeBracket;
+import gym.management.ForumType;
+import gym.management.Gym;
+import gym.management.Secretary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures searching for clients through the secretary's indexes, against a scan of every client.
+ * The clients are drawn from a fixed seed, with ages spread from 18 to 90 and balances from 0 to 999,
+ * so the compound search "female, 65+, balance below 100" matches about one client in a hundred.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientSearchBenchmark {
+    private static final long SEED = 42;
+    private static final int MAX_BALANCE = 1000;
+    private static final int BALANCE_LIMIT = 100;
+
+    @Param({"10000", "100000", "1000000"})
+    private int clients;
+
+    private Secretary secretary;
+    private Client[] clientList;
+    private String prefix;
+
+    /**
+     * Registers the clients.
+     *
+     * @throws Exception if a client cannot be registered.
+     */
+    @Setup(Level.Trial)
+    public void buildGym() throws Exception {
+        Gym gym = Gym.getInstance();
+        gym.setSecretary(new Person("Secretary", 0, Gender.Female, "01-01-1980"), 9000);
+        secretary = gym.getSecretary();
+        SplittableRandom random = new SplittableRandom(SEED);
+        LocalDate today = GymClock.today();
+        clientList = new Client[clients];
+        for (int i = 0; i < clients; i++) {
+            LocalDate birthDate = today.minusYears(18).minusDays(random.nextInt(72 * 365));
+            String bDay = String.format("%02d-%02d-%04d", birthDate.getDayOfMonth(), birthDate.getMonthValue(),
+                    birthDate.getYear());
+            Gender gender = random.nextBoolean() ? Gender.Female : Gender.Male;
+            clientList[i] = secretary.registerClient(new Person("Client" + i, random.nextInt(MAX_BALANCE), gender, bDay));
+        }
+        prefix = "client" + clients / 100; // Matches 11 clients, as in client100 and client1000 to client1009
+    }
+
+    /**
+     * Counts the female seniors with a low balance through the indexes.
+     *
+     * @return the number of matching clients.
+     */
+    @Benchmark
+    public int compoundSearch() {
+        return secretary.findClients().gender(Gender.Female).ageBracket(AgeBracket.Seniors)
+                .balanceBelow(BALANCE_LIMIT).count();
+    }
+
+    /**
+     * Counts the female seniors with a low balance by checking every client.
+     *
+     * @return the number of matching clients.
+     */
+    @Benchmark
+    public int compoundScan() {
+        int count = 0;
+        for (Client client : clientList)
+            if (client.getGender() == Gender.Female && client.getAge() >= ForumType.SENIORS_AGE
+                    && client.getBalance() < BALANCE_LIMIT)
+                count++;
+        return count;
+    }
+
+    /**
+     * Finds the clients whose name starts with a prefix through the name index.
+     *
+     * @return the matching clients.
+     */
+    @Benchmark
+    public List<Client> namePrefixSearch() {
+        return secretary.findClients().namePrefix(prefix).find();
+    }
+}
@@ -0,0 +1,99 @@
+package gym.benchmarks;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Person;
+import gym.management.ForumType;
+import gym.management.Gym;
+import gym.management.Instructor;
+import gym.management.LatencyRecorder;
+import gym.management.Secretary;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of the secretary's metrics. The difference between the scores with metrics enabled
+ * and disabled is the cost of timing a call; recordLatency isolates the cost of the recorder itself.
+ * The secretary calls measured change no state: the registration fails its first check, as the session is
+ * in the past, and the notified session has no clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+    @Param({"false", "true"})
+    private boolean enabled;
+
+    private Secretary secretary;
+    private Client client;
+    private Session pastSession;
+    private Session emptySession;
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    /**
+     * Builds a gym with one client, one session in the past and one empty session in the future.
+     *
+     * @throws Exception if the gym cannot be built.
+     */
+    @Setup(Level.Trial)
+    public void buildGym() throws Exception {
+        Gym gym = Gym.getInstance();
+        gym.setSecretary(new Person("Secretary", 0, Gender.Female, "01-01-1980"), 9000);
+        gym.getMetrics().setEnabled(enabled);
+        secretary = gym.getSecretary();
+        Instructor instructor = secretary.hireInstructor(new Person("Instructor", 0, Gender.Male, "01-01-1980"), 50,
+                new ArrayList<>(List.of(SessionType.Pilates)));
+        client = secretary.registerClient(new Person("Client", 1000, Gender.Female, "01-01-1990"));
+        pastSession = secretary.addSession(SessionType.Pilates, "01-01-2000 10:00", ForumType.All, instructor);
+        emptySession = secretary.addSession(SessionType.Pilates, "01-01-2099 10:00", ForumType.All, instructor);
+    }
+
+    /**
+     * Attempts a registration that fails its first check.
+     *
+     * @throws Exception if the registration throws.
+     */
+    @Benchmark
+    public void registerClientToLesson() throws Exception {
+        secretary.registerClientToLesson(client, pastSession);
+    }
+
+    /**
+     * Notifies a session without clients.
+     */
+    @Benchmark
+    public void notifySession() {
+        secretary.notify(emptySession, "Benchmark");
+    }
+
+    /**
+     * Records a latency the way an enabled operation does, clock reads included.
+     *
+     * @return the start time, so the clock read is not eliminated.
+     */
+    @Benchmark
+    public long recordLatency() {
+        long started = System.nanoTime();
+        recorder.record(System.nanoTime() - started);
+        return started;
+    }
+}
@@ -0,0 +1,314 @@
+package gym.benchmarks;
+
+import gym.Exception.DuplicateClientException;
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Inbox;
+import gym.customers.InboxRetention;
+import gym.customers.Person;
+import gym.management.ForumType;
+import gym.management.Gym;
+import gym.management.HistoryPage;
+import gym.management.Instructor;
+import gym.management.PayrollReport;
+import gym.management.Secretary;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the secretary's hot paths against gyms of growing population.
+ * Each trial builds a gym of the given number of clients, with one instructor and one session for every
+ * hundred clients, each client registered to one session and the sessions spread over four days.
+ * The gym is a singleton, so every benchmark and population runs in its own fork; run with "-prof gc"
+ * to see the allocation of each path next to its time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecretaryBenchmark {
+    private static final int CLIENTS_PER_SESSION = 100;
+    private static final int DAYS = 4;
+    private static final int HOURS = 16;
+    private static final int INBOX_SIZE = 16;
+    private static final int BALANCE = 1_000_000;
+    private static final String MESSAGE = "The gym is closed for maintenance tomorrow";
+    private static final LocalDateTime FIRST_DAY = LocalDateTime.of(2099, 1, 1, 6, 0);
+    private static final DateTimeFormatter SESSION_TIME = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int clients;
+
+    private Gym gym;
+    private Secretary secretary;
+    private SessionType type;
+    private Instructor[] instructors;
+    private Session[] sessions;
+    private Client[] clientList;
+    private String[] days;
+    private int cursor;
+    private PrintStream stdout;
+    private final WritableByteChannel reportSink = Channels.newChannel(OutputStream.nullOutputStream());
+
+    /**
+     * Builds the gym's population and silences the standard output that printActions writes to.
+     *
+     * @throws Exception if the population cannot be registered.
+     */
+    @Setup(Level.Trial)
+    public void buildGym() throws Exception {
+        // Inboxes keep the latest notifications only, so repeated notifications do not fill the heap
+        Inbox.setDefaultRetention(InboxRetention.of(INBOX_SIZE, null));
+        gym = Gym.getInstance();
+        gym.setName("Benchmark");
+        gym.setSecretary(new Person("Secretary", 0, Gender.Female, "01-01-1980"), 9000);
+        secretary = gym.getSecretary();
+        type = SessionType.register("Benchmark", 1, Integer.MAX_VALUE);
+        ArrayList<SessionType> qualifications = new ArrayList<>(List.of(type));
+
+        int sessionCount = Math.max(1, clients / CLIENTS_PER_SESSION);
+        instructors = new Instructor[sessionCount];
+        sessions = new Session[sessionCount];
+        for (int i = 0; i < sessionCount; i++) {
+            instructors[i] = secretary.hireInstructor(new Person("Instructor" + i, 0, Gender.Male, "01-01-1980"),
+                    50 + i % 50, qualifications);
+            sessions[i] = secretary.addSession(type, sessionTime(i % DAYS, i / DAYS % HOURS), ForumType.All, instructors[i]);
+        }
+        clientList = new Client[clients];
+        for (int i = 0; i < clients; i++) {
+            Gender gender = i % 2 == 0 ? Gender.Female : Gender.Male;
+            clientList[i] = secretary.registerClient(new Person("Client" + i, BALANCE, gender, "01-01-1990"));
+            secretary.registerClientToLesson(clientList[i], sessions[i % sessionCount]);
+        }
+        days = new String[DAYS];
+        for (int day = 0; day < DAYS; day++)
+            days[day] = sessionTime(day, 0).substring(0, 10);
+        gym.awaitNotifications();
+
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * Restores the standard output.
+     */
+    @TearDown(Level.Trial)
+    public void restoreOutput() {
+        System.setOut(stdout);
+    }
+
+    /**
+     * Formats the start of a session on one of the benchmark's days.
+     *
+     * @param day  the day, counted from the first day of the schedule.
+     * @param hour the hour, counted from the first hour of the day.
+     * @return the time in the format "dd-MM-yyyy HH:mm".
+     */
+    private static String sessionTime(int day, int hour) {
+        return FIRST_DAY.plusDays(day).plusHours(hour).format(SESSION_TIME);
+    }
+
+    /**
+     * Registers a new client. The population grows by one client per invocation.
+     *
+     * @return the registered client.
+     * @throws Exception if the client cannot be registered.
+     */
+    @Benchmark
+    public Client registerClient() throws Exception {
+        return secretary.registerClient(new Person("Walk-in", BALANCE, Gender.Female, "01-01-1990"));
+    }
+
+    /**
+     * Registers the next client to the next lesson of the iteration, charging them for it.
+     *
+     * @param lessons the lessons added for the iteration.
+     * @return true if the client was registered, false if every pair of client and lesson was already used.
+     * @throws Exception if the registration is refused for any other reason.
+     */
+    @Benchmark
+    public boolean registerClientToLesson(Lessons lessons) throws Exception {
+        int n = lessons.next++;
+        try {
+            secretary.registerClientToLesson(clientList[n % clients], lessons.sessions[n / clients % lessons.sessions.length]);
+            return true;
+        } catch (DuplicateClientException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Notifies the clients of one session and waits for the notification to be delivered.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    @Benchmark
+    public void notifySession() throws InterruptedException {
+        secretary.notify(sessions[cursor++ % sessions.length], MESSAGE);
+        gym.awaitNotifications();
+    }
+
+    /**
+     * Notifies the clients of one day's sessions, a quarter of the population, and waits for the notification
+     * to be delivered.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    @Benchmark
+    public void notifyDay() throws InterruptedException {
+        secretary.notify(days[cursor++ % DAYS], MESSAGE);
+        gym.awaitNotifications();
+    }
+
+    /**
+     * Notifies every client and waits for the notification to be delivered.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    @Benchmark
+    public void notifyClients() throws InterruptedException {
+        secretary.notify(MESSAGE);
+        gym.awaitNotifications();
+    }
+
+    /**
+     * Pays the salaries accrued by every instructor for one new session each.
+     *
+     * @param accruals the sessions added for the iteration.
+     * @return the payroll report.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public PayrollReport paySalaries(Accruals accruals) {
+        return secretary.paySalaries();
+    }
+
+    /**
+     * Pays the salaries when everything was already paid, the cost of looking through the payroll.
+     *
+     * @return the empty payroll report.
+     */
+    @Benchmark
+    public PayrollReport paySalariesSettled() {
+        return secretary.paySalaries();
+    }
+
+    /**
+     * Prints the gym's history to the silenced standard output.
+     */
+    @Benchmark
+    public void printActions() {
+        secretary.printActions();
+    }
+
+    /**
+     * Pages through the history of one client, a different one each invocation.
+     *
+     * @return the first page, so the work is not eliminated.
+     */
+    @Benchmark
+    public HistoryPage queryClientHistory() {
+        return secretary.queryHistory().client(clientList[cursor++ % clients]).page(0, 100);
+    }
+
+    /**
+     * Renders the whole gym as a string.
+     *
+     * @return the string, so the work is not eliminated.
+     */
+    @Benchmark
+    public String gymToString() {
+        return gym.toString();
+    }
+
+    /**
+     * Streams the whole gym's report to a channel that discards it.
+     *
+     * @throws IOException if the report cannot be written.
+     */
+    @Benchmark
+    public void writeReport() throws IOException {
+        gym.writeReport(reportSink);
+    }
+
+    /**
+     * Lessons added before each iteration of registerClientToLesson, enough for every invocation of the
+     * iteration to register a client to a lesson they have not joined yet.
+     */
+    @State(Scope.Benchmark)
+    public static class Lessons {
+        private static final long PAIRS = 1 << 23;
+
+        private LocalDateTime nextTime = LocalDateTime.of(2100, 1, 1, 0, 0);
+        private Session[] sessions;
+        private int next;
+
+        /**
+         * Adds a fresh set of hourly lessons, all taught by one instructor.
+         *
+         * @param benchmark the benchmark holding the gym.
+         * @throws Exception if the lessons cannot be added.
+         */
+        @Setup(Level.Iteration)
+        public void addLessons(SecretaryBenchmark benchmark) throws Exception {
+            sessions = new Session[(int) Math.max(1, PAIRS / benchmark.clients)];
+            Instructor instructor = benchmark.instructors[0];
+            for (int i = 0; i < sessions.length; i++) {
+                sessions[i] = benchmark.secretary.addSession(benchmark.type, nextTime.format(SESSION_TIME),
+                        ForumType.All, instructor);
+                nextTime = nextTime.plusHours(1);
+            }
+            next = 0;
+        }
+    }
+
+    /**
+     * Sessions added before each iteration of paySalaries, one for every instructor, so every
+     * payment has a salary to pay to each of them.
+     */
+    @State(Scope.Benchmark)
+    public static class Accruals {
+        private int round;
+
+        /**
+         * Adds one session for every instructor, on a new day.
+         *
+         * @param benchmark the benchmark holding the gym.
+         * @throws Exception if the sessions cannot be added.
+         */
+        @Setup(Level.Iteration)
+        public void accrue(SecretaryBenchmark benchmark) throws Exception {
+            String time = sessionTime(DAYS + round++, 0);
+            for (Instructor instructor : benchmark.instructors)
+                benchmark.secretary.addSession(benchmark.type, time, ForumType.All, instructor);
+        }
+    }
+}
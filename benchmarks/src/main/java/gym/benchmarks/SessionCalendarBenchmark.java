@@ -0,0 +1,111 @@
+package gym.benchmarks;
+
+import gym.management.ForumType;
+import gym.management.SessionCalendar;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionFactory;
+import gym.management.Sessions.SessionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of finding the sessions of one day as the schedule grows.
+ * The schedule always holds the same number of sessions per day, so a day lookup through the
+ * SessionCalendar should cost the same at every size, while the full scan grows with the schedule.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionCalendarBenchmark {
+    private static final int SESSIONS_PER_DAY = 20;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+    private static final int LOOKUPS = 4096;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int sessions;
+
+    private final SessionCalendar calendar = new SessionCalendar();
+    private final List<Session> sessionsList = new ArrayList<>();
+    private final String[] lookups = new String[LOOKUPS];
+    private int cursor;
+
+    /**
+     * Builds a schedule with a fixed number of sessions on each consecutive day.
+     */
+    @Setup(Level.Trial)
+    public void buildSchedule() {
+        int days = sessions / SESSIONS_PER_DAY;
+        String[] dayStrings = new String[days];
+        for (int day = 0; day < days; day++) {
+            LocalDate date = FIRST_DAY.plusDays(day);
+            dayStrings[day] = String.format("%02d-%02d-%04d", date.getDayOfMonth(), date.getMonthValue(), date.getYear());
+            for (int i = 0; i < SESSIONS_PER_DAY; i++) {
+                String time = dayStrings[day] + String.format(" %02d:00", 6 + i % 16);
+                Session session = SessionFactory.newSession(SessionType.Pilates, time, ForumType.All, null);
+                calendar.add(session);
+                sessionsList.add(session);
+            }
+        }
+
+        // Precompute a random sequence of days to look up
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < LOOKUPS; i++)
+            lookups[i] = dayStrings[random.nextInt(days)];
+    }
+
+    /**
+     * Retrieves the next day to look up.
+     *
+     * @return a date in the format "dd-MM-yyyy".
+     */
+    private String nextDate() {
+        return lookups[cursor++ & (LOOKUPS - 1)];
+    }
+
+    /**
+     * Collects the participants of one day through the calendar index.
+     *
+     * @return the number of participants found, so the work is not eliminated.
+     */
+    @Benchmark
+    public int calendarLookup() {
+        int participants = 0;
+        for (Session session : calendar.onDay(nextDate()))
+            participants += session.getClientList().size() + 1;
+        return participants;
+    }
+
+    /**
+     * Collects the participants of one day by scanning the whole schedule, as notify used to.
+     *
+     * @return the number of participants found, so the work is not eliminated.
+     */
+    @Benchmark
+    public int fullScan() {
+        String date = nextDate();
+        int participants = 0;
+        for (Session session : sessionsList)
+            if (session.getTime().substring(0, 10).equals(date))
+                participants += session.getClientList().size() + 1;
+        return participants;
+    }
+}
@@ -0,0 +1,330 @@
+package gym.benchmarks.workload;
+
+import gym.Exception.DuplicateClientException;
+import gym.Exception.InstructorNotQualifiedException;
+import gym.Exception.InvalidAgeException;
+import gym.Exception.ScheduleConflictException;
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Inbox;
+import gym.customers.InboxRetention;
+import gym.customers.Person;
+import gym.management.Gym;
+import gym.management.Instructor;
+import gym.management.Secretary;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Replays a synthetic workload against the secretary from several threads and reports the throughput
+ * and latency percentiles of each kind of operation.
+ * The population is created first on the calling thread and is not measured. The measured operations are
+ * then dealt out in turn to the threads, so each thread always runs the same operations in the same order.
+ * An operation on a client or session that another thread has not created yet is skipped and counted,
+ * and an operation the secretary refuses with an exception is counted as rejected; both are still timed.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar gym.benchmarks.workload.LoadReplay [seed] [threads] [clients] [instructors] [sessions] [operations]}
+ */
+public class LoadReplay {
+    private static final String MESSAGE = "Reminder: bring a towel";
+    private static final int INBOX_SIZE = 16;
+
+    private final Workload workload;
+    private final Gym gym;
+    private final Secretary secretary;
+    private final AtomicReferenceArray<Client> clients;
+    private final AtomicReferenceArray<Session> sessions;
+    private final Instructor[] instructors;
+
+    /**
+     * Constructor to prepare a replay on the gym's current secretary.
+     *
+     * @param workload the workload to replay.
+     */
+    public LoadReplay(Workload workload) {
+        this.workload = workload;
+        this.gym = Gym.getInstance();
+        this.secretary = gym.getSecretary();
+        this.clients = new AtomicReferenceArray<>(workload.getClients());
+        this.sessions = new AtomicReferenceArray<>(workload.getSessions());
+        this.instructors = new Instructor[workload.getInstructors()];
+    }
+
+    /**
+     * Generates a workload, replays it on a new gym and prints the report.
+     *
+     * @param args optional seed, threads, clients, instructors, sessions and operations, in this order.
+     * @throws InterruptedException if the replay is interrupted.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 42;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        int instructors = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        int sessions = args.length > 4 ? Integer.parseInt(args[4]) : 5_000;
+        int operations = args.length > 5 ? Integer.parseInt(args[5]) : 1_000_000;
+
+        // Inboxes keep the latest notifications only, so a long replay does not fill the heap
+        Inbox.setDefaultRetention(InboxRetention.of(INBOX_SIZE, null));
+        Gym gym = Gym.getInstance();
+        gym.setName("Load Replay");
+        gym.setSecretary(new Person("Secretary", 0, Gender.Female, "01-01-1980"), 9000);
+
+        Workload workload = new WorkloadGenerator(seed).generate(clients, instructors, sessions, operations);
+        System.out.print(new LoadReplay(workload).run(threads));
+    }
+
+    /**
+     * Creates the population, then replays the measured operations.
+     *
+     * @param threads the number of threads replaying the operations.
+     * @return the report of the measured operations.
+     * @throws InterruptedException  if the replay is interrupted.
+     * @throws IllegalStateException if an operation failed other than by being refused.
+     */
+    public Report run(int threads) throws InterruptedException {
+        Worker setup = new Worker(workload.getPopulation(), 0, 1);
+        setup.run();
+        gym.awaitNotifications();
+
+        List<Worker> workers = new ArrayList<>(threads);
+        List<Thread> running = new ArrayList<>(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<RuntimeException> failures = new ConcurrentLinkedQueue<>();
+        for (int t = 0; t < threads; t++) {
+            Worker worker = new Worker(workload.getOperations(), t, threads);
+            workers.add(worker);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    worker.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    failures.add(e);
+                }
+            }, "load-replay-" + t);
+            running.add(thread);
+            thread.start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread thread : running)
+            thread.join();
+        long elapsed = System.nanoTime() - began;
+        if (!failures.isEmpty())
+            throw failures.peek();
+        gym.awaitNotifications();
+
+        Report report = new Report(workload.getSeed(), threads, elapsed);
+        for (Worker worker : workers)
+            report.add(worker);
+        return report;
+    }
+
+    /**
+     * Runs one operation against the secretary.
+     *
+     * @param operation the operation to run.
+     * @return true if the operation could run, false if it refers to a client or session not created yet.
+     * @throws Exception if the secretary refuses the operation.
+     */
+    private boolean execute(Operation operation) throws Exception {
+        switch (operation.getKind()) {
+            case HIRE_INSTRUCTOR: {
+                ArrayList<SessionType> qualifications = new ArrayList<>();
+                for (int mask = operation.getOther(); mask != 0; mask &= mask - 1)
+                    qualifications.add(SessionType.ofOrdinal(Integer.numberOfTrailingZeros(mask)));
+                Person person = new Person("Instructor" + operation.getTarget(), 0, operation.getGender(), operation.getText());
+                instructors[operation.getTarget()] = secretary.hireInstructor(person, operation.getAmount(), qualifications);
+                return true;
+            }
+            case NEW_CLIENT: {
+                Person person = new Person("Client" + operation.getTarget(), operation.getAmount(), operation.getGender(), operation.getText());
+                clients.set(operation.getTarget(), secretary.registerClient(person));
+                return true;
+            }
+            case ADD_SESSION:
+                sessions.set(operation.getTarget(), secretary.addSession(operation.getType(), operation.getText(),
+                        operation.getForum(), instructors[operation.getOther()]));
+                return true;
+            case ENROL: {
+                Client client = clients.get(operation.getTarget());
+                Session session = sessions.get(operation.getOther());
+                if (client == null || session == null)
+                    return false;
+                secretary.registerClientToLesson(client, session);
+                return true;
+            }
+            case NOTIFY_SESSION: {
+                Session session = sessions.get(operation.getTarget());
+                if (session == null)
+                    return false;
+                secretary.notify(session, MESSAGE);
+                return true;
+            }
+            case NOTIFY_DAY:
+                secretary.notify(operation.getText(), MESSAGE);
+                return true;
+            case NOTIFY_ALL:
+                secretary.notify(MESSAGE);
+                return true;
+            default:
+                secretary.paySalaries();
+                return true;
+        }
+    }
+
+    /**
+     * Replays every n-th operation of a list, timing each one.
+     */
+    private class Worker implements Runnable {
+        final List<Operation> operations;
+        final int first;
+        final int stride;
+        final Map<Operation.Kind, LatencyHistogram> latencies = new EnumMap<>(Operation.Kind.class);
+        final Map<Operation.Kind, long[]> outcomes = new EnumMap<>(Operation.Kind.class); // {skipped, rejected}
+
+        /**
+         * Constructor to create a worker.
+         *
+         * @param operations the operations to replay.
+         * @param first      the index of the worker's first operation.
+         * @param stride     the distance between the worker's operations.
+         */
+        Worker(List<Operation> operations, int first, int stride) {
+            this.operations = operations;
+            this.first = first;
+            this.stride = stride;
+            for (Operation.Kind kind : Operation.Kind.values()) {
+                latencies.put(kind, new LatencyHistogram());
+                outcomes.put(kind, new long[2]);
+            }
+        }
+
+        /**
+         * Replays the worker's operations.
+         */
+        public void run() {
+            for (int i = first; i < operations.size(); i += stride) {
+                Operation operation = operations.get(i);
+                long began = System.nanoTime();
+                boolean ran;
+                boolean refused = false;
+                try {
+                    ran = execute(operation);
+                } catch (DuplicateClientException | InvalidAgeException | InstructorNotQualifiedException
+                         | ScheduleConflictException e) {
+                    ran = true;
+                    refused = true;
+                } catch (Exception e) {
+                    throw new IllegalStateException("Operation " + operation + " failed", e);
+                }
+                latencies.get(operation.getKind()).record(System.nanoTime() - began);
+                long[] outcome = outcomes.get(operation.getKind());
+                if (!ran)
+                    outcome[0]++;
+                if (refused)
+                    outcome[1]++;
+            }
+        }
+    }
+
+    /**
+     * Throughput and latency percentiles of a replay, per kind of operation.
+     */
+    public static class Report {
+        private final long seed;
+        private final int threads;
+        private final long elapsedNanos;
+        private final Map<Operation.Kind, LatencyHistogram> latencies = new EnumMap<>(Operation.Kind.class);
+        private final Map<Operation.Kind, long[]> outcomes = new EnumMap<>(Operation.Kind.class);
+
+        /**
+         * Constructor to create an empty report.
+         *
+         * @param seed         the seed of the workload.
+         * @param threads      the number of threads of the replay.
+         * @param elapsedNanos the wall-clock time of the replay.
+         */
+        Report(long seed, int threads, long elapsedNanos) {
+            this.seed = seed;
+            this.threads = threads;
+            this.elapsedNanos = elapsedNanos;
+            for (Operation.Kind kind : Operation.Kind.values()) {
+                latencies.put(kind, new LatencyHistogram());
+                outcomes.put(kind, new long[2]);
+            }
+        }
+
+        /**
+         * Adds the measurements of a worker.
+         *
+         * @param worker the worker.
+         */
+        void add(Worker worker) {
+            for (Operation.Kind kind : Operation.Kind.values()) {
+                latencies.get(kind).merge(worker.latencies.get(kind));
+                long[] outcome = outcomes.get(kind);
+                outcome[0] += worker.outcomes.get(kind)[0];
+                outcome[1] += worker.outcomes.get(kind)[1];
+            }
+        }
+
+        /**
+         * Retrieves the latencies of a kind of operation.
+         *
+         * @param kind the kind of operation.
+         * @return the histogram of its latencies.
+         */
+        public LatencyHistogram getLatencies(Operation.Kind kind) {
+            return latencies.get(kind);
+        }
+
+        /**
+         * Retrieves the throughput of the replay.
+         *
+         * @return the operations run per second by all threads together.
+         */
+        public double getThroughput() {
+            long total = 0;
+            for (LatencyHistogram histogram : latencies.values())
+                total += histogram.getCount();
+            return total * 1e9 / Math.max(elapsedNanos, 1);
+        }
+
+        /**
+         * Returns the report as a table, one line per kind of operation replayed, with latencies in microseconds.
+         *
+         * @return the report.
+         */
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("Load replay | Seed: %d | Threads: %d | Time: %.3f s | Throughput: %.0f ops/s%n",
+                    seed, threads, elapsedNanos / 1e9, getThroughput()));
+            out.append(String.format("%-16s %10s %8s %8s %12s %10s %10s %10s %10s%n",
+                    "Operation", "Count", "Skipped", "Rejected", "ops/s", "p50 us", "p99 us", "p999 us", "max us"));
+            for (Operation.Kind kind : Operation.Kind.values()) {
+                LatencyHistogram histogram = latencies.get(kind);
+                if (histogram.getCount() == 0)
+                    continue;
+                long[] outcome = outcomes.get(kind);
+                out.append(String.format("%-16s %10d %8d %8d %12.0f %10.1f %10.1f %10.1f %10.1f%n",
+                        kind, histogram.getCount(), outcome[0], outcome[1],
+                        histogram.getCount() * 1e9 / Math.max(elapsedNanos, 1),
+                        histogram.percentile(50) / 1e3, histogram.percentile(99) / 1e3,
+                        histogram.percentile(99.9) / 1e3, histogram.getMax() / 1e3));
+            }
+            return out.toString();
+        }
+    }
+}
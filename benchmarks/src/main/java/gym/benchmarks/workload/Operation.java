@@ -0,0 +1,238 @@
+package gym.benchmarks.workload;
+
+import gym.customers.Gender;
+import gym.management.ForumType;
+import gym.management.Sessions.SessionType;
+
+/**
+ * One operation of a synthetic workload, to be replayed against the secretary.
+ * Clients, instructors and sessions are referred to by their index in the order the workload creates them,
+ * so a workload can be generated before any of them exists.
+ */
+public final class Operation {
+    /**
+     * The kinds of operations, each timed separately by the replay.
+     */
+    public enum Kind {
+        HIRE_INSTRUCTOR,
+        NEW_CLIENT,
+        ADD_SESSION,
+        ENROL,
+        NOTIFY_SESSION,
+        NOTIFY_DAY,
+        NOTIFY_ALL,
+        PAY_SALARIES
+    }
+
+    private final Kind kind;
+    private final int target;       // Index of the client, instructor or session the operation creates or concerns
+    private final int other;        // Session of an enrolment, instructor of a session, or qualifications of an instructor
+    private final int amount;       // Balance of a new client or wage of a new instructor
+    private final SessionType type;
+    private final ForumType forum;
+    private final Gender gender;
+    private final String text;      // Birthday of a person, time of a session or date of a notification
+
+    /**
+     * Constructor to create an operation; the factory methods below fill in the fields each kind uses.
+     *
+     * @param kind   the kind of the operation.
+     * @param target the index of the client, instructor or session concerned.
+     * @param other  the second index or the qualifications mask.
+     * @param amount the balance or wage.
+     * @param type   the session type, or null.
+     * @param forum  the forum, or null.
+     * @param gender the gender, or null.
+     * @param text   the birthday, time or date, or null.
+     */
+    private Operation(Kind kind, int target, int other, int amount, SessionType type, ForumType forum, Gender gender, String text) {
+        this.kind = kind;
+        this.target = target;
+        this.other = other;
+        this.amount = amount;
+        this.type = type;
+        this.forum = forum;
+        this.gender = gender;
+        this.text = text;
+    }
+
+    /**
+     * Creates the hiring of an instructor.
+     *
+     * @param instructor     the index of the instructor.
+     * @param wage           the hourly wage.
+     * @param qualifications the session types the instructor may teach, as a mask of type ordinals.
+     * @param gender         the instructor's gender.
+     * @param birthday       the instructor's birthday in the format "dd-MM-yyyy".
+     * @return the operation.
+     */
+    static Operation hireInstructor(int instructor, int wage, int qualifications, Gender gender, String birthday) {
+        return new Operation(Kind.HIRE_INSTRUCTOR, instructor, qualifications, wage, null, null, gender, birthday);
+    }
+
+    /**
+     * Creates the creation and registration of a client.
+     *
+     * @param client   the index of the client.
+     * @param balance  the client's balance.
+     * @param gender   the client's gender.
+     * @param birthday the client's birthday in the format "dd-MM-yyyy".
+     * @return the operation.
+     */
+    static Operation newClient(int client, int balance, Gender gender, String birthday) {
+        return new Operation(Kind.NEW_CLIENT, client, 0, balance, null, null, gender, birthday);
+    }
+
+    /**
+     * Creates the addition of a session.
+     *
+     * @param session     the index of the session.
+     * @param type        the session type.
+     * @param time        the start of the session in the format "dd-MM-yyyy HH:mm".
+     * @param forum       the forum of the session.
+     * @param instructor  the index of the instructor teaching it.
+     * @return the operation.
+     */
+    static Operation addSession(int session, SessionType type, String time, ForumType forum, int instructor) {
+        return new Operation(Kind.ADD_SESSION, session, instructor, 0, type, forum, null, time);
+    }
+
+    /**
+     * Creates the registration of a client to a session.
+     *
+     * @param client  the index of the client.
+     * @param session the index of the session.
+     * @return the operation.
+     */
+    static Operation enrol(int client, int session) {
+        return new Operation(Kind.ENROL, client, session, 0, null, null, null, null);
+    }
+
+    /**
+     * Creates a notification to the clients of a session.
+     *
+     * @param session the index of the session.
+     * @return the operation.
+     */
+    static Operation notifySession(int session) {
+        return new Operation(Kind.NOTIFY_SESSION, session, 0, 0, null, null, null, null);
+    }
+
+    /**
+     * Creates a notification to the clients of a day's sessions.
+     *
+     * @param date the day in the format "dd-MM-yyyy".
+     * @return the operation.
+     */
+    static Operation notifyDay(String date) {
+        return new Operation(Kind.NOTIFY_DAY, 0, 0, 0, null, null, null, date);
+    }
+
+    /**
+     * Creates a notification to every client.
+     *
+     * @return the operation.
+     */
+    static Operation notifyClients() {
+        return new Operation(Kind.NOTIFY_ALL, 0, 0, 0, null, null, null, null);
+    }
+
+    /**
+     * Creates a payroll run.
+     *
+     * @return the operation.
+     */
+    static Operation paySalaries() {
+        return new Operation(Kind.PAY_SALARIES, 0, 0, 0, null, null, null, null);
+    }
+
+    /**
+     * Retrieves the kind of the operation.
+     *
+     * @return the kind.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Retrieves the index of the client, instructor or session the operation creates or concerns.
+     *
+     * @return the index.
+     */
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     * Retrieves the second index of the operation: the session of an enrolment, the instructor of a new session,
+     * or the qualifications of a new instructor as a mask of session type ordinals.
+     *
+     * @return the value.
+     */
+    public int getOther() {
+        return other;
+    }
+
+    /**
+     * Retrieves the balance of a new client or the wage of a new instructor.
+     *
+     * @return the amount.
+     */
+    public int getAmount() {
+        return amount;
+    }
+
+    /**
+     * Retrieves the type of a new session.
+     *
+     * @return the session type, or null for other operations.
+     */
+    public SessionType getType() {
+        return type;
+    }
+
+    /**
+     * Retrieves the forum of a new session.
+     *
+     * @return the forum, or null for other operations.
+     */
+    public ForumType getForum() {
+        return forum;
+    }
+
+    /**
+     * Retrieves the gender of a new person.
+     *
+     * @return the gender, or null for other operations.
+     */
+    public Gender getGender() {
+        return gender;
+    }
+
+    /**
+     * Retrieves the text of the operation: the birthday of a new person, the time of a new session,
+     * or the date of a day's notification.
+     *
+     * @return the text, or null for other operations.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns a string representation of the operation.
+     *
+     * @return a string describing the operation.
+     */
+    public String toString() {
+        StringBuilder out = new StringBuilder(kind.name()).append(' ').append(target);
+        if (kind == Kind.ENROL || kind == Kind.ADD_SESSION)
+            out.append(' ').append(other);
+        if (type != null)
+            out.append(' ').append(type);
+        if (text != null)
+            out.append(' ').append(text);
+        return out.toString();
+    }
+}
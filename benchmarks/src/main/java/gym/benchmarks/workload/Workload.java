@@ -0,0 +1,90 @@
+package gym.benchmarks.workload;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Synthetic workload produced by a {@link WorkloadGenerator}: a population of instructors, clients and sessions
+ * set up before the measurement, followed by the mix of operations that is measured.
+ */
+public class Workload {
+    private final long seed;
+    private final List<Operation> population;
+    private final List<Operation> operations;
+    private final int clients;
+    private final int instructors;
+    private final int sessions;
+
+    /**
+     * Constructor to create a workload.
+     *
+     * @param seed        the seed it was generated from.
+     * @param population  the operations creating the initial population.
+     * @param operations  the operations to measure.
+     * @param clients     the number of clients the workload creates in total.
+     * @param instructors the number of instructors the workload creates.
+     * @param sessions    the number of sessions the workload creates in total.
+     */
+    Workload(long seed, List<Operation> population, List<Operation> operations, int clients, int instructors, int sessions) {
+        this.seed = seed;
+        this.population = population;
+        this.operations = operations;
+        this.clients = clients;
+        this.instructors = instructors;
+        this.sessions = sessions;
+    }
+
+    /**
+     * Retrieves the seed the workload was generated from.
+     *
+     * @return the seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Retrieves the operations creating the initial population, replayed in order before the measurement.
+     *
+     * @return an unmodifiable list of the operations.
+     */
+    public List<Operation> getPopulation() {
+        return Collections.unmodifiableList(population);
+    }
+
+    /**
+     * Retrieves the operations to measure.
+     *
+     * @return an unmodifiable list of the operations, in generation order.
+     */
+    public List<Operation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    /**
+     * Retrieves the number of clients the workload creates, in the population and the measured operations.
+     *
+     * @return the number of clients.
+     */
+    public int getClients() {
+        return clients;
+    }
+
+    /**
+     * Retrieves the number of instructors the workload hires.
+     *
+     * @return the number of instructors.
+     */
+    public int getInstructors() {
+        return instructors;
+    }
+
+    /**
+     * Retrieves the number of sessions the workload creates, in the population and the measured operations.
+     *
+     * @return the number of sessions.
+     */
+    public int getSessions() {
+        return sessions;
+    }
+}
@@ -0,0 +1,249 @@
+package gym.benchmarks.workload;
+
+import gym.customers.Gender;
+import gym.management.ForumType;
+import gym.management.Sessions.SessionType;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Generates reproducible synthetic workloads: the same seed and sizes always give the same operations.
+ * The load is skewed the way a gym's is. Sessions start mostly at the morning and evening peaks,
+ * enrolments and session notifications go mostly to a few hot sessions, and most operations are enrolments.
+ * Sessions are only given to instructors qualified and free at their time, so a replay measures the
+ * secretary rather than rejected bookings.
+ */
+public class WorkloadGenerator {
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final DateTimeFormatter SESSION_TIME = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+    // Ages are counted from a fixed day, so the same seed always gives the same people
+    private static final LocalDate AGE_REFERENCE = LocalDate.of(2024, 1, 1);
+    private static final int FIRST_HOUR = 6;
+    // Relative weight of each start hour from FIRST_HOUR, peaking before and after office hours
+    private static final int[] HOUR_WEIGHTS = {4, 10, 10, 6, 3, 3, 4, 3, 2, 2, 4, 10, 12, 10, 6, 2};
+    // Relative weight of each forum, in ForumType order
+    private static final int[] FORUM_WEIGHTS = {80, 5, 10, 5};
+    // Exponent of the skew towards hot sessions: the lowest 10% of the sessions receive about half the picks
+    private static final double HOT_SKEW = 3.0;
+    // Operations per thousand of each kind in the measured mix, in Operation.Kind order from NEW_CLIENT
+    private static final int[] MIX = {80, 40, 700, 100, 75, 2, 3};
+    private static final int MAX_ATTEMPTS = 10_000;
+
+    private final long seed;
+    private final LocalDate firstDay;
+    private final int days;
+
+    /**
+     * Constructor to create a generator over the four weeks from the first of January 2099.
+     *
+     * @param seed the seed of the workloads.
+     */
+    public WorkloadGenerator(long seed) {
+        this(seed, LocalDate.of(2099, 1, 1), 28);
+    }
+
+    /**
+     * Constructor to create a generator.
+     *
+     * @param seed     the seed of the workloads.
+     * @param firstDay the first day sessions are held, which must be in the future when the workload is replayed.
+     * @param days     the number of days sessions are held on.
+     */
+    public WorkloadGenerator(long seed, LocalDate firstDay, int days) {
+        if (days < 1)
+            throw new IllegalArgumentException("Sessions must be held on at least one day");
+        this.seed = seed;
+        this.firstDay = firstDay;
+        this.days = days;
+    }
+
+    /**
+     * Generates a workload.
+     *
+     * @param clients     the number of clients in the initial population.
+     * @param instructors the number of instructors, all hired in the initial population.
+     * @param sessions    the number of sessions in the initial population.
+     * @param operations  the number of operations to measure.
+     * @return the workload.
+     */
+    public Workload generate(int clients, int instructors, int sessions, int operations) {
+        if (instructors < 1)
+            throw new IllegalArgumentException("A workload needs at least one instructor");
+        return new Run(instructors).generate(clients, sessions, operations);
+    }
+
+    /**
+     * The state of one generation: the random stream and what has been created so far.
+     */
+    private class Run {
+        final SplittableRandom random = new SplittableRandom(seed);
+        // Qualifications are kept as a mask of type ordinals, so only the first 32 types are drawn
+        final SessionType[] types = Arrays.copyOf(SessionType.values(), Math.min(SessionType.values().length, 32));
+        final List<List<Integer>> qualified = new ArrayList<>(); // Instructors by session type ordinal
+        final List<Set<Integer>> booked = new ArrayList<>();     // Hours booked by each instructor, from firstDay
+        final int instructors;
+        int clients;
+        int sessions;
+
+        /**
+         * Constructor to start a generation.
+         *
+         * @param instructors the number of instructors.
+         */
+        Run(int instructors) {
+            this.instructors = instructors;
+            for (int t = 0; t < types.length; t++)
+                qualified.add(new ArrayList<>());
+        }
+
+        /**
+         * Generates the population and the measured operations.
+         *
+         * @param clientCount  the number of clients in the population.
+         * @param sessionCount the number of sessions in the population.
+         * @param operations   the number of operations to measure.
+         * @return the workload.
+         */
+        Workload generate(int clientCount, int sessionCount, int operations) {
+            List<Operation> population = new ArrayList<>(instructors + clientCount + sessionCount);
+            for (int i = 0; i < instructors; i++)
+                population.add(hireInstructor(i));
+            for (int i = 0; i < clientCount; i++)
+                population.add(newClient());
+            for (int i = 0; i < sessionCount; i++)
+                population.add(addSession());
+
+            List<Operation> mix = new ArrayList<>(operations);
+            for (int i = 0; i < operations; i++)
+                mix.add(nextOperation());
+            return new Workload(seed, population, mix, clients, instructors, sessions);
+        }
+
+        /**
+         * Draws the next operation of the measured mix.
+         *
+         * @return the operation.
+         */
+        Operation nextOperation() {
+            Operation.Kind kind = Operation.Kind.values()[Operation.Kind.NEW_CLIENT.ordinal() + weighted(MIX)];
+            // Operations on clients or sessions fall back to creating one while there is none
+            if (kind == Operation.Kind.ENROL && clients == 0)
+                kind = Operation.Kind.NEW_CLIENT;
+            if ((kind == Operation.Kind.ENROL || kind == Operation.Kind.NOTIFY_SESSION) && sessions == 0)
+                kind = Operation.Kind.ADD_SESSION;
+            switch (kind) {
+                case NEW_CLIENT:
+                    return newClient();
+                case ADD_SESSION:
+                    return addSession();
+                case ENROL:
+                    return Operation.enrol(random.nextInt(clients), hotSession());
+                case NOTIFY_SESSION:
+                    return Operation.notifySession(hotSession());
+                case NOTIFY_DAY:
+                    return Operation.notifyDay(firstDay.plusDays(random.nextInt(days)).format(DATE));
+                case NOTIFY_ALL:
+                    return Operation.notifyClients();
+                default:
+                    return Operation.paySalaries();
+            }
+        }
+
+        /**
+         * Creates an instructor qualified for one or two session types.
+         *
+         * @param index the index of the instructor.
+         * @return the hiring operation.
+         */
+        Operation hireInstructor(int index) {
+            int first = random.nextInt(types.length);
+            int second = random.nextInt(types.length);
+            qualified.get(first).add(index);
+            if (second != first)
+                qualified.get(second).add(index);
+            booked.add(new HashSet<>());
+            Gender gender = random.nextBoolean() ? Gender.Male : Gender.Female;
+            return Operation.hireInstructor(index, 40 + random.nextInt(80), (1 << first) | (1 << second), gender, birthday(22, 60));
+        }
+
+        /**
+         * Creates a client of a random gender, aged 18 to 80, with a balance of 100 to 2000.
+         *
+         * @return the client creation operation.
+         */
+        Operation newClient() {
+            Gender gender = random.nextBoolean() ? Gender.Male : Gender.Female;
+            return Operation.newClient(clients++, 100 + random.nextInt(1901), gender, birthday(18, 80));
+        }
+
+        /**
+         * Creates a session at a peak-weighted time, taught by a qualified instructor free at that time.
+         * A type nobody teaches, or an instructor already booked at the time, is drawn again.
+         *
+         * @return the session creation operation.
+         * @throws IllegalStateException if no free instructor is found after many draws.
+         */
+        Operation addSession() {
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                SessionType type = types[random.nextInt(types.length)];
+                List<Integer> candidates = qualified.get(type.ordinal());
+                if (candidates.isEmpty())
+                    continue;
+                int hour = random.nextInt(days) * 24 + FIRST_HOUR + weighted(HOUR_WEIGHTS);
+                int instructor = candidates.get(random.nextInt(candidates.size()));
+                if (!booked.get(instructor).add(hour))
+                    continue;
+                String time = firstDay.atStartOfDay().plusHours(hour).format(SESSION_TIME);
+                ForumType forum = ForumType.values()[weighted(FORUM_WEIGHTS)];
+                return Operation.addSession(sessions++, type, time, forum, instructor);
+            }
+            throw new IllegalStateException("The instructors are fully booked after " + sessions + " sessions");
+        }
+
+        /**
+         * Picks a session created so far, skewed towards the hot sessions at the start of the schedule.
+         *
+         * @return the index of the session.
+         */
+        int hotSession() {
+            return (int) (sessions * Math.pow(random.nextDouble(), HOT_SKEW));
+        }
+
+        /**
+         * Draws a birthday for an age within a range on the reference day, so the person is at least as old
+         * when the workload is replayed.
+         *
+         * @param minAge the minimum age.
+         * @param maxAge the maximum age.
+         * @return the birthday in the format "dd-MM-yyyy".
+         */
+        String birthday(int minAge, int maxAge) {
+            int age = 365 * (minAge + 1) + random.nextInt(365 * (maxAge - minAge));
+            return AGE_REFERENCE.minusDays(age).format(DATE);
+        }
+
+        /**
+         * Draws an index with probability proportional to its weight.
+         *
+         * @param weights the weights.
+         * @return the index drawn.
+         */
+        int weighted(int[] weights) {
+            int total = 0;
+            for (int weight : weights)
+                total += weight;
+            int pick = random.nextInt(total);
+            int i = 0;
+            while (pick >= weights[i])
+                pick -= weights[i++];
+            return i;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package gym.Exception;
+
+/**
+ * Custom exception class to handle scenarios where a session would overlap
+ * another session already booked by the same instructor.
+ */
+public class ScheduleConflictException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Default constructor that initializes the exception with a specific message
+     * indicating that the instructor is already teaching at that time.
+     */
+    public ScheduleConflictException() {
+        super("Error: Instructor is already teaching a session at this time.");
+    }
+
+    /**
+     * Retrieves the exception message.
+     *
+     * @return the detailed exception message.
+     */
+    @Override
+    public String getMessage() {
+        return super.getMessage();
+    }
+
+}
@@ -3,11 +3,15 @@ package gym.customers;
 import java.time.LocalDate;
 import java.time.Period;
 import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
 
 /**
  * Utility class for calculating the age based on a given date of birth.
  */
 public class Age {
+    // The formatter is immutable and thread-safe, so it is built once and shared
+    private static final DateTimeFormatter BIRTH_DAY_FORMAT =
+            DateTimeFormatter.ofPattern("dd-MM-uuuu").withResolverStyle(ResolverStyle.STRICT);
 
     /**
      * Calculates the age of a person based on their birthdate.
@@ -16,15 +20,28 @@ public class Age {
      * @return the calculated age in years.
      */
     public static int getAge(String date) {
-        // Define the date format to match the input string
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-        // Parse the input date string into a LocalDate object
-        LocalDate birthDate = LocalDate.parse(date, formatter);
-        // Get the current date
-        LocalDate currentDate = LocalDate.now();
-        // Calculate the age as the period between the birthdate and the current date
-        Period age = Period.between(birthDate, currentDate);
-        // Return the number of years in the calculated age
-        return age.getYears();
+        return getAge(parseBirthDay(date), GymClock.today());
+    }
+
+    /**
+     * Calculates the age of a person on a given day.
+     *
+     * @param birthDate the birthdate.
+     * @param today     the day on which the age is calculated.
+     * @return the calculated age in years.
+     */
+    public static int getAge(LocalDate birthDate, LocalDate today) {
+        // Calculate the age as the period between the birthdate and the given day
+        return Period.between(birthDate, today).getYears();
+    }
+
+    /**
+     * Parses a birthdate string.
+     *
+     * @param date the birthdate in the format "dd-MM-yyyy".
+     * @return the parsed birthdate.
+     */
+    public static LocalDate parseBirthDay(String date) {
+        return LocalDate.parse(date, BIRTH_DAY_FORMAT);
     }
 }
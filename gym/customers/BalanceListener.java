@@ -0,0 +1,16 @@
+package gym.customers;
+
+/**
+ * Listener notified whenever the balance of a person changes, such as an index kept over the balances.
+ * It is called on the thread that changed the balance, after the change, and must not block for long.
+ */
+public interface BalanceListener {
+    /**
+     * Called after a person's balance has changed.
+     *
+     * @param person   the person, or any of the roles sharing their balance.
+     * @param previous the balance before the change.
+     * @param current  the balance after the change.
+     */
+    void balanceChanged(Person person, int previous, int current);
+}
@@ -1,7 +1,11 @@
 package gym.customers;
 
+import gym.management.ForumType;
 import gym.management.Member;
-import java.util.LinkedList;
+import gym.management.Notification;
+import gym.management.Sender;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -9,8 +13,12 @@ import java.util.List;
  * A Client receives notifications and maintains their personal information and balance.
  */
 public class Client extends Person implements Member {
-    // List to store notifications sent to the client
-    protected List<String> notifications = new LinkedList<>();
+    // Notifications sent to the client, shared with the other recipients
+    protected final Inbox notifications = new Inbox();
+    // Cached forum mask packed as (epoch day * 256 + mask), refreshed when the day changes
+    private volatile long forumCache = Long.MIN_VALUE;
+    // Sender delivering the client's notifications, waited for before they are read
+    private volatile Sender sender;
 
     /**
      * Private constructor to create a Client from an existing Person.
@@ -34,6 +42,22 @@ public class Client extends Person implements Member {
         return new Client(person);
     }
 
+    /**
+     * Retrieves the mask of all forum types the Client belongs to.
+     * The mask is recomputed only when the day changes, as the age bracket can only change then.
+     *
+     * @return a mask with the bit of every matching forum type set.
+     */
+    public int getForumMask() {
+        long today = GymClock.epochDay();
+        long cache = forumCache;
+        if (cache >>> 8 == today)
+            return (int) (cache & 0xFF);
+        int mask = ForumType.maskFor(this.getGender(), this.getAge());
+        forumCache = (today << 8) | mask;
+        return mask;
+    }
+
     /**
      * Updates the Client with a new notification (newsletter).
      *
@@ -41,7 +65,18 @@ public class Client extends Person implements Member {
      */
     @Override
     public void update(String newsletter) {
-        notifications.add(newsletter);
+        receive(new Notification(0, newsletter, GymClock.getClock().millis()));
+    }
+
+    /**
+     * Delivers a notification to the Client, keeping the shared instance rather than a copy.
+     * Notifications may be delivered from the gym's delivery threads.
+     *
+     * @param notification the notification to add to the Client's notifications list.
+     */
+    @Override
+    public void receive(Notification notification) {
+        notifications.append(notification);
     }
 
     /**
@@ -50,15 +85,80 @@ public class Client extends Person implements Member {
      * @return a StringBuilder containing the notifications in a readable format.
      */
     public StringBuilder getNotifications() {
-        StringBuilder a = new StringBuilder("[");
-        for (String s: notifications) {
-            a.append(s);
-            if(!s.equals(notifications.get(notifications.size() - 1))) {
-                a.append(", ");
-            }
+        awaitDelivery();
+        return notifications.render();
+    }
+
+    /**
+     * Retrieves the notifications received by the Client, oldest first.
+     *
+     * @return an unmodifiable copy of the notifications' messages.
+     */
+    public List<String> getNotificationList() {
+        awaitDelivery();
+        List<Notification> received = notifications.inbox(0, Integer.MAX_VALUE);
+        List<String> messages = new ArrayList<>(received.size());
+        for (Notification notification : received)
+            messages.add(notification.getMessage());
+        return Collections.unmodifiableList(messages);
+    }
+
+    /**
+     * Retrieves a page of the notifications received by the Client, oldest first.
+     *
+     * @param offset the position of the first notification of the page, 0 being the oldest.
+     * @param limit  the maximum number of notifications in the page.
+     * @return an unmodifiable list of the notifications in the page.
+     */
+    public List<Notification> inbox(int offset, int limit) {
+        awaitDelivery();
+        return notifications.inbox(offset, limit);
+    }
+
+    /**
+     * Retrieves the notifications received by the Client since a given sequence number, oldest first.
+     *
+     * @param seq the sequence number of the first notification wanted.
+     * @return an unmodifiable list of the notifications with this sequence number or a later one.
+     */
+    public List<Notification> since(long seq) {
+        awaitDelivery();
+        return notifications.since(seq);
+    }
+
+    /**
+     * Retrieves the Client's inbox.
+     *
+     * @return the Inbox holding the Client's notifications.
+     */
+    public Inbox getInbox() {
+        return notifications;
+    }
+
+    /**
+     * Records the sender the Client is registered with, so that reads wait for its deliveries.
+     *
+     * @param sender the sender the Client is registered with.
+     */
+    @Override
+    public void subscribed(Sender sender) {
+        this.sender = sender;
+    }
+
+    /**
+     * Waits until the notifications already sent by the gym to this Client are delivered, so that they show up
+     * when read right after being sent. Deliveries to other clients are not waited for.
+     * Must not be called while holding the inbox's lock, which delivery needs.
+     */
+    private void awaitDelivery() {
+        Sender current = sender;
+        if (current == null)
+            return;
+        try {
+            current.awaitDelivery(this);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Read what has been delivered so far
         }
-        a.append("]");
-        return a;
     }
 
     /**
@@ -68,10 +168,7 @@ public class Client extends Person implements Member {
      */
     public String toString()
     {
-        return "ID: " + this.getID() + " | Name: "
-                + this.getName() + " | Gender: " + this.getGender() +
-                " | Birthday: " + this.getbDay() + " | Age: " + this.getAge() +
-                " | Balance: " + this.getBalance();
+        return appendTo(new StringBuilder(96)).toString();
     }
 }
 
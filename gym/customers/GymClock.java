@@ -0,0 +1,142 @@
+package gym.customers;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * Shared source of the current date and time for the gym system.
+ * The local day and zone offset are cached until the next local midnight or offset transition,
+ * so reading the current epoch day or epoch minute only reads the clock's milliseconds.
+ * Tests can replace the underlying clock with a fixed or offset one.
+ */
+public class GymClock {
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final long MILLIS_PER_DAY = 24 * 60 * MILLIS_PER_MINUTE;
+
+    private static volatile Clock clock = Clock.systemDefaultZone();
+    // Cached view of the current local day, replaced whenever it expires
+    private static volatile Today today = Today.EXPIRED;
+
+    /**
+     * Replaces the clock used by the gym system.
+     *
+     * @param newClock the clock to use from now on.
+     */
+    public static void setClock(Clock newClock) {
+        clock = newClock;
+        today = Today.EXPIRED;
+    }
+
+    /**
+     * Retrieves the clock used by the gym system.
+     *
+     * @return the current clock.
+     */
+    public static Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Retrieves the current local date-time as an epoch minute.
+     *
+     * @return the current local time as minutes since 01-01-1970 00:00.
+     */
+    public static long epochMinute() {
+        long now = clock.millis();
+        return Math.floorDiv(now + current(now).offsetMillis, MILLIS_PER_MINUTE);
+    }
+
+    /**
+     * Retrieves the current local date as an epoch day.
+     *
+     * @return the number of days between 01-01-1970 and today.
+     */
+    public static long epochDay() {
+        return current(clock.millis()).epochDay;
+    }
+
+    /**
+     * Retrieves the current local date.
+     *
+     * @return today's date.
+     */
+    public static LocalDate today() {
+        return current(clock.millis()).date;
+    }
+
+    /**
+     * Retrieves the cached day covering a given instant, refreshing it if it has expired.
+     *
+     * @param now the instant in epoch milliseconds.
+     * @return the day covering the instant.
+     */
+    private static Today current(long now) {
+        Today cached = today;
+        if (now >= cached.validFrom && now < cached.validUntil)
+            return cached;
+        return refresh(now);
+    }
+
+    /**
+     * Computes the local day covering a given instant and caches it.
+     *
+     * @param now the instant in epoch milliseconds.
+     * @return the new cached day.
+     */
+    private static Today refresh(long now) {
+        Clock source = clock;
+        ZoneRules rules = source.getZone().getRules();
+        Instant instant = Instant.ofEpochMilli(now);
+        long offsetMillis = rules.getOffset(instant).getTotalSeconds() * 1000L;
+        long epochDay = Math.floorDiv(now + offsetMillis, MILLIS_PER_DAY);
+
+        // The day is valid from the later of its midnight and the last offset transition
+        long validFrom = epochDay * MILLIS_PER_DAY - offsetMillis;
+        ZoneOffsetTransition previous = rules.previousTransition(instant);
+        if (previous != null)
+            validFrom = Math.max(validFrom, previous.toEpochSecond() * 1000L);
+        // ... until the earlier of the next midnight and the next offset transition
+        long validUntil = (epochDay + 1) * MILLIS_PER_DAY - offsetMillis;
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        if (next != null)
+            validUntil = Math.min(validUntil, next.toEpochSecond() * 1000L);
+
+        Today fresh = new Today(epochDay, LocalDate.ofEpochDay(epochDay), offsetMillis, validFrom, validUntil);
+        if (source == clock)
+            today = fresh;
+        return fresh;
+    }
+
+    /**
+     * Immutable snapshot of a local day and the time zone offset that applies during it.
+     */
+    private static class Today {
+        static final Today EXPIRED = new Today(0, LocalDate.EPOCH, 0, Long.MAX_VALUE, Long.MIN_VALUE);
+
+        final long epochDay;
+        final LocalDate date;
+        final long offsetMillis;
+        final long validFrom;
+        final long validUntil;
+
+        /**
+         * Constructor to initialize a Today snapshot.
+         *
+         * @param epochDay     the local day as days since 01-01-1970.
+         * @param date         the local day as a date.
+         * @param offsetMillis the offset from UTC in milliseconds.
+         * @param validFrom    the first epoch millisecond covered by the snapshot.
+         * @param validUntil   the epoch millisecond at which the snapshot expires.
+         */
+        Today(long epochDay, LocalDate date, long offsetMillis, long validFrom, long validUntil) {
+            this.epochDay = epochDay;
+            this.date = date;
+            this.offsetMillis = offsetMillis;
+            this.validFrom = validFrom;
+            this.validUntil = validUntil;
+        }
+    }
+}
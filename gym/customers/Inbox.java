@@ -0,0 +1,310 @@
+package gym.customers;
+
+import gym.management.Notification;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Inbox of the notifications received by a client, oldest first.
+ * Notifications are appended to a growing array, so reading a page or rendering the whole inbox
+ * takes time proportional to what is read. Every notification gets a sequence number from 0 upwards in
+ * the order it arrived, which readers can use to fetch only what arrived since their last read.
+ * The inbox keeps notifications according to its {@link InboxRetention}: the oldest are dropped once there are
+ * too many, and expired ones when the inbox is compacted. Notifications up to a read mark count as read.
+ * All methods are synchronized, as notifications may be delivered from the gym's delivery threads.
+ */
+public class Inbox {
+    private static final Notification[] EMPTY = new Notification[0];
+    // Retention of the inboxes that have no policy of their own
+    private static volatile InboxRetention defaultRetention = InboxRetention.UNLIMITED;
+
+    // Retained notifications are entries[start] to entries[start + size - 1]
+    private Notification[] entries = EMPTY;
+    private int start;
+    private int size;
+    private long firstSeq;   // Sequence number of entries[start]
+    private long readSeq;    // Notifications with a lower sequence number have been read
+    private long textLength; // Total length of the retained messages, used to size rendering buffers
+    private InboxRetention retention; // Null to follow the default retention
+
+    /**
+     * Sets the retention of every inbox that has no retention of its own.
+     * Inboxes apply a lower count limit on the next notification they receive or when compacted.
+     *
+     * @param retention the default retention policy.
+     */
+    public static void setDefaultRetention(InboxRetention retention) {
+        defaultRetention = retention;
+    }
+
+    /**
+     * Retrieves the retention of inboxes that have no retention of their own.
+     *
+     * @return the default retention policy.
+     */
+    public static InboxRetention getDefaultRetention() {
+        return defaultRetention;
+    }
+
+    /**
+     * Sets the retention of this inbox, dropping the oldest notifications at once if there are too many.
+     *
+     * @param retention the retention policy, or null to follow the default retention.
+     */
+    public synchronized void setRetention(InboxRetention retention) {
+        this.retention = retention;
+        enforceCount(retention());
+    }
+
+    /**
+     * Retrieves the retention set on this inbox itself.
+     *
+     * @return the inbox's own retention policy, or null if it follows the default one.
+     */
+    public synchronized InboxRetention ownRetention() {
+        return retention;
+    }
+
+    /**
+     * Retrieves the retention that applies to this inbox.
+     *
+     * @return the inbox's own retention policy, or the default one.
+     */
+    public synchronized InboxRetention retention() {
+        return retention != null ? retention : defaultRetention;
+    }
+
+    /**
+     * Appends a notification to the inbox, dropping the oldest notification if the inbox is full.
+     *
+     * @param notification the notification received.
+     * @return the sequence number given to the notification.
+     */
+    public synchronized long append(Notification notification) {
+        if (start + size == entries.length)
+            makeRoom();
+        entries[start + size++] = notification;
+        textLength += notification.getMessage().length();
+        enforceCount(retention());
+        return firstSeq + size - 1;
+    }
+
+    /**
+     * Drops the notifications that have expired according to the inbox's retention, and releases
+     * the unused part of the inbox's storage.
+     *
+     * @param now the current time in epoch milliseconds.
+     * @return the number of notifications dropped.
+     */
+    public synchronized int compact(long now) {
+        int before = size;
+        InboxRetention policy = retention();
+        enforceCount(policy);
+        long cutoff = policy.cutoff(now);
+        while (size > 0 && entries[start].getTime() < cutoff)
+            dropOldest();
+        // Shrink storage that is mostly empty
+        if (entries.length > 4 && size <= entries.length / 4) {
+            Notification[] kept = size == 0 ? EMPTY : new Notification[Math.max(4, size * 2)];
+            System.arraycopy(entries, start, kept, 0, size);
+            entries = kept;
+            start = 0;
+        }
+        return before - size;
+    }
+
+    /**
+     * Retrieves the number of notifications in the inbox.
+     *
+     * @return the number of notifications.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the number of notifications the inbox can hold before its storage grows.
+     *
+     * @return the storage capacity.
+     */
+    public synchronized int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Retrieves the sequence number that the next notification will get.
+     * Passing it to {@link #since(long)} later returns exactly the notifications that arrived in between.
+     *
+     * @return the next sequence number.
+     */
+    public synchronized long nextSeq() {
+        return firstSeq + size;
+    }
+
+    /**
+     * Retrieves the sequence number of the oldest retained notification,
+     * or of the next notification if the inbox is empty.
+     *
+     * @return the first sequence number.
+     */
+    public synchronized long firstSeq() {
+        return firstSeq;
+    }
+
+    /**
+     * Retrieves the read mark: the notifications with a lower sequence number have been read.
+     *
+     * @return the sequence number of the first unread notification.
+     */
+    public synchronized long readSeq() {
+        return readSeq;
+    }
+
+    /**
+     * Restores the sequence numbers of an empty inbox being rebuilt from saved state,
+     * before its notifications are appended again.
+     *
+     * @param firstSeq the sequence number of the first notification to be appended.
+     * @param readSeq  the read mark.
+     * @throws IllegalStateException if the inbox is not empty.
+     */
+    public synchronized void restoreSequence(long firstSeq, long readSeq) {
+        if (size > 0)
+            throw new IllegalStateException("Only an empty inbox can be restored");
+        this.firstSeq = firstSeq;
+        this.readSeq = readSeq;
+    }
+
+    /**
+     * Marks the notifications up to and including a sequence number as read.
+     *
+     * @param seq the sequence number of the last notification read.
+     */
+    public synchronized void markRead(long seq) {
+        readSeq = Math.max(readSeq, Math.min(seq + 1, firstSeq + size));
+    }
+
+    /**
+     * Marks every notification received so far as read.
+     */
+    public synchronized void markAllRead() {
+        readSeq = firstSeq + size;
+    }
+
+    /**
+     * Checks whether the notification with a given sequence number has been read.
+     *
+     * @param seq the sequence number of the notification.
+     * @return true if the notification has been read, false otherwise.
+     */
+    public synchronized boolean isRead(long seq) {
+        return seq < readSeq;
+    }
+
+    /**
+     * Retrieves the number of retained notifications that have not been read.
+     *
+     * @return the number of unread notifications.
+     */
+    public synchronized int unreadCount() {
+        return (int) (firstSeq + size - Math.max(readSeq, firstSeq));
+    }
+
+    /**
+     * Retrieves a page of notifications, oldest first.
+     *
+     * @param offset the position of the first notification of the page, 0 being the oldest retained one.
+     * @param limit  the maximum number of notifications in the page.
+     * @return an unmodifiable list of the notifications in the page, empty if the offset is past the end.
+     * @throws IllegalArgumentException if the offset or the limit is negative.
+     */
+    public synchronized List<Notification> inbox(int offset, int limit) {
+        if (offset < 0 || limit < 0)
+            throw new IllegalArgumentException("Offset and limit must not be negative");
+        if (offset >= size || limit == 0)
+            return Collections.emptyList();
+        int end = (int) Math.min((long) offset + limit, size);
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOfRange(entries, start + offset, start + end)));
+    }
+
+    /**
+     * Retrieves the retained notifications that arrived since a given sequence number, oldest first.
+     *
+     * @param seq the sequence number of the first notification wanted, such as a value of {@link #nextSeq()}.
+     * @return an unmodifiable list of the notifications with this sequence number or a later one.
+     */
+    public synchronized List<Notification> since(long seq) {
+        long from = Math.max(seq - firstSeq, 0);
+        if (from >= size)
+            return Collections.emptyList();
+        return Collections.unmodifiableList(Arrays.asList(Arrays.copyOfRange(entries, start + (int) from, start + size)));
+    }
+
+    /**
+     * Runs an action on every retained notification, oldest first.
+     *
+     * @param action the action to run; it must not access the inbox.
+     */
+    public synchronized void forEach(Consumer<? super Notification> action) {
+        for (int i = start; i < start + size; i++)
+            action.accept(entries[i]);
+    }
+
+    /**
+     * Renders the messages of the inbox as a bracketed, comma separated list, such as "[first, second]".
+     * The builder is sized once from the known total length of the messages.
+     *
+     * @return a StringBuilder containing the rendered messages.
+     */
+    public synchronized StringBuilder render() {
+        StringBuilder out = new StringBuilder((int) Math.min(textLength + 2L * size + 2, Integer.MAX_VALUE - 8));
+        out.append('[');
+        for (int i = start; i < start + size; i++) {
+            if (i > start)
+                out.append(", ");
+            out.append(entries[i].getMessage());
+        }
+        return out.append(']');
+    }
+
+    /**
+     * Makes room for one more notification at the end of the storage, reusing the slots freed at its start
+     * when they make up at least half of it and growing the storage otherwise.
+     */
+    private void makeRoom() {
+        if (start > 0 && size <= entries.length / 2) {
+            System.arraycopy(entries, start, entries, 0, size);
+            Arrays.fill(entries, size, start + size, null);
+        } else {
+            Notification[] grown = new Notification[Math.max(4, size * 2)];
+            System.arraycopy(entries, start, grown, 0, size);
+            entries = grown;
+        }
+        start = 0;
+    }
+
+    /**
+     * Drops the oldest notifications until the inbox holds no more than a policy allows.
+     *
+     * @param policy the retention policy to apply.
+     */
+    private void enforceCount(InboxRetention policy) {
+        while (size > policy.getMaxEntries())
+            dropOldest();
+    }
+
+    /**
+     * Drops the oldest retained notification.
+     */
+    private void dropOldest() {
+        textLength -= entries[start].getMessage().length();
+        entries[start++] = null;
+        size--;
+        firstSeq++;
+        if (size == 0)
+            start = 0;
+    }
+}
@@ -0,0 +1,82 @@
+package gym.customers;
+
+import java.time.Duration;
+
+/**
+ * Immutable retention policy of an inbox: how many notifications it keeps and for how long.
+ * When an inbox holds more notifications than allowed, the oldest are dropped on arrival of new ones;
+ * notifications older than the maximum age are dropped when the inbox is compacted.
+ */
+public class InboxRetention {
+    // Policy keeping every notification forever
+    public static final InboxRetention UNLIMITED = new InboxRetention(Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    private final int maxEntries;
+    private final long maxAgeMillis;
+
+    /**
+     * Constructor to create a retention policy.
+     *
+     * @param maxEntries   the maximum number of notifications kept.
+     * @param maxAgeMillis the maximum age of the notifications kept, in milliseconds.
+     */
+    private InboxRetention(int maxEntries, long maxAgeMillis) {
+        this.maxEntries = maxEntries;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * Static factory method to create a retention policy.
+     *
+     * @param maxEntries the maximum number of notifications kept, at least 1.
+     * @param maxAge     the maximum age of the notifications kept, or null to keep them regardless of age.
+     * @return the retention policy.
+     * @throws IllegalArgumentException if the maximum number is below 1 or the age is negative.
+     */
+    public static InboxRetention of(int maxEntries, Duration maxAge) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("An inbox must keep at least one notification");
+        if (maxAge != null && maxAge.isNegative())
+            throw new IllegalArgumentException("The maximum age must not be negative");
+        long maxAgeMillis = maxAge == null ? Long.MAX_VALUE : maxAge.toMillis();
+        return new InboxRetention(maxEntries, maxAgeMillis);
+    }
+
+    /**
+     * Retrieves the maximum number of notifications kept.
+     *
+     * @return the maximum number of notifications.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Retrieves the maximum age of the notifications kept.
+     *
+     * @return the maximum age in milliseconds, Long.MAX_VALUE for no limit.
+     */
+    public long getMaxAgeMillis() {
+        return maxAgeMillis;
+    }
+
+    /**
+     * Computes the time before which notifications have expired.
+     *
+     * @param now the current time in epoch milliseconds.
+     * @return the expiry cutoff in epoch milliseconds; notifications sent before it have expired.
+     */
+    public long cutoff(long now) {
+        return maxAgeMillis == Long.MAX_VALUE || now - maxAgeMillis > now ? Long.MIN_VALUE : now - maxAgeMillis;
+    }
+
+    /**
+     * Returns a string representation of the retention policy.
+     *
+     * @return a string describing the limits.
+     */
+    public String toString() {
+        return "Max notifications: " + (maxEntries == Integer.MAX_VALUE ? "unlimited" : maxEntries) +
+                " | Max age: " + (maxAgeMillis == Long.MAX_VALUE ? "unlimited" : Duration.ofMillis(maxAgeMillis));
+    }
+}
@@ -1,16 +1,23 @@
 package gym.customers;
 
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Represents a Person with attributes such as name, balance, gender, birthdate, and a unique ID.
  */
 public class Person {
     // Attributes of the Person class
     private String name;
-    protected int[] balance = new int[1]; // Balance stored as a single-element array for shared updates
+    protected AtomicInteger balance; // Balance shared with the roles created from this person, updated atomically
     private Gender gender;
     final private String BIRTH_DAY;
+    final private LocalDate birthDate; // Parsed once from BIRTH_DAY
     final private int ID;
-    private static int countPerson; // Counter for generating unique IDs
+    // Cached age packed as (epoch day * 256 + age), recomputed when the day changes
+    private volatile long ageCache = Long.MIN_VALUE;
+    private static final AtomicInteger countPerson = new AtomicInteger(); // Counter for generating unique IDs
+    private static volatile BalanceListener balanceListener; // Notified of every balance change, if set
 
 
     /**
@@ -23,10 +30,46 @@ public class Person {
      */
     public Person(String name, int balance, Gender gender, String bDay) {
         this.name = name;
-        this.balance[0] = balance;
+        this.balance = new AtomicInteger(balance);
         this.gender = gender;
         this.BIRTH_DAY = bDay;
-        ID = 1110 + ++countPerson; // Generates a unique ID starting from 1111
+        this.birthDate = Age.parseBirthDay(bDay);
+        ID = 1110 + countPerson.incrementAndGet(); // Generates a unique ID starting from 1111
+    }
+
+    /**
+     * Constructor to rebuild a Person with a known ID, such as when restoring saved gym state.
+     *
+     * @param id        the unique ID of the person.
+     * @param name      the name of the person.
+     * @param balance   the balance of the person.
+     * @param gender    the gender of the person.
+     * @param bDay      the birthdate of the person in the format "dd-MM-yyyy".
+     * @param birthDate the birthdate of the person, already parsed.
+     */
+    private Person(int id, String name, int balance, Gender gender, String bDay, LocalDate birthDate) {
+        this.name = name;
+        this.balance = new AtomicInteger(balance);
+        this.gender = gender;
+        this.BIRTH_DAY = bDay;
+        this.birthDate = birthDate;
+        this.ID = id;
+        countPerson.accumulateAndGet(id - 1110, Math::max); // Keeps newly generated IDs unique
+    }
+
+    /**
+     * Static factory method to rebuild a Person with a known ID without parsing any text.
+     *
+     * @param id        the unique ID of the person.
+     * @param name      the name of the person.
+     * @param balance   the balance of the person.
+     * @param gender    the gender of the person.
+     * @param bDay      the birthdate of the person in the format "dd-MM-yyyy".
+     * @param birthDate the birthdate of the person, already parsed.
+     * @return the restored Person.
+     */
+    public static Person restore(int id, String name, int balance, Gender gender, String bDay, LocalDate birthDate) {
+        return new Person(id, name, balance, gender, bDay, birthDate);
     }
 
     /**
@@ -39,16 +82,35 @@ public class Person {
         this.balance = person.balance;
         this.gender = person.getGender();
         this.BIRTH_DAY = person.getbDay();
+        this.birthDate = person.birthDate;
+        this.ageCache = person.ageCache;
         this.ID = person.getID();
     }
 
     /**
-     * Calculates and retrieves the person's age based on their birthdate.
+     * Retrieves the person's age based on their birthdate.
+     * The age is calculated once per day and served from a cache in between.
      *
      * @return the age of the person.
      */
     public int getAge() {
-        return Age.getAge(this.BIRTH_DAY); // Delegates age calculation to the Age class
+        long today = GymClock.epochDay();
+        long cache = ageCache;
+        if (cache >>> 8 == today)
+            return (int) (cache & 0xFF);
+        int age = Age.getAge(birthDate, GymClock.today()); // Delegates age calculation to the Age class
+        if (age >= 0 && age <= 0xFF)
+            ageCache = (today << 8) | age;
+        return age;
+    }
+
+    /**
+     * Retrieves the person's birthdate.
+     *
+     * @return the birthdate as a LocalDate.
+     */
+    public LocalDate getBirthDate() {
+        return this.birthDate;
     }
 
     /**
@@ -75,7 +137,7 @@ public class Person {
      * @return the current balance.
      */
     public int getBalance() {
-        return this.balance[0];
+        return this.balance.get();
     }
 
     /**
@@ -84,7 +146,26 @@ public class Person {
      * @param paying the amount to deduct from the balance.
      */
     public void reduceBalance(int paying) {
-        this.balance[0] -= paying;
+        int current = this.balance.addAndGet(-paying);
+        balanceChanged(current + paying, current);
+    }
+
+    /**
+     * Reduces the person's balance by a specified amount, unless the balance does not cover it.
+     * The check and the deduction happen atomically, so concurrent payments never overdraw the balance.
+     *
+     * @param paying the amount to deduct from the balance.
+     * @return true if the amount was deducted, false if the balance was too low.
+     */
+    public boolean tryReduceBalance(int paying) {
+        int current;
+        do {
+            current = this.balance.get();
+            if (current < paying)
+                return false;
+        } while (!this.balance.compareAndSet(current, current - paying));
+        balanceChanged(current, current - paying);
+        return true;
     }
 
     /**
@@ -93,7 +174,29 @@ public class Person {
      * @param paying the amount to add to the balance.
      */
     public void increaseBalance(int paying) {
-        this.balance[0] += paying;
+        int current = this.balance.addAndGet(paying);
+        balanceChanged(current - paying, current);
+    }
+
+    /**
+     * Sets the listener notified whenever the balance of any person changes.
+     *
+     * @param listener the listener, or null to stop notifying.
+     */
+    public static void setBalanceListener(BalanceListener listener) {
+        balanceListener = listener;
+    }
+
+    /**
+     * Notifies the balance listener, if any, of a change of this person's balance.
+     *
+     * @param previous the balance before the change.
+     * @param current  the balance after the change.
+     */
+    private void balanceChanged(int previous, int current) {
+        BalanceListener listener = balanceListener;
+        if (listener != null)
+            listener.balanceChanged(this, previous, current);
     }
 
     /**
@@ -114,6 +217,19 @@ public class Person {
         return this.ID;
     }
 
+    /**
+     * Appends the person's details to a buffer, in the format shared by the string representations of their roles.
+     * Numbers are appended as digits directly, so no intermediate strings are built.
+     *
+     * @param out the buffer to append to.
+     * @return the buffer.
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        return out.append("ID: ").append(this.getID()).append(" | Name: ").append(this.getName())
+                .append(" | Gender: ").append(this.getGender().name()).append(" | Birthday: ").append(this.getbDay())
+                .append(" | Age: ").append(this.getAge()).append(" | Balance: ").append(this.getBalance());
+    }
+
     /**
      * Compares this person with another object for equality based on their unique IDs.
      *
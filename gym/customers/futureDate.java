@@ -1,8 +1,8 @@
 package gym.customers;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import gym.management.CustomDate;
+
+import java.time.format.DateTimeParseException;
 
 /**
  * Utility class for validating if a given date is in the future.
@@ -10,27 +10,29 @@ import java.util.Date;
 public class futureDate {
     /**
      * Checks if a given date string represents a date that is in the future compared to the current date.
+     * Note that, as it has always done, it answers true for a date that has already passed; see {@link #isPast(long)}.
      *
      * @param inputDate the date string in the format "dd-MM-yyyy HH:mm".
      * @return true if the date is in the future, false otherwise or if the input is invalid.
      */
     public static boolean isDateInFuture(String inputDate) {
-
-        // Define the expected date format
-        SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yyyy HH:mm");
-        dateFormat.setLenient(false); // Enforce strict date validation
-
         try {
-            // Parse the input date string into a Date object
-            Date parsedDate = dateFormat.parse(inputDate);
-            // Get the current date and time
-            Date currentDate = new Date();
-            // Check if the parsed date is before the current date
-            return parsedDate.before(currentDate);
-
-        } catch (ParseException e) {
+            return isPast(CustomDate.parseSessionTime(inputDate));
+        } catch (DateTimeParseException e) {
             // Return false if the date string is invalid or cannot be parsed
             return false;
         }
     }
+
+    /**
+     * Checks if a given epoch minute is before the current minute, such as the time of a session that has
+     * already started. The check only compares primitives, so it neither parses nor allocates.
+     *
+     * @param epochMinute the date-time as minutes since 01-01-1970 00:00, in local time.
+     * @return true if the date is in the past, false if it is now or in the future.
+     */
+    public static boolean isPast(long epochMinute) {
+        // Check if the given date is before the current date
+        return epochMinute < GymClock.epochMinute();
+    }
 }
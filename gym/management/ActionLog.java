@@ -0,0 +1,484 @@
+package gym.management;
+
+import gym.customers.GymClock;
+import gym.customers.Person;
+import gym.management.Sessions.Session;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Bounded, append-only log of the actions performed in the gym.
+ * Each entry is stored as an action type plus its fields in a fixed-size ring buffer of parallel arrays,
+ * so recording an action is a handful of array stores and allocates nothing.
+ * The text of an entry is only rendered when the history is printed.
+ * When the ring is full its oldest segment is either spilled to a file, if one is configured, or dropped.
+ * Each spilled segment is summarised by its file offset, time range and action types, so a {@link HistoryQuery}
+ * seeks straight to its cursor and skips the segments that cannot match without reading them.
+ * All operations are synchronized, so actions may be recorded from several threads; only the reading of the
+ * spill file by a query happens outside the lock, on the part of the file written before the read started.
+ */
+public class ActionLog {
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int SEGMENTS = 8;
+    private static final int SCAN_BUDGET = 1 << 14; // Entries a query examines per call, bounding how long it holds the lock
+    private static final int SPILL_HEADER = 33;      // Bytes of a spilled entry before its members: seq, time, type, IDs, lengths
+    private static final ActionType[] TYPES = ActionType.values();
+
+    // Ring buffer of entries, indexed by sequence number modulo the capacity
+    private final ActionType[] types;
+    private final Person[] persons;
+    private final Session[] sessions;
+    private final String[] texts;
+    private final long[] values;
+    private final long[] times;
+    private final int mask;
+    private final int segmentSize;
+
+    private long next;        // Sequence number of the next entry
+    private long memoryStart; // Sequence number of the oldest entry still in the ring
+    private long spilled;     // Number of entries written to the current spill file
+    private long dropped;     // Number of entries released without being kept anywhere
+    private Path spillFile;
+    private DataOutputStream spillOut;
+    private long spillStart;  // Sequence number of the first entry in the spill file
+    private long spillBytes;  // Number of bytes written to the spill file
+    // Summaries of the spilled segments, indexed by segment number within the spill file
+    private long[] segmentOffsets = new long[16];
+    private long[] segmentMinTimes = new long[16];
+    private long[] segmentMaxTimes = new long[16];
+    private long[] segmentTypes = new long[16];
+    private final StringBuilder line = new StringBuilder(128);
+
+    /**
+     * Constructor to create an ActionLog with the default capacity.
+     */
+    public ActionLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor to create an ActionLog holding a given number of entries in memory.
+     *
+     * @param capacity the number of entries kept in memory, rounded up to a power of two.
+     */
+    public ActionLog(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, SEGMENTS) - 1) << 1;
+        types = new ActionType[size];
+        persons = new Person[size];
+        sessions = new Session[size];
+        texts = new String[size];
+        values = new long[size];
+        times = new long[size];
+        mask = size - 1;
+        segmentSize = size / SEGMENTS;
+    }
+
+    /**
+     * Records an action.
+     *
+     * @param type    the type of the action.
+     * @param person  the person the action concerns, or null.
+     * @param session the session the action concerns, or null.
+     * @param text    the message of the action, or null.
+     * @param value   the numeric value of the action, such as a price, wage or epoch day.
+     */
+    public void append(ActionType type, Person person, Session session, String text, long value) {
+        appendAt(GymClock.getClock().millis(), type, person, session, text, value);
+    }
+
+    /**
+     * Records an action that happened at a given time.
+     *
+     * @param time    the time of the action in epoch milliseconds.
+     * @param type    the type of the action.
+     * @param person  the person the action concerns, or null.
+     * @param session the session the action concerns, or null.
+     * @param text    the message of the action, or null.
+     * @param value   the numeric value of the action, such as a price, wage or epoch day.
+     */
+    public synchronized void appendAt(long time, ActionType type, Person person, Session session, String text, long value) {
+        if (next - memoryStart == types.length)
+            releaseOldestSegment();
+        int i = (int) (next & mask);
+        types[i] = type;
+        persons[i] = person;
+        sessions[i] = session;
+        texts[i] = text;
+        values[i] = value;
+        times[i] = time;
+        next++;
+    }
+
+    /**
+     * Starts spilling the oldest segments of the ring to a file instead of dropping them.
+     * Entries already dropped before this call are not recovered.
+     *
+     * @param file the file to append spilled entries to.
+     * @throws IOException if the file cannot be opened.
+     */
+    public synchronized void spillTo(Path file) throws IOException {
+        closeSpill();
+        dropped += spilled; // Entries in a previous spill file are no longer reachable
+        spillOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)));
+        spillFile = file;
+        spilled = 0;
+        spillStart = memoryStart;
+        spillBytes = 0;
+    }
+
+    /**
+     * Retrieves the total number of actions recorded, including spilled and dropped ones.
+     *
+     * @return the number of recorded actions.
+     */
+    public synchronized long size() {
+        return next;
+    }
+
+    /**
+     * Retrieves the number of actions that were dropped from memory without being spilled.
+     *
+     * @return the number of lost actions.
+     */
+    public synchronized long dropped() {
+        return dropped;
+    }
+
+    /**
+     * Visits every entry still held in memory, oldest first.
+     *
+     * @param visitor the visitor to call for each entry.
+     */
+    public synchronized void forEachEntry(EntryVisitor visitor) {
+        for (long seq = memoryStart; seq < next; seq++) {
+            int i = (int) (seq & mask);
+            visitor.visit(seq, times[i], types[i], persons[i], sessions[i], texts[i], values[i]);
+        }
+    }
+
+    /**
+     * Retrieves the number of entries still held in memory.
+     *
+     * @return the number of entries in the ring.
+     */
+    public synchronized int inMemory() {
+        return (int) (next - memoryStart);
+    }
+
+    /**
+     * Scans the entries from a sequence number on, handing those matching a query to a visitor with their text.
+     * Entries that were dropped are skipped. The scan returns early once the visitor declines further entries,
+     * and after examining a bounded number of entries, so a query over a long history holds the lock in short
+     * stretches and recording is never blocked for long; the caller resumes from the returned sequence number.
+     * Spilled entries are read from the file outside the lock, up to the entries spilled when the scan started.
+     *
+     * @param query   the criteria of the entries.
+     * @param from    the sequence number to start from.
+     * @param end     the sequence number to stop before.
+     * @param visitor the visitor receiving the matching entries.
+     * @return the sequence number to resume the scan from, at least end if the scan is over.
+     */
+    protected long scan(HistoryQuery query, long from, long end, MatchVisitor visitor) {
+        SpillView spill;
+        long seq;
+        long spillEnd;
+        synchronized (this) {
+            long stop = Math.min(end, next);
+            seq = Math.max(from, spilled > 0 ? spillStart : memoryStart);
+            if (seq >= stop)
+                return Math.max(seq, end);
+            if (seq >= memoryStart)
+                return scanMemory(query, seq, stop, end, visitor);
+            try {
+                spillOut.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            spill = new SpillView(spillFile, spillStart, segmentOffsets, segmentMinTimes, segmentMaxTimes, segmentTypes);
+            spillEnd = Math.min(stop, memoryStart);
+        }
+        return scanSpilled(query, spill, seq, spillEnd, visitor);
+    }
+
+    /**
+     * Scans the entries still held in memory from a sequence number on, as {@link #scan} does.
+     * Must be called while holding the lock.
+     *
+     * @param query   the criteria of the entries.
+     * @param seq     the sequence number to start from, of an entry in memory.
+     * @param stop    the sequence number to stop before, at most that of the next entry.
+     * @param end     the sequence number the caller stops before.
+     * @param visitor the visitor receiving the matching entries.
+     * @return the sequence number to resume the scan from, at least end if the scan is over.
+     */
+    private long scanMemory(HistoryQuery query, long seq, long stop, long end, MatchVisitor visitor) {
+        for (int budget = SCAN_BUDGET; seq < stop && budget > 0; seq++, budget--) {
+            int i = (int) (seq & mask);
+            Person person = persons[i];
+            Session session = sessions[i];
+            int personId = person == null ? 0 : person.getID();
+            int sessionId = session == null ? 0 : session.getId();
+            if (query.matches(times[i], types[i], personId, sessionId, members(i))) {
+                line.setLength(0);
+                render(seq, line);
+                if (!visitor.visit(seq, times[i], types[i], personId, sessionId, line))
+                    return seq + 1;
+            }
+        }
+        return seq >= stop ? Math.max(seq, end) : seq;
+    }
+
+    /**
+     * Retrieves the IDs of the clients registered by an entry that is still in memory.
+     *
+     * @param i the ring index of the entry.
+     * @return the IDs, each followed by a space, or null if the entry is not a batch registration.
+     */
+    private String members(int i) {
+        return types[i] == ActionType.BATCH_REGISTERED ? texts[i] : null;
+    }
+
+    /**
+     * Renders the text of an entry that is still in memory.
+     *
+     * @param seq the sequence number of the entry.
+     * @param out the builder to append the text to.
+     */
+    private void render(long seq, StringBuilder out) {
+        int i = (int) (seq & mask);
+        types[i].render(out, persons[i], sessions[i], texts[i], values[i]);
+    }
+
+    /**
+     * Frees the oldest segment of the ring, spilling it to the file if one is configured.
+     */
+    private void releaseOldestSegment() {
+        long end = memoryStart + segmentSize;
+        if (spillOut != null)
+            summariseSegment();
+        for (long seq = memoryStart; seq < end; seq++) {
+            int i = (int) (seq & mask);
+            if (spillOut != null)
+                spill(seq, i);
+            else
+                dropped++;
+            persons[i] = null;
+            sessions[i] = null;
+            texts[i] = null;
+        }
+        memoryStart = end;
+    }
+
+    /**
+     * Records the summary of the oldest segment of the ring before it is spilled:
+     * where it starts in the spill file, the range of its times and the types of its actions.
+     */
+    private void summariseSegment() {
+        int segment = (int) (spilled / segmentSize);
+        if (segment == segmentOffsets.length) {
+            int length = segment * 2;
+            segmentOffsets = Arrays.copyOf(segmentOffsets, length);
+            segmentMinTimes = Arrays.copyOf(segmentMinTimes, length);
+            segmentMaxTimes = Arrays.copyOf(segmentMaxTimes, length);
+            segmentTypes = Arrays.copyOf(segmentTypes, length);
+        }
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        long typeMask = 0;
+        for (long seq = memoryStart; seq < memoryStart + segmentSize; seq++) {
+            int i = (int) (seq & mask);
+            minTime = Math.min(minTime, times[i]);
+            maxTime = Math.max(maxTime, times[i]);
+            typeMask |= 1L << types[i].ordinal();
+        }
+        segmentOffsets[segment] = spillBytes;
+        segmentMinTimes[segment] = minTime;
+        segmentMaxTimes[segment] = maxTime;
+        segmentTypes[segment] = typeMask;
+    }
+
+    /**
+     * Writes one entry to the spill file, with its identifying fields, the clients of a batch registration
+     * and its rendered text.
+     *
+     * @param seq the sequence number of the entry.
+     * @param i   the ring index of the entry.
+     */
+    private void spill(long seq, int i) {
+        line.setLength(0);
+        render(seq, line);
+        try {
+            spillOut.writeLong(seq);
+            spillOut.writeLong(times[i]);
+            spillOut.writeByte(types[i].ordinal());
+            spillOut.writeInt(persons[i] == null ? 0 : persons[i].getID());
+            spillOut.writeInt(sessions[i] == null ? 0 : sessions[i].getId());
+            String members = members(i);
+            byte[] memberBytes = members == null ? new byte[0] : members.getBytes(StandardCharsets.US_ASCII);
+            byte[] text = line.toString().getBytes(StandardCharsets.UTF_8);
+            spillOut.writeInt(memberBytes.length);
+            spillOut.writeInt(text.length);
+            spillOut.write(memberBytes);
+            spillOut.write(text);
+            spillBytes += SPILL_HEADER + memberBytes.length + text.length;
+            spilled++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Scans the spilled entries from a sequence number on, as {@link #scan} does, without holding the lock.
+     * The file is read from the start of the segment holding the first entry, and the segments whose summary
+     * shows they cannot match are skipped without being read. Only the text of matching entries is decoded.
+     *
+     * @param query   the criteria of the entries.
+     * @param spill   the spill file and the summaries of its segments, as they were when the scan started.
+     * @param seq     the sequence number to start from, of an entry in the spill file.
+     * @param stop    the sequence number to stop before, at most that of the oldest entry in memory at the time.
+     * @param visitor the visitor receiving the matching entries.
+     * @return the sequence number to resume the scan from, stop if the spilled entries are all scanned.
+     */
+    private long scanSpilled(HistoryQuery query, SpillView spill, long seq, long stop, MatchVisitor visitor) {
+        int budget = SCAN_BUDGET;
+        try (FileChannel channel = FileChannel.open(spill.file, StandardOpenOption.READ)) {
+            DataInputStream in = null; // Reopened after each skipped segment, as its buffer no longer follows the file
+            while (seq < stop && budget > 0) {
+                int segment = (int) ((seq - spill.start) / segmentSize);
+                long segmentStart = spill.start + (long) segment * segmentSize;
+                if (!query.mayMatch(spill.minTimes[segment], spill.maxTimes[segment], spill.typeMasks[segment])) {
+                    seq = Math.min(segmentStart + segmentSize, stop);
+                    budget--;
+                    in = null;
+                    continue;
+                }
+                if (in == null) {
+                    channel.position(spill.offsets[segment]);
+                    in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+                    for (long skipped = segmentStart; skipped < seq; skipped++) {
+                        in.skipNBytes(SPILL_HEADER - 8);
+                        in.skipNBytes(in.readInt() + (long) in.readInt());
+                    }
+                }
+                if (in.readLong() != seq)
+                    return stop; // The file was replaced since the scan started; its entries are no longer reachable
+                long time = in.readLong();
+                ActionType type = TYPES[in.readByte()];
+                int personId = in.readInt();
+                int sessionId = in.readInt();
+                int membersLength = in.readInt();
+                int length = in.readInt();
+                String members = membersLength == 0 ? null
+                        : new String(in.readNBytes(membersLength), StandardCharsets.US_ASCII);
+                if (query.matches(time, type, personId, sessionId, members)) {
+                    String text = new String(in.readNBytes(length), StandardCharsets.UTF_8);
+                    if (!visitor.visit(seq, time, type, personId, sessionId, text))
+                        return seq + 1;
+                } else {
+                    in.skipNBytes(length);
+                }
+                seq++;
+                budget--;
+            }
+        } catch (EOFException e) {
+            return stop; // The file ended early; the entries that could not be read are skipped
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return seq;
+    }
+
+    /**
+     * Closes the spill file, if one is open.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    private void closeSpill() throws IOException {
+        if (spillOut != null) {
+            spillOut.close();
+            spillOut = null;
+        }
+    }
+
+    /**
+     * The spill file and the summaries of its segments, captured under the lock so the file can be read without it.
+     * The summary arrays are only ever written past the segments spilled at the time, or replaced when they grow.
+     */
+    private static final class SpillView {
+        private final Path file;
+        private final long start;
+        private final long[] offsets;
+        private final long[] minTimes;
+        private final long[] maxTimes;
+        private final long[] typeMasks;
+
+        /**
+         * Constructor to capture the state of the spill file.
+         *
+         * @param file      the spill file.
+         * @param start     the sequence number of the first entry in the file.
+         * @param offsets   the file offsets of the segments.
+         * @param minTimes  the earliest times of the segments.
+         * @param maxTimes  the latest times of the segments.
+         * @param typeMasks the action types of the segments.
+         */
+        private SpillView(Path file, long start, long[] offsets, long[] minTimes, long[] maxTimes, long[] typeMasks) {
+            this.file = file;
+            this.start = start;
+            this.offsets = offsets;
+            this.minTimes = minTimes;
+            this.maxTimes = maxTimes;
+            this.typeMasks = typeMasks;
+        }
+    }
+
+    /**
+     * Callback receiving the fields of history entries.
+     */
+    public interface EntryVisitor {
+        /**
+         * Receives one history entry.
+         *
+         * @param seq     the sequence number of the entry.
+         * @param time    the time of the action in epoch milliseconds.
+         * @param type    the type of the action.
+         * @param person  the person the action concerns, or null.
+         * @param session the session the action concerns, or null.
+         * @param text    the message of the action, or null.
+         * @param value   the numeric value of the action.
+         */
+        void visit(long seq, long time, ActionType type, Person person, Session session, String text, long value);
+    }
+
+    /**
+     * Callback receiving the history entries matching a query.
+     */
+    protected interface MatchVisitor {
+        /**
+         * Receives one matching entry.
+         *
+         * @param seq       the sequence number of the entry.
+         * @param time      the time of the action in epoch milliseconds.
+         * @param type      the type of the action.
+         * @param personId  the ID of the person the action concerns, or 0.
+         * @param sessionId the ID of the session the action concerns, or 0.
+         * @param text      the text of the entry, only valid during the call.
+         * @return true to receive further entries, false to end the scan after this one.
+         */
+        boolean visit(long seq, long time, ActionType type, int personId, int sessionId, CharSequence text);
+    }
+}
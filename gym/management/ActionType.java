@@ -0,0 +1,177 @@
+package gym.management;
+
+import gym.customers.Person;
+import gym.management.Sessions.Session;
+
+import java.time.LocalDate;
+
+/**
+ * Enum representing the types of actions recorded in the gym's history.
+ * Each action type knows how to render the text of an entry from the fields recorded with it,
+ * so the text is only built when the history is printed.
+ */
+public enum ActionType {
+    SECRETARY_STARTED {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("A new secretary has started working at the gym: ").append(person.getName());
+        }
+    },
+    CLIENT_REGISTERED {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("Registered new client: ").append(person.getName());
+        }
+    },
+    CLIENT_UNREGISTERED {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("Unregistered client: ").append(person.getName());
+        }
+    },
+    INSTRUCTOR_HIRED {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("Hired new instructor: ").append(person.getName())
+                    .append(" with salary per hour: ").append(value);
+        }
+    },
+    SESSION_CREATED {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("Created new session: ").append(session.getType())
+                    .append(" on ").append(CustomDate.customDate(session.getEpochMinute()))
+                    .append(" with instructor: ").append(session.getInstructor().getName());
+        }
+    },
+    LESSON_REGISTERED {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("Registered client: ").append(person.getName())
+                    .append(" to session: ").append(session.getType())
+                    .append(" on ").append(CustomDate.customDate(session.getEpochMinute()))
+                    .append(" for price: ").append(value);
+        }
+    },
+    REGISTRATION_NOT_IN_FUTURE {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("Failed registration: Session is not in the future");
+        }
+    },
+    REGISTRATION_AGE_MISMATCH {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("Failed registration: Client doesn't meet the age requirements for this session (Seniors)");
+        }
+    },
+    REGISTRATION_GENDER_MISMATCH {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("Failed registration: Client's gender doesn't match the session's gender requirements");
+        }
+    },
+    REGISTRATION_NO_PLACES {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("Failed registration: No available spots for session");
+        }
+    },
+    REGISTRATION_NO_BALANCE {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("Failed registration: Client doesn't have enough balance");
+        }
+    },
+    SESSION_NOTIFIED {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("A message was sent to everyone registered for session ").append(session.getType())
+                    .append(" on ").append(CustomDate.customDate(session.getEpochMinute()))
+                    .append(" : ").append(text);
+        }
+    },
+    DAY_NOTIFIED {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("A message was sent to everyone registered for a session on ")
+                    .append(LocalDate.ofEpochDay(value)).append(" : ").append(text);
+        }
+    },
+    ALL_NOTIFIED {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("A message was sent to all gym clients: ").append(text);
+        }
+    },
+    SALARIES_PAID {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("Salaries have been paid to all employees");
+        }
+    },
+    // The text lists the IDs of the registered clients, each followed by a space, for searches by client
+    BATCH_REGISTERED {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            // The value packs the number of clients in the batch above the number registered
+            out.append("Registered ").append((int) value).append(" of ").append(value >>> 32)
+                    .append(" clients to session: ").append(session.getType())
+                    .append(" on ").append(CustomDate.customDate(session.getEpochMinute()))
+                    .append(" for price: ").append(session.getPrice());
+        }
+    },
+    CLIENT_WAITLISTED {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("Added client: ").append(person.getName())
+                    .append(" to the waitlist of session: ").append(session.getType())
+                    .append(" on ").append(CustomDate.customDate(session.getEpochMinute()))
+                    .append(" at position: ").append(value);
+        }
+    },
+    LESSON_UNREGISTERED {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("Unregistered client: ").append(person.getName())
+                    .append(" from session: ").append(session.getType())
+                    .append(" on ").append(CustomDate.customDate(session.getEpochMinute()))
+                    .append(" with refund: ").append(value);
+        }
+    },
+    WAITLIST_PROMOTED {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("Registered client: ").append(person.getName())
+                    .append(" from the waitlist to session: ").append(session.getType())
+                    .append(" on ").append(CustomDate.customDate(session.getEpochMinute()))
+                    .append(" for price: ").append(value);
+        }
+    },
+    WAITLIST_SKIPPED {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("Removed client: ").append(person.getName())
+                    .append(" from the waitlist of session: ").append(session.getType())
+                    .append(" on ").append(CustomDate.customDate(session.getEpochMinute()))
+                    .append(": ").append(text);
+        }
+    },
+    REGISTRATION_SCHEDULE_CONFLICT {
+        @Override
+        protected void render(StringBuilder out, Person person, Session session, String text, long value) {
+            out.append("Failed registration: Client is already booked for another session at that time");
+        }
+    };
+
+    /**
+     * Renders the text of a history entry of this type.
+     *
+     * @param out     the builder to append the text to.
+     * @param person  the person the action concerns, or null.
+     * @param session the session the action concerns, or null.
+     * @param text    the message of the action, or null.
+     * @param value   the numeric value of the action, such as a price, wage or epoch day.
+     */
+    protected abstract void render(StringBuilder out, Person person, Session session, String text, long value);
+}
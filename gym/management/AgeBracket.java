@@ -0,0 +1,47 @@
+package gym.management;
+
+/**
+ * Enum representing the age brackets clients are grouped into when searching for them.
+ * The "Seniors" bracket starts at the same age as the "Seniors" forum type.
+ */
+public enum AgeBracket {
+    Under25(0),
+    From25To34(25),
+    From35To49(35),
+    From50To64(50),
+    Seniors(ForumType.SENIORS_AGE);
+
+    private final int minAge;
+
+    /**
+     * Constructor to create an age bracket.
+     *
+     * @param minAge the youngest age in the bracket.
+     */
+    AgeBracket(int minAge) {
+        this.minAge = minAge;
+    }
+
+    /**
+     * Retrieves the youngest age in the bracket.
+     *
+     * @return the minimum age.
+     */
+    public int getMinAge() {
+        return minAge;
+    }
+
+    /**
+     * Finds the bracket of an age.
+     *
+     * @param age the age.
+     * @return the bracket containing the age.
+     */
+    public static AgeBracket of(int age) {
+        AgeBracket[] brackets = values();
+        for (int i = brackets.length - 1; i > 0; i--)
+            if (age >= brackets[i].minAge)
+                return brackets[i];
+        return brackets[0];
+    }
+}
@@ -0,0 +1,473 @@
+package gym.management;
+
+import gym.customers.BalanceListener;
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.GymClock;
+import gym.customers.Person;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Secondary indexes over the gym's clients, so that they can be searched by name prefix, gender, age bracket
+ * and balance without scanning the registry.
+ * Each client owns one bit position, derived from their unique ID, in a set of bitmaps: one per gender, one per
+ * age bracket and one per balance bin, so a compound search is an intersection of a few bitmaps. Names are kept
+ * in a tree ordered without regard to case, in which the names starting with a prefix form a single range.
+ * Balances are binned log-linearly, as latencies are in {@link LatencyRecorder}: bin 0 holds the negative
+ * balances, balances below 8 have a bin each, and above that each power of two is split into 4 bins.
+ * The bitmap of a bin holds the clients in all the bins below it, so any range of bins is one bitmap minus
+ * another, however many bins it spans. A balance range is answered from whole bins, and only the clients in the
+ * bins at its two ends, a quarter of a power of two wide at most, are checked against their balance.
+ * The index listens to every balance change:
+ * it copies the new balance into a column of balances by position, without locking, and moves the client to
+ * another bin when the change crosses a bin boundary. Checking the balances in the column rather than in the
+ * clients keeps the reads in the order of the positions.
+ * Age brackets depend on the day, so they are recomputed from the birthdates on the first use of each day.
+ * Changes are made under a write lock, and searches share a read lock.
+ */
+public class ClientIndex implements BalanceListener {
+    private static final int FIRST_ID = 1111; // Persons are given IDs upward from 1111
+    private static final int SUB_BITS = 2;
+    private static final int SUB_BINS = 1 << SUB_BITS;
+    private static final int BALANCE_BINS = binOf(Integer.MAX_VALUE) + 1;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int CHUNK_BITS = 16;
+
+    // Per-position storage, the position of a client being their ID minus FIRST_ID
+    private Client[] clients = new Client[INITIAL_CAPACITY];
+    private int[] birthDays = new int[INITIAL_CAPACITY]; // Birthdates as epoch days
+    private byte[] balanceBins = new byte[INITIAL_CAPACITY];
+    // Column of balances, in chunks that never move, so that updates made without the lock are never lost
+    private volatile AtomicIntegerArray[] balanceChunks = {new AtomicIntegerArray(1 << CHUNK_BITS)};
+    // Bitmaps of positions
+    private final BitSet present = new BitSet();
+    private final BitSet[] genders = bitmaps(Gender.values().length);
+    private final BitSet[] ageBrackets = bitmaps(AgeBracket.values().length);
+    private final BitSet[] balancesBelow = bitmaps(BALANCE_BINS); // Positions in the bins below each bin
+    // Positions of the clients by name, ignoring case
+    private final TreeMap<String, int[]> names = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    // Latest birthdate in each age bracket, as an epoch day, on the day the brackets were computed
+    private final long[] bracketBirthDays = new long[AgeBracket.values().length];
+    private volatile long bracketDay = Long.MIN_VALUE;
+    private int size;
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Adds a client to the indexes.
+     *
+     * @param client the client to add; a client already indexed is ignored.
+     */
+    protected void add(Client client) {
+        int position = client.getID() - FIRST_ID;
+        long stamp = lock.writeLock();
+        try {
+            ensureCapacity(position + 1);
+            if (clients[position] != null)
+                return;
+            clients[position] = client;
+            size++;
+            present.set(position);
+            genders[client.getGender().ordinal()].set(position);
+            birthDays[position] = (int) client.getBirthDate().toEpochDay();
+            computeBrackets(GymClock.epochDay());
+            ageBrackets[bracketOf(birthDays[position])].set(position);
+            copyBalance(client);
+            int bin = binOf(client.getBalance());
+            balanceBins[position] = (byte) bin;
+            for (int above = bin + 1; above < BALANCE_BINS; above++)
+                balancesBelow[above].set(position);
+            int[] named = names.get(client.getName());
+            if (named == null) {
+                names.put(client.getName(), new int[]{position});
+            } else {
+                named = Arrays.copyOf(named, named.length + 1);
+                named[named.length - 1] = position;
+                names.put(client.getName(), named);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a client from the indexes.
+     *
+     * @param client the client to remove; a client not indexed is ignored.
+     */
+    protected void remove(Client client) {
+        int position = client.getID() - FIRST_ID;
+        long stamp = lock.writeLock();
+        try {
+            if (position < 0 || position >= clients.length || clients[position] == null)
+                return;
+            clients[position] = null;
+            size--;
+            present.clear(position);
+            genders[client.getGender().ordinal()].clear(position);
+            for (BitSet bracket : ageBrackets)
+                bracket.clear(position);
+            for (int above = balanceBins[position] + 1; above < BALANCE_BINS; above++)
+                balancesBelow[above].clear(position);
+            int[] named = names.get(client.getName());
+            int[] remaining = new int[named.length - 1];
+            for (int i = 0, j = 0; i < named.length; i++)
+                if (named[i] != position)
+                    remaining[j++] = named[i];
+            if (remaining.length == 0)
+                names.remove(client.getName());
+            else
+                names.put(client.getName(), remaining);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Copies a client's new balance into the column, and moves the client to the bin of their new balance
+     * when the change crosses a bin boundary.
+     * The bin is taken from the live balance rather than from the change, so concurrent changes applied
+     * in any order leave the client in the bin of their latest balance.
+     *
+     * @param person   the person whose balance changed; persons who are not clients are ignored.
+     * @param previous the balance before the change.
+     * @param current  the balance after the change.
+     */
+    @Override
+    public void balanceChanged(Person person, int previous, int current) {
+        copyBalance(person);
+        if (binOf(previous) == binOf(current))
+            return;
+        int position = person.getID() - FIRST_ID;
+        long stamp = lock.writeLock();
+        try {
+            if (position < 0 || position >= clients.length || clients[position] == null)
+                return;
+            int bin = binOf(person.getBalance());
+            // The client enters the bitmaps of the bins between the two when moving down, and leaves them moving up
+            for (int above = bin + 1; above <= balanceBins[position]; above++)
+                balancesBelow[above].set(position);
+            for (int above = balanceBins[position] + 1; above <= bin; above++)
+                balancesBelow[above].clear(position);
+            balanceBins[position] = (byte) bin;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Retrieves the number of indexed clients.
+     *
+     * @return the number of clients.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves every indexed client at once, so they can be read while clients are added and removed.
+     *
+     * @return a new array of the clients, in the order of their IDs.
+     */
+    protected Client[] clients() {
+        long stamp = lock.readLock();
+        try {
+            Client[] all = new Client[size];
+            int count = 0;
+            for (int position = present.nextSetBit(0); position >= 0; position = present.nextSetBit(position + 1))
+                all[count++] = clients[position];
+            return all;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Finds the clients matching a query.
+     *
+     * @param query the query.
+     * @param limit the maximum number of clients to return.
+     * @return the matching clients, in the order of their IDs.
+     */
+    protected List<Client> find(ClientQuery query, int limit) {
+        long stamp = readLock();
+        try {
+            BitSet matches = select(query);
+            List<Client> found = new ArrayList<>(Math.min(matches.cardinality(), limit));
+            for (int position = matches.nextSetBit(0); position >= 0 && found.size() < limit;
+                 position = matches.nextSetBit(position + 1))
+                found.add(clients[position]);
+            return found;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Counts the clients matching a query.
+     *
+     * @param query the query.
+     * @return the number of matching clients.
+     */
+    protected int count(ClientQuery query) {
+        long stamp = readLock();
+        try {
+            return select(query).cardinality();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Takes the read lock, after bringing the age brackets up to date if the day has changed.
+     *
+     * @return the stamp of the read lock.
+     */
+    private long readLock() {
+        long today = GymClock.epochDay();
+        if (bracketDay != today) {
+            long stamp = lock.writeLock();
+            try {
+                computeBrackets(today);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        return lock.readLock();
+    }
+
+    /**
+     * Computes the positions of the clients matching a query. The caller must hold a lock.
+     *
+     * @param query the query.
+     * @return the bitmap of the matching positions.
+     */
+    private BitSet select(ClientQuery query) {
+        BitSet matches = (BitSet) present.clone();
+        if (query.genders != null)
+            restrict(matches, genders, query.genders.stream().mapToInt(Enum::ordinal).toArray());
+        if (query.ageBrackets != null)
+            restrict(matches, ageBrackets, query.ageBrackets.stream().mapToInt(Enum::ordinal).toArray());
+        if (query.minBalance > Integer.MIN_VALUE || query.maxBalance <= Integer.MAX_VALUE)
+            restrictBalance(matches, query.minBalance, query.maxBalance);
+        if (query.namePrefix != null) {
+            BitSet named = new BitSet();
+            for (int[] positions : names.subMap(query.namePrefix, true,
+                    query.namePrefix + Character.MAX_VALUE, false).values())
+                for (int position : positions)
+                    named.set(position);
+            matches.and(named);
+        }
+        return matches;
+    }
+
+    /**
+     * Keeps only the positions found in at least one of some bitmaps.
+     *
+     * @param matches  the positions to restrict.
+     * @param bitmaps  the bitmaps of an index.
+     * @param accepted the indices of the accepted bitmaps.
+     */
+    private static void restrict(BitSet matches, BitSet[] bitmaps, int[] accepted) {
+        if (accepted.length == 1) {
+            matches.and(bitmaps[accepted[0]]);
+            return;
+        }
+        BitSet union = new BitSet();
+        for (int i : accepted)
+            union.or(bitmaps[i]);
+        matches.and(union);
+    }
+
+    /**
+     * Keeps only the positions of the clients whose balance lies in a range.
+     *
+     * @param matches the positions to restrict.
+     * @param min     the lowest balance accepted.
+     * @param max     the balance above the highest accepted.
+     */
+    private void restrictBalance(BitSet matches, long min, long max) {
+        if (min >= max) {
+            matches.clear();
+            return;
+        }
+        int low = binOf((int) min);
+        int high = binOf((int) (max - 1));
+        if (high + 1 < BALANCE_BINS)
+            matches.and(balancesBelow[high + 1]);
+        matches.andNot(balancesBelow[low]);
+        // Only the bins at the ends of the range may hold balances outside it
+        boolean lowPartial = min > lowestOf(low);
+        boolean highPartial = max - 1 < highestOf(high);
+        if (lowPartial || (highPartial && high == low))
+            checkBalances(matches, low, min, max);
+        if (highPartial && high != low)
+            checkBalances(matches, high, min, max);
+    }
+
+    /**
+     * Drops the positions of a balance bin whose client's live balance lies outside a range.
+     *
+     * @param matches the positions to restrict.
+     * @param bin     the balance bin to check.
+     * @param min     the lowest balance accepted.
+     * @param max     the balance above the highest accepted.
+     */
+    private void checkBalances(BitSet matches, int bin, long min, long max) {
+        BitSet edge = (BitSet) matches.clone();
+        edge.andNot(balancesBelow[bin]);
+        if (bin + 1 < BALANCE_BINS)
+            edge.and(balancesBelow[bin + 1]);
+        AtomicIntegerArray[] chunks = balanceChunks;
+        for (int position = edge.nextSetBit(0); position >= 0; position = edge.nextSetBit(position + 1)) {
+            int balance = chunks[position >>> CHUNK_BITS].get(position & ((1 << CHUNK_BITS) - 1));
+            if (balance < min || balance >= max)
+                matches.clear(position);
+        }
+    }
+
+    /**
+     * Copies a person's live balance into the column, if their position is covered by it.
+     * Each copy is checked against the live balance afterwards and repeated if it changed, so whichever
+     * copy comes last holds the latest balance, however concurrent changes are interleaved.
+     *
+     * @param person the person whose balance to copy.
+     */
+    private void copyBalance(Person person) {
+        int position = person.getID() - FIRST_ID;
+        AtomicIntegerArray[] chunks = balanceChunks;
+        if (position < 0 || position >>> CHUNK_BITS >= chunks.length)
+            return;
+        AtomicIntegerArray chunk = chunks[position >>> CHUNK_BITS];
+        int offset = position & ((1 << CHUNK_BITS) - 1);
+        int balance;
+        do {
+            balance = person.getBalance();
+            chunk.set(offset, balance);
+        } while (person.getBalance() != balance);
+    }
+
+    /**
+     * Recomputes the age brackets of all clients, unless they were computed for this day already.
+     * The caller must hold the write lock.
+     *
+     * @param today the current day, as an epoch day.
+     */
+    private void computeBrackets(long today) {
+        if (bracketDay == today)
+            return;
+        LocalDate date = LocalDate.ofEpochDay(today);
+        AgeBracket[] brackets = AgeBracket.values();
+        // A person is at least n years old on the days when their birthdate is n years ago or earlier
+        for (int i = 0; i < brackets.length; i++)
+            bracketBirthDays[i] = date.minusYears(brackets[i].getMinAge()).toEpochDay();
+        for (BitSet bracket : ageBrackets)
+            bracket.clear();
+        for (int position = present.nextSetBit(0); position >= 0; position = present.nextSetBit(position + 1))
+            ageBrackets[bracketOf(birthDays[position])].set(position);
+        bracketDay = today;
+    }
+
+    /**
+     * Finds the age bracket of a birthdate on the day the brackets were computed.
+     *
+     * @param birthDay the birthdate, as an epoch day.
+     * @return the ordinal of the age bracket.
+     */
+    private int bracketOf(int birthDay) {
+        for (int i = bracketBirthDays.length - 1; i > 0; i--)
+            if (birthDay <= bracketBirthDays[i])
+                return i;
+        return 0;
+    }
+
+    /**
+     * Grows the per-position storage to hold a number of positions.
+     *
+     * @param capacity the number of positions needed.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity <= clients.length)
+            return;
+        int length = Math.max(capacity, clients.length * 2);
+        clients = Arrays.copyOf(clients, length);
+        birthDays = Arrays.copyOf(birthDays, length);
+        balanceBins = Arrays.copyOf(balanceBins, length);
+        AtomicIntegerArray[] chunks = balanceChunks;
+        int chunkCount = ((length - 1) >>> CHUNK_BITS) + 1;
+        if (chunkCount > chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount);
+            for (int i = balanceChunks.length; i < chunkCount; i++)
+                chunks[i] = new AtomicIntegerArray(1 << CHUNK_BITS);
+            balanceChunks = chunks;
+        }
+    }
+
+    /**
+     * Computes the bin of a balance.
+     *
+     * @param balance the balance.
+     * @return 0 for a negative balance, and 1 plus the log-linear bucket of the balance otherwise.
+     */
+    private static int binOf(int balance) {
+        if (balance < 0)
+            return 0;
+        if (balance < 2 * SUB_BINS)
+            return 1 + balance;
+        int shift = 31 - Integer.numberOfLeadingZeros(balance) - SUB_BITS;
+        // balance >>> shift lies in [SUB_BINS, 2 * SUB_BINS), so each shift owns SUB_BINS bins
+        return 1 + shift * SUB_BINS + (balance >>> shift);
+    }
+
+    /**
+     * Computes the lowest balance of a bin.
+     *
+     * @param bin the bin.
+     * @return the lowest balance that falls into the bin.
+     */
+    private static long lowestOf(int bin) {
+        if (bin == 0)
+            return Integer.MIN_VALUE;
+        int bucket = bin - 1;
+        if (bucket < 2 * SUB_BINS)
+            return bucket;
+        int shift = bucket / SUB_BINS - 1;
+        return (long) (bucket - shift * SUB_BINS) << shift;
+    }
+
+    /**
+     * Computes the highest balance of a bin.
+     *
+     * @param bin the bin.
+     * @return the highest balance that falls into the bin.
+     */
+    private static long highestOf(int bin) {
+        if (bin == 0)
+            return -1;
+        int bucket = bin - 1;
+        if (bucket < 2 * SUB_BINS)
+            return bucket;
+        int shift = bucket / SUB_BINS - 1;
+        return ((long) (bucket - shift * SUB_BINS + 1) << shift) - 1;
+    }
+
+    /**
+     * Creates an array of empty bitmaps.
+     *
+     * @param count the number of bitmaps.
+     * @return the bitmaps.
+     */
+    private static BitSet[] bitmaps(int count) {
+        BitSet[] bitmaps = new BitSet[count];
+        for (int i = 0; i < count; i++)
+            bitmaps[i] = new BitSet();
+        return bitmaps;
+    }
+}
@@ -0,0 +1,120 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * A search for clients, built by chaining criteria and run with {@link #find()} or {@link #count()}.
+ * A client matches when they meet every criterion given; a criterion given twice keeps the values of both
+ * for genders and age brackets, and narrows the range for balances. For example, the female seniors with
+ * a balance below 100 are found with
+ * {@code secretary.findClients().gender(Gender.Female).ageBracket(AgeBracket.Seniors).balanceBelow(100).find()}.
+ */
+public class ClientQuery {
+    private final ClientIndex index;
+    // Criteria, read by the index; null or an open bound means any value
+    String namePrefix;
+    EnumSet<Gender> genders;
+    EnumSet<AgeBracket> ageBrackets;
+    long minBalance = Integer.MIN_VALUE;
+    long maxBalance = Integer.MAX_VALUE + 1L;
+
+    /**
+     * Constructor to create a query matching every client.
+     *
+     * @param index the index of the clients searched.
+     */
+    protected ClientQuery(ClientIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * Matches the clients whose name starts with a prefix, ignoring case.
+     *
+     * @param prefix the prefix of the name.
+     * @return this query.
+     */
+    public ClientQuery namePrefix(String prefix) {
+        this.namePrefix = prefix;
+        return this;
+    }
+
+    /**
+     * Matches the clients of a gender.
+     *
+     * @param gender the gender.
+     * @return this query.
+     */
+    public ClientQuery gender(Gender gender) {
+        if (genders == null)
+            genders = EnumSet.noneOf(Gender.class);
+        genders.add(gender);
+        return this;
+    }
+
+    /**
+     * Matches the clients whose age falls into some brackets.
+     *
+     * @param brackets the age brackets.
+     * @return this query.
+     */
+    public ClientQuery ageBracket(AgeBracket... brackets) {
+        if (ageBrackets == null)
+            ageBrackets = EnumSet.noneOf(AgeBracket.class);
+        ageBrackets.addAll(List.of(brackets));
+        return this;
+    }
+
+    /**
+     * Matches the clients whose balance is at least an amount.
+     *
+     * @param amount the lowest balance matched.
+     * @return this query.
+     */
+    public ClientQuery balanceAtLeast(int amount) {
+        minBalance = Math.max(minBalance, amount);
+        return this;
+    }
+
+    /**
+     * Matches the clients whose balance is below an amount.
+     *
+     * @param amount the balance above the highest matched.
+     * @return this query.
+     */
+    public ClientQuery balanceBelow(int amount) {
+        maxBalance = Math.min(maxBalance, amount);
+        return this;
+    }
+
+    /**
+     * Finds the clients matching the query.
+     *
+     * @return the matching clients, in the order of their IDs.
+     */
+    public List<Client> find() {
+        return index.find(this, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds the first clients matching the query.
+     *
+     * @param limit the maximum number of clients to return.
+     * @return the matching clients, in the order of their IDs.
+     */
+    public List<Client> find(int limit) {
+        return index.find(this, limit);
+    }
+
+    /**
+     * Counts the clients matching the query.
+     *
+     * @return the number of matching clients.
+     */
+    public int count() {
+        return index.count(this);
+    }
+}
@@ -0,0 +1,346 @@
+package gym.management;
+
+import gym.customers.Client;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Registry of the gym's clients, keyed by the client's unique ID.
+ * Lookups go through an open-addressing hash table of primitive int keys, so registering,
+ * unregistering and finding a client take constant time regardless of the number of members.
+ * Iteration follows the order in which the clients were registered.
+ * Changes are made under a write lock, while lookups first try an optimistic read that takes no lock at all,
+ * so concurrent registrations can check membership without contending. Iteration must not overlap with changes.
+ */
+public class ClientRegistry implements Iterable<Client> {
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Hash table of entry index + 1 (0 marks an empty slot), probed linearly
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+    // Entry storage, indexed by entry index
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private Client[] clients = new Client[INITIAL_CAPACITY];
+    // Doubly linked insertion order over the entries
+    private int[] next = new int[INITIAL_CAPACITY];
+    private int[] prev = new int[INITIAL_CAPACITY];
+    private int head = NONE;
+    private int tail = NONE;
+    // Chain of entry indices released by unregistered clients
+    private int freeEntry = NONE;
+    private int usedEntries;
+    private int size;
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Adds a client to the registry.
+     *
+     * @param client the client to add.
+     * @return true if the client was added, false if a client with the same ID is already registered.
+     */
+    public boolean add(Client client) {
+        long stamp = lock.writeLock();
+        try {
+            return insert(client);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Inserts a client into the table and the insertion order. The caller must hold the write lock.
+     *
+     * @param client the client to insert.
+     * @return true if the client was inserted, false if a client with the same ID is already registered.
+     */
+    private boolean insert(Client client) {
+        int id = client.getID();
+        int slot = slotOf(id);
+        while (table[slot] != 0) {
+            if (ids[table[slot] - 1] == id)
+                return false;
+            slot = (slot + 1) & (table.length - 1);
+        }
+
+        int entry = newEntry();
+        ids[entry] = id;
+        clients[entry] = client;
+        // Link the entry at the end of the insertion order
+        prev[entry] = tail;
+        next[entry] = NONE;
+        if (tail == NONE)
+            head = entry;
+        else
+            next[tail] = entry;
+        tail = entry;
+
+        table[slot] = entry + 1;
+        if (++size * 2 > table.length)
+            rehash(table.length * 2);
+        return true;
+    }
+
+    /**
+     * Removes the client with the given ID from the registry.
+     *
+     * @param id the ID of the client to remove.
+     * @return the removed client, or null if no client with this ID is registered.
+     */
+    public Client remove(int id) {
+        long stamp = lock.writeLock();
+        try {
+            return delete(id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Deletes a client from the table and the insertion order. The caller must hold the write lock.
+     *
+     * @param id the ID of the client to delete.
+     * @return the deleted client, or null if no client with this ID is registered.
+     */
+    private Client delete(int id) {
+        int slot = findSlot(id);
+        if (slot == NONE)
+            return null;
+        int entry = table[slot] - 1;
+        Client client = clients[entry];
+        deleteSlot(slot);
+
+        // Unlink the entry from the insertion order and release it
+        if (prev[entry] == NONE)
+            head = next[entry];
+        else
+            next[prev[entry]] = next[entry];
+        if (next[entry] == NONE)
+            tail = prev[entry];
+        else
+            prev[next[entry]] = prev[entry];
+        clients[entry] = null;
+        next[entry] = freeEntry;
+        freeEntry = entry;
+        size--;
+        return client;
+    }
+
+    /**
+     * Retrieves the client with the given ID.
+     *
+     * @param id the ID of the client.
+     * @return the registered client, or null if no client with this ID is registered.
+     */
+    public Client get(int id) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            Client client = lookup(table, ids, clients, id);
+            if (lock.validate(stamp))
+                return client;
+        }
+        // A change overlapped the optimistic read, so read again under the lock
+        stamp = lock.readLock();
+        try {
+            return lookup(table, ids, clients, id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Checks whether a client with the given ID is registered.
+     *
+     * @param id the ID to check.
+     * @return true if a client with this ID is registered, false otherwise.
+     */
+    public boolean contains(int id) {
+        return get(id) != null;
+    }
+
+    /**
+     * Makes room for a number of clients in total, so that adding them does not resize the registry.
+     *
+     * @param capacity the number of clients the registry should hold without resizing.
+     */
+    public void ensureCapacity(int capacity) {
+        long stamp = lock.writeLock();
+        try {
+            if (capacity > ids.length)
+                growEntries(capacity);
+            if (capacity * 2 > table.length)
+                rehash(Integer.highestOneBit(capacity * 2 - 1) << 1);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Retrieves the number of registered clients.
+     *
+     * @return the number of clients in the registry.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an iterator over the registered clients in registration order.
+     *
+     * @return an iterator over the clients.
+     */
+    @Override
+    public Iterator<Client> iterator() {
+        return new Iterator<Client>() {
+            private int entry = head;
+
+            @Override
+            public boolean hasNext() {
+                return entry != NONE;
+            }
+
+            @Override
+            public Client next() {
+                if (entry == NONE)
+                    throw new NoSuchElementException();
+                Client client = clients[entry];
+                entry = next[entry];
+                return client;
+            }
+        };
+    }
+
+    /**
+     * Finds the table slot holding the given ID.
+     *
+     * @param id the ID to look up.
+     * @return the slot index, or NONE if the ID is not in the table.
+     */
+    private int findSlot(int id) {
+        int slot = slotOf(id);
+        while (table[slot] != 0) {
+            if (ids[table[slot] - 1] == id)
+                return slot;
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return NONE;
+    }
+
+    /**
+     * Computes the home slot of an ID in the current table.
+     *
+     * @param id the ID to hash.
+     * @return the home slot index.
+     */
+    private int slotOf(int id) {
+        return slotOf(id, table.length - 1);
+    }
+
+    /**
+     * Computes the home slot of an ID in a table of a given size.
+     *
+     * @param id   the ID to hash.
+     * @param mask the table size minus one.
+     * @return the home slot index.
+     */
+    private static int slotOf(int id, int mask) {
+        int h = id * 0x9E3779B9; // Fibonacci hashing spreads consecutive IDs across the table
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Looks up a client in a view of the arrays that may be changing concurrently.
+     * Every index is bounds checked and the probe visits each slot at most once, so a torn view
+     * gives a wrong answer, which the caller's validation discards, rather than an exception or an endless loop.
+     *
+     * @param table   the hash table.
+     * @param ids     the entry IDs.
+     * @param clients the entry clients.
+     * @param id      the ID to look up.
+     * @return the client found, or null if none.
+     */
+    private static Client lookup(int[] table, int[] ids, Client[] clients, int id) {
+        int mask = table.length - 1;
+        int slot = slotOf(id, mask);
+        for (int probes = 0; probes <= mask; probes++) {
+            int entry = table[slot] - 1;
+            if (entry < 0)
+                return null;
+            if (entry < ids.length && entry < clients.length && ids[entry] == id)
+                return clients[entry];
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Empties a table slot and shifts back the entries of the probe run that follows it,
+     * so that lookups never need tombstones.
+     *
+     * @param slot the slot to empty.
+     */
+    private void deleteSlot(int slot) {
+        int mask = table.length - 1;
+        int hole = slot;
+        int current = (hole + 1) & mask;
+        while (table[current] != 0) {
+            int home = slotOf(ids[table[current] - 1]);
+            // Move the entry into the hole if its home slot does not lie between the hole and its position
+            if (((current - home) & mask) >= ((current - hole) & mask)) {
+                table[hole] = table[current];
+                hole = current;
+            }
+            current = (current + 1) & mask;
+        }
+        table[hole] = 0;
+    }
+
+    /**
+     * Takes an entry index from the free chain, growing the entry storage if needed.
+     *
+     * @return a free entry index.
+     */
+    private int newEntry() {
+        if (freeEntry != NONE) {
+            int entry = freeEntry;
+            freeEntry = next[entry];
+            return entry;
+        }
+        if (usedEntries == ids.length)
+            growEntries(ids.length * 2);
+        return usedEntries++;
+    }
+
+    /**
+     * Grows the entry storage.
+     * The client array is published last, so an optimistic reader that sees a new entry in it also sees its ID.
+     *
+     * @param capacity the new number of entries.
+     */
+    private void growEntries(int capacity) {
+        Client[] grownClients = Arrays.copyOf(clients, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        clients = grownClients;
+    }
+
+    /**
+     * Rebuilds the hash table with a new capacity.
+     *
+     * @param capacity the new table capacity, a power of two.
+     */
+    private void rehash(int capacity) {
+        // Fill the new table before publishing it, so optimistic readers never probe a half-built one
+        int[] rebuilt = new int[capacity];
+        for (int entry = head; entry != NONE; entry = next[entry]) {
+            int slot = slotOf(ids[entry], capacity - 1);
+            while (rebuilt[slot] != 0)
+                slot = (slot + 1) & (capacity - 1);
+            rebuilt[slot] = entry + 1;
+        }
+        table = rebuilt;
+    }
+}
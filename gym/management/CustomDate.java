@@ -1,29 +1,119 @@
 package gym.management;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
 
 /**
- * Utility class for formatting and converting date strings between different patterns.
+ * Utility class for converting session times between their textual patterns and
+ * the compact epoch-minute representation held by sessions.
+ * An epoch minute counts the minutes between 01-01-1970 00:00 and a local date-time.
  */
 public class CustomDate {
+    // Formatters are immutable and thread-safe, so they are built once and shared
+    private static final DateTimeFormatter INPUT_FORMAT =
+            DateTimeFormatter.ofPattern("dd-MM-uuuu HH:mm").withResolverStyle(ResolverStyle.STRICT);
+    private static final DateTimeFormatter OUTPUT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
     /**
-     * Converts a date string from the format "dd-MM-yyyy HH:mm" to the format "yyyy-MM-dd'T'HH:mm".
+     * Converts an epoch minute to the format "yyyy-MM-dd'T'HH:mm".
      *
-     * @param inputString the input date string in the format "dd-MM-yyyy HH:mm".
+     * @param epochMinute the date-time as minutes since 01-01-1970 00:00.
      * @return the formatted date string in the ISO-like format "yyyy-MM-dd'T'HH:mm".
      */
-    protected static String customDate(String inputString) {
-        // Define the input date format
-        DateTimeFormatter inputFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+    protected static String customDate(long epochMinute) {
+        return toDateTime(epochMinute).format(OUTPUT_FORMAT);
+    }
 
-        // Define the desired output date format
-        DateTimeFormatter outputFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+    /**
+     * Converts an epoch minute to the session time format "dd-MM-yyyy HH:mm".
+     *
+     * @param epochMinute the date-time as minutes since 01-01-1970 00:00.
+     * @return the formatted date string in the format "dd-MM-yyyy HH:mm".
+     */
+    public static String sessionTime(long epochMinute) {
+        return toDateTime(epochMinute).format(INPUT_FORMAT);
+    }
 
-        // Parse the input string into a LocalDateTime object
-        LocalDateTime dateTime = LocalDateTime.parse(inputString, inputFormatter);
+    /**
+     * Parses a session time string into an epoch minute.
+     *
+     * @param inputString the date string in the format "dd-MM-yyyy HH:mm".
+     * @return the date-time as minutes since 01-01-1970 00:00.
+     * @throws java.time.format.DateTimeParseException if the string is not a valid date-time.
+     */
+    public static long parseSessionTime(String inputString) {
+        return LocalDateTime.parse(inputString, INPUT_FORMAT).toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    /**
+     * Retrieves the epoch day on which an epoch minute falls.
+     *
+     * @param epochMinute the date-time as minutes since 01-01-1970 00:00.
+     * @return the number of days between 01-01-1970 and the date.
+     */
+    protected static int epochDay(long epochMinute) {
+        return (int) Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+    }
 
-        // Format the LocalDateTime object into the desired output format
-        return dateTime.format(outputFormatter);
+    /**
+     * Converts the date part of a string starting with "dd-MM-yyyy" into an epoch day.
+     *
+     * @param inputString a string starting with a date in the format "dd-MM-yyyy".
+     * @return the number of days between 01-01-1970 and the given date.
+     */
+    protected static int epochDay(String inputString) {
+        // Read the day, month and year fields directly from their fixed positions
+        int day = Integer.parseInt(inputString, 0, 2, 10);
+        int month = Integer.parseInt(inputString, 3, 5, 10);
+        int year = Integer.parseInt(inputString, 6, 10, 10);
+        return (int) LocalDate.of(year, month, day).toEpochDay();
+    }
+
+    /**
+     * Appends an epoch minute to a buffer in the session time format "dd-MM-yyyy HH:mm", digit by digit,
+     * without building a string.
+     *
+     * @param out         the buffer to append to.
+     * @param epochMinute the date-time as minutes since 01-01-1970 00:00.
+     */
+    public static void appendSessionTime(StringBuilder out, long epochMinute) {
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochMinute, MINUTES_PER_DAY));
+        int year = date.getYear();
+        if (year < 0 || year > 9999) { // Years the pattern prints with a sign
+            INPUT_FORMAT.formatTo(toDateTime(epochMinute), out);
+            return;
+        }
+        int minuteOfDay = Math.floorMod(epochMinute, MINUTES_PER_DAY);
+        appendTwoDigits(out, date.getDayOfMonth()).append('-');
+        appendTwoDigits(out, date.getMonthValue()).append('-');
+        appendTwoDigits(out, year / 100);
+        appendTwoDigits(out, year % 100).append(' ');
+        appendTwoDigits(out, minuteOfDay / 60).append(':');
+        appendTwoDigits(out, minuteOfDay % 60);
+    }
+
+    /**
+     * Appends a number from 0 to 99 as two digits.
+     *
+     * @param out   the buffer to append to.
+     * @param value the number.
+     * @return the buffer.
+     */
+    private static StringBuilder appendTwoDigits(StringBuilder out, int value) {
+        return out.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /**
+     * Converts an epoch minute into a LocalDateTime for formatting.
+     *
+     * @param epochMinute the date-time as minutes since 01-01-1970 00:00.
+     * @return the corresponding LocalDateTime.
+     */
+    private static LocalDateTime toDateTime(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
     }
 }
@@ -1,5 +1,7 @@
 package gym.management;
 
+import gym.customers.Gender;
+
 /**
  * Enum representing the various forum types available for gym sessions.
  */
@@ -8,4 +10,32 @@ public enum ForumType {
     Male,
     Female,
     Seniors;
+
+    // Minimum age for the "Seniors" forum type
+    public static final int SENIORS_AGE = 65;
+
+    /**
+     * Retrieves the bit that represents this forum type in a forum mask.
+     *
+     * @return a mask with only this forum type's bit set.
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Computes the mask of all forum types a person with the given gender and age belongs to.
+     *
+     * @param gender the person's gender.
+     * @param age    the person's age.
+     * @return a mask with the bits of every matching forum type set.
+     */
+    public static int maskFor(Gender gender, int age) {
+        // All clients belong to the "All" forum type, and to the forum type of their gender
+        int mask = All.mask() | (gender == Gender.Male ? Male.mask() : Female.mask());
+        // Clients aged 65 and older also belong to the "Seniors" forum type
+        if (age >= SENIORS_AGE)
+            mask |= Seniors.mask();
+        return mask;
+    }
 }
@@ -2,8 +2,9 @@ package gym.management;
 
 import gym.customers.Client;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Utility class for checking if a client matches a specific forum type.
@@ -11,28 +12,40 @@ import java.util.List;
 public class ForumTypeCheck {
     /**
      * Determines if a client is eligible for a specified forum type.
+     * The check is a single bitwise AND against the client's precomputed forum mask.
      *
      * @param client    the client whose eligibility is being checked.
      * @param forumType the forum type to check against.
      * @return true if the client matches the forum type, false otherwise.
      */
     protected static boolean isType(Client client, ForumType forumType) {
-        // List to store all forum types applicable to the client
-        List<ForumType> currentType = new LinkedList<>();
-
-        // All clients belong to the "All" forum type
-        currentType.add(ForumType.All);
-
-        // Clients aged 65 and older belong to the "Seniors" forum type
-        if (client.getAge() >= 65)
-            currentType.add(ForumType.Seniors);
+        return (client.getForumMask() & forumType.mask()) != 0;
+    }
 
-        // Add the forum type corresponding to the client's gender
-        if (client.getGender().toString().equals(ForumType.Male.toString()))
-            currentType.add(ForumType.Male);
-        else currentType.add(ForumType.Female);
+    /**
+     * Performs an action for every client that is eligible for a specified forum type, in one pass.
+     *
+     * @param clients   the clients to filter.
+     * @param forumType the forum type to check against.
+     * @param action    the action to perform on each eligible client.
+     */
+    public static void forEachEligible(Iterable<? extends Client> clients, ForumType forumType, Consumer<? super Client> action) {
+        int mask = forumType.mask();
+        for (Client client : clients)
+            if ((client.getForumMask() & mask) != 0)
+                action.accept(client);
+    }
 
-        // Check if the specified forum type is in the list of applicable types
-        return currentType.contains(forumType);
+    /**
+     * Collects all clients that are eligible for a specified forum type, for targeted campaigns.
+     *
+     * @param clients   the clients to filter.
+     * @param forumType the forum type to check against.
+     * @return a list of the eligible clients, in iteration order.
+     */
+    public static List<Client> eligibleClients(Iterable<? extends Client> clients, ForumType forumType) {
+        List<Client> eligible = new ArrayList<>();
+        forEachEligible(clients, forumType, eligible::add);
+        return eligible;
     }
 }
@@ -1,11 +1,28 @@
 package gym.management;
 
 import gym.customers.Client;
+import gym.customers.GymClock;
+import gym.customers.Inbox;
 import gym.customers.Person;
+import gym.management.Sessions.Roster;
 import gym.management.Sessions.Session;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Singleton class representing a Gym. This class manages the gym's clients,
@@ -17,12 +34,28 @@ public class Gym {
 
     // Attributes of the Gym class
     private Secretary secretary;
-    private List<Client> clientsList = new LinkedList<>();
+    private ClientRegistry clients = new ClientRegistry();
+    // Indexes for searching the clients, kept in step with the registry
+    private final ClientIndex clientIndex = new ClientIndex();
     private List<Instructor> instructorsList = new LinkedList<>();
     private List<Session> sessionsList = new LinkedList<>();
-    private List<String> gymHistory = new LinkedList<>();
+    private SessionCalendar calendar = new SessionCalendar();
+    private ActionLog gymHistory = new ActionLog();
     private String gymName;
-    private int balance;
+    // Registrations credit the balance from many threads, so it is kept in contention-free cells
+    private final LongAdder balance = new LongAdder();
+    // Locks guarding the seats and rosters of the sessions
+    private final LockStripes sessionLocks = new LockStripes(Runtime.getRuntime().availableProcessors() * 16);
+    private GymJournal journal = new GymJournal(this);
+    private final Payroll payroll = new Payroll();
+    private final SecretaryMetrics metrics = new SecretaryMetrics();
+    // Booked sessions by instructor and by client ID, so that bookings never overlap
+    private final Map<Integer, Timeline> instructorTimelines = new ConcurrentHashMap<>();
+    private final Map<Integer, Timeline> clientTimelines = new ConcurrentHashMap<>();
+    // Publisher keeping every client subscribed for gym-wide notifications
+    private final NewsletterPublisher publisher = new NewsletterPublisher();
+    private ScheduledExecutorService inboxCompactor;
+    private final LongAdder compactedNotifications = new LongAdder();
 
     /**
      * Retrieves the singleton instance of the Gym class.
@@ -32,6 +65,7 @@ public class Gym {
     public static Gym getInstance() {
         if (gym == null) {
             gym = new Gym();
+            Person.setBalanceListener(gym.clientIndex); // Keeps the clients' balance index up to date
         }
         return gym;
     }
@@ -42,16 +76,255 @@ public class Gym {
      * @param client the Client object to be added.
      */
     protected void addClient(Client client) {
-        clientsList.add(client);
+        if (clients.add(client)) {
+            clientIndex.add(client);
+            publisher.register(client);
+        }
+    }
+
+    /**
+     * Removes a client from the gym.
+     *
+     * @param client the Client object to be removed.
+     * @return true if the client was registered and has been removed, false otherwise.
+     */
+    protected boolean removeClient(Client client) {
+        Client removed = clients.remove(client.getID());
+        if (removed == null)
+            return false;
+        clientIndex.remove(removed);
+        publisher.unregister(removed);
+        return true;
+    }
+
+    /**
+     * Creates a notification with a new unique ID, stamped with the current time, to send with the notify methods.
+     *
+     * @param message the text of the notification.
+     * @return the new notification.
+     */
+    protected Notification newNotification(String message) {
+        return publisher.newNotification(message);
+    }
+
+    /**
+     * Recreates a notification saved in the journal or a snapshot, keeping its ID and time.
+     * The notifications created afterwards get higher IDs.
+     *
+     * @param id      the ID of the notification.
+     * @param message the text of the notification.
+     * @param time    the time the notification was sent, in epoch milliseconds.
+     * @return the restored notification.
+     */
+    protected Notification restoreNotification(long id, String message, long time) {
+        publisher.restoreId(id);
+        return new Notification(id, message, time);
+    }
+
+    /**
+     * Sends a notification to the clients registered for some sessions.
+     * A client registered for several of the sessions receives the notification once per session.
+     * A caller holding the journal's lock reads the rosters without the sessions' locks, as the rosters of
+     * a journaled gym only change under the journal's lock, which is taken after the sessions' locks.
+     *
+     * @param sessions     the sessions whose clients are notified.
+     * @param notification the notification to send.
+     * @return the notification sent.
+     */
+    protected Notification notifySessions(Iterable<Session> sessions, Notification notification) {
+        Member[] audience = new Member[16];
+        int count = 0;
+        boolean journaled = Thread.holdsLock(journal);
+        for (Session session : sessions) {
+            // Read the session's clients while no registration can change them
+            Lock lock = journaled ? null : sessionLock(session);
+            if (lock != null)
+                lock.lock();
+            try {
+                Roster roster = session.getRoster();
+                if (count + roster.size() > audience.length)
+                    audience = Arrays.copyOf(audience, Math.max(audience.length * 2, count + roster.size()));
+                roster.copyTo(audience, count);
+                count += roster.size();
+            } finally {
+                if (lock != null)
+                    lock.unlock();
+            }
+        }
+        return publisher.sendNewsletter(notification, audience, count);
     }
 
     /**
-     * Retrieves the list of clients registered in the gym.
+     * Sends a notification to a single client.
      *
-     * @return a List of Client objects.
+     * @param client       the client to notify.
+     * @param notification the notification to send.
+     * @return the notification sent.
      */
-    protected List<Client> getClientsList() {
-        return clientsList;
+    protected Notification notifyClient(Client client, Notification notification) {
+        return publisher.sendNewsletter(notification, new Member[]{client}, 1);
+    }
+
+    /**
+     * Sends a notification to every client of the gym, without waiting for it to be delivered.
+     *
+     * @param notification the notification to send.
+     * @return the notification sent.
+     */
+    protected Notification notifyClients(Notification notification) {
+        return publisher.sendNewsletter(notification);
+    }
+
+    /**
+     * Blocks until every notification sent so far has been delivered to its recipients.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void awaitNotifications() throws InterruptedException {
+        publisher.awaitDelivery();
+    }
+
+    /**
+     * Blocks until every notification sent so far to a member has been delivered to it,
+     * without waiting for the deliveries to other members.
+     *
+     * @param member the member whose notifications are awaited.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void awaitNotifications(Member member) throws InterruptedException {
+        publisher.awaitDelivery(member);
+    }
+
+    /**
+     * Shuts the gym's background work down: stops the compaction of the inboxes and the delivery lanes, after
+     * delivering the notifications already sent. The gym can no longer add clients or send notifications afterwards.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting for the deliveries.
+     */
+    public void shutdown() throws InterruptedException {
+        stopInboxCompaction();
+        publisher.shutdown();
+    }
+
+    /**
+     * Starts compacting the clients' inboxes in the background at a fixed period, dropping the
+     * notifications that have expired according to the inboxes' retention.
+     *
+     * @param period the time between two compactions.
+     */
+    public synchronized void startInboxCompaction(Duration period) {
+        stopInboxCompaction();
+        inboxCompactor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "inbox-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(period.toMillis(), 1);
+        inboxCompactor.scheduleWithFixedDelay(this::compactInboxes, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background compaction of the clients' inboxes, if it was started.
+     */
+    public synchronized void stopInboxCompaction() {
+        if (inboxCompactor != null) {
+            inboxCompactor.shutdownNow();
+            inboxCompactor = null;
+        }
+    }
+
+    /**
+     * Compacts every client's inbox once. The work runs on the delivery lanes, in order with the
+     * notifications being delivered, and this method does not wait for it.
+     */
+    public void compactInboxes() {
+        long now = GymClock.getClock().millis();
+        publisher.forEachMember(member -> {
+            if (member instanceof Client)
+                compactedNotifications.add(((Client) member).getInbox().compact(now));
+        });
+    }
+
+    /**
+     * Measures the clients' inboxes, after waiting for the notifications already sent to be delivered.
+     *
+     * @return the inbox metrics of the gym's clients.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public InboxMetrics inboxMetrics() throws InterruptedException {
+        LongAdder clientCount = new LongAdder();
+        LongAdder notifications = new LongAdder();
+        LongAdder unread = new LongAdder();
+        LongAdder slots = new LongAdder();
+        Set<Notification> distinct = ConcurrentHashMap.newKeySet(); // Notifications compare by identity
+        publisher.forEachMember(member -> {
+            if (!(member instanceof Client))
+                return;
+            Inbox inbox = ((Client) member).getInbox();
+            clientCount.increment();
+            notifications.add(inbox.size());
+            unread.add(inbox.unreadCount());
+            slots.add(inbox.capacity());
+            inbox.forEach(distinct::add);
+        });
+        publisher.awaitDelivery();
+        return new InboxMetrics(clientCount.sum(), notifications.sum(), unread.sum(), slots.sum(), distinct.size(),
+                MessageTable.size(), MessageTable.characters(), compactedNotifications.sum());
+    }
+
+    /**
+     * Takes a columnar snapshot of the gym's clients, instructors, sessions and registrations for reporting.
+     *
+     * @return the snapshot, dated today.
+     */
+    public GymSnapshot analyticsSnapshot() {
+        Client[] clientArray = clientIndex.clients();
+        Instructor[] instructors;
+        synchronized (instructorsList) {
+            instructors = instructorsList.toArray(new Instructor[0]);
+        }
+        Session[] sessions;
+        synchronized (sessionsList) {
+            sessions = sessionsList.toArray(new Session[0]);
+        }
+        int[][] rosters = new int[sessions.length][];
+        for (int i = 0; i < sessions.length; i++) {
+            Lock lock = sessionLock(sessions[i]);
+            lock.lock();
+            try {
+                rosters[i] = sessions[i].getRoster().toIdArray();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return new GymSnapshot(GymClock.today(), clientArray, instructors, sessions, rosters);
+    }
+
+    /**
+     * Retrieves the registry of clients registered in the gym.
+     *
+     * @return the ClientRegistry holding the gym's clients.
+     */
+    protected ClientRegistry getClients() {
+        return clients;
+    }
+
+    /**
+     * Retrieves the indexes for searching the gym's clients.
+     *
+     * @return the ClientIndex over the gym's clients.
+     */
+    protected ClientIndex getClientIndex() {
+        return clientIndex;
+    }
+
+    /**
+     * Retrieves the list of instructors employed by the gym.
+     *
+     * @return a List of Instructor objects.
+     */
+    protected List<Instructor> getInstructorsList() {
+        return instructorsList;
     }
 
     /**
@@ -60,7 +333,9 @@ public class Gym {
      * @param instructor the Instructor object to be added.
      */
     protected void addInstructor(Instructor instructor) {
-        instructorsList.add(instructor);
+        synchronized (instructorsList) {
+            instructorsList.add(instructor);
+        }
     }
 
     /**
@@ -69,7 +344,77 @@ public class Gym {
      * @param session the Session object to be added.
      */
     protected void addSession(Session session) {
-        sessionsList.add(session);
+        synchronized (sessionsList) {
+            sessionsList.add(session);
+        }
+        calendar.add(session);
+        payroll.accrue(session); // The instructor is owed the session from now on
+        instructorTimeline(session.getInstructor()).book(session);
+    }
+
+    /**
+     * Adds a client to a session, taking one of its places and booking it in the client's timeline.
+     * The caller must hold the session's lock, and must have booked the timeline already unless restoring saved state.
+     *
+     * @param session the session.
+     * @param client  the client joining it.
+     */
+    protected void enroll(Session session, Client client) {
+        session.addClient(client);
+        session.setPlaces();
+        clientTimeline(client).book(session);
+    }
+
+    /**
+     * Removes a client from a session, freeing their place and their timeline. The caller must hold the session's lock.
+     *
+     * @param session the session.
+     * @param client  the client leaving it.
+     */
+    protected void withdraw(Session session, Client client) {
+        session.removeClient(client);
+        session.releasePlace();
+        clientTimeline(client).release(session);
+    }
+
+    /**
+     * Retrieves the timeline of the sessions an instructor teaches.
+     *
+     * @param instructor the instructor.
+     * @return the instructor's timeline.
+     */
+    protected Timeline instructorTimeline(Instructor instructor) {
+        return instructorTimelines.computeIfAbsent(instructor.getID(), id -> new Timeline());
+    }
+
+    /**
+     * Retrieves the timeline of the sessions a client is registered to.
+     *
+     * @param client the client.
+     * @return the client's timeline.
+     */
+    protected Timeline clientTimeline(Client client) {
+        return clientTimelines.computeIfAbsent(client.getID(), id -> new Timeline());
+    }
+
+    /**
+     * Retrieves the calendar index of the gym's sessions by day.
+     *
+     * @return the SessionCalendar of the gym.
+     */
+    protected SessionCalendar getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * Retrieves the lock guarding the places and registered clients of a session.
+     * Sessions with different locks can be registered to concurrently.
+     *
+     * @param session the session to lock.
+     * @return the lock of the session.
+     */
+    protected Lock sessionLock(Session session) {
+        return sessionLocks.forId(session.getId());
     }
 
     /**
@@ -84,19 +429,98 @@ public class Gym {
     /**
      * Retrieves the history of actions performed in the gym.
      *
-     * @return a List of Strings containing the history entries.
+     * @return the ActionLog containing the history entries.
      */
-    protected List<String> getGymHistory() {
+    protected ActionLog getGymHistory() {
         return gymHistory;
     }
 
     /**
      * Adds an entry to the gym's history log.
      *
-     * @param string the history entry to be added.
+     * @param type    the type of the action.
+     * @param person  the person the action concerns, or null.
+     * @param session the session the action concerns, or null.
+     * @param text    the message of the action, or null.
+     * @param value   the numeric value of the action, such as a price, wage or epoch day.
+     */
+    protected void gymHistoryAdd(ActionType type, Person person, Session session, String text, long value) {
+        metrics.count(type);
+        long time = GymClock.getClock().millis();
+        // Snapshots hold the history, so the entry and its record are one journaled change
+        journal.change(() -> {
+            journal.history(time, type, person, session, text, value);
+            gymHistory.appendAt(time, type, person, session, text, value);
+            return null;
+        });
+    }
+
+    /**
+     * Retrieves the metrics of the secretary's operations.
+     *
+     * @return the gym's metrics.
+     */
+    public SecretaryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Retrieves the payroll of the gym's employees.
+     *
+     * @return the Payroll of the gym.
+     */
+    public Payroll getPayroll() {
+        return payroll;
+    }
+
+    /**
+     * Retrieves the journal that persists the gym's state.
+     *
+     * @return the GymJournal of the gym.
+     */
+    protected GymJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Opens a persistent journal in a directory. Any state saved there is restored into the gym first,
+     * so this should be called before any other action is taken on the gym.
+     * From then on, every change is journaled to the directory.
+     *
+     * @param directory the directory holding the gym's snapshot and journal files.
+     * @throws IOException if the files cannot be read or created.
+     */
+    public void openJournal(Path directory) throws IOException {
+        journal.open(directory);
+    }
+
+    /**
+     * Writes a compact snapshot of the gym's state and starts the journal over.
+     *
+     * @throws IOException if the snapshot cannot be written.
      */
-    protected void gymHistoryAdd(String string) {
-        gymHistory.add(string);
+    public void snapshot() throws IOException {
+        journal.snapshot();
+    }
+
+    /**
+     * Flushes and closes the persistent journal.
+     *
+     * @throws IOException if the journal cannot be closed.
+     */
+    public void closeJournal() throws IOException {
+        journal.close();
+    }
+
+    /**
+     * Spills the oldest entries of the gym's history to a file once the in-memory history is full,
+     * instead of dropping them.
+     *
+     * @param file the file to spill history entries to.
+     * @throws IOException if the file cannot be opened.
+     */
+    public void spillHistoryTo(Path file) throws IOException {
+        gymHistory.spillTo(file);
     }
 
     /**
@@ -105,7 +529,20 @@ public class Gym {
      * @param gymName the name to set for the gym.
      */
     public void setName(String gymName) {
-        this.gymName = gymName;
+        journal.change(() -> {
+            journal.gymName(gymName);
+            this.gymName = gymName;
+            return null;
+        });
+    }
+
+    /**
+     * Retrieves the name of the gym.
+     *
+     * @return the gym's name.
+     */
+    protected String getName() {
+        return gymName;
     }
 
     /**
@@ -115,7 +552,22 @@ public class Gym {
      * @param salary    the monthly salary for the Secretary.
      */
     public void setSecretary(Person secretary, int salary) {
-        this.secretary = new Secretary(secretary, salary);
+        journal.change(() -> {
+            journal.secretary(secretary, salary);
+            this.secretary = new Secretary(secretary, salary);
+            return null;
+        });
+    }
+
+    /**
+     * Reinstates a Secretary restored from saved state, revoking access from the previous one if any.
+     *
+     * @param secretary the restored Secretary.
+     */
+    protected void restoreSecretary(Secretary secretary) {
+        if (this.secretary != null)
+            this.secretary.revokeAccess();
+        this.secretary = secretary;
     }
 
     /**
@@ -133,7 +585,7 @@ public class Gym {
      * @param paying the amount to add to the balance.
      */
     protected void increaseBalance(int paying) {
-        balance += paying;
+        balance.add(paying);
     }
 
     /**
@@ -142,7 +594,7 @@ public class Gym {
      * @param paying the amount to deduct.
      */
     protected void payForEmployees(int paying) {
-        balance -= paying;
+        balance.add(-paying);
     }
 
     /**
@@ -150,39 +602,45 @@ public class Gym {
      *
      * @return the gym's financial balance.
      */
-    private int getBalance() {
-        return balance;
+    protected int getBalance() {
+        return balance.intValue();
     }
 
     /**
-     * Prints the details of the gym, including its name, secretary, balance,
-     * clients, employees, and sessions.
+     * Writes the details of the gym, including its name, secretary, balance, clients, employees, and sessions,
+     * to a character destination.
      *
-     * @return an empty String as the formatted data is directly printed.
+     * @param out the destination, such as a buffered Writer.
+     * @throws IOException if the destination fails.
      */
-    public String toString() {
-        System.out.println("Gym Name: " + gymName);
-        System.out.println("Gym Secretary: " + getSecretary());
-        System.out.println("Gym Balance: " + getBalance());
+    public void writeReport(Appendable out) throws IOException {
+        new GymReportWriter(this).writeTo(out);
+    }
 
-        System.out.println("\nClients Data:");
-        for (Client client : clientsList) {
-            System.out.println(client);
-        }
+    /**
+     * Writes the details of the gym, including its name, secretary, balance, clients, employees, and sessions,
+     * to a byte channel in UTF-8.
+     *
+     * @param channel the destination, such as a file channel.
+     * @throws IOException if the channel fails.
+     */
+    public void writeReport(WritableByteChannel channel) throws IOException {
+        new GymReportWriter(this).writeTo(channel);
+    }
 
-        System.out.println("\nEmployees Data:");
-        for (Instructor instructor : instructorsList) {
-            System.out.println(instructor);
-        }
-        System.out.println(getSecretary());
-
-        System.out.println("\nSessions Data:");
-        for (Session session : sessionsList) {
-            System.out.print(session);
-            if (!session.equals(sessionsList.get(sessionsList.size()-1)))
-                System.out.println();
-            //sessionsList.size()-1
+    /**
+     * Returns the details of the gym, including its name, secretary, balance,
+     * clients, employees, and sessions. Large gyms are better streamed with writeReport.
+     *
+     * @return the details of the gym, one record per line.
+     */
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        try {
+            writeReport(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // A StringBuilder never fails
         }
-        return "";
+        return out.toString();
     }
 }
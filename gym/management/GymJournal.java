@@ -0,0 +1,1453 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Inbox;
+import gym.customers.InboxRetention;
+import gym.customers.Person;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionFactory;
+import gym.management.Sessions.SessionType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Write-ahead journal that persists the state of the gym across restarts.
+ * Every change is appended as a compact binary record to a memory-mapped journal file
+ * before it is applied in memory. Once the journal grows past a threshold, the whole state is
+ * written to a compact snapshot file and the journal starts over.
+ * A change and its records are made together with {@link #change(Supplier)}, and a snapshot that falls due
+ * while records are written is only taken once the change is over, so a snapshot never holds half a change.
+ * Opening a journal replays the snapshot and then the journal tail into the gym,
+ * reading primitives straight from mapped buffers with no reflection or text parsing.
+ */
+public class GymJournal {
+    private static final int JOURNAL_MAGIC = 0x47594D4A; // "GYMJ"
+    private static final int SNAPSHOT_MAGIC = 0x47594D53; // "GYMS"
+    private static final int VERSION = 5;
+    private static final int HEADER_SIZE = 24; // magic, version, generation, end position
+    private static final int END_OFFSET = 16;
+    private static final int INITIAL_SIZE = 1 << 20;
+    private static final long DEFAULT_SNAPSHOT_THRESHOLD = 64L << 20;
+    private static final int SNAPSHOT_BUFFER_SIZE = 1 << 20;
+    private static final int SESSION_SIZE = 29; // Bytes written by putSession
+
+    // Record types
+    private static final byte PERSON = 1;
+    private static final byte GYM_NAME = 2;
+    private static final byte SECRETARY = 3;
+    private static final byte CLIENT_ADDED = 4;
+    private static final byte CLIENT_REMOVED = 5;
+    private static final byte INSTRUCTOR_ADDED = 6;
+    private static final byte SESSION_ADDED = 7;
+    private static final byte LESSON_REGISTERED = 8;
+    // Type 9 held the per-person salary payments of version 1, replaced by PAYROLL_SETTLED
+    private static final byte NOTIFIED = 10;
+    private static final byte HISTORY = 11;
+    private static final byte BATCH_REGISTERED = 12;
+    private static final byte PAYROLL_SETTLED = 13;
+    private static final byte SESSION_TYPE = 14;
+    private static final byte LESSON_UNREGISTERED = 15;
+    private static final byte WAITLISTED = 16;
+    private static final byte WAITLIST_LEFT = 17;
+
+    // Audiences of notification records
+    private static final byte SESSION_AUDIENCE = 0;
+    private static final byte DAY_AUDIENCE = 1;
+    private static final byte ALL_AUDIENCE = 2;
+    private static final byte CLIENT_AUDIENCE = 3;
+
+    private final Gym gym;
+    private Path journalFile;
+    private Path snapshotFile;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    // Read without the journal's lock, so closed journals cost callers nothing
+    private volatile boolean open;
+    private long generation;
+    private long snapshotThreshold = DEFAULT_SNAPSHOT_THRESHOLD;
+    // Set when the journal passes the threshold, and cleared by the snapshot taken at the end of the change
+    private volatile boolean snapshotDue;
+    // IDs of persons whose details are already in the snapshot or journal
+    private final BitSet knownPersons = new BitSet();
+    // Ordinals of session types whose names are already in the snapshot or journal
+    private final BitSet knownTypes = new BitSet();
+    // Clients taken off a waitlist for promotion and not yet seated, in the order they were taken
+    private final List<Promotion> promotions = new ArrayList<>();
+
+    // Lookup tables by ID used while replaying
+    private final IdTable<Person> persons = new IdTable<>();
+    private final IdTable<Instructor> instructors = new IdTable<>();
+    private final IdTable<Session> sessions = new IdTable<>();
+    private final IdTable<Client> clients = new IdTable<>();
+    private final IdTable<SessionType> types = new IdTable<>();
+
+    /**
+     * Constructor for creating a closed journal for a gym.
+     *
+     * @param gym the gym whose state is journaled.
+     */
+    protected GymJournal(Gym gym) {
+        this.gym = gym;
+    }
+
+    /**
+     * Checks whether the journal is open and recording changes.
+     *
+     * @return true if the journal is open, false otherwise.
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Sets the journal size above which a snapshot is taken and the journal starts over.
+     *
+     * @param bytes the snapshot threshold in bytes.
+     */
+    public void setSnapshotThreshold(long bytes) {
+        this.snapshotThreshold = bytes;
+    }
+
+    /**
+     * Makes a change to the gym together with the records that journal it. While the journal is open, the change
+     * runs under the journal's lock, so a snapshot sees the change either whole or not at all. A snapshot that fell
+     * due while the records were written is taken once the lock is released, unless the change is part of another.
+     *
+     * @param change the change, which writes its records and applies them in memory.
+     * @param <T>    the type of the change's result.
+     * @return the result of the change.
+     */
+    protected <T> T change(Supplier<T> change) {
+        if (!isOpen())
+            return change.get();
+        T result;
+        synchronized (this) {
+            result = change.get();
+        }
+        snapshotIfDue();
+        return result;
+    }
+
+    /**
+     * Takes the snapshot that fell due while records were written, unless the current thread is in the middle
+     * of a change.
+     */
+    private void snapshotIfDue() {
+        if (!snapshotDue || Thread.holdsLock(this))
+            return;
+        synchronized (this) {
+            if (!snapshotDue || !isOpen())
+                return; // Taken by another thread, or closed, while waiting for the lock
+            try {
+                snapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Opens the journal in a directory, restoring the state saved there into the gym.
+     * The gym is expected to be empty when the journal is opened.
+     *
+     * @param directory the directory holding the snapshot and journal files.
+     * @throws IOException if the files cannot be read or created.
+     */
+    protected synchronized void open(Path directory) throws IOException {
+        if (isOpen())
+            throw new IllegalStateException("Journal is already open");
+        Files.createDirectories(directory);
+        journalFile = directory.resolve("journal.bin");
+        snapshotFile = directory.resolve("snapshot.bin");
+
+        long snapshotGeneration = -1;
+        if (Files.exists(snapshotFile))
+            snapshotGeneration = loadSnapshot();
+
+        channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), INITIAL_SIZE));
+        if (mapped.getInt(0) == JOURNAL_MAGIC && mapped.getInt(4) != VERSION)
+            throw new IOException("Unsupported journal version " + mapped.getInt(4) + ": " + journalFile);
+        boolean replay = mapped.getInt(0) == JOURNAL_MAGIC && mapped.getLong(8) >= snapshotGeneration;
+        int end = HEADER_SIZE;
+        if (replay) {
+            // Replay the records appended since the snapshot was taken, before the journal records anything
+            generation = mapped.getLong(8);
+            end = (int) mapped.getLong(END_OFFSET);
+            ByteBuffer records = mapped.duplicate();
+            records.limit(end).position(HEADER_SIZE);
+            while (records.hasRemaining())
+                apply(records);
+        } else {
+            // No journal, or one whose records are already folded into the snapshot
+            generation = Math.max(snapshotGeneration, 0);
+        }
+        clearLookups();
+
+        buffer = mapped;
+        if (replay)
+            buffer.position(end);
+        else
+            resetJournal();
+        open = true;
+    }
+
+    /**
+     * Writes the whole state of the gym to a snapshot and starts the journal over.
+     *
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public synchronized void snapshot() throws IOException {
+        if (!isOpen())
+            throw new IllegalStateException("Journal is not open");
+        try {
+            // Notifications still queued for delivery would be missing from the clients in the snapshot
+            gym.awaitNotifications();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for notifications to be delivered", e);
+        }
+        long nextGeneration = generation + 1;
+        Path temporary = snapshotFile.resolveSibling("snapshot.tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            new SnapshotWriter(out).write(nextGeneration);
+            out.force(true);
+        }
+        Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // The journal's records are now part of the snapshot
+        generation = nextGeneration;
+        resetJournal();
+    }
+
+    /**
+     * Flushes the journal to disk and closes it.
+     *
+     * @throws IOException if the journal cannot be closed.
+     */
+    public synchronized void close() throws IOException {
+        if (!isOpen())
+            return;
+        open = false;
+        buffer.force();
+        channel.close();
+        buffer = null;
+        channel = null;
+    }
+
+    /**
+     * Records a change of the gym's name.
+     *
+     * @param name the new name.
+     */
+    protected synchronized void gymName(String name) {
+        if (!isOpen())
+            return;
+        begin(GYM_NAME, size(name));
+        putString(name);
+        end();
+    }
+
+    /**
+     * Records the assignment of a new secretary.
+     *
+     * @param person the person becoming secretary.
+     * @param salary the monthly salary of the secretary.
+     */
+    protected synchronized void secretary(Person person, int salary) {
+        if (!isOpen())
+            return;
+        person(person);
+        begin(SECRETARY, 8);
+        buffer.putInt(person.getID());
+        buffer.putInt(salary);
+        end();
+    }
+
+    /**
+     * Records the registration of a client.
+     *
+     * @param person the person registered as a client.
+     */
+    protected synchronized void clientAdded(Person person) {
+        if (!isOpen())
+            return;
+        person(person);
+        begin(CLIENT_ADDED, 4);
+        buffer.putInt(person.getID());
+        end();
+    }
+
+    /**
+     * Records the removal of a client.
+     *
+     * @param client the client removed from the gym.
+     */
+    protected synchronized void clientRemoved(Client client) {
+        if (!isOpen())
+            return;
+        begin(CLIENT_REMOVED, 4);
+        buffer.putInt(client.getID());
+        end();
+    }
+
+    /**
+     * Records the hiring of an instructor.
+     *
+     * @param instructor the hired instructor.
+     */
+    protected synchronized void instructorAdded(Instructor instructor) {
+        if (!isOpen())
+            return;
+        person(instructor);
+        for (SessionType type : instructor.validSessions)
+            type(type);
+        begin(INSTRUCTOR_ADDED, 12 + 4 * instructor.validSessions.size());
+        putInstructor(buffer, instructor);
+        end();
+    }
+
+    /**
+     * Records the creation of a session.
+     *
+     * @param session the created session.
+     */
+    protected synchronized void sessionAdded(Session session) {
+        if (!isOpen())
+            return;
+        type(session.getType());
+        begin(SESSION_ADDED, SESSION_SIZE);
+        putSession(buffer, session);
+        end();
+    }
+
+    /**
+     * Records the registration of a client to a session.
+     *
+     * @param client  the registered client.
+     * @param session the session registered to.
+     * @param price   the price paid by the client.
+     */
+    protected void lessonRegistered(Client client, Session session, int price) {
+        if (!isOpen())
+            return;
+        synchronized (this) {
+            if (!isOpen())
+                return; // Closed while waiting for the lock
+            begin(LESSON_REGISTERED, 12);
+            buffer.putInt(client.getID());
+            buffer.putInt(session.getId());
+            buffer.putInt(price);
+            end();
+        }
+    }
+
+    /**
+     * Records the registration of a batch of clients to a session.
+     *
+     * @param session   the session registered to.
+     * @param price     the price paid by each client.
+     * @param clientIds the IDs of the registered clients.
+     * @param count     the number of IDs to record from the array.
+     */
+    protected void lessonsRegistered(Session session, int price, int[] clientIds, int count) {
+        if (!isOpen())
+            return;
+        synchronized (this) {
+            if (!isOpen())
+                return; // Closed while waiting for the lock
+            begin(BATCH_REGISTERED, 12 + 4 * count);
+            buffer.putInt(session.getId());
+            buffer.putInt(price);
+            buffer.putInt(count);
+            for (int i = 0; i < count; i++)
+                buffer.putInt(clientIds[i]);
+            end();
+        }
+    }
+
+    /**
+     * Records the removal of a client from a session, with the refund of its price.
+     *
+     * @param client  the client removed.
+     * @param session the session left.
+     * @param refund  the amount refunded to the client.
+     */
+    protected void lessonUnregistered(Client client, Session session, int refund) {
+        clientInSession(LESSON_UNREGISTERED, client, session, refund);
+    }
+
+    /**
+     * Records a client joining the end of a session's waitlist.
+     *
+     * @param client  the waiting client.
+     * @param session the session waited for.
+     */
+    protected void waitlisted(Client client, Session session) {
+        clientInSession(WAITLISTED, client, session, 0);
+    }
+
+    /**
+     * Records a client leaving a session's waitlist without being registered.
+     *
+     * @param client  the client leaving.
+     * @param session the session of the waitlist.
+     */
+    protected void waitlistLeft(Client client, Session session) {
+        clientInSession(WAITLIST_LEFT, client, session, 0);
+    }
+
+    /**
+     * Notes that a client was taken off a session's waitlist to be promoted, outside the session's lock.
+     * Until the promotion ends, snapshots write the client back at the head of the waitlist, or into the
+     * roster once they are charged, so a snapshot taken halfway through the promotion does not lose them.
+     *
+     * @param client  the client being promoted.
+     * @param session the session of the waitlist.
+     */
+    protected synchronized void promotionStarted(Client client, Session session) {
+        if (isOpen())
+            promotions.add(new Promotion(client, session));
+    }
+
+    /**
+     * Notes that a client being promoted was charged for the session, as recorded by lessonRegistered.
+     *
+     * @param client  the client being promoted.
+     * @param session the session of the waitlist.
+     */
+    protected synchronized void promotionCharged(Client client, Session session) {
+        for (Promotion promotion : promotions)
+            if (promotion.client == client && promotion.session == session)
+                promotion.charged = true;
+    }
+
+    /**
+     * Notes that a promotion ended, the client being seated or dropped from the waitlist.
+     *
+     * @param client  the client that was being promoted.
+     * @param session the session of the waitlist.
+     */
+    protected synchronized void promotionEnded(Client client, Session session) {
+        promotions.removeIf(promotion -> promotion.client == client && promotion.session == session);
+    }
+
+    /**
+     * Records a change concerning one client and one session.
+     *
+     * @param type    the record type.
+     * @param client  the client.
+     * @param session the session.
+     * @param amount  the amount of money involved, or 0.
+     */
+    private synchronized void clientInSession(byte type, Client client, Session session, int amount) {
+        if (!isOpen())
+            return;
+        begin(type, 12);
+        buffer.putInt(client.getID());
+        buffer.putInt(session.getId());
+        buffer.putInt(amount);
+        end();
+    }
+
+    /**
+     * Records a settlement of the payroll, replayed by settling the payroll again with the same arguments.
+     *
+     * @param through the last period of the accruals paid.
+     * @param month   the period the secretary was paid for.
+     */
+    protected synchronized void payrollSettled(int through, int month) {
+        if (!isOpen())
+            return;
+        begin(PAYROLL_SETTLED, 8);
+        buffer.putInt(through);
+        buffer.putInt(month);
+        end();
+    }
+
+    /**
+     * Records a notification sent to everyone registered for a session.
+     *
+     * @param session      the session whose clients were notified.
+     * @param notification the notification sent.
+     */
+    protected void sessionNotified(Session session, Notification notification) {
+        notified(SESSION_AUDIENCE, session.getId(), notification);
+    }
+
+    /**
+     * Records a notification sent to everyone registered for a session on a day.
+     *
+     * @param epochDay     the day whose clients were notified.
+     * @param notification the notification sent.
+     */
+    protected void dayNotified(int epochDay, Notification notification) {
+        notified(DAY_AUDIENCE, epochDay, notification);
+    }
+
+    /**
+     * Records a notification sent to a single client.
+     *
+     * @param client       the client notified.
+     * @param notification the notification sent.
+     */
+    protected void clientNotified(Client client, Notification notification) {
+        notified(CLIENT_AUDIENCE, client.getID(), notification);
+    }
+
+    /**
+     * Records a notification sent to all clients.
+     *
+     * @param notification the notification sent.
+     */
+    protected void allNotified(Notification notification) {
+        notified(ALL_AUDIENCE, 0, notification);
+    }
+
+    /**
+     * Records an entry of the gym's history.
+     *
+     * @param time    the time of the action in epoch milliseconds.
+     * @param type    the type of the action.
+     * @param person  the person the action concerns, or null.
+     * @param session the session the action concerns, or null.
+     * @param text    the message of the action, or null.
+     * @param value   the numeric value of the action.
+     */
+    protected void history(long time, ActionType type, Person person, Session session, String text, long value) {
+        if (!isOpen())
+            return;
+        synchronized (this) {
+            if (!isOpen())
+                return; // Closed while waiting for the lock
+            if (person != null)
+                person(person);
+            begin(HISTORY, 25 + size(text));
+            putHistory(buffer, time, type, person, session, text, value);
+            end();
+        }
+    }
+
+    /**
+     * Records a notification, with its ID and time so that its replay is stamped as the original was.
+     *
+     * @param audience     the kind of audience notified.
+     * @param target       the session ID or epoch day identifying the audience.
+     * @param notification the notification sent.
+     */
+    private synchronized void notified(byte audience, int target, Notification notification) {
+        if (!isOpen())
+            return;
+        begin(NOTIFIED, 21 + size(notification.getMessage()));
+        buffer.put(audience);
+        buffer.putInt(target);
+        buffer.putLong(notification.getId());
+        buffer.putLong(notification.getTime());
+        putString(notification.getMessage());
+        end();
+    }
+
+    /**
+     * Records the details of a person the first time the person appears in the journal.
+     *
+     * @param person the person to record.
+     */
+    private void person(Person person) {
+        if (knownPersons.get(person.getID()))
+            return;
+        begin(PERSON, 13 + size(person.getName()) + size(person.getbDay()));
+        putPerson(buffer, person);
+        end();
+        knownPersons.set(person.getID());
+    }
+
+    /**
+     * Records the name of a session type the first time the type appears in the journal.
+     *
+     * @param type the session type to record.
+     */
+    private void type(SessionType type) {
+        if (knownTypes.get(type.ordinal()))
+            return;
+        begin(SESSION_TYPE, 12 + size(type.name()));
+        putType(buffer, type);
+        end();
+        knownTypes.set(type.ordinal());
+    }
+
+    /**
+     * Starts a record, making room for it first.
+     * Past the snapshot threshold the snapshot is only marked as due: the change being recorded may already be
+     * applied in memory, and a snapshot taken now would hold it while its record is replayed after the snapshot.
+     *
+     * @param type    the record type.
+     * @param payload the number of payload bytes that follow the type.
+     */
+    private void begin(byte type, int payload) {
+        int needed = 1 + payload;
+        if (buffer.position() > snapshotThreshold)
+            snapshotDue = true;
+        if (buffer.remaining() < needed)
+            grow(buffer.position() + needed);
+        buffer.put(type);
+    }
+
+    /**
+     * Completes a record by publishing the new end of the journal in its header.
+     */
+    private void end() {
+        buffer.putLong(END_OFFSET, buffer.position());
+    }
+
+    /**
+     * Remaps the journal file with room for at least a given number of bytes.
+     *
+     * @param minimum the minimum size of the mapped region.
+     */
+    private void grow(long minimum) {
+        long size = buffer.capacity();
+        while (size < minimum)
+            size *= 2;
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalStateException("Journal exceeds the maximum mapped size");
+        try {
+            int position = buffer.position();
+            buffer.force();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.position(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Clears the journal, leaving only a header for the current generation.
+     */
+    private void resetJournal() {
+        snapshotDue = false;
+        buffer.clear();
+        buffer.putInt(JOURNAL_MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(generation);
+        buffer.putLong(HEADER_SIZE);
+        buffer.force();
+    }
+
+    /**
+     * Applies one journal record to the gym.
+     *
+     * @param in the buffer positioned at the start of the record.
+     */
+    private void apply(ByteBuffer in) {
+        byte type = in.get();
+        switch (type) {
+            case PERSON:
+                Person person = readPerson(in);
+                persons.put(person.getID(), person);
+                knownPersons.set(person.getID());
+                break;
+            case SESSION_TYPE:
+                readType(in);
+                break;
+            case GYM_NAME:
+                gym.setName(getString(in));
+                break;
+            case SECRETARY:
+                Person secretary = persons.get(in.getInt());
+                int salary = in.getInt();
+                gym.restoreSecretary(new Secretary(secretary, salary, true));
+                break;
+            case CLIENT_ADDED:
+                Client client = Client.newClient(persons.get(in.getInt()));
+                clients.put(client.getID(), client);
+                gym.addClient(client);
+                break;
+            case CLIENT_REMOVED:
+                Client removed = gym.getClients().get(in.getInt());
+                if (removed != null)
+                    gym.removeClient(removed); // Through the gym, so the indexes and subscriptions follow
+                break;
+            case INSTRUCTOR_ADDED:
+                Instructor instructor = readInstructor(in);
+                instructors.put(instructor.getID(), instructor);
+                gym.addInstructor(instructor);
+                break;
+            case SESSION_ADDED:
+                Session session = readSession(in);
+                sessions.put(session.getId(), session);
+                gym.addSession(session);
+                break;
+            case LESSON_REGISTERED:
+                Client registered = clients.get(in.getInt());
+                Session lesson = sessions.get(in.getInt());
+                int price = in.getInt();
+                registered.reduceBalance(price);
+                gym.increaseBalance(price);
+                lesson.getWaitlist().remove(registered.getID()); // Set if promoted from the waitlist
+                gym.enroll(lesson, registered);
+                break;
+            case LESSON_UNREGISTERED:
+                Client leaving = clients.get(in.getInt());
+                Session left = sessions.get(in.getInt());
+                int refund = in.getInt();
+                gym.withdraw(left, leaving);
+                gym.increaseBalance(-refund);
+                leaving.increaseBalance(refund);
+                break;
+            case WAITLISTED:
+                Client waiting = clients.get(in.getInt());
+                sessions.get(in.getInt()).getWaitlist().add(waiting);
+                in.getInt();
+                break;
+            case WAITLIST_LEFT:
+                int leaverId = in.getInt();
+                sessions.get(in.getInt()).getWaitlist().remove(leaverId);
+                in.getInt();
+                break;
+            case BATCH_REGISTERED:
+                Session batchLesson = sessions.get(in.getInt());
+                int batchPrice = in.getInt();
+                int count = in.getInt();
+                for (int i = 0; i < count; i++) {
+                    Client member = clients.get(in.getInt());
+                    member.reduceBalance(batchPrice);
+                    gym.enroll(batchLesson, member);
+                }
+                gym.increaseBalance(batchPrice * count);
+                break;
+            case PAYROLL_SETTLED:
+                int through = in.getInt();
+                int month = in.getInt();
+                Secretary paying = gym.getSecretary();
+                gym.getPayroll().settle(gym, paying, paying == null ? 0 : paying.getSalary(), through, month);
+                break;
+            case NOTIFIED:
+                applyNotification(in);
+                break;
+            case HISTORY:
+                readHistory(in);
+                break;
+            default:
+                throw new IllegalStateException("Corrupt journal record of type " + type);
+        }
+    }
+
+    /**
+     * Delivers a journaled notification again to the audience it was sent to.
+     *
+     * @param in the buffer positioned after the record type.
+     */
+    private void applyNotification(ByteBuffer in) {
+        byte audience = in.get();
+        int target = in.getInt();
+        long id = in.getLong();
+        long time = in.getLong();
+        Notification notification = gym.restoreNotification(id, getString(in), time);
+        if (audience == SESSION_AUDIENCE)
+            gym.notifySessions(Collections.singletonList(sessions.get(target)), notification);
+        else if (audience == DAY_AUDIENCE)
+            gym.notifySessions(gym.getCalendar().onDay(target), notification);
+        else if (audience == CLIENT_AUDIENCE)
+            gym.notifyClient(clients.get(target), notification);
+        else
+            gym.notifyClients(notification);
+    }
+
+    /**
+     * Loads the snapshot file into the gym.
+     *
+     * @return the generation of the snapshot.
+     * @throws IOException if the snapshot cannot be read.
+     */
+    private long loadSnapshot() throws IOException {
+        try (FileChannel in = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer snapshot = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            if (snapshot.getInt() != SNAPSHOT_MAGIC || snapshot.getInt() != VERSION)
+                throw new IOException("Unrecognized snapshot file: " + snapshotFile);
+            long snapshotGeneration = snapshot.getLong();
+
+            String name = getString(snapshot);
+            if (name != null)
+                gym.setName(name);
+            gym.increaseBalance(snapshot.getInt());
+
+            // Persons, shared by all of their roles
+            for (int n = snapshot.getInt(); n > 0; n--) {
+                Person person = readPerson(snapshot);
+                persons.put(person.getID(), person);
+                knownPersons.set(person.getID());
+            }
+            for (int n = snapshot.getInt(); n > 0; n--)
+                readType(snapshot);
+            // Notifications, each restored once and shared by the clients that received it
+            Notification[] restored = new Notification[snapshot.getInt()];
+            for (int n = 0; n < restored.length; n++) {
+                long id = snapshot.getLong();
+                long time = snapshot.getLong();
+                restored[n] = gym.restoreNotification(id, getString(snapshot), time);
+            }
+            // Clients, with their inboxes; unregistered ones are only kept for rosters
+            int clientCount = snapshot.getInt();
+            gym.getClients().ensureCapacity(clientCount);
+            for (int n = clientCount; n > 0; n--) {
+                Client client = Client.newClient(persons.get(snapshot.getInt()));
+                boolean registered = snapshot.get() != 0;
+                readInbox(snapshot, client.getInbox(), restored);
+                clients.put(client.getID(), client);
+                if (registered)
+                    gym.addClient(client);
+            }
+            for (int n = snapshot.getInt(); n > 0; n--) {
+                Instructor instructor = readInstructor(snapshot);
+                instructors.put(instructor.getID(), instructor);
+                gym.addInstructor(instructor);
+            }
+            if (snapshot.get() != 0) {
+                Person secretary = persons.get(snapshot.getInt());
+                gym.restoreSecretary(new Secretary(secretary, snapshot.getInt(), true));
+            }
+            // Sessions, with their rosters
+            for (int n = snapshot.getInt(); n > 0; n--) {
+                Session session = readSession(snapshot);
+                for (int m = snapshot.getInt(); m > 0; m--) {
+                    gym.enroll(session, clients.get(snapshot.getInt()));
+                }
+                for (int m = snapshot.getInt(); m > 0; m--)
+                    session.getWaitlist().add(clients.get(snapshot.getInt()));
+                sessions.put(session.getId(), session);
+                gym.addSession(session);
+            }
+            readPayroll(snapshot);
+            for (int n = snapshot.getInt(); n > 0; n--)
+                readHistory(snapshot);
+            return snapshotGeneration;
+        }
+    }
+
+    /**
+     * Restores a client's inbox written by the snapshot: its sequence numbers, read mark, own retention
+     * and notifications.
+     *
+     * @param in       the buffer to read from.
+     * @param inbox    the empty inbox to restore.
+     * @param restored the notifications of the snapshot, by index.
+     */
+    private static void readInbox(ByteBuffer in, Inbox inbox, Notification[] restored) {
+        long firstSeq = in.getLong();
+        long readSeq = in.getLong();
+        if (in.get() != 0) {
+            int maxEntries = in.getInt();
+            long maxAgeMillis = in.getLong();
+            inbox.setRetention(InboxRetention.of(maxEntries,
+                    maxAgeMillis == Long.MAX_VALUE ? null : Duration.ofMillis(maxAgeMillis)));
+        }
+        inbox.restoreSequence(firstSeq, readSeq);
+        for (int n = in.getInt(); n > 0; n--)
+            inbox.append(restored[in.getInt()]);
+    }
+
+    /**
+     * Reads a person written by putPerson.
+     *
+     * @param in the buffer to read from.
+     * @return the restored person.
+     */
+    private Person readPerson(ByteBuffer in) {
+        int id = in.getInt();
+        int balance = in.getInt();
+        Gender gender = in.get() == 0 ? Gender.Male : Gender.Female;
+        LocalDate birthDate = LocalDate.ofEpochDay(in.getInt());
+        String name = getString(in);
+        String bDay = getString(in);
+        return Person.restore(id, name, balance, gender, bDay, birthDate);
+    }
+
+    /**
+     * Reads an instructor written by putInstructor.
+     *
+     * @param in the buffer to read from.
+     * @return the restored instructor.
+     */
+    private Instructor readInstructor(ByteBuffer in) {
+        Person person = persons.get(in.getInt());
+        int salary = in.getInt();
+        ArrayList<SessionType> validSessions = new ArrayList<>();
+        for (int n = in.getInt(); n > 0; n--)
+            validSessions.add(types.get(in.getInt()));
+        return Instructor.newInstructor(person, salary, validSessions);
+    }
+
+    /**
+     * Reads a session written by putSession.
+     *
+     * @param in the buffer to read from.
+     * @return the restored session, without its roster.
+     */
+    private Session readSession(ByteBuffer in) {
+        int id = in.getInt();
+        SessionType type = types.get(in.getInt());
+        long epochMinute = in.getLong();
+        ForumType forumType = ForumType.values()[in.get()];
+        Instructor instructor = instructors.get(in.getInt());
+        int price = in.getInt();
+        int capacity = in.getInt();
+        return SessionFactory.restoreSession(id, type, price, capacity, epochMinute, forumType, instructor);
+    }
+
+    /**
+     * Reads a session type written by putType, registering it if this run does not know it yet.
+     * A type that is already known keeps its current price and capacity, as restored sessions carry their own.
+     *
+     * @param in the buffer to read from.
+     */
+    private void readType(ByteBuffer in) {
+        int ordinal = in.getInt();
+        int price = in.getInt();
+        int capacity = in.getInt();
+        String name = getString(in);
+        SessionType type = SessionType.forName(name);
+        types.put(ordinal, type != null ? type : SessionType.register(name, price, capacity));
+        knownTypes.set(ordinal);
+    }
+
+    /**
+     * Replaces the accruals made while the sessions were restored with the payroll state of the snapshot.
+     *
+     * @param in the buffer to read from.
+     */
+    private void readPayroll(ByteBuffer in) {
+        Payroll payroll = gym.getPayroll();
+        payroll.clear();
+        for (int n = in.getInt(); n > 0; n--) {
+            Instructor instructor = instructors.get(in.getInt());
+            payroll.restorePaid(instructor, in.getLong(), in.getInt());
+            for (int m = in.getInt(); m > 0; m--)
+                payroll.restoreUnpaid(instructor, in.getInt(), in.getLong(), in.getInt());
+        }
+        for (int n = in.getInt(); n > 0; n--)
+            payroll.restoreSecretaryPayment(in.getLong());
+    }
+
+    /**
+     * Reads a history entry written by putHistory and appends it to the gym's history.
+     *
+     * @param in the buffer to read from.
+     */
+    private void readHistory(ByteBuffer in) {
+        long time = in.getLong();
+        ActionType type = ActionType.values()[in.get()];
+        int personId = in.getInt();
+        int sessionId = in.getInt();
+        long value = in.getLong();
+        String text = getString(in);
+        gym.getGymHistory().appendAt(time, type, persons.get(personId), sessions.get(sessionId), text, value);
+    }
+
+    /**
+     * Drops the lookup tables once replay is complete.
+     */
+    private void clearLookups() {
+        persons.clear();
+        instructors.clear();
+        sessions.clear();
+        clients.clear();
+        types.clear();
+    }
+
+    /**
+     * Writes a person's details.
+     *
+     * @param out    the buffer to write to.
+     * @param person the person to write.
+     */
+    private static void putPerson(ByteBuffer out, Person person) {
+        out.putInt(person.getID());
+        out.putInt(person.getBalance());
+        out.put((byte) (person.getGender() == Gender.Male ? 0 : 1));
+        out.putInt((int) person.getBirthDate().toEpochDay());
+        putString(out, person.getName());
+        putString(out, person.getbDay());
+    }
+
+    /**
+     * Writes an instructor's role details.
+     *
+     * @param out        the buffer to write to.
+     * @param instructor the instructor to write.
+     */
+    private static void putInstructor(ByteBuffer out, Instructor instructor) {
+        out.putInt(instructor.getID());
+        out.putInt(instructor.getSalary());
+        out.putInt(instructor.validSessions.size());
+        for (SessionType type : instructor.validSessions)
+            out.putInt(type.ordinal());
+    }
+
+    /**
+     * Writes a session type's name and catalogue entry.
+     *
+     * @param out  the buffer to write to.
+     * @param type the session type to write.
+     */
+    private static void putType(ByteBuffer out, SessionType type) {
+        out.putInt(type.ordinal());
+        out.putInt(type.getPrice());
+        out.putInt(type.getCapacity());
+        putString(out, type.name());
+    }
+
+    /**
+     * Writes a session's details, without its roster.
+     *
+     * @param out     the buffer to write to.
+     * @param session the session to write.
+     */
+    private static void putSession(ByteBuffer out, Session session) {
+        out.putInt(session.getId());
+        out.putInt(session.getType().ordinal());
+        out.putLong(session.getEpochMinute());
+        out.put((byte) session.getForum().ordinal());
+        out.putInt(session.getInstructor().getID());
+        out.putInt(session.getPrice());
+        out.putInt(session.getCapacity());
+    }
+
+    /**
+     * Writes a history entry.
+     *
+     * @param out     the buffer to write to.
+     * @param time    the time of the action in epoch milliseconds.
+     * @param type    the type of the action.
+     * @param person  the person the action concerns, or null.
+     * @param session the session the action concerns, or null.
+     * @param text    the message of the action, or null.
+     * @param value   the numeric value of the action.
+     */
+    private static void putHistory(ByteBuffer out, long time, ActionType type, Person person, Session session, String text, long value) {
+        out.putLong(time);
+        out.put((byte) type.ordinal());
+        out.putInt(person == null ? 0 : person.getID());
+        out.putInt(session == null ? 0 : session.getId());
+        out.putLong(value);
+        putString(out, text);
+    }
+
+    /**
+     * Writes a string to the journal buffer.
+     *
+     * @param string the string to write, or null.
+     */
+    private void putString(String string) {
+        putString(buffer, string);
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string, or a length of -1 for null.
+     *
+     * @param out    the buffer to write to.
+     * @param string the string to write, or null.
+     */
+    private static void putString(ByteBuffer out, String string) {
+        if (string == null) {
+            out.putInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length);
+        out.put(bytes);
+    }
+
+    /**
+     * Reads a string written by putString.
+     *
+     * @param in the buffer to read from.
+     * @return the string, or null.
+     */
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Computes the number of bytes putString writes for a string.
+     *
+     * @param string the string, or null.
+     * @return the encoded size in bytes.
+     */
+    private static int size(String string) {
+        // UTF-8 never needs more than three bytes per UTF-16 char
+        return 4 + (string == null ? 0 : string.length() * 3);
+    }
+
+    /**
+     * Growable array mapping dense IDs to objects, used instead of boxed hash maps while replaying.
+     *
+     * @param <T> the type of the mapped objects.
+     */
+    private static class IdTable<T> {
+        private Object[] values = new Object[1024];
+
+        /**
+         * Maps an ID to an object.
+         *
+         * @param id    the ID.
+         * @param value the object.
+         */
+        void put(int id, T value) {
+            if (id >= values.length)
+                values = Arrays.copyOf(values, Math.max(values.length * 2, id + 1));
+            values[id] = value;
+        }
+
+        /**
+         * Retrieves the object mapped to an ID.
+         *
+         * @param id the ID.
+         * @return the mapped object, or null if there is none.
+         */
+        @SuppressWarnings("unchecked")
+        T get(int id) {
+            return id < values.length ? (T) values[id] : null;
+        }
+
+        /**
+         * Removes all mappings and releases the storage.
+         */
+        void clear() {
+            values = new Object[1024];
+        }
+    }
+
+    /**
+     * A client taken off a session's waitlist whose promotion has not ended yet.
+     */
+    private static class Promotion {
+        final Client client;
+        final Session session;
+        boolean charged;
+
+        /**
+         * Constructor for a promotion that has just started.
+         *
+         * @param client  the client being promoted.
+         * @param session the session of the waitlist.
+         */
+        Promotion(Client client, Session session) {
+            this.client = client;
+            this.session = session;
+        }
+    }
+
+    /**
+     * The state of a client's inbox, read at once under the inbox's lock.
+     */
+    private static class InboxState {
+        final long firstSeq;
+        final long readSeq;
+        final InboxRetention retention; // Null if the inbox follows the default retention
+        final List<Notification> notifications;
+
+        /**
+         * Constructor for reading the state of an inbox.
+         *
+         * @param inbox the inbox to read.
+         */
+        InboxState(Inbox inbox) {
+            synchronized (inbox) {
+                firstSeq = inbox.firstSeq();
+                readSeq = inbox.readSeq();
+                retention = inbox.ownRetention();
+                notifications = inbox.inbox(0, Integer.MAX_VALUE);
+            }
+        }
+    }
+
+    /**
+     * Writes the state of the gym to a snapshot file through a reusable buffer.
+     */
+    private class SnapshotWriter {
+        private final FileChannel out;
+        private final ByteBuffer chunk = ByteBuffer.allocateDirect(SNAPSHOT_BUFFER_SIZE);
+
+        /**
+         * Constructor for creating a writer over a snapshot file.
+         *
+         * @param out the channel of the snapshot file.
+         */
+        SnapshotWriter(FileChannel out) {
+            this.out = out;
+        }
+
+        /**
+         * Writes the complete snapshot.
+         *
+         * @param snapshotGeneration the generation the snapshot starts.
+         * @throws IOException if the snapshot cannot be written.
+         */
+        void write(long snapshotGeneration) throws IOException {
+            // Gather every person referenced by the state, in a stable order
+            Map<Integer, Person> referenced = new LinkedHashMap<>();
+            Map<Integer, Client> allClients = new LinkedHashMap<>();
+            // Copied under the lists' own locks, as sessions and instructors are added outside the journal's lock
+            Instructor[] instructors;
+            synchronized (gym.getInstructorsList()) {
+                instructors = gym.getInstructorsList().toArray(new Instructor[0]);
+            }
+            Session[] sessions;
+            synchronized (gym.getSessionsList()) {
+                sessions = gym.getSessionsList().toArray(new Session[0]);
+            }
+            for (Client client : gym.getClients()) {
+                referenced.put(client.getID(), client);
+                allClients.put(client.getID(), client);
+            }
+            for (Session session : sessions) {
+                for (Client client : session.getClientList()) {
+                    referenced.putIfAbsent(client.getID(), client);
+                    allClients.putIfAbsent(client.getID(), client);
+                }
+                session.getWaitlist().forEach(client -> {
+                    referenced.putIfAbsent(client.getID(), client);
+                    allClients.putIfAbsent(client.getID(), client);
+                });
+            }
+            for (Promotion promotion : promotions) {
+                referenced.putIfAbsent(promotion.client.getID(), promotion.client);
+                allClients.putIfAbsent(promotion.client.getID(), promotion.client);
+            }
+            for (Instructor instructor : instructors)
+                referenced.putIfAbsent(instructor.getID(), instructor);
+            Secretary secretary = gym.getSecretary();
+            if (secretary != null)
+                referenced.putIfAbsent(secretary.getID(), secretary);
+            gym.getGymHistory().forEachEntry((seq, time, type, person, session, text, value) -> {
+                if (person != null)
+                    referenced.putIfAbsent(person.getID(), person);
+            });
+            // Only these persons are known to the journal that follows the snapshot
+            knownPersons.clear();
+            for (int id : referenced.keySet())
+                knownPersons.set(id);
+            SessionType[] allTypes = SessionType.values();
+            knownTypes.clear();
+            knownTypes.set(0, allTypes.length);
+
+            ensure(20);
+            chunk.putInt(SNAPSHOT_MAGIC);
+            chunk.putInt(VERSION);
+            chunk.putLong(snapshotGeneration);
+            putText(gym.getName());
+            ensure(8);
+            chunk.putInt(gym.getBalance());
+
+            chunk.putInt(referenced.size());
+            for (Person person : referenced.values()) {
+                ensure(13 + size(person.getName()) + size(person.getbDay()));
+                putPerson(chunk, person);
+            }
+            ensure(4);
+            chunk.putInt(allTypes.length);
+            for (SessionType type : allTypes) {
+                ensure(12 + size(type.name()));
+                putType(chunk, type);
+            }
+            // The inboxes are read first, each under its own lock, and their notifications written once
+            InboxState[] inboxes = new InboxState[allClients.size()];
+            Map<Notification, Integer> indexes = new IdentityHashMap<>();
+            List<Notification> notifications = new ArrayList<>();
+            int position = 0;
+            for (Client client : allClients.values()) {
+                InboxState inbox = new InboxState(client.getInbox());
+                for (Notification notification : inbox.notifications)
+                    if (indexes.putIfAbsent(notification, notifications.size()) == null)
+                        notifications.add(notification);
+                inboxes[position++] = inbox;
+            }
+            ensure(4);
+            chunk.putInt(notifications.size());
+            for (Notification notification : notifications) {
+                ensure(16);
+                chunk.putLong(notification.getId());
+                chunk.putLong(notification.getTime());
+                putText(notification.getMessage());
+            }
+            ensure(4);
+            chunk.putInt(allClients.size());
+            position = 0;
+            for (Client client : allClients.values()) {
+                InboxState inbox = inboxes[position++];
+                ensure(38);
+                chunk.putInt(client.getID());
+                chunk.put((byte) (gym.getClients().get(client.getID()) == client ? 1 : 0));
+                chunk.putLong(inbox.firstSeq);
+                chunk.putLong(inbox.readSeq);
+                chunk.put((byte) (inbox.retention == null ? 0 : 1));
+                if (inbox.retention != null) {
+                    chunk.putInt(inbox.retention.getMaxEntries());
+                    chunk.putLong(inbox.retention.getMaxAgeMillis());
+                }
+                chunk.putInt(inbox.notifications.size());
+                for (Notification notification : inbox.notifications) {
+                    ensure(4);
+                    chunk.putInt(indexes.get(notification));
+                }
+            }
+            ensure(4);
+            chunk.putInt(instructors.length);
+            for (Instructor instructor : instructors) {
+                ensure(12 + 4 * instructor.validSessions.size());
+                putInstructor(chunk, instructor);
+            }
+            ensure(9);
+            chunk.put((byte) (secretary == null ? 0 : 1));
+            if (secretary != null) {
+                chunk.putInt(secretary.getID());
+                chunk.putInt(secretary.getSalary());
+            }
+            ensure(4);
+            chunk.putInt(sessions.length);
+            for (Session session : sessions) {
+                ensure(SESSION_SIZE + 4);
+                putSession(chunk, session);
+                int[] roster = withPromotions(session.getRoster().toIdArray(), session, true);
+                chunk.putInt(roster.length);
+                for (int id : roster) {
+                    ensure(4);
+                    chunk.putInt(id);
+                }
+                int[] waitlist = withPromotions(session.getWaitlist().toIdArray(), session, false);
+                ensure(4);
+                chunk.putInt(waitlist.length);
+                for (int id : waitlist) {
+                    ensure(4);
+                    chunk.putInt(id);
+                }
+            }
+            writePayroll();
+            ensure(4);
+            chunk.putInt(gym.getGymHistory().inMemory());
+            gym.getGymHistory().forEachEntry((seq, time, type, person, session, text, value) -> {
+                ensure(25 + size(text));
+                putHistory(chunk, time, type, person, session, text, value);
+            });
+            flush();
+        }
+
+        /**
+         * Adds the clients being promoted in a session to the IDs of its roster or waitlist: those already
+         * charged at the end of the roster, and the others back at the head of the waitlist.
+         *
+         * @param ids     the IDs of the roster or waitlist.
+         * @param session the session.
+         * @param charged true for the roster, false for the waitlist.
+         * @return the IDs to write.
+         */
+        private int[] withPromotions(int[] ids, Session session, boolean charged) {
+            int[] promoted = new int[promotions.size()];
+            int count = 0;
+            for (Promotion promotion : promotions)
+                if (promotion.session == session && promotion.charged == charged)
+                    promoted[count++] = promotion.client.getID();
+            if (count == 0)
+                return ids;
+            int[] all = new int[ids.length + count];
+            System.arraycopy(promoted, 0, all, charged ? ids.length : 0, count);
+            System.arraycopy(ids, 0, all, charged ? 0 : count, ids.length);
+            return all;
+        }
+
+        /**
+         * Writes the accounts of the payroll and the secretary salaries paid.
+         */
+        private void writePayroll() {
+            Payroll payroll = gym.getPayroll();
+            synchronized (payroll) { // The count must match the accounts written
+                ensure(4);
+                chunk.putInt(payroll.accountCount());
+                payroll.forEachAccount((id, amount, sessions, buckets) -> {
+                    ensure(20);
+                    chunk.putInt(id);
+                    chunk.putLong(amount);
+                    chunk.putInt(sessions);
+                    chunk.putInt(buckets);
+                }, (period, amount, sessions) -> {
+                    ensure(16);
+                    chunk.putInt(period);
+                    chunk.putLong(amount);
+                    chunk.putInt(sessions);
+                });
+            }
+            List<Long> payments = payroll.secretaryPayments();
+            ensure(4);
+            chunk.putInt(payments.size());
+            for (long payment : payments) {
+                ensure(8);
+                chunk.putLong(payment);
+            }
+        }
+
+        /**
+         * Writes a string to the snapshot.
+         *
+         * @param string the string to write, or null.
+         */
+        private void putText(String string) {
+            ensure(size(string));
+            putString(chunk, string);
+        }
+
+        /**
+         * Makes sure the buffer has room for a number of bytes, flushing it if needed.
+         *
+         * @param bytes the number of bytes about to be written.
+         */
+        private void ensure(int bytes) {
+            if (chunk.remaining() >= bytes)
+                return;
+            try {
+                flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (chunk.remaining() < bytes)
+                throw new IllegalStateException("Snapshot value too large: " + bytes + " bytes");
+        }
+
+        /**
+         * Writes the buffered bytes to the snapshot file.
+         *
+         * @throws IOException if the bytes cannot be written.
+         */
+        private void flush() throws IOException {
+            chunk.flip();
+            while (chunk.hasRemaining())
+                out.write(chunk);
+            chunk.clear();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.management.Sessions.Session;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the report of the gym returned by {@link Gym#toString()}: its name, secretary and balance, followed by
+ * its clients, employees and sessions, one per line.
+ * Every record is formatted straight into a single reused buffer through the records' appendTo methods, and the
+ * buffer is handed to the destination each time it fills, so the report streams out in large writes and is never
+ * held whole in memory. Lines end with the platform's line separator, as printed by System.out.println.
+ * A writer is not thread-safe; each report should be written by its own writer.
+ */
+public class GymReportWriter {
+    private static final int FLUSH_THRESHOLD = 16 * 1024;
+    private static final String NEW_LINE = System.lineSeparator();
+
+    private final Gym gym;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 1024);
+    private char[] chars = new char[0]; // Copy of the buffer for encoding, allocated on the first write to a channel
+
+    /**
+     * Constructor to create a writer of a gym's report.
+     *
+     * @param gym the gym to report on.
+     */
+    protected GymReportWriter(Gym gym) {
+        this.gym = gym;
+    }
+
+    /**
+     * Writes the report to a character destination, such as a StringBuilder or a Writer.
+     *
+     * @param out the destination.
+     * @throws IOException if the destination fails.
+     */
+    public void writeTo(Appendable out) throws IOException {
+        write(out::append);
+    }
+
+    /**
+     * Writes the report to a byte channel, such as a file, encoded in UTF-8.
+     *
+     * @param channel the destination.
+     * @throws IOException if the channel fails.
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocate(FLUSH_THRESHOLD * 2);
+        write(text -> {
+            // Encoders are much faster on arrays, so the text is copied into one before encoding
+            if (chars.length < text.length())
+                chars = new char[Math.max(text.length(), buffer.capacity())];
+            text.getChars(0, text.length(), chars, 0);
+            // The buffer is flushed between records, so no surrogate pair is ever split across two flushes
+            CharBuffer input = CharBuffer.wrap(chars, 0, text.length());
+            CoderResult result;
+            do {
+                result = encoder.encode(input, bytes, false);
+                bytes.flip();
+                while (bytes.hasRemaining())
+                    channel.write(bytes);
+                bytes.clear();
+            } while (result.isOverflow());
+        });
+    }
+
+    /**
+     * Formats the report, handing the buffer to a destination each time it fills and once at the end.
+     *
+     * @param sink the destination of the buffer.
+     * @throws IOException if the destination fails.
+     */
+    private void write(Sink sink) throws IOException {
+        buffer.setLength(0);
+        Secretary secretary = gym.getSecretary();
+        buffer.append("Gym Name: ").append(gym.getName()).append(NEW_LINE);
+        appendSecretary(buffer.append("Gym Secretary: "), secretary).append(NEW_LINE);
+        buffer.append("Gym Balance: ").append(gym.getBalance()).append(NEW_LINE);
+
+        buffer.append("\nClients Data:").append(NEW_LINE);
+        for (Client client : gym.getClients()) {
+            client.appendTo(buffer).append(NEW_LINE);
+            flushIfFull(sink);
+        }
+
+        buffer.append("\nEmployees Data:").append(NEW_LINE);
+        Instructor[] instructors;
+        synchronized (gym.getInstructorsList()) {
+            instructors = gym.getInstructorsList().toArray(new Instructor[0]);
+        }
+        for (Instructor instructor : instructors) {
+            instructor.appendTo(buffer).append(NEW_LINE);
+            flushIfFull(sink);
+        }
+        appendSecretary(buffer, secretary).append(NEW_LINE);
+
+        buffer.append("\nSessions Data:").append(NEW_LINE);
+        Session[] sessions;
+        synchronized (gym.getSessionsList()) {
+            sessions = gym.getSessionsList().toArray(new Session[0]);
+        }
+        for (int i = 0; i < sessions.length; i++) {
+            sessions[i].appendTo(buffer);
+            if (i < sessions.length - 1) // The last session ends the report without a line break
+                buffer.append(NEW_LINE);
+            flushIfFull(sink);
+        }
+        sink.flush(buffer);
+        buffer.setLength(0);
+    }
+
+    /**
+     * Appends the secretary's details, or "null" if the gym has no secretary.
+     *
+     * @param out       the buffer to append to.
+     * @param secretary the secretary, or null.
+     * @return the buffer.
+     */
+    private static StringBuilder appendSecretary(StringBuilder out, Secretary secretary) {
+        return secretary == null ? out.append("null") : secretary.appendTo(out);
+    }
+
+    /**
+     * Hands the buffer to the destination and empties it, if it has filled.
+     *
+     * @param sink the destination of the buffer.
+     * @throws IOException if the destination fails.
+     */
+    private void flushIfFull(Sink sink) throws IOException {
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            sink.flush(buffer);
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Destination of the formatted text.
+     */
+    private interface Sink {
+        /**
+         * Takes the text formatted so far. The text is cleared once the call returns.
+         *
+         * @param text the formatted text.
+         * @throws IOException if the destination fails.
+         */
+        void flush(StringBuilder text) throws IOException;
+    }
+}
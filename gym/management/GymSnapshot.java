@@ -0,0 +1,438 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Columnar snapshot of the gym for reporting: its clients, instructors, sessions and registrations, each held
+ * as parallel arrays of primitives, one array per attribute.
+ * Sessions refer to their instructor, and registrations to their session and client, by position in the other
+ * columns, and registrations repeat the type and price of their session, so the aggregations are single passes
+ * over a few arrays that touch no object at all.
+ * The snapshot is taken once and does not follow later changes; each session's registrations are read under its
+ * lock, but the snapshot as a whole is not atomic with respect to concurrent changes.
+ */
+public class GymSnapshot {
+    // The highest age counted separately by the age distribution; older clients are counted at this age
+    public static final int MAX_AGE = 120;
+    private static final int FIRST_ID = 1111; // Persons are given IDs upward from 1111
+
+    private final LocalDate day;
+    private final SessionType[] sessionTypes;
+
+    // Client columns
+    private final int[] clientIds;
+    private final int[] clientBalances;
+    private final byte[] clientGenders;
+    private final int[] clientBirthDays; // Epoch days
+
+    // Instructor columns
+    private final int[] instructorIds;
+    private final int[] instructorSalaries;
+
+    // Session columns
+    private final int[] sessionTypeOrdinals;
+    private final byte[] sessionForums;
+    private final long[] sessionTimes; // Epoch minutes
+    private final int[] sessionPrices;
+    private final int[] sessionCapacities;
+    private final int[] sessionInstructors; // Instructor positions, -1 for an instructor no longer employed
+    private final int[] sessionRegistrations;
+
+    // Registration columns
+    private final int[] registrationSessions; // Session positions
+    private final int[] registrationClients; // Client positions, -1 for a client no longer registered in the gym
+    private final int[] registrationTypes;
+    private final int[] registrationPrices;
+
+    /**
+     * Constructor to lay the gym's state out in columns.
+     *
+     * @param day         the day the snapshot is taken, on which ages are computed.
+     * @param clients     the clients.
+     * @param instructors the instructors.
+     * @param sessions    the sessions.
+     * @param rosters     the IDs of the clients registered to each session, in the order of the sessions.
+     */
+    protected GymSnapshot(LocalDate day, Client[] clients, Instructor[] instructors, Session[] sessions, int[][] rosters) {
+        this.day = day;
+        this.sessionTypes = SessionType.values();
+
+        int clientCount = clients.length;
+        clientIds = new int[clientCount];
+        clientBalances = new int[clientCount];
+        clientGenders = new byte[clientCount];
+        clientBirthDays = new int[clientCount];
+        int maxId = FIRST_ID;
+        for (int i = 0; i < clientCount; i++) {
+            Client client = clients[i];
+            clientIds[i] = client.getID();
+            clientBalances[i] = client.getBalance();
+            clientGenders[i] = (byte) client.getGender().ordinal();
+            clientBirthDays[i] = (int) client.getBirthDate().toEpochDay();
+            maxId = Math.max(maxId, client.getID());
+        }
+        // Position + 1 of each client by ID, so registrations find their client without hashing
+        int[] clientPositions = new int[maxId - FIRST_ID + 1];
+        for (int i = 0; i < clientCount; i++)
+            clientPositions[clientIds[i] - FIRST_ID] = i + 1;
+
+        instructorIds = new int[instructors.length];
+        instructorSalaries = new int[instructors.length];
+        Map<Instructor, Integer> instructorPositions = new IdentityHashMap<>();
+        for (int i = 0; i < instructors.length; i++) {
+            instructorIds[i] = instructors[i].getID();
+            instructorSalaries[i] = instructors[i].getSalary();
+            instructorPositions.put(instructors[i], i);
+        }
+
+        int sessionCount = sessions.length;
+        sessionTypeOrdinals = new int[sessionCount];
+        sessionForums = new byte[sessionCount];
+        sessionTimes = new long[sessionCount];
+        sessionPrices = new int[sessionCount];
+        sessionCapacities = new int[sessionCount];
+        sessionInstructors = new int[sessionCount];
+        sessionRegistrations = new int[sessionCount];
+        int registrationCount = 0;
+        for (int i = 0; i < sessionCount; i++) {
+            Session session = sessions[i];
+            sessionTypeOrdinals[i] = session.getType().ordinal();
+            sessionForums[i] = (byte) session.getForum().ordinal();
+            sessionTimes[i] = session.getEpochMinute();
+            sessionPrices[i] = session.getPrice();
+            sessionCapacities[i] = session.getCapacity();
+            sessionInstructors[i] = instructorPositions.getOrDefault(session.getInstructor(), -1);
+            sessionRegistrations[i] = rosters[i].length;
+            registrationCount += rosters[i].length;
+        }
+
+        registrationSessions = new int[registrationCount];
+        registrationClients = new int[registrationCount];
+        registrationTypes = new int[registrationCount];
+        registrationPrices = new int[registrationCount];
+        int registration = 0;
+        for (int i = 0; i < sessionCount; i++) {
+            int[] roster = rosters[i];
+            Arrays.fill(registrationSessions, registration, registration + roster.length, i);
+            Arrays.fill(registrationTypes, registration, registration + roster.length, sessionTypeOrdinals[i]);
+            Arrays.fill(registrationPrices, registration, registration + roster.length, sessionPrices[i]);
+            for (int id : roster) {
+                int position = id - FIRST_ID;
+                registrationClients[registration++] = position < clientPositions.length ? clientPositions[position] - 1 : -1;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the day the snapshot was taken.
+     *
+     * @return the day on which ages are computed.
+     */
+    public LocalDate getDay() {
+        return day;
+    }
+
+    /**
+     * Retrieves the number of clients in the snapshot.
+     *
+     * @return the number of clients.
+     */
+    public int clientCount() {
+        return clientIds.length;
+    }
+
+    /**
+     * Retrieves the number of instructors in the snapshot.
+     *
+     * @return the number of instructors.
+     */
+    public int instructorCount() {
+        return instructorIds.length;
+    }
+
+    /**
+     * Retrieves the number of sessions in the snapshot.
+     *
+     * @return the number of sessions.
+     */
+    public int sessionCount() {
+        return sessionTimes.length;
+    }
+
+    /**
+     * Retrieves the number of registrations in the snapshot.
+     *
+     * @return the number of places taken in all sessions.
+     */
+    public int registrationCount() {
+        return registrationSessions.length;
+    }
+
+    /**
+     * Retrieves the ID of an instructor, to identify the instructors in {@link #instructorUtilisation()}.
+     *
+     * @param instructor the position of the instructor.
+     * @return the instructor's ID.
+     */
+    public int getInstructorId(int instructor) {
+        return instructorIds[instructor];
+    }
+
+    /**
+     * Retrieves the session types known when the snapshot was taken, to name the revenue per session type.
+     *
+     * @return the session types, in ordinal order.
+     */
+    public SessionType[] getSessionTypes() {
+        return sessionTypes.clone();
+    }
+
+    /**
+     * Computes the revenue of the registrations for each session type.
+     *
+     * @return the revenue, indexed by session type ordinal.
+     */
+    public long[] revenuePerSessionType() {
+        long[] revenue = new long[sessionTypes.length];
+        for (int i = 0; i < registrationTypes.length; i++)
+            revenue[registrationTypes[i]] += registrationPrices[i];
+        return revenue;
+    }
+
+    /**
+     * Computes the revenue of the registrations for each session type, over the sessions held in a period.
+     *
+     * @param from the start of the period.
+     * @param to   the end of the period, excluded.
+     * @return the revenue, indexed by session type ordinal.
+     */
+    public long[] revenuePerSessionType(LocalDateTime from, LocalDateTime to) {
+        long start = from.toEpochSecond(ZoneOffset.UTC) / 60;
+        long end = to.toEpochSecond(ZoneOffset.UTC) / 60;
+        long[] revenue = new long[sessionTypes.length];
+        for (int i = 0; i < registrationTypes.length; i++) {
+            long time = sessionTimes[registrationSessions[i]];
+            if (time >= start && time < end)
+                revenue[registrationTypes[i]] += registrationPrices[i];
+        }
+        return revenue;
+    }
+
+    /**
+     * Computes the share of the places taken in the sessions of each forum type.
+     *
+     * @return the places taken divided by the places offered, indexed by forum type ordinal; 0 for a forum type
+     * without sessions.
+     */
+    public double[] fillRatePerForum() {
+        ForumType[] forums = ForumType.values();
+        long[] taken = new long[forums.length];
+        long[] offered = new long[forums.length];
+        for (int i = 0; i < sessionForums.length; i++) {
+            taken[sessionForums[i]] += sessionRegistrations[i];
+            offered[sessionForums[i]] += sessionCapacities[i];
+        }
+        return ratios(taken, offered);
+    }
+
+    /**
+     * Counts the sessions taught by each instructor.
+     *
+     * @return the number of sessions, indexed by instructor position.
+     */
+    public int[] sessionsPerInstructor() {
+        int[] sessions = new int[instructorIds.length];
+        for (int instructor : sessionInstructors)
+            if (instructor >= 0)
+                sessions[instructor]++;
+        return sessions;
+    }
+
+    /**
+     * Computes the pay earned by each instructor for the sessions they teach, at their hourly salary.
+     *
+     * @return the pay, indexed by instructor position.
+     */
+    public long[] payPerInstructor() {
+        int[] sessions = sessionsPerInstructor();
+        long[] pay = new long[sessions.length];
+        for (int i = 0; i < pay.length; i++)
+            pay[i] = (long) sessions[i] * instructorSalaries[i];
+        return pay;
+    }
+
+    /**
+     * Computes the utilisation of each instructor, as the share of the places taken in the sessions they teach.
+     *
+     * @return the places taken divided by the places offered, indexed by instructor position; 0 for an instructor
+     * without sessions.
+     */
+    public double[] instructorUtilisation() {
+        long[] taken = new long[instructorIds.length];
+        long[] offered = new long[instructorIds.length];
+        for (int i = 0; i < sessionInstructors.length; i++) {
+            int instructor = sessionInstructors[i];
+            if (instructor < 0)
+                continue;
+            taken[instructor] += sessionRegistrations[i];
+            offered[instructor] += sessionCapacities[i];
+        }
+        return ratios(taken, offered);
+    }
+
+    /**
+     * Counts the clients of each gender.
+     *
+     * @return the number of clients, indexed by gender ordinal.
+     */
+    public int[] clientsPerGender() {
+        int[] genders = new int[Gender.values().length];
+        for (byte gender : clientGenders)
+            genders[gender]++;
+        return genders;
+    }
+
+    /**
+     * Sums the balances of all clients.
+     *
+     * @return the total balance.
+     */
+    public long clientBalanceTotal() {
+        long total = 0;
+        for (int balance : clientBalances)
+            total += balance;
+        return total;
+    }
+
+    /**
+     * Counts the clients of each age on the day of the snapshot.
+     *
+     * @return the number of clients, indexed by age up to {@link #MAX_AGE}.
+     */
+    public int[] ageDistribution() {
+        int[] ages = new int[MAX_AGE + 1];
+        for (byte age : clientAges())
+            ages[age]++;
+        return ages;
+    }
+
+    /**
+     * Counts the clients of each age bracket on the day of the snapshot.
+     *
+     * @return the number of clients, indexed by age bracket ordinal.
+     */
+    public int[] ageBracketDistribution() {
+        return perBracket(ageDistribution());
+    }
+
+    /**
+     * Counts the registrations of the clients of each age bracket on the day of the snapshot.
+     * Registrations of clients who have left the gym are not counted.
+     *
+     * @return the number of registrations, indexed by age bracket ordinal.
+     */
+    public int[] registrationsPerAgeBracket() {
+        byte[] clientAges = clientAges();
+        int[] ages = new int[MAX_AGE + 1];
+        for (int client : registrationClients)
+            if (client >= 0)
+                ages[clientAges[client]]++;
+        return perBracket(ages);
+    }
+
+    /**
+     * Computes the age of every client on the day of the snapshot.
+     *
+     * @return the ages, up to {@link #MAX_AGE}, indexed by client position.
+     */
+    private byte[] clientAges() {
+        // Latest birthdate of each age, descending; a client is at least n years old if born on or before the n-th
+        long[] latestBirthDays = new long[MAX_AGE + 1];
+        for (int age = 0; age <= MAX_AGE; age++)
+            latestBirthDays[age] = day.minusYears(age).toEpochDay();
+        byte[] ages = new byte[clientBirthDays.length];
+        for (int i = 0; i < ages.length; i++) {
+            int birthDay = clientBirthDays[i];
+            int low = 0;
+            int high = MAX_AGE;
+            while (low < high) { // Finds the oldest age whose latest birthdate is on or after the birthdate
+                int mid = (low + high + 1) >>> 1;
+                if (birthDay <= latestBirthDays[mid])
+                    low = mid;
+                else
+                    high = mid - 1;
+            }
+            ages[i] = (byte) low;
+        }
+        return ages;
+    }
+
+    /**
+     * Sums counts by age into counts by age bracket.
+     *
+     * @param ages the counts, indexed by age.
+     * @return the counts, indexed by age bracket ordinal.
+     */
+    private static int[] perBracket(int[] ages) {
+        int[] brackets = new int[AgeBracket.values().length];
+        for (int age = 0; age < ages.length; age++)
+            brackets[AgeBracket.of(age).ordinal()] += ages[age];
+        return brackets;
+    }
+
+    /**
+     * Divides counts pairwise.
+     *
+     * @param numerators   the counts divided.
+     * @param denominators the counts divided by.
+     * @return the ratios, 0 where the denominator is 0.
+     */
+    private static double[] ratios(long[] numerators, long[] denominators) {
+        double[] ratios = new double[numerators.length];
+        for (int i = 0; i < ratios.length; i++)
+            ratios[i] = denominators[i] == 0 ? 0 : (double) numerators[i] / denominators[i];
+        return ratios;
+    }
+
+    /**
+     * Returns the aggregations of the snapshot as text.
+     *
+     * @return the revenue per session type, the fill rate per forum type, the utilisation of each instructor
+     * and the age distribution by bracket.
+     */
+    public String toString() {
+        StringBuilder out = new StringBuilder("Gym Snapshot ").append(day)
+                .append(" | Clients: ").append(clientCount())
+                .append(" | Instructors: ").append(instructorCount())
+                .append(" | Sessions: ").append(sessionCount())
+                .append(" | Registrations: ").append(registrationCount());
+        out.append("\nRevenue per session type:");
+        long[] revenue = revenuePerSessionType();
+        for (int i = 0; i < revenue.length; i++)
+            out.append(String.format("%n  %-20s %15d", sessionTypes[i].name(), revenue[i]));
+        out.append("\nFill rate per forum type:");
+        double[] fillRates = fillRatePerForum();
+        for (ForumType forum : ForumType.values())
+            out.append(String.format("%n  %-20s %14.1f%%", forum, fillRates[forum.ordinal()] * 100));
+        out.append("\nInstructor utilisation:");
+        double[] utilisation = instructorUtilisation();
+        int[] sessions = sessionsPerInstructor();
+        for (int i = 0; i < instructorIds.length; i++)
+            out.append(String.format("%n  ID %-17d %5d sessions %7.1f%%", instructorIds[i], sessions[i], utilisation[i] * 100));
+        out.append("\nAge distribution:");
+        int[] brackets = ageBracketDistribution();
+        for (AgeBracket bracket : AgeBracket.values())
+            out.append(String.format("%n  %-20s %15d", bracket, brackets[bracket.ordinal()]));
+        return out.toString();
+    }
+}
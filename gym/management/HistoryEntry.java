@@ -0,0 +1,87 @@
+package gym.management;
+
+/**
+ * An entry of the gym's history returned by a {@link HistoryQuery}: the action's type, time and subjects,
+ * and its text as printed by the secretary.
+ */
+public class HistoryEntry {
+    private final long sequence;
+    private final long time;
+    private final ActionType type;
+    private final int personId;
+    private final int sessionId;
+    private final String text;
+
+    /**
+     * Constructor to create a history entry.
+     *
+     * @param sequence  the sequence number of the entry in the history.
+     * @param time      the time of the action in epoch milliseconds.
+     * @param type      the type of the action.
+     * @param personId  the ID of the person the action concerns, or 0.
+     * @param sessionId the ID of the session the action concerns, or 0.
+     * @param text      the text of the entry.
+     */
+    protected HistoryEntry(long sequence, long time, ActionType type, int personId, int sessionId, String text) {
+        this.sequence = sequence;
+        this.time = time;
+        this.type = type;
+        this.personId = personId;
+        this.sessionId = sessionId;
+        this.text = text;
+    }
+
+    /**
+     * Retrieves the sequence number of the entry, counting every action recorded in the gym from 0.
+     *
+     * @return the sequence number.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Retrieves the time of the action.
+     *
+     * @return the time in epoch milliseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Retrieves the type of the action.
+     *
+     * @return the action type.
+     */
+    public ActionType getType() {
+        return type;
+    }
+
+    /**
+     * Retrieves the ID of the person the action concerns.
+     *
+     * @return the person's ID, or 0 if the action concerns no one in particular.
+     */
+    public int getPersonId() {
+        return personId;
+    }
+
+    /**
+     * Retrieves the ID of the session the action concerns.
+     *
+     * @return the session's ID, or 0 if the action concerns no session.
+     */
+    public int getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Returns the text of the entry, as printed by the secretary.
+     *
+     * @return the text.
+     */
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,54 @@
+package gym.management;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of the entries matching a {@link HistoryQuery}, with the cursor to read the next page from.
+ */
+public class HistoryPage {
+    private final List<HistoryEntry> entries;
+    private final long nextCursor;
+    private final boolean more;
+
+    /**
+     * Constructor to create a page of history entries.
+     *
+     * @param entries    the entries of the page, oldest first.
+     * @param nextCursor the cursor to read the next page from.
+     * @param more       whether entries recorded before the page was read remain after it.
+     */
+    protected HistoryPage(List<HistoryEntry> entries, long nextCursor, boolean more) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.nextCursor = nextCursor;
+        this.more = more;
+    }
+
+    /**
+     * Retrieves the entries of the page.
+     *
+     * @return the entries, oldest first.
+     */
+    public List<HistoryEntry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Retrieves the cursor to read the next page from.
+     *
+     * @return the cursor.
+     */
+    public long getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Checks whether the history had more entries to read when the page was read.
+     * Actions recorded later are read from the same cursor.
+     *
+     * @return true if the page stopped before the end of the history.
+     */
+    public boolean hasMore() {
+        return more;
+    }
+}
@@ -0,0 +1,246 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.GymClock;
+import gym.management.Sessions.Session;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * A search of the gym's history, built by chaining criteria and run page by page with {@link #page(long, int)}
+ * or streamed with {@link #writeTo(Appendable)}.
+ * An entry matches when it meets every criterion given; a criterion given twice keeps the values of both for
+ * action types, and narrows the range for times. For example, the failed registrations of a client this month
+ * are written out with
+ * {@code secretary.queryHistory().failedRegistrations().client(client).between(monthStart, nextMonthStart).writeTo(out)}.
+ * The history is read in batches, with the log's lock released between them, so a query never materializes
+ * the whole history nor blocks the recording of actions for long.
+ */
+public class HistoryQuery {
+    private static final int FLUSH_THRESHOLD = 16 * 1024;
+    private static final String NEW_LINE = System.lineSeparator();
+    private static final EnumSet<ActionType> FAILED_REGISTRATIONS = EnumSet.of(ActionType.REGISTRATION_NOT_IN_FUTURE,
+            ActionType.REGISTRATION_AGE_MISMATCH, ActionType.REGISTRATION_GENDER_MISMATCH,
+            ActionType.REGISTRATION_NO_PLACES, ActionType.REGISTRATION_NO_BALANCE,
+            ActionType.REGISTRATION_SCHEDULE_CONFLICT);
+
+    private final ActionLog log;
+    private final Gym gym;
+    // Criteria; an open bound, a null set or an ID of 0 means any value
+    private long fromTime = Long.MIN_VALUE;
+    private long toTime = Long.MAX_VALUE;
+    private EnumSet<ActionType> types;
+    private long typeMask = -1; // Bit per action type ordinal, of which there are fewer than 64
+    private int clientId;
+    private int sessionId;
+    private Instructor instructor;
+    private BitSet instructorSessions; // IDs of the instructor's sessions, collected when the query is run
+
+    /**
+     * Constructor to create a query matching every entry of a gym's history.
+     *
+     * @param log the history searched.
+     * @param gym the gym whose sessions are looked up to match an instructor.
+     */
+    protected HistoryQuery(ActionLog log, Gym gym) {
+        this.log = log;
+        this.gym = gym;
+    }
+
+    /**
+     * Matches the entries recorded during a period, in the time zone of the gym's clock.
+     *
+     * @param from the start of the period.
+     * @param to   the end of the period, excluded.
+     * @return this query.
+     */
+    public HistoryQuery between(LocalDateTime from, LocalDateTime to) {
+        fromTime = Math.max(fromTime, from.atZone(GymClock.getClock().getZone()).toInstant().toEpochMilli());
+        toTime = Math.min(toTime, to.atZone(GymClock.getClock().getZone()).toInstant().toEpochMilli());
+        return this;
+    }
+
+    /**
+     * Matches the entries of some action types.
+     *
+     * @param actionTypes the action types.
+     * @return this query.
+     */
+    public HistoryQuery type(ActionType... actionTypes) {
+        if (types == null)
+            types = EnumSet.noneOf(ActionType.class);
+        types.addAll(List.of(actionTypes));
+        typeMask = 0;
+        for (ActionType type : types)
+            typeMask |= 1L << type.ordinal();
+        return this;
+    }
+
+    /**
+     * Matches the failed registrations to lessons, whatever the reason.
+     *
+     * @return this query.
+     */
+    public HistoryQuery failedRegistrations() {
+        return type(FAILED_REGISTRATIONS.toArray(new ActionType[0]));
+    }
+
+    /**
+     * Matches the entries concerning a client, including the batch registrations that registered them.
+     *
+     * @param client the client.
+     * @return this query.
+     */
+    public HistoryQuery client(Client client) {
+        clientId = client.getID();
+        return this;
+    }
+
+    /**
+     * Matches the entries concerning an instructor: their hiring, and the entries of the sessions they teach.
+     *
+     * @param instructor the instructor.
+     * @return this query.
+     */
+    public HistoryQuery instructor(Instructor instructor) {
+        this.instructor = instructor;
+        return this;
+    }
+
+    /**
+     * Matches the entries concerning a session.
+     *
+     * @param session the session.
+     * @return this query.
+     */
+    public HistoryQuery session(Session session) {
+        sessionId = session.getId();
+        return this;
+    }
+
+    /**
+     * Retrieves a page of the matching entries.
+     * The first page is read from cursor 0, and each following one from the cursor of the page before it.
+     * A cursor stays valid as actions are recorded, so reading on from the cursor of the last page returns
+     * the entries recorded since.
+     *
+     * @param cursor the cursor to read from.
+     * @param limit  the maximum number of entries in the page.
+     * @return the page, with the matching entries oldest first.
+     */
+    public HistoryPage page(long cursor, int limit) {
+        prepare();
+        List<HistoryEntry> entries = new ArrayList<>(Math.min(limit, 1024));
+        long end = log.size();
+        while (cursor < end && entries.size() < limit)
+            cursor = log.scan(this, cursor, end, (seq, time, type, personId, sessionId, text) -> {
+                entries.add(new HistoryEntry(seq, time, type, personId, sessionId, text.toString()));
+                return entries.size() < limit;
+            });
+        return new HistoryPage(entries, cursor, cursor < end);
+    }
+
+    /**
+     * Writes the text of every matching entry recorded so far, one line per entry, oldest first.
+     * The lines are collected in a buffer that is handed to the destination each time it fills,
+     * outside the history's lock, so a slow destination does not hold up the recording of actions.
+     *
+     * @param out the destination, such as a Writer or a PrintStream.
+     * @return the number of entries written.
+     * @throws IOException if the destination fails.
+     */
+    public long writeTo(Appendable out) throws IOException {
+        prepare();
+        StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 1024);
+        long[] written = new long[1];
+        long cursor = 0;
+        long end = log.size();
+        while (cursor < end) {
+            cursor = log.scan(this, cursor, end, (seq, time, type, personId, sessionId, text) -> {
+                buffer.append(text).append(NEW_LINE);
+                written[0]++;
+                return buffer.length() < FLUSH_THRESHOLD;
+            });
+            if (buffer.length() > 0) {
+                out.append(buffer);
+                buffer.setLength(0);
+            }
+        }
+        return written[0];
+    }
+
+    /**
+     * Checks whether an entry meets the criteria.
+     *
+     * @param time      the time of the entry in epoch milliseconds.
+     * @param type      the type of the entry.
+     * @param personId  the ID of the person the entry concerns, or 0.
+     * @param sessionId the ID of the session the entry concerns, or 0.
+     * @param members   the IDs of the clients of a batch registration, each followed by a space, or null.
+     * @return true if the entry matches.
+     */
+    boolean matches(long time, ActionType type, int personId, int sessionId, CharSequence members) {
+        if (time < fromTime || time >= toTime || (typeMask & 1L << type.ordinal()) == 0)
+            return false;
+        if (clientId != 0 && personId != clientId && !(type == ActionType.BATCH_REGISTERED && lists(members, clientId)))
+            return false;
+        if (this.sessionId != 0 && sessionId != this.sessionId)
+            return false;
+        return instructor == null || personId == instructor.getID() || instructorSessions.get(sessionId);
+    }
+
+    /**
+     * Checks whether a list of client IDs, each followed by a space, holds an ID.
+     *
+     * @param members the list of IDs, or null.
+     * @param id      the ID to look for.
+     * @return true if the ID is in the list.
+     */
+    private static boolean lists(CharSequence members, int id) {
+        if (members == null)
+            return false;
+        int value = 0;
+        for (int i = 0; i < members.length(); i++) {
+            char c = members.charAt(i);
+            if (c != ' ') {
+                value = value * 10 + (c - '0');
+            } else {
+                if (value == id)
+                    return true;
+                value = 0;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a group of entries may hold a match, from their summary.
+     *
+     * @param minTime  the earliest time of the entries.
+     * @param maxTime  the latest time of the entries.
+     * @param typeMask the bits of the ordinals of the entries' types.
+     * @return false if none of the entries can match.
+     */
+    boolean mayMatch(long minTime, long maxTime, long typeMask) {
+        return maxTime >= fromTime && minTime < toTime && (this.typeMask & typeMask) != 0;
+    }
+
+    /**
+     * Collects the IDs of the sessions of the instructor, if the query has one, as they are when the query is run.
+     */
+    private void prepare() {
+        if (instructor == null)
+            return;
+        instructorSessions = new BitSet();
+        synchronized (gym.getSessionsList()) {
+            for (Session session : gym.getSessionsList())
+                if (session.getInstructor() == instructor)
+                    instructorSessions.set(session.getId());
+        }
+    }
+}
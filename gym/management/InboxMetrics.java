@@ -0,0 +1,133 @@
+package gym.management;
+
+/**
+ * Snapshot of the size of the clients' inboxes and an estimate of the memory they use.
+ * Estimates assume a 64-bit JVM with compressed references. Notifications and message texts are
+ * shared between inboxes, so they are counted once however many inboxes hold them.
+ */
+public class InboxMetrics {
+    private static final int INBOX_BYTES = 56;          // Inbox object with its fields
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    private static final int NOTIFICATION_BYTES = 32;   // Notification object with its fields
+    private static final int STRING_BYTES = 40;         // String object and the header of its byte array
+
+    private final long clients;
+    private final long notifications;
+    private final long unread;
+    private final long slots;
+    private final long distinctNotifications;
+    private final long messages;
+    private final long messageCharacters;
+    private final long compacted;
+
+    /**
+     * Constructor to create an InboxMetrics snapshot.
+     *
+     * @param clients               the number of clients.
+     * @param notifications         the number of notifications held in all inboxes.
+     * @param unread                the number of those notifications not read yet.
+     * @param slots                 the total storage capacity of the inboxes.
+     * @param distinctNotifications the number of distinct notification instances held.
+     * @param messages              the number of distinct message texts in use.
+     * @param messageCharacters     the total length of the distinct message texts.
+     * @param compacted             the number of notifications dropped by compaction so far.
+     */
+    protected InboxMetrics(long clients, long notifications, long unread, long slots, long distinctNotifications,
+                           long messages, long messageCharacters, long compacted) {
+        this.clients = clients;
+        this.notifications = notifications;
+        this.unread = unread;
+        this.slots = slots;
+        this.distinctNotifications = distinctNotifications;
+        this.messages = messages;
+        this.messageCharacters = messageCharacters;
+        this.compacted = compacted;
+    }
+
+    /**
+     * Retrieves the number of clients.
+     *
+     * @return the number of clients measured.
+     */
+    public long getClients() {
+        return clients;
+    }
+
+    /**
+     * Retrieves the number of notifications held in all inboxes.
+     *
+     * @return the number of inbox entries.
+     */
+    public long getNotifications() {
+        return notifications;
+    }
+
+    /**
+     * Retrieves the number of notifications not read yet.
+     *
+     * @return the number of unread inbox entries.
+     */
+    public long getUnread() {
+        return unread;
+    }
+
+    /**
+     * Retrieves the number of distinct notification instances held in the inboxes.
+     *
+     * @return the number of distinct notifications.
+     */
+    public long getDistinctNotifications() {
+        return distinctNotifications;
+    }
+
+    /**
+     * Retrieves the number of distinct message texts in use.
+     *
+     * @return the number of messages in the shared message table.
+     */
+    public long getMessages() {
+        return messages;
+    }
+
+    /**
+     * Retrieves the number of notifications dropped by compaction so far.
+     *
+     * @return the number of compacted notifications.
+     */
+    public long getCompacted() {
+        return compacted;
+    }
+
+    /**
+     * Estimates the memory used by the inboxes, their notifications and the message texts.
+     *
+     * @return the estimated footprint in bytes.
+     */
+    public long estimatedBytes() {
+        long inboxes = clients * (INBOX_BYTES + ARRAY_HEADER_BYTES) + slots * REFERENCE_BYTES;
+        long shared = distinctNotifications * NOTIFICATION_BYTES + messages * STRING_BYTES + messageCharacters;
+        return inboxes + shared;
+    }
+
+    /**
+     * Estimates the memory used by the inboxes for every 100,000 clients.
+     *
+     * @return the estimated footprint in bytes per 100k clients, or 0 if there are no clients.
+     */
+    public long bytesPer100kClients() {
+        return clients == 0 ? 0 : estimatedBytes() * 100_000 / clients;
+    }
+
+    /**
+     * Returns a string representation of the metrics.
+     *
+     * @return a string describing the metrics.
+     */
+    public String toString() {
+        return "Clients: " + clients + " | Notifications: " + notifications + " | Unread: " + unread +
+                " | Distinct notifications: " + distinctNotifications + " | Messages: " + messages +
+                " | Compacted: " + compacted + " | Estimated bytes: " + estimatedBytes() +
+                " | Bytes per 100k clients: " + bytesPer100kClients();
+    }
+}
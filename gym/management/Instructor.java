@@ -56,26 +56,28 @@ public class Instructor extends Person {
      * @return a string containing the instructor's details.
      */
     public String toString() {
-        return "ID: " + this.getID() + " | Name: "
-                + this.getName() + " | Gender: " + this.getGender() +
-                " | Birthday: " + this.getbDay() + " | Age: " + this.getAge() +
-                " | Balance: " + this.getBalance() + " | Role: Instructor | Salary per Hour: "
-                + this.getSalary() + " | Certified Classes: " + this.validSessionsToString();
+        return appendTo(new StringBuilder(160)).toString();
     }
 
     /**
-     * Converts the list of valid sessions into a comma-separated string.
+     * Appends the instructor's details to a buffer, with their salary and certified classes.
      *
-     * @return a string representation of the valid session types.
+     * @param out the buffer to append to.
+     * @return the buffer.
      */
-    private String validSessionsToString() {
-        String s = "";
+    @Override
+    public StringBuilder appendTo(StringBuilder out) {
+        super.appendTo(out).append(" | Role: Instructor | Salary per Hour: ").append(this.getSalary())
+                .append(" | Certified Classes: ");
+        if (validSessions.isEmpty())
+            return out;
+        SessionType last = validSessions.get(validSessions.size() - 1);
         for (SessionType validSession : validSessions) {
-            s = s + validSession.toString();
+            out.append(validSession.name());
             // Check if the current session is the last one to avoid appending a comma.
-            if (!validSession.equals(validSessions.get(validSessions.size() - 1)))
-                s = s + ", ";
+            if (!validSession.equals(last))
+                out.append(", ");
         }
-        return s;
+        return out;
     }
 }
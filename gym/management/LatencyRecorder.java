@@ -0,0 +1,114 @@
+package gym.management;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free recorder of latencies in nanoseconds, with log-linear buckets in the style of HdrHistogram:
+ * exact below 32 ns, and above that 16 buckets per power of two, so percentiles are reported within about 6%
+ * of their true value. Recording is one atomic increment of a bucket, plus an update of the maximum only when
+ * a new maximum is seen, so threads recording at once rarely contend.
+ * Reads are not atomic with respect to concurrent recordings; a snapshot taken under load may miss latencies
+ * being recorded at that moment.
+ */
+public class LatencyRecorder {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds; negative values are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.getAndIncrement(bucketOf(value));
+        if (value > max.get())
+            max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Retrieves the number of latencies recorded.
+     *
+     * @return the count.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            count += counts.get(i);
+        return count;
+    }
+
+    /**
+     * Retrieves the highest latency recorded.
+     *
+     * @return the maximum in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Estimates a percentile of the latencies recorded.
+     *
+     * @param percentile the percentile, from 0 to 100.
+     * @return the latency in nanoseconds below which this share of the latencies fall, or 0 if nothing was recorded.
+     */
+    public long percentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            count += snapshot[i] = counts.get(i);
+        if (count == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank)
+                return Math.min(valueOf(i), getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * Clears the latencies recorded.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            counts.set(i, 0);
+        max.set(0);
+    }
+
+    /**
+     * Computes the bucket of a latency.
+     *
+     * @param value the latency, at least 0.
+     * @return the bucket index.
+     */
+    private static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS)
+            return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        // value >>> shift lies in [SUB_BUCKETS, 2 * SUB_BUCKETS), so each shift owns SUB_BUCKETS buckets
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * Computes the highest latency falling into a bucket.
+     *
+     * @param bucket the bucket index.
+     * @return the latency in nanoseconds.
+     */
+    private static long valueOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS)
+            return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = bucket - (long) shift * SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
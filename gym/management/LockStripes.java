@@ -0,0 +1,46 @@
+package gym.management;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared by many objects, each object being guarded by the lock its ID hashes to.
+ * Objects that map to different stripes can be locked by different threads at the same time,
+ * while the number of locks stays bounded however many objects there are.
+ */
+public class LockStripes {
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    /**
+     * Constructor to create a set of lock stripes.
+     *
+     * @param stripes the number of locks, rounded up to a power of two.
+     */
+    public LockStripes(int stripes) {
+        int size = Integer.highestOneBit(Math.max(stripes, 2) - 1) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++)
+            locks[i] = new ReentrantLock();
+        mask = size - 1;
+    }
+
+    /**
+     * Retrieves the lock guarding the object with a given ID.
+     *
+     * @param id the ID of the object.
+     * @return the lock of the stripe the ID belongs to.
+     */
+    public ReentrantLock forId(int id) {
+        int h = id * 0x9E3779B9; // Consecutive IDs land on different stripes
+        return locks[(h ^ (h >>> 16)) & mask];
+    }
+
+    /**
+     * Retrieves the number of locks.
+     *
+     * @return the number of stripes.
+     */
+    public int size() {
+        return locks.length;
+    }
+}
@@ -11,4 +11,31 @@ public interface Member {
      * @param newsletter the newsletter content to be sent to the member.
      */
     void update(String newsletter);
+
+    /**
+     * Delivers a notification to the member. Members that keep notifications can store the shared
+     * instance itself; by default only its text is passed on to {@link #update(String)}.
+     *
+     * @param notification the notification to deliver.
+     */
+    default void receive(Notification notification) {
+        update(notification.getMessage());
+    }
+
+    /**
+     * Called when the member is registered with a sender, before the sender delivers anything to it, so that
+     * the member can wait for its deliveries through {@link Sender#awaitDelivery(Member)}.
+     * Does nothing by default.
+     *
+     * @param sender the sender the member is registered with.
+     */
+    default void subscribed(Sender sender) {
+    }
+
+    /**
+     * Retrieves the member's unique ID, used to spread members over delivery lanes.
+     *
+     * @return the unique ID.
+     */
+    int getID();
 }
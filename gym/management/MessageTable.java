@@ -0,0 +1,50 @@
+package gym.management;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Table of the distinct notification messages in use, so that notifications carrying the same text,
+ * such as a broadcast repeated every day, all share a single copy of it.
+ * Entries are held weakly and disappear once no notification refers to their text anymore.
+ */
+public class MessageTable {
+    private static final Map<String, WeakReference<String>> messages = new WeakHashMap<>();
+
+    /**
+     * Retrieves the shared copy of a message, adding the message to the table if it is new.
+     *
+     * @param message the message text.
+     * @return the shared instance of the text.
+     */
+    public static synchronized String intern(String message) {
+        WeakReference<String> reference = messages.get(message);
+        String shared = reference == null ? null : reference.get();
+        if (shared != null)
+            return shared;
+        messages.put(message, new WeakReference<>(message));
+        return message;
+    }
+
+    /**
+     * Retrieves the number of distinct messages still in use.
+     *
+     * @return the number of messages in the table.
+     */
+    public static synchronized int size() {
+        return messages.size();
+    }
+
+    /**
+     * Retrieves the total length of the distinct messages still in use.
+     *
+     * @return the number of characters of the messages in the table.
+     */
+    public static synchronized long characters() {
+        long total = 0;
+        for (String message : messages.keySet())
+            total += message.length();
+        return total;
+    }
+}
@@ -7,11 +7,64 @@ package gym.management;
 public class NewsletterPublisher extends Sender {
 
     /**
-     * Sends a newsletter to all members by utilizing the notifyMembers method from the parent class.
+     * Constructor to create a NewsletterPublisher with one delivery lane per available processor, up to eight.
+     */
+    NewsletterPublisher() {
+        super();
+    }
+
+    /**
+     * Constructor to create a NewsletterPublisher with a given number of delivery lanes.
+     *
+     * @param laneCount the number of delivery lanes.
+     */
+    protected NewsletterPublisher(int laneCount) {
+        super(laneCount);
+    }
+
+    /**
+     * Sends a newsletter to all registered members by utilizing the notifyMembers method from the parent class.
      *
      * @param content the content of the newsletter to be sent.
+     * @return the notification sent.
+     */
+    protected Notification sendNewsletter(String content) {
+        return sendNewsletter(newNotification(content));
+    }
+
+    /**
+     * Sends an existing notification to all registered members, such as one replayed from the journal.
+     *
+     * @param notification the notification to send.
+     * @return the notification sent.
+     */
+    protected Notification sendNewsletter(Notification notification) {
+        notifyMembers(notification);
+        return notification;
+    }
+
+    /**
+     * Sends a newsletter to a given audience.
+     *
+     * @param content  the content of the newsletter to be sent.
+     * @param audience the members to notify; the array must not be changed afterwards.
+     * @param count    the number of members to notify from the start of the array.
+     * @return the notification sent.
+     */
+    protected Notification sendNewsletter(String content, Member[] audience, int count) {
+        return sendNewsletter(newNotification(content), audience, count);
+    }
+
+    /**
+     * Sends an existing notification to a given audience.
+     *
+     * @param notification the notification to send.
+     * @param audience     the members to notify; the array must not be changed afterwards.
+     * @param count        the number of members to notify from the start of the array.
+     * @return the notification sent.
      */
-    protected void sendNewsletter(String content) {
-        notifyMembers(content);
+    protected Notification sendNewsletter(Notification notification, Member[] audience, int count) {
+        notifyMembers(notification, audience, count);
+        return notification;
     }
 }
@@ -0,0 +1,62 @@
+package gym.management;
+
+/**
+ * Represents a message sent to members of the gym.
+ * A notification is created once per send and the same instance is handed to every recipient,
+ * so a broadcast stores its text only once however many members receive it.
+ * Texts repeated across notifications are shared through the {@link MessageTable}.
+ */
+public class Notification {
+    private final long id;
+    private final String message;
+    private final long time;
+
+    /**
+     * Constructor to create a Notification.
+     *
+     * @param id      the unique ID of the notification, or 0 if it was not sent through a publisher.
+     * @param message the text of the notification.
+     * @param time    the time the notification was sent, in epoch milliseconds.
+     */
+    public Notification(long id, String message, long time) {
+        this.id = id;
+        this.message = MessageTable.intern(message); // Repeated texts share one copy
+        this.time = time;
+    }
+
+    /**
+     * Retrieves the unique ID of the notification.
+     *
+     * @return the notification ID.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Retrieves the text of the notification.
+     *
+     * @return the message.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Retrieves the time the notification was sent.
+     *
+     * @return the send time in epoch milliseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the text of the notification.
+     *
+     * @return the message.
+     */
+    public String toString() {
+        return message;
+    }
+}
@@ -0,0 +1,316 @@
+package gym.management;
+
+import gym.customers.Person;
+import gym.management.Sessions.Session;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Payroll of the gym's employees.
+ * Instructors accrue their hourly salary once per session as sessions are added, into buckets by the month
+ * of the session. Settling a period pays only the buckets not paid yet and the secretary's monthly salary
+ * if it was not paid for that period, so settling the same period twice pays nothing the second time.
+ * Settling costs time proportional to the instructors and unpaid months, not to the sessions ever created.
+ * All methods are synchronized.
+ */
+public class Payroll {
+    // Period covering every accrual, used when settling everything outstanding
+    protected static final int ALL_PERIODS = Integer.MAX_VALUE;
+
+    private final Map<Integer, Account> accounts = new LinkedHashMap<>(); // By instructor ID, in order of first accrual
+    private final Set<Long> secretaryPayments = new HashSet<>();           // Secretary ID and period of every monthly salary paid
+
+    /**
+     * Accrues the salary of a session's instructor for the session.
+     *
+     * @param session the session added to the gym.
+     */
+    protected synchronized void accrue(Session session) {
+        Instructor instructor = session.getInstructor();
+        account(instructor).accrue(periodOf(session.getEpochMinute()), instructor.getSalary(), 1);
+    }
+
+    /**
+     * Pays the instructors' unpaid accruals up to and including a period, and the secretary's salary for it.
+     *
+     * @param gym       the gym paying the salaries.
+     * @param secretary the secretary to pay, or null to pay instructors only.
+     * @param salary    the monthly salary of the secretary.
+     * @param through   the last period to settle, as an index from {@link #period(YearMonth)}, or ALL_PERIODS.
+     * @param month     the period the secretary is paid for.
+     * @return the report of what was paid.
+     * @throws ArithmeticException if an instructor is owed more than a balance can hold.
+     */
+    protected synchronized PayrollReport settle(Gym gym, Secretary secretary, int salary, int through, int month) {
+        PayrollReport report = new PayrollReport(through == ALL_PERIODS ? null : yearMonth(through));
+        // Balances are ints, so every amount is checked before anyone is paid, leaving nothing half settled
+        List<Account> owed = new ArrayList<>();
+        List<long[]> totals = new ArrayList<>(); // {amount, sessions} of each owed account
+        for (Account account : accounts.values()) {
+            if (account.unpaidAmount == 0 && account.unpaidSessions == 0)
+                continue; // Nothing owed, skipped without looking at the sessions
+            long amount = 0;
+            int sessions = 0;
+            for (long[] bucket : account.unpaid.headMap(through, true).values()) {
+                amount += bucket[0];
+                sessions += (int) bucket[1];
+            }
+            if (sessions == 0)
+                continue;
+            Math.toIntExact(amount);
+            owed.add(account);
+            totals.add(new long[]{amount, sessions});
+        }
+        if (secretary != null && secretaryPayments.add(((long) secretary.getID() << 32) | month)) {
+            pay(gym, secretary, salary);
+            report.add(secretary, 0, salary);
+        }
+        for (int i = 0; i < owed.size(); i++) {
+            Account account = owed.get(i);
+            long amount = totals.get(i)[0];
+            int sessions = (int) totals.get(i)[1];
+            account.unpaid.headMap(through, true).clear();
+            account.unpaidAmount -= amount;
+            account.unpaidSessions -= sessions;
+            account.paidAmount += amount;
+            account.paidSessions += sessions;
+            pay(gym, account.instructor, Math.toIntExact(amount));
+            report.add(account.instructor, sessions, amount);
+        }
+        return report;
+    }
+
+    /**
+     * Retrieves the total salary paid so far to an instructor.
+     *
+     * @param instructor the instructor.
+     * @return the running total paid.
+     */
+    public synchronized long paidTo(Instructor instructor) {
+        Account account = accounts.get(instructor.getID());
+        return account == null ? 0 : account.paidAmount;
+    }
+
+    /**
+     * Retrieves the salary accrued by an instructor and not paid yet.
+     *
+     * @param instructor the instructor.
+     * @return the unpaid total.
+     */
+    public synchronized long owedTo(Instructor instructor) {
+        Account account = accounts.get(instructor.getID());
+        return account == null ? 0 : account.unpaidAmount;
+    }
+
+    /**
+     * Retrieves the total salary accrued by all instructors and not paid yet.
+     *
+     * @return the unpaid total.
+     */
+    public synchronized long owed() {
+        long total = 0;
+        for (Account account : accounts.values())
+            total += account.unpaidAmount;
+        return total;
+    }
+
+    /**
+     * Converts a month to the period index used by the payroll.
+     *
+     * @param month the month.
+     * @return the number of months between January 1970 and the month.
+     */
+    public static int period(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1 - 1970 * 12;
+    }
+
+    /**
+     * Converts a period index back to a month.
+     *
+     * @param period the period index.
+     * @return the month.
+     */
+    protected static YearMonth yearMonth(int period) {
+        return YearMonth.of(1970 + Math.floorDiv(period, 12), Math.floorMod(period, 12) + 1);
+    }
+
+    /**
+     * Computes the period containing a local date-time.
+     *
+     * @param epochMinute the local date-time as minutes since 01-01-1970 00:00.
+     * @return the period index of its month.
+     */
+    protected static int periodOf(long epochMinute) {
+        LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(epochMinute, 24 * 60));
+        return period(YearMonth.from(day));
+    }
+
+    /**
+     * Retrieves the number of instructor accounts.
+     *
+     * @return the number of instructors who accrued a salary.
+     */
+    protected synchronized int accountCount() {
+        return accounts.size();
+    }
+
+    /**
+     * Calls an action with the state of every account, for writing it to a snapshot.
+     *
+     * @param accountAction action called with each account's instructor ID and paid totals.
+     * @param bucketAction  action called with each unpaid bucket of the account just visited.
+     */
+    protected synchronized void forEachAccount(AccountVisitor accountAction, BucketVisitor bucketAction) {
+        for (Account account : accounts.values()) {
+            accountAction.visit(account.instructor.getID(), account.paidAmount, account.paidSessions, account.unpaid.size());
+            for (Map.Entry<Integer, long[]> bucket : account.unpaid.entrySet())
+                bucketAction.visit(bucket.getKey(), bucket.getValue()[0], (int) bucket.getValue()[1]);
+        }
+    }
+
+    /**
+     * Retrieves the secretary salaries paid so far, for writing them to a snapshot.
+     *
+     * @return the secretary ID and period of every payment, packed as ID &lt;&lt; 32 | period.
+     */
+    protected synchronized List<Long> secretaryPayments() {
+        return new ArrayList<>(secretaryPayments);
+    }
+
+    /**
+     * Drops every accrual and payment, before the state is restored from a snapshot.
+     */
+    protected synchronized void clear() {
+        accounts.clear();
+        secretaryPayments.clear();
+    }
+
+    /**
+     * Restores the paid totals of an instructor read from a snapshot.
+     *
+     * @param instructor the instructor.
+     * @param amount     the total paid.
+     * @param sessions   the number of sessions paid.
+     */
+    protected synchronized void restorePaid(Instructor instructor, long amount, int sessions) {
+        Account account = account(instructor);
+        account.paidAmount = amount;
+        account.paidSessions = sessions;
+    }
+
+    /**
+     * Restores an unpaid bucket of an instructor read from a snapshot.
+     *
+     * @param instructor the instructor.
+     * @param period     the period of the bucket.
+     * @param amount     the unpaid amount.
+     * @param sessions   the number of unpaid sessions.
+     */
+    protected synchronized void restoreUnpaid(Instructor instructor, int period, long amount, int sessions) {
+        account(instructor).accrue(period, amount, sessions);
+    }
+
+    /**
+     * Restores a secretary salary payment read from a snapshot.
+     *
+     * @param payment the secretary ID and period, packed as ID &lt;&lt; 32 | period.
+     */
+    protected synchronized void restoreSecretaryPayment(long payment) {
+        secretaryPayments.add(payment);
+    }
+
+    /**
+     * Retrieves the account of an instructor, opening it on first use.
+     *
+     * @param instructor the instructor.
+     * @return the instructor's account.
+     */
+    private Account account(Instructor instructor) {
+        return accounts.computeIfAbsent(instructor.getID(), id -> new Account(instructor));
+    }
+
+    /**
+     * Moves a salary from the gym's balance to an employee's.
+     *
+     * @param gym    the gym paying.
+     * @param person the employee paid.
+     * @param amount the salary.
+     */
+    private static void pay(Gym gym, Person person, int amount) {
+        gym.payForEmployees(amount);
+        person.increaseBalance(amount);
+    }
+
+    /**
+     * Receives the paid totals of an account.
+     */
+    protected interface AccountVisitor {
+        /**
+         * Visits an account.
+         *
+         * @param instructorId the ID of the instructor.
+         * @param paidAmount   the total paid.
+         * @param paidSessions the number of sessions paid.
+         * @param buckets      the number of unpaid buckets that follow.
+         */
+        void visit(int instructorId, long paidAmount, int paidSessions, int buckets);
+    }
+
+    /**
+     * Receives an unpaid bucket of an account.
+     */
+    protected interface BucketVisitor {
+        /**
+         * Visits a bucket.
+         *
+         * @param period   the period of the bucket.
+         * @param amount   the unpaid amount.
+         * @param sessions the number of unpaid sessions.
+         */
+        void visit(int period, long amount, int sessions);
+    }
+
+    /**
+     * Running totals and unpaid accruals of one instructor.
+     */
+    private static class Account {
+        final Instructor instructor;
+        final TreeMap<Integer, long[]> unpaid = new TreeMap<>(); // Period to {amount, sessions}
+        long unpaidAmount;
+        int unpaidSessions;
+        long paidAmount;
+        int paidSessions;
+
+        /**
+         * Constructor to open an empty account.
+         *
+         * @param instructor the instructor of the account.
+         */
+        Account(Instructor instructor) {
+            this.instructor = instructor;
+        }
+
+        /**
+         * Adds an accrual to the bucket of a period.
+         *
+         * @param period   the period.
+         * @param amount   the amount accrued.
+         * @param sessions the number of sessions accrued.
+         */
+        void accrue(int period, long amount, int sessions) {
+            long[] bucket = unpaid.computeIfAbsent(period, p -> new long[2]);
+            bucket[0] += amount;
+            bucket[1] += sessions;
+            unpaidAmount += amount;
+            unpaidSessions += sessions;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package gym.management;
+
+import gym.customers.Person;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Report of the salaries paid by one run of the payroll.
+ * Each line is one employee paid, with the number of sessions paid for (0 for the secretary's monthly salary).
+ */
+public class PayrollReport {
+    private final YearMonth period;
+    private final List<Line> lines = new ArrayList<>();
+    private long total;
+
+    /**
+     * Constructor to create an empty report.
+     *
+     * @param period the last period settled, or null if every outstanding accrual was settled.
+     */
+    protected PayrollReport(YearMonth period) {
+        this.period = period;
+    }
+
+    /**
+     * Adds a payment to the report.
+     *
+     * @param person   the employee paid.
+     * @param sessions the number of sessions paid for.
+     * @param amount   the amount paid.
+     */
+    protected void add(Person person, int sessions, long amount) {
+        lines.add(new Line(person, sessions, amount));
+        total += amount;
+    }
+
+    /**
+     * Retrieves the last period settled.
+     *
+     * @return the period, or null if every outstanding accrual was settled.
+     */
+    public YearMonth getPeriod() {
+        return period;
+    }
+
+    /**
+     * Retrieves the payments of the report.
+     *
+     * @return an unmodifiable list of the payments, secretary first.
+     */
+    public List<Line> getLines() {
+        return Collections.unmodifiableList(lines);
+    }
+
+    /**
+     * Retrieves the total paid.
+     *
+     * @return the sum of all payments.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns a string representation of the report, one payment per line.
+     *
+     * @return a string describing the payments.
+     */
+    public String toString() {
+        StringBuilder out = new StringBuilder("Payroll ")
+                .append(period == null ? "(all outstanding)" : period.toString())
+                .append(" | Payments: ").append(lines.size()).append(" | Total: ").append(total);
+        for (Line line : lines)
+            out.append('\n').append(line);
+        return out.toString();
+    }
+
+    /**
+     * One payment of the report.
+     */
+    public static class Line {
+        private final Person person;
+        private final int sessions;
+        private final long amount;
+
+        /**
+         * Constructor to create a payment line.
+         *
+         * @param person   the employee paid.
+         * @param sessions the number of sessions paid for.
+         * @param amount   the amount paid.
+         */
+        Line(Person person, int sessions, long amount) {
+            this.person = person;
+            this.sessions = sessions;
+            this.amount = amount;
+        }
+
+        /**
+         * Retrieves the employee paid.
+         *
+         * @return the person paid.
+         */
+        public Person getPerson() {
+            return person;
+        }
+
+        /**
+         * Retrieves the number of sessions paid for.
+         *
+         * @return the number of sessions, 0 for a monthly salary.
+         */
+        public int getSessions() {
+            return sessions;
+        }
+
+        /**
+         * Retrieves the amount paid.
+         *
+         * @return the amount.
+         */
+        public long getAmount() {
+            return amount;
+        }
+
+        /**
+         * Returns a string representation of the payment.
+         *
+         * @return a string describing the payment.
+         */
+        public String toString() {
+            return "ID: " + person.getID() + " | Name: " + person.getName() + " | Sessions: " + sessions + " | Paid: " + amount;
+        }
+    }
+}
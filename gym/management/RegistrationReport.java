@@ -0,0 +1,135 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.management.Sessions.Session;
+
+import java.util.Arrays;
+
+/**
+ * Report of a batch registration, holding the outcome of every client and session pair in the order they were
+ * processed, together with a count of each outcome.
+ */
+public class RegistrationReport {
+    private Client[] clients;
+    private Session[] sessions;
+    private RegistrationResult[] results;
+    private int size;
+    private final int[] counts = new int[RegistrationResult.values().length];
+
+    /**
+     * Constructor to create an empty report with room for a number of outcomes.
+     *
+     * @param capacity the expected number of outcomes.
+     */
+    protected RegistrationReport(int capacity) {
+        int length = Math.max(capacity, 1);
+        clients = new Client[length];
+        sessions = new Session[length];
+        results = new RegistrationResult[length];
+    }
+
+    /**
+     * Records the outcome of registering a client to a session.
+     *
+     * @param client  the client.
+     * @param session the session.
+     * @param result  the outcome.
+     */
+    protected void add(Client client, Session session, RegistrationResult result) {
+        if (size == results.length) {
+            int capacity = size * 2;
+            clients = Arrays.copyOf(clients, capacity);
+            sessions = Arrays.copyOf(sessions, capacity);
+            results = Arrays.copyOf(results, capacity);
+        }
+        clients[size] = client;
+        sessions[size] = session;
+        results[size] = result;
+        size++;
+        counts[result.ordinal()]++;
+    }
+
+    /**
+     * Retrieves the number of outcomes in the report.
+     *
+     * @return the number of client and session pairs processed.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the client of an outcome.
+     *
+     * @param index the position of the outcome.
+     * @return the client.
+     */
+    public Client getClient(int index) {
+        return clients[checkIndex(index)];
+    }
+
+    /**
+     * Retrieves the session of an outcome.
+     *
+     * @param index the position of the outcome.
+     * @return the session.
+     */
+    public Session getSession(int index) {
+        return sessions[checkIndex(index)];
+    }
+
+    /**
+     * Retrieves an outcome.
+     *
+     * @param index the position of the outcome.
+     * @return the outcome of registering the client to the session.
+     */
+    public RegistrationResult getResult(int index) {
+        return results[checkIndex(index)];
+    }
+
+    /**
+     * Retrieves the number of pairs with a given outcome.
+     *
+     * @param result the outcome to count.
+     * @return the number of pairs with this outcome.
+     */
+    public int count(RegistrationResult result) {
+        return counts[result.ordinal()];
+    }
+
+    /**
+     * Retrieves the number of successful registrations.
+     *
+     * @return the number of clients registered.
+     */
+    public int registered() {
+        return count(RegistrationResult.REGISTERED);
+    }
+
+    /**
+     * Checks an outcome position.
+     *
+     * @param index the position to check.
+     * @return the position.
+     * @throws IndexOutOfBoundsException if the position is outside the report.
+     */
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for report of size " + size);
+        return index;
+    }
+
+    /**
+     * Returns a summary of the report with the count of each outcome.
+     *
+     * @return a string describing the report.
+     */
+    public String toString() {
+        StringBuilder summary = new StringBuilder("Registrations: ").append(size);
+        for (RegistrationResult result : RegistrationResult.values())
+            if (counts[result.ordinal()] > 0)
+                summary.append(" | ").append(result).append(": ").append(counts[result.ordinal()]);
+        return summary.toString();
+    }
+}
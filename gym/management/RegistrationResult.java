@@ -0,0 +1,26 @@
+package gym.management;
+
+/**
+ * Enum representing the outcome of registering one client to one session, in a batch registration or through
+ * the waitlist. A failed registration reports the first check it failed, in the order the checks are made.
+ */
+public enum RegistrationResult {
+    REGISTERED,
+    NOT_GYM_CLIENT,
+    DUPLICATE,
+    NOT_IN_FUTURE,
+    FORUM_MISMATCH,
+    NO_PLACES,
+    SCHEDULE_CONFLICT,
+    NO_BALANCE,
+    WAITLISTED;
+
+    /**
+     * Checks whether this outcome is a successful registration.
+     *
+     * @return true if the client was registered, false otherwise.
+     */
+    public boolean isRegistered() {
+        return this == REGISTERED;
+    }
+}
@@ -5,8 +5,15 @@ import gym.customers.*;
 import gym.customers.Age;
 import gym.management.Sessions.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 
 
 /**
@@ -16,7 +23,7 @@ import java.util.List;
  */
 public class Secretary extends Person {
     private int salary;
-    private boolean haveAccess = true;
+    private volatile boolean haveAccess = true;
     private Gym gym = Gym.getInstance();
 
     /**
@@ -29,9 +36,21 @@ public class Secretary extends Person {
         super(secretary);
         this.salary = salary;
         if (gym.getSecretary() != null)
-            gym.getSecretary().haveAccess = false; // Revoking access from previous secretary if any
+            gym.getSecretary().revokeAccess(); // Revoking access from previous secretary if any
 
-        gym.gymHistoryAdd("A new secretary has started working at the gym: " + secretary.getName());
+        gym.gymHistoryAdd(ActionType.SECRETARY_STARTED, secretary, null, null, 0);
+    }
+
+    /**
+     * Constructor for restoring the current Secretary from saved gym state, without recording history.
+     *
+     * @param secretary Person object representing the secretary.
+     * @param salary    Monthly salary for the secretary.
+     * @param restored  marker distinguishing this constructor; the value is ignored.
+     */
+    Secretary(Person secretary, int salary, boolean restored) {
+        super(secretary);
+        this.salary = salary;
     }
 
     /**
@@ -44,14 +63,23 @@ public class Secretary extends Person {
      */
     public Client registerClient(Person person) throws InvalidAgeException, DuplicateClientException {
         haveAccess();
-        Client newClient = Client.newClient(person);
-        if (person.getAge() < 18) // Validate client's age
-            throw new InvalidAgeException();
-        if (gym.getClientsList().contains(person)) // Check for duplicate registration
-            throw new DuplicateClientException();
-        gym.addClient(newClient);
-        gym.gymHistoryAdd("Registered new client: " + person.getName());
-        return newClient;
+        SecretaryMetrics metrics = gym.getMetrics();
+        long started = metrics.start();
+        try {
+            Client newClient = Client.newClient(person);
+            if (person.getAge() < 18) // Validate client's age
+                throw new InvalidAgeException();
+            if (gym.getClients().contains(person.getID())) // Check for duplicate registration
+                throw new DuplicateClientException();
+            withJournal(journal -> {
+                journal.clientAdded(person);
+                gym.addClient(newClient);
+            });
+            gym.gymHistoryAdd(ActionType.CLIENT_REGISTERED, newClient, null, null, 0);
+            return newClient;
+        } finally {
+            metrics.stop(SecretaryMetrics.Operation.REGISTER_CLIENT, started);
+        }
     }
 
     /**
@@ -62,10 +90,23 @@ public class Secretary extends Person {
      */
     public void unregisterClient(Client client) throws ClientNotRegisteredException {
         haveAccess();
-        if (!gym.getClientsList().contains(client))
+        if (!gym.getClients().contains(client.getID()))
             throw new ClientNotRegisteredException();
-        gym.getClientsList().remove(client);
-        gym.gymHistoryAdd("Unregistered client: " + client.getName());
+        withJournal(journal -> {
+            journal.clientRemoved(client);
+            gym.removeClient(client);
+        });
+        gym.gymHistoryAdd(ActionType.CLIENT_UNREGISTERED, client, null, null, 0);
+    }
+
+    /**
+     * Starts a search for the gym's clients, by name prefix, gender, age bracket and balance.
+     *
+     * @return a query matching every client, to narrow down with criteria.
+     */
+    public ClientQuery findClients() {
+        haveAccess();
+        return new ClientQuery(gym.getClientIndex());
     }
 
     /**
@@ -79,8 +120,11 @@ public class Secretary extends Person {
     public Instructor hireInstructor(Person person, int hourlyWage, ArrayList<SessionType> validSessions) {
         haveAccess();
         Instructor instructor = Instructor.newInstructor(person, hourlyWage, validSessions);
-        gym.addInstructor(instructor);
-        gym.gymHistoryAdd("Hired new instructor: " + person.getName() + " with salary per hour: " + hourlyWage);
+        withJournal(journal -> {
+            journal.instructorAdded(instructor);
+            gym.addInstructor(instructor);
+        });
+        gym.gymHistoryAdd(ActionType.INSTRUCTOR_HIRED, instructor, null, null, hourlyWage);
         return instructor;
     }
 
@@ -93,20 +137,60 @@ public class Secretary extends Person {
      * @param instructor  Instructor for the session.
      * @return Session object created.
      * @throws InstructorNotQualifiedException If instructor is not qualified for the session type.
+     * @throws ScheduleConflictException       If instructor already teaches a session at that time.
      */
-    public Session addSession(SessionType sessionType, String sessionTime, ForumType forumType, Instructor instructor) throws InstructorNotQualifiedException {
+    public Session addSession(SessionType sessionType, String sessionTime, ForumType forumType, Instructor instructor) throws InstructorNotQualifiedException, ScheduleConflictException {
         haveAccess();
 
         // Validate instructor's qualifications
         if (!instructor.validSessions.contains(sessionType))
             throw new InstructorNotQualifiedException();
-        Session session = SessionFactory.getSession(sessionType);
-        session = session.newSession(sessionTime, forumType, instructor);
-        gym.addSession(session);
-        gym.gymHistoryAdd("Created new session: " + sessionType + " on " + CustomDate.customDate(sessionTime) + " with instructor: " + instructor.getName());
+        long start = CustomDate.parseSessionTime(sessionTime);
+        Timeline timeline = gym.instructorTimeline(instructor);
+        Session session;
+        // No other session can be booked for the instructor between the check and the booking
+        synchronized (timeline) {
+            if (!timeline.isFree(start, start + Session.DURATION_MINUTES))
+                throw new ScheduleConflictException();
+            Session added = SessionFactory.newSession(sessionType, sessionTime, forumType, instructor);
+            withJournal(journal -> {
+                journal.sessionAdded(added);
+                gym.addSession(added);
+            });
+            session = added;
+        }
+        gym.gymHistoryAdd(ActionType.SESSION_CREATED, instructor, session, null, 0);
         return session;
     }
 
+    /**
+     * Finds the periods in which an instructor teaches no session, such as to schedule a new one.
+     *
+     * @param instructor Instructor whose timeline is searched.
+     * @param from       Start of the search window, in format dd-MM-yyyy HH:mm.
+     * @param to         End of the search window, in format dd-MM-yyyy HH:mm.
+     * @param minutes    Minimum length of a free period.
+     * @return the free periods in time order.
+     */
+    public List<Timeline.Slot> findFreeSlots(Instructor instructor, String from, String to, int minutes) {
+        haveAccess();
+        return gym.instructorTimeline(instructor).freeSlots(CustomDate.parseSessionTime(from), CustomDate.parseSessionTime(to), minutes);
+    }
+
+    /**
+     * Finds the periods in which a client is registered to no session.
+     *
+     * @param client  Client whose timeline is searched.
+     * @param from    Start of the search window, in format dd-MM-yyyy HH:mm.
+     * @param to      End of the search window, in format dd-MM-yyyy HH:mm.
+     * @param minutes Minimum length of a free period.
+     * @return the free periods in time order.
+     */
+    public List<Timeline.Slot> findFreeSlots(Client client, String from, String to, int minutes) {
+        haveAccess();
+        return gym.clientTimeline(client).freeSlots(CustomDate.parseSessionTime(from), CustomDate.parseSessionTime(to), minutes);
+    }
+
     /**
      * Registers a client to a specific session.
      *
@@ -118,54 +202,509 @@ public class Secretary extends Person {
      */
     public void registerClientToLesson(Client client, Session session) throws DuplicateClientException, ClientNotRegisteredException, NullPointerException {
         haveAccess();
-        if (!gym.getClientsList().contains(client))
-            throw new ClientNotRegisteredException(1);
+        SecretaryMetrics metrics = gym.getMetrics();
+        long started = metrics.start();
+        RegistrationResult outcome = RegistrationResult.NOT_GYM_CLIENT; // The first check that failed, for the metrics
+        try {
+            if (!gym.getClients().contains(client.getID()))
+                throw new ClientNotRegisteredException(1);
+            outcome = checkAndRegister(client, session);
+        } catch (DuplicateClientException e) {
+            outcome = RegistrationResult.DUPLICATE;
+            throw e;
+        } finally {
+            metrics.stopRegistration(outcome, started);
+        }
+    }
 
-        boolean flag = true; // Tracks if registration can proceed
-        if (futureDate.isDateInFuture(session.getTime())) {
-            flag = false;
-            gym.gymHistoryAdd("Failed registration: Session is not in the future");
+    /**
+     * Runs the checks of registerClientToLesson on a gym client, recording each failed check in the history,
+     * and registers the client if they all pass.
+     *
+     * @param client  Client to register.
+     * @param session Session to register the client to.
+     * @return REGISTERED, or the first check that failed.
+     * @throws DuplicateClientException If client is already registered.
+     */
+    private RegistrationResult checkAndRegister(Client client, Session session) throws DuplicateClientException {
+        RegistrationResult outcome = RegistrationResult.REGISTERED; // Stays so while registration can proceed
+        if (futureDate.isPast(session.getEpochMinute())) {
+            outcome = RegistrationResult.NOT_IN_FUTURE;
+            gym.gymHistoryAdd(ActionType.REGISTRATION_NOT_IN_FUTURE, client, session, null, 0);
         }
 
         // Validate client eligibility based on forum type
         if (!ForumTypeCheck.isType(client, session.getForum())) {
-            flag = false;
+            if (outcome == RegistrationResult.REGISTERED)
+                outcome = RegistrationResult.FORUM_MISMATCH;
             if (session.getForum() == ForumType.Seniors)
-                gym.gymHistoryAdd("Failed registration: Client doesn't meet" +
-                        " the age requirements for this session (Seniors)");
+                gym.gymHistoryAdd(ActionType.REGISTRATION_AGE_MISMATCH, client, session, null, 0);
             else if (session.getForum() == ForumType.Female)
-                gym.gymHistoryAdd("Failed registration: Client's gender " +
-                        "doesn't match the session's gender requirements");
+                gym.gymHistoryAdd(ActionType.REGISTRATION_GENDER_MISMATCH, client, session, null, 0);
+        }
+
+        // The session's places and clients only change while its lock is held
+        Lock lock = gym.sessionLock(session);
+        lock.lock();
+        try {
+            // Check for duplicate registration
+            if (session.isRegistered(client))
+                throw new DuplicateClientException(1);
+
+            // Check if spots are available
+            if (session.getPlaces() == 0) {
+                if (outcome == RegistrationResult.REGISTERED)
+                    outcome = RegistrationResult.NO_PLACES;
+                gym.gymHistoryAdd(ActionType.REGISTRATION_NO_PLACES, client, session, null, 0);
+            }
+
+            // Check client's balance
+            if (client.getBalance() < session.getPrice()) {
+                if (outcome == RegistrationResult.REGISTERED)
+                    outcome = RegistrationResult.NO_BALANCE;
+                gym.gymHistoryAdd(ActionType.REGISTRATION_NO_BALANCE, client, session, null, 0);
+            }
+
+            // Register the client, unless they are booked at that time or a concurrent registration spent the balance
+            if (outcome == RegistrationResult.REGISTERED) {
+                outcome = chargeAndRegister(client, session);
+                if (outcome.isRegistered())
+                    gym.gymHistoryAdd(ActionType.LESSON_REGISTERED, client, session, null, session.getPrice());
+                else if (outcome == RegistrationResult.SCHEDULE_CONFLICT)
+                    gym.gymHistoryAdd(ActionType.REGISTRATION_SCHEDULE_CONFLICT, client, session, null, 0);
+                else
+                    gym.gymHistoryAdd(ActionType.REGISTRATION_NO_BALANCE, client, session, null, 0);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return outcome;
+    }
+
+    /**
+     * Charges a client for a session and adds them to it, as one journaled change. The caller must hold the
+     * session's lock.
+     *
+     * @param client  Client to register.
+     * @param session Session to register the client to.
+     * @return REGISTERED, SCHEDULE_CONFLICT or NO_BALANCE.
+     */
+    private RegistrationResult chargeAndRegister(Client client, Session session) {
+        return gym.getJournal().change(() -> applyRegistration(client, session));
+    }
+
+    /**
+     * Books a session in a client's timeline, then atomically debits the client and records their registration.
+     *
+     * @param client  Client to register.
+     * @param session Session to register the client to.
+     * @return REGISTERED, SCHEDULE_CONFLICT if the client is booked at that time, or NO_BALANCE if their balance
+     * does not cover the price.
+     */
+    private RegistrationResult applyRegistration(Client client, Session session) {
+        int price = session.getPrice();
+        Timeline timeline = gym.clientTimeline(client);
+        if (!timeline.tryBook(session))
+            return RegistrationResult.SCHEDULE_CONFLICT;
+        if (!client.tryReduceBalance(price)) {
+            timeline.release(session);
+            return RegistrationResult.NO_BALANCE;
         }
+        gym.getJournal().lessonRegistered(client, session, price);
+        gym.increaseBalance(price);
+        gym.enroll(session, client);
+        return RegistrationResult.REGISTERED;
+    }
 
-        // Check for duplicate registration
-        if (session.isRegistered(client)) {
-            flag = false;
-            throw new DuplicateClientException(1);
+    /**
+     * Registers a client to a session, or puts them at the end of the session's waitlist if it is full.
+     * The checks are those of registerClientToLesson, made in the order of RegistrationResult;
+     * failures are reported instead of being thrown or recorded in the history.
+     * Clients on the waitlist are registered automatically when a registered client leaves the session.
+     *
+     * @param client  Client to register.
+     * @param session Session to register the client to.
+     * @return REGISTERED or WAITLISTED on success, or the first check that failed.
+     */
+    public RegistrationResult registerOrWaitlist(Client client, Session session) {
+        haveAccess();
+        if (!gym.getClients().contains(client.getID()))
+            return RegistrationResult.NOT_GYM_CLIENT;
+        Lock lock = gym.sessionLock(session);
+        lock.lock();
+        try {
+            if (session.isRegistered(client) || session.getWaitlist().contains(client.getID()))
+                return RegistrationResult.DUPLICATE;
+            if (futureDate.isPast(session.getEpochMinute()))
+                return RegistrationResult.NOT_IN_FUTURE;
+            if (!ForumTypeCheck.isType(client, session.getForum()))
+                return RegistrationResult.FORUM_MISMATCH;
+            if (client.getBalance() < session.getPrice())
+                return RegistrationResult.NO_BALANCE;
+            if (session.getPlaces() > 0) {
+                RegistrationResult result = chargeAndRegister(client, session);
+                if (!result.isRegistered())
+                    return result;
+                gym.gymHistoryAdd(ActionType.LESSON_REGISTERED, client, session, null, session.getPrice());
+                return RegistrationResult.REGISTERED;
+            }
+            withJournal(journal -> {
+                journal.waitlisted(client, session);
+                session.getWaitlist().add(client);
+            });
+            gym.gymHistoryAdd(ActionType.CLIENT_WAITLISTED, client, session, null, session.getWaitlist().size());
+            return RegistrationResult.WAITLISTED;
+        } finally {
+            lock.unlock();
         }
+    }
 
-        // Check if spots are available
-        if (session.getPlaces() == 0) {
-            flag = false;
-            gym.gymHistoryAdd("Failed registration: No available spots for session");
+    /**
+     * Removes a client from a session, refunding the price of the session, or from the session's waitlist.
+     * A place freed this way goes to the clients at the head of the waitlist: each is registered and notified
+     * if they are still a gym client, can still join the session and can pay, and otherwise dropped from the waitlist.
+     *
+     * @param client  Client to remove.
+     * @param session Session to remove the client from.
+     * @return true if the client was registered or waiting, false otherwise.
+     */
+    public boolean unregisterClientFromLesson(Client client, Session session) {
+        haveAccess();
+        Lock lock = gym.sessionLock(session);
+        lock.lock();
+        try {
+            if (!session.isRegistered(client)) {
+                if (!session.getWaitlist().contains(client.getID()))
+                    return false;
+                leaveWaitlist(client, session, "left the waitlist");
+                return true;
+            }
+            int refund = session.getPrice();
+            withJournal(journal -> {
+                journal.lessonUnregistered(client, session, refund);
+                gym.withdraw(session, client);
+                gym.increaseBalance(-refund);
+                client.increaseBalance(refund);
+            });
+            gym.gymHistoryAdd(ActionType.LESSON_UNREGISTERED, client, session, null, refund);
+        } finally {
+            lock.unlock();
         }
+        promoteFromWaitlist(session);
+        return true;
+    }
 
-        // Check client's balance
-        if (client.getBalance() < session.getPrice()) {
-            flag = false;
-            gym.gymHistoryAdd("Failed registration: Client doesn't have enough balance");
+    /**
+     * Fills the free places of a session from the head of its waitlist. The caller must not hold the session's lock.
+     * Each client is taken off the waitlist with their place held under the lock; they are then checked, charged
+     * and notified outside it, and the lock is taken again only to seat them, so a slow debit or notification
+     * never holds up the other registrations to the session.
+     *
+     * @param session Session whose waitlist is promoted.
+     */
+    private void promoteFromWaitlist(Session session) {
+        Client next;
+        while ((next = takeForPromotion(session)) != null) {
+            String refusal = promotionRefusal(next, session);
+            if (refusal == null) {
+                RegistrationResult result = chargePromotion(next, session);
+                if (result == RegistrationResult.SCHEDULE_CONFLICT)
+                    refusal = "booked for another session at that time";
+                else if (result == RegistrationResult.NO_BALANCE)
+                    refusal = "not enough balance";
+            }
+            if (refusal != null) {
+                dropPromotion(next, session, refusal);
+                continue;
+            }
+            seatPromotion(next, session);
+            gym.gymHistoryAdd(ActionType.WAITLIST_PROMOTED, next, session, null, session.getPrice());
+            String message = "A place has opened up: you are now registered to session: " + session.getType()
+                    + " on " + CustomDate.customDate(session.getEpochMinute());
+            Notification notification = gym.newNotification(message);
+            Client promoted = next;
+            withJournal(journal -> {
+                journal.clientNotified(promoted, notification);
+                gym.notifyClient(promoted, notification);
+            });
         }
+    }
 
-        // Register the client
-        if (flag) {
-            client.reduceBalance(session.getPrice());
-            gym.increaseBalance(session.getPrice());
-            session.addClient(client);
+    /**
+     * Takes the client at the head of a session's waitlist and holds a place for them, under the session's lock.
+     *
+     * @param session Session whose waitlist is promoted.
+     * @return the client to promote, or null if the session has no free place or no one is waiting.
+     */
+    private Client takeForPromotion(Session session) {
+        Lock lock = gym.sessionLock(session);
+        lock.lock();
+        try {
+            if (session.getPlaces() <= 0 || session.getWaitlist().size() == 0)
+                return null;
+            Client next = session.getWaitlist().poll();
+            withJournal(journal -> journal.promotionStarted(next, session));
             session.setPlaces();
-            gym.gymHistoryAdd("Registered client: " + client.getName() + " to session: "
-                    + session.getType() + " on " + CustomDate.customDate(session.getTime()) +
-                    " for price: " + session.getPrice());
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks again whether a client taken off a waitlist may still join the session,
+     * as the checks made when they joined the waitlist may no longer hold.
+     *
+     * @param client  Client being promoted.
+     * @param session Session of the waitlist.
+     * @return why the client cannot join the session, or null if they can.
+     */
+    private String promotionRefusal(Client client, Session session) {
+        if (!gym.getClients().contains(client.getID()))
+            return "no longer a gym client";
+        if (futureDate.isPast(session.getEpochMinute()))
+            return "the session is no longer in the future";
+        if (!ForumTypeCheck.isType(client, session.getForum()))
+            return "no longer matches the session's forum";
+        return null;
+    }
+
+    /**
+     * Books the session in the timeline of a client being promoted and charges them for it, without the
+     * session's lock. The charge and its record are one journaled change, so a snapshot sees the client either
+     * uncharged and waiting, or charged and registered.
+     *
+     * @param client  Client being promoted.
+     * @param session Session of the waitlist.
+     * @return REGISTERED, SCHEDULE_CONFLICT or NO_BALANCE.
+     */
+    private RegistrationResult chargePromotion(Client client, Session session) {
+        Timeline timeline = gym.clientTimeline(client);
+        if (!timeline.tryBook(session))
+            return RegistrationResult.SCHEDULE_CONFLICT;
+        return gym.getJournal().change(() -> applyPromotionCharge(client, session, timeline));
+    }
+
+    /**
+     * Atomically debits a client being promoted and records their registration, releasing their booking
+     * if they cannot pay.
+     *
+     * @param client   Client being promoted.
+     * @param session  Session of the waitlist.
+     * @param timeline Timeline of the client, with the session booked.
+     * @return REGISTERED or NO_BALANCE.
+     */
+    private RegistrationResult applyPromotionCharge(Client client, Session session, Timeline timeline) {
+        int price = session.getPrice();
+        if (!client.tryReduceBalance(price)) {
+            timeline.release(session);
+            return RegistrationResult.NO_BALANCE;
+        }
+        // The registration record of the journal also takes the client off the waitlist on replay
+        gym.getJournal().lessonRegistered(client, session, price);
+        gym.getJournal().promotionCharged(client, session);
+        gym.increaseBalance(price);
+        return RegistrationResult.REGISTERED;
+    }
+
+    /**
+     * Seats a charged client in the place held for them, under the session's lock.
+     *
+     * @param client  Client being promoted.
+     * @param session Session of the waitlist.
+     */
+    private void seatPromotion(Client client, Session session) {
+        Lock lock = gym.sessionLock(session);
+        lock.lock();
+        try {
+            withJournal(journal -> {
+                session.addClient(client);
+                journal.promotionEnded(client, session);
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops a client taken off a waitlist who cannot be promoted, freeing the place held for them,
+     * and records why in the history.
+     *
+     * @param client  Client being promoted.
+     * @param session Session of the waitlist.
+     * @param reason  Why the client was dropped.
+     */
+    private void dropPromotion(Client client, Session session, String reason) {
+        Lock lock = gym.sessionLock(session);
+        lock.lock();
+        try {
+            withJournal(journal -> {
+                journal.waitlistLeft(client, session);
+                journal.promotionEnded(client, session);
+                session.releasePlace();
+            });
+        } finally {
+            lock.unlock();
+        }
+        gym.gymHistoryAdd(ActionType.WAITLIST_SKIPPED, client, session, reason, 0);
+    }
+
+    /**
+     * Removes a client from a session's waitlist, recording why in the history.
+     * The caller must hold the session's lock.
+     *
+     * @param client  Client leaving the waitlist.
+     * @param session Session of the waitlist.
+     * @param reason  Why the client left, recorded in the history.
+     */
+    private void leaveWaitlist(Client client, Session session, String reason) {
+        withJournal(journal -> {
+            journal.waitlistLeft(client, session);
+            session.getWaitlist().remove(client.getID());
+        });
+        gym.gymHistoryAdd(ActionType.WAITLIST_SKIPPED, client, session, reason, 0);
+    }
+
+    /**
+     * Runs a change that is journaled as one step of the journal, so a snapshot never sees it half done.
+     *
+     * @param change the change, given the journal to record it in.
+     */
+    private void withJournal(Consumer<GymJournal> change) {
+        GymJournal journal = gym.getJournal();
+        journal.change(() -> {
+            change.accept(journal);
+            return null;
+        });
+    }
+
+    /**
+     * Registers a group of clients to a session in one batch.
+     * The access and client checks are made once, the session is locked once, the gym is credited once
+     * and a single history entry records the batch, listing the registered clients so that a search of a
+     * client's history finds it. Failures are reported per client instead of being thrown.
+     *
+     * @param clients Clients to register, processed in iteration order.
+     * @param session Session to register the clients to.
+     * @return the outcome for every client.
+     */
+    public RegistrationReport registerClientsToLesson(Collection<Client> clients, Session session) {
+        haveAccess();
+        Client[] batch = clients.toArray(new Client[0]);
+        int[] forumMasks = forumMasks(batch);
+        RegistrationReport report = new RegistrationReport(batch.length);
+        registerBatch(batch, forumMasks, session, report);
+        return report;
+    }
+
+    /**
+     * Registers a group of clients to each of several sessions, as one batch per session.
+     * The clients are checked once for all the sessions.
+     *
+     * @param clients  Clients to register, processed in iteration order.
+     * @param sessions Sessions to register the clients to, processed in iteration order.
+     * @return the outcome for every client and session pair, grouped by session.
+     */
+    public RegistrationReport registerClientsToLessons(Collection<Client> clients, Collection<Session> sessions) {
+        haveAccess();
+        Client[] batch = clients.toArray(new Client[0]);
+        int[] forumMasks = forumMasks(batch);
+        RegistrationReport report = new RegistrationReport((int) Math.min((long) batch.length * sessions.size(), 1 << 20));
+        for (Session session : sessions)
+            registerBatch(batch, forumMasks, session, report);
+        return report;
+    }
+
+    /**
+     * Looks up the forum mask of every client of a batch.
+     *
+     * @param batch Clients of the batch.
+     * @return the forum mask of each client, or 0 for clients that are not registered in the gym.
+     */
+    private int[] forumMasks(Client[] batch) {
+        ClientRegistry registry = gym.getClients();
+        int[] forumMasks = new int[batch.length];
+        for (int i = 0; i < batch.length; i++)
+            if (registry.contains(batch[i].getID()))
+                forumMasks[i] = batch[i].getForumMask(); // Never 0, every client belongs to the "All" forum
+        return forumMasks;
+    }
+
+    /**
+     * Registers a batch of clients to a session and records the batch in the gym's history.
+     *
+     * @param batch      Clients to register.
+     * @param forumMasks Forum mask of each client, 0 for clients that are not registered in the gym.
+     * @param session    Session to register the clients to.
+     * @param report     Report receiving the outcome for every client.
+     */
+    private void registerBatch(Client[] batch, int[] forumMasks, Session session, RegistrationReport report) {
+        int first = report.size(); // Index of the batch's first outcome in the report
+        boolean past = futureDate.isPast(session.getEpochMinute());
+        int registered;
+        Lock lock = gym.sessionLock(session);
+        lock.lock();
+        try {
+            // Every client is charged before the batch is recorded, so the whole batch is one journaled change
+            registered = gym.getJournal().change(() -> applyBatch(batch, forumMasks, session, past, report));
+        } finally {
+            lock.unlock();
+        }
+        // The entry names no single client, so its text lists the IDs of the registered ones
+        StringBuilder members = new StringBuilder(registered * 5);
+        for (int i = first; i < report.size(); i++)
+            if (report.getResult(i) == RegistrationResult.REGISTERED)
+                members.append(report.getClient(i).getID()).append(' ');
+        gym.gymHistoryAdd(ActionType.BATCH_REGISTERED, null, session, members.toString(),
+                ((long) batch.length << 32) | registered);
+    }
+
+    /**
+     * Checks, charges and registers each client of a batch. The caller must hold the session's lock.
+     *
+     * @param batch      Clients to register.
+     * @param forumMasks Forum mask of each client, 0 for clients that are not registered in the gym.
+     * @param session    Session to register the clients to.
+     * @param past       Whether the session has already taken place.
+     * @param report     Report receiving the outcome for every client.
+     * @return the number of clients registered.
+     */
+    private int applyBatch(Client[] batch, int[] forumMasks, Session session, boolean past, RegistrationReport report) {
+        int price = session.getPrice();
+        int places = session.getPlaces();
+        int forum = session.getForum().mask();
+        int[] registeredIds = new int[Math.min(batch.length, places)];
+        int registered = 0;
+        for (int i = 0; i < batch.length; i++) {
+            Client client = batch[i];
+            RegistrationResult result;
+            if (forumMasks[i] == 0)
+                result = RegistrationResult.NOT_GYM_CLIENT;
+            else if (session.isRegistered(client))
+                result = RegistrationResult.DUPLICATE;
+            else if (past)
+                result = RegistrationResult.NOT_IN_FUTURE;
+            else if ((forumMasks[i] & forum) == 0)
+                result = RegistrationResult.FORUM_MISMATCH;
+            else if (registered == places)
+                result = RegistrationResult.NO_PLACES;
+            else if (!gym.clientTimeline(client).tryBook(session))
+                result = RegistrationResult.SCHEDULE_CONFLICT;
+            else if (!client.tryReduceBalance(price)) {
+                gym.clientTimeline(client).release(session);
+                result = RegistrationResult.NO_BALANCE;
+            } else {
+                gym.enroll(session, client);
+                registeredIds[registered++] = client.getID();
+                result = RegistrationResult.REGISTERED;
+            }
+            report.add(client, session, result);
+        }
+        if (registered > 0) {
+            gym.getJournal().lessonsRegistered(session, price, registeredIds, registered);
+            gym.increaseBalance(price * registered);
         }
+        return registered;
     }
 
     /**
@@ -176,13 +715,14 @@ public class Secretary extends Person {
      */
     public void notify(Session session, String message) {
         haveAccess();
-        List<Client> sessionClients = session.getClientList();
-        NewsletterPublisher newsletterPublisher = new NewsletterPublisher();
-        for (Client client : sessionClients)
-            newsletterPublisher.register(client);
-        newsletterPublisher.sendNewsletter(message);
-        gym.gymHistoryAdd("A message was sent to everyone registered for session " + session.getType() + " on "
-                + CustomDate.customDate(session.getTime()) + " : " + message);
+        long started = gym.getMetrics().start();
+        Notification notification = gym.newNotification(message);
+        withJournal(journal -> {
+            journal.sessionNotified(session, notification);
+            gym.notifySessions(Collections.singletonList(session), notification);
+        });
+        gym.gymHistoryAdd(ActionType.SESSION_NOTIFIED, null, session, message, 0);
+        gym.getMetrics().stop(SecretaryMetrics.Operation.NOTIFY_SESSION, started);
     }
 
     /**
@@ -192,53 +732,79 @@ public class Secretary extends Person {
      */
     public void notify(String message) {
         haveAccess();
-        NewsletterPublisher newsletterPublisher = new NewsletterPublisher();
-        for (Client client : gym.getClientsList())
-            newsletterPublisher.register(client);
-        newsletterPublisher.sendNewsletter(message);
-        gym.gymHistoryAdd("A message was sent to all gym clients: " + message);
+        long started = gym.getMetrics().start();
+        Notification notification = gym.newNotification(message);
+        withJournal(journal -> {
+            journal.allNotified(notification);
+            gym.notifyClients(notification); // Every client is already subscribed to the gym's publisher
+        });
+        gym.gymHistoryAdd(ActionType.ALL_NOTIFIED, null, null, message, 0);
+        gym.getMetrics().stop(SecretaryMetrics.Operation.NOTIFY_ALL, started);
 
     }
 
     /**
      * Sends notifications to all clients registered for sessions on a specific date.
      *
-     * @param date    Date of sessions in format dd/MM/yyyy.
+     * @param date    Date of sessions in format dd-MM-yyyy.
      * @param message Message to send.
      */
     public void notify(String date, String message) {
         haveAccess();
-        NewsletterPublisher newsletterPublisher = new NewsletterPublisher();
-        String time = "";
-        for (Session session : gym.getSessionsList()) {
-            time = session.getTime().substring(0, 10);
-            if (time.equals(date))
-                for (Client client : session.getClientList())
-                    newsletterPublisher.register(client);
-        }
-        newsletterPublisher.sendNewsletter(message);
-        String newDate = date.substring(6, 10) + "-" + date.substring(3, 5) + "-" + date.substring(0, 2);
+        long started = gym.getMetrics().start();
+        int epochDay = CustomDate.epochDay(date);
+        Notification notification = gym.newNotification(message);
+        withJournal(journal -> {
+            journal.dayNotified(epochDay, notification);
+            // Only the sessions in the bucket of the requested day are visited
+            gym.notifySessions(gym.getCalendar().onDay(epochDay), notification);
+        });
+        gym.gymHistoryAdd(ActionType.DAY_NOTIFIED, null, null, message, epochDay);
+        gym.getMetrics().stop(SecretaryMetrics.Operation.NOTIFY_DAY, started);
 
-        gym.gymHistoryAdd("A message was sent to everyone registered for a session on "
-                + newDate + " : " + message);
+    }
 
+    /**
+     * Pays the salaries owed to all employees: every session accrued by the instructors and not paid yet,
+     * and the secretary's salary for the current month unless it was already paid.
+     *
+     * @return the report of the salaries paid.
+     */
+    public PayrollReport paySalaries() {
+        return settlePayroll(Payroll.ALL_PERIODS, Payroll.period(YearMonth.from(GymClock.today())));
     }
 
     /**
-     * Pays salaries to all employees including the secretary and instructors.
+     * Pays the salaries owed for a month: the sessions up to the end of the month not paid yet,
+     * and the secretary's salary for the month unless it was already paid.
+     * Paying the same month again pays only what was accrued since.
+     *
+     * @param period the month to pay.
+     * @return the report of the salaries paid.
      */
-    public void paySalaries() {
+    public PayrollReport paySalaries(YearMonth period) {
+        int month = Payroll.period(period);
+        return settlePayroll(month, month);
+    }
+
+    /**
+     * Settles the payroll, journaling the settlement first so that replay pays the same amounts.
+     *
+     * @param through the last period of the accruals to pay, or Payroll.ALL_PERIODS.
+     * @param month   the period the secretary is paid for.
+     * @return the report of the salaries paid.
+     */
+    private PayrollReport settlePayroll(int through, int month) {
         haveAccess();
-        Secretary secretary = gym.getSecretary();
-        gym.payForEmployees(secretary.getSalary());
-        secretary.increaseBalance(gym.getSecretary().getSalary());
-
-        for (Session session : gym.getSessionsList()) {
-            Instructor instructor = session.getInstructor();
-            gym.payForEmployees(instructor.getSalary());
-            instructor.increaseBalance(instructor.getSalary());
-        }
-        gym.gymHistoryAdd("Salaries have been paid to all employees");
+        long started = gym.getMetrics().start();
+        GymJournal journal = gym.getJournal();
+        PayrollReport report = journal.change(() -> {
+            journal.payrollSettled(through, month);
+            return gym.getPayroll().settle(gym, this, salary, through, month);
+        });
+        gym.gymHistoryAdd(ActionType.SALARIES_PAID, null, null, null, 0);
+        gym.getMetrics().stop(SecretaryMetrics.Operation.PAY_SALARIES, started);
+        return report;
     }
 
     /**
@@ -246,11 +812,18 @@ public class Secretary extends Person {
      *
      * @return Salary amount.
      */
-    private int getSalary() {
+    protected int getSalary() {
         haveAccess();
         return salary;
     }
 
+    /**
+     * Revokes the secretary's access, once a new secretary has replaced them.
+     */
+    protected void revokeAccess() {
+        this.haveAccess = false;
+    }
+
     /**
      * Checks if the secretary has access to perform an action.
      *
@@ -262,12 +835,24 @@ public class Secretary extends Person {
     }
 
     /**
-     * Prints all actions recorded in the gym's history.
+     * Prints all actions recorded in the gym's history, one line per action, in large buffered writes.
      */
     public void printActions() {
+        try {
+            queryHistory().writeTo(System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Starts a search of the gym's history, by time, action type, client, instructor and session.
+     *
+     * @return a query matching every action, to narrow down with criteria.
+     */
+    public HistoryQuery queryHistory() {
         haveAccess();
-        for (String s : gym.getGymHistory())
-            System.out.println(s);
+        return new HistoryQuery(gym.getGymHistory(), gym);
     }
 
     /**
@@ -276,11 +861,18 @@ public class Secretary extends Person {
      * @return String representation of the secretary.
      */
     public String toString() {
+        return appendTo(new StringBuilder(128)).toString();
+    }
+
+    /**
+     * Appends the secretary's details to a buffer, with their monthly salary.
+     *
+     * @param out the buffer to append to.
+     * @return the buffer.
+     */
+    @Override
+    public StringBuilder appendTo(StringBuilder out) {
         haveAccess();
-        return "ID: " + this.getID() + " | Name: "
-                + this.getName() + " | Gender: " + this.getGender() +
-                " | Birthday: " + this.getbDay() + " | Age: " + this.getAge() +
-                " | Balance: " + this.getBalance() + " | Role: Secretary | Salary per Month: "
-                + this.getSalary();
+        return super.appendTo(out).append(" | Role: Secretary | Salary per Month: ").append(this.getSalary());
     }
 }
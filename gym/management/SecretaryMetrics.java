@@ -0,0 +1,349 @@
+package gym.management;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of the secretary's hot paths: the calls and latency of each operation, the calls and latency of
+ * registrations by outcome, and the number of actions of each type recorded in the history, which counts every
+ * failure branch.
+ * Recording is off by default, and costs a single volatile read per call while off. It is turned on with the
+ * system property "gym.metrics", through {@link #setEnabled(boolean)}, or over JMX once {@link #registerMBean()}
+ * has been called. While on, every call is counted exactly, but only one call in the sample rate, drawn at random,
+ * is timed: reading the clock twice costs more than the rest of the recording, and a random sample gives the same
+ * percentiles. The sample rate defaults to 16 and can be set with the system property "gym.metrics.sampleRate".
+ */
+public class SecretaryMetrics implements SecretaryMetricsMBean {
+    /**
+     * The secretary operations that are timed.
+     */
+    public enum Operation {
+        REGISTER_CLIENT,
+        REGISTER_CLIENT_TO_LESSON,
+        NOTIFY_SESSION,
+        NOTIFY_DAY,
+        NOTIFY_ALL,
+        PAY_SALARIES
+    }
+
+    // Returned by start while disabled, so stop knows not to record, and for calls that are counted but not timed
+    private static final long NOT_STARTED = 0;
+    private static final long NOT_TIMED = 1;
+
+    private volatile boolean enabled = Boolean.getBoolean("gym.metrics");
+    private volatile int sampleMask = sampleMask(Integer.getInteger("gym.metrics.sampleRate", 16));
+    private final LongAdder[] operationCalls = new LongAdder[Operation.values().length];
+    private final LatencyRecorder[] operations = new LatencyRecorder[Operation.values().length];
+    private final LongAdder[] registrationCalls = new LongAdder[RegistrationResult.values().length];
+    private final LatencyRecorder[] registrations = new LatencyRecorder[RegistrationResult.values().length];
+    private final LongAdder[] actions = new LongAdder[ActionType.values().length];
+
+    /**
+     * Constructor to create the metrics, with nothing recorded.
+     */
+    protected SecretaryMetrics() {
+        for (int i = 0; i < operations.length; i++) {
+            operationCalls[i] = new LongAdder();
+            operations[i] = new LatencyRecorder();
+        }
+        for (int i = 0; i < registrations.length; i++) {
+            registrationCalls[i] = new LongAdder();
+            registrations[i] = new LatencyRecorder();
+        }
+        for (int i = 0; i < actions.length; i++)
+            actions[i] = new LongAdder();
+    }
+
+    /**
+     * Starts timing an operation.
+     *
+     * @return the start time to pass to stop, or a marker telling stop that the call is not timed,
+     * or not recorded at all while disabled.
+     */
+    protected long start() {
+        if (!enabled)
+            return NOT_STARTED;
+        if ((ThreadLocalRandom.current().nextInt() & sampleMask) != 0)
+            return NOT_TIMED;
+        long now = System.nanoTime();
+        return now == NOT_STARTED || now == NOT_TIMED ? 2 : now;
+    }
+
+    /**
+     * Records the latency of an operation.
+     *
+     * @param operation the operation.
+     * @param started   the value returned by start when the operation began.
+     */
+    protected void stop(Operation operation, long started) {
+        if (started == NOT_STARTED)
+            return;
+        operationCalls[operation.ordinal()].increment();
+        if (started != NOT_TIMED)
+            operations[operation.ordinal()].record(System.nanoTime() - started);
+    }
+
+    /**
+     * Records the latency of a registration, under the registration operation and under its outcome.
+     *
+     * @param outcome the outcome of the registration.
+     * @param started the value returned by start when the registration began.
+     */
+    protected void stopRegistration(RegistrationResult outcome, long started) {
+        if (started == NOT_STARTED)
+            return;
+        registrationCalls[outcome.ordinal()].increment(); // Registrations are counted by outcome only
+        if (started == NOT_TIMED)
+            return;
+        long latency = System.nanoTime() - started;
+        operations[Operation.REGISTER_CLIENT_TO_LESSON.ordinal()].record(latency);
+        registrations[outcome.ordinal()].record(latency);
+    }
+
+    /**
+     * Counts an action recorded in the history.
+     *
+     * @param type the type of the action.
+     */
+    protected void count(ActionType type) {
+        if (enabled)
+            actions[type.ordinal()].increment();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, under the name "gym:type=SecretaryMetrics".
+     *
+     * @throws JMException if the metrics cannot be registered, such as when they already are.
+     */
+    public void registerMBean() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("gym:type=SecretaryMetrics"));
+    }
+
+    /**
+     * Checks whether metrics are being recorded.
+     *
+     * @return true if recording is enabled.
+     */
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables recording. Metrics already recorded are kept.
+     *
+     * @param enabled true to record metrics, false to stop.
+     */
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Retrieves the sample rate of the latencies.
+     *
+     * @return one call in how many is timed.
+     */
+    @Override
+    public int getSampleRate() {
+        return sampleMask + 1;
+    }
+
+    /**
+     * Sets the sample rate of the latencies.
+     *
+     * @param sampleRate one call in how many to time, rounded up to a power of two; 1 times every call.
+     */
+    @Override
+    public void setSampleRate(int sampleRate) {
+        sampleMask = sampleMask(sampleRate);
+    }
+
+    /**
+     * Retrieves the number of calls of an operation recorded while metrics were enabled.
+     *
+     * @param operation the operation.
+     * @return the count.
+     */
+    public long getCount(Operation operation) {
+        if (operation != Operation.REGISTER_CLIENT_TO_LESSON)
+            return operationCalls[operation.ordinal()].sum();
+        long count = 0;
+        for (LongAdder calls : registrationCalls)
+            count += calls.sum();
+        return count;
+    }
+
+    /**
+     * Retrieves the number of registrations to lessons with an outcome recorded while metrics were enabled.
+     *
+     * @param outcome the outcome.
+     * @return the count.
+     */
+    public long getCount(RegistrationResult outcome) {
+        return registrationCalls[outcome.ordinal()].sum();
+    }
+
+    /**
+     * Retrieves the latencies of an operation.
+     *
+     * @param operation the operation.
+     * @return the recorder of the latencies of its timed calls.
+     */
+    public LatencyRecorder getLatencies(Operation operation) {
+        return operations[operation.ordinal()];
+    }
+
+    /**
+     * Retrieves the latencies of the registrations to lessons with an outcome.
+     *
+     * @param outcome the outcome.
+     * @return the recorder of the latencies of their timed calls.
+     */
+    public LatencyRecorder getLatencies(RegistrationResult outcome) {
+        return registrations[outcome.ordinal()];
+    }
+
+    /**
+     * Retrieves the number of actions of a type recorded in the history while metrics were enabled.
+     *
+     * @param type the type of action.
+     * @return the count.
+     */
+    public long getActionCount(ActionType type) {
+        return actions[type.ordinal()].sum();
+    }
+
+    /**
+     * Retrieves the number of calls of an operation, of registrations with an outcome, or of actions of a type.
+     *
+     * @param name the name of the operation, registration outcome or action type.
+     * @return the count.
+     * @throws IllegalArgumentException if nothing is counted under this name.
+     */
+    @Override
+    public long count(String name) {
+        for (Operation operation : Operation.values())
+            if (operation.name().equals(name))
+                return getCount(operation);
+        for (RegistrationResult outcome : RegistrationResult.values())
+            if (outcome.name().equals(name))
+                return getCount(outcome);
+        return getActionCount(ActionType.valueOf(name));
+    }
+
+    /**
+     * Estimates a latency percentile of an operation or of the registrations with an outcome.
+     *
+     * @param name       the name of the operation or registration outcome.
+     * @param percentile the percentile, from 0 to 100.
+     * @return the latency in nanoseconds.
+     * @throws IllegalArgumentException if no latencies are recorded under this name.
+     */
+    @Override
+    public long percentileNanos(String name, double percentile) {
+        LatencyRecorder recorder = recorder(name);
+        if (recorder == null)
+            throw new IllegalArgumentException("No latencies are recorded for " + name);
+        return recorder.percentile(percentile);
+    }
+
+    /**
+     * Clears all the metrics.
+     */
+    @Override
+    public void reset() {
+        for (int i = 0; i < operations.length; i++) {
+            operationCalls[i].reset();
+            operations[i].reset();
+        }
+        for (int i = 0; i < registrations.length; i++) {
+            registrationCalls[i].reset();
+            registrations[i].reset();
+        }
+        for (LongAdder adder : actions)
+            adder.reset();
+    }
+
+    /**
+     * Renders all the metrics as text.
+     *
+     * @return the snapshot, as returned by toString.
+     */
+    @Override
+    public String getSnapshot() {
+        return toString();
+    }
+
+    /**
+     * Finds the recorder of an operation or registration outcome by name.
+     *
+     * @param name the name.
+     * @return the recorder, or null if no operation or outcome has this name.
+     */
+    private LatencyRecorder recorder(String name) {
+        for (Operation operation : Operation.values())
+            if (operation.name().equals(name))
+                return operations[operation.ordinal()];
+        for (RegistrationResult outcome : RegistrationResult.values())
+            if (outcome.name().equals(name))
+                return registrations[outcome.ordinal()];
+        return null;
+    }
+
+    /**
+     * Returns a text snapshot of the metrics: the calls and latencies of each operation called and of each
+     * registration outcome seen, and the count of each action type recorded.
+     *
+     * @return the snapshot, with latencies in nanoseconds.
+     */
+    public String toString() {
+        StringBuilder out = new StringBuilder("Secretary Metrics | Enabled: ").append(enabled)
+                .append(" | Sample Rate: ").append(getSampleRate()).append('\n');
+        out.append(String.format("%-32s %10s %10s %10s %10s %10s %10s%n",
+                "Operation", "Count", "Timed", "p50 ns", "p99 ns", "p999 ns", "max ns"));
+        for (Operation operation : Operation.values()) {
+            appendLatencies(out, operation.name(), getCount(operation), operations[operation.ordinal()]);
+            if (operation == Operation.REGISTER_CLIENT_TO_LESSON)
+                for (RegistrationResult outcome : RegistrationResult.values())
+                    appendLatencies(out, "  " + outcome.name(), getCount(outcome), registrations[outcome.ordinal()]);
+        }
+        out.append("Actions:\n");
+        for (ActionType type : ActionType.values()) {
+            long count = actions[type.ordinal()].sum();
+            if (count > 0)
+                out.append(String.format("%-32s %10d%n", "  " + type.name(), count));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Appends a line of calls and latencies to a snapshot, unless there were no calls.
+     *
+     * @param out      the snapshot being built.
+     * @param name     the name of the line.
+     * @param calls    the number of calls.
+     * @param recorder the latencies of the timed calls.
+     */
+    private static void appendLatencies(StringBuilder out, String name, long calls, LatencyRecorder recorder) {
+        if (calls == 0)
+            return;
+        out.append(String.format("%-32s %10d %10d %10d %10d %10d %10d%n", name, calls, recorder.getCount(),
+                recorder.percentile(50), recorder.percentile(99), recorder.percentile(99.9), recorder.getMax()));
+    }
+
+    /**
+     * Converts a sample rate into the mask of the random bits that must be zero for a call to be timed.
+     *
+     * @param sampleRate one call in how many to time.
+     * @return the mask.
+     */
+    private static int sampleMask(int sampleRate) {
+        if (sampleRate < 1)
+            throw new IllegalArgumentException("The sample rate must be at least 1");
+        return sampleRate == 1 ? 0 : Integer.highestOneBit(sampleRate - 1) * 2 - 1;
+    }
+}
@@ -0,0 +1,65 @@
+package gym.management;
+
+/**
+ * Management interface of the secretary's metrics, as exposed through JMX.
+ * Operations and outcomes are named as in {@link SecretaryMetrics.Operation}, {@link RegistrationResult}
+ * and {@link ActionType}.
+ */
+public interface SecretaryMetricsMBean {
+    /**
+     * Checks whether metrics are being recorded.
+     *
+     * @return true if recording is enabled.
+     */
+    boolean isEnabled();
+
+    /**
+     * Enables or disables recording.
+     *
+     * @param enabled true to record metrics, false to stop.
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Retrieves the sample rate of the latencies.
+     *
+     * @return one call in how many is timed.
+     */
+    int getSampleRate();
+
+    /**
+     * Sets the sample rate of the latencies.
+     *
+     * @param sampleRate one call in how many to time, rounded up to a power of two; 1 times every call.
+     */
+    void setSampleRate(int sampleRate);
+
+    /**
+     * Renders all the metrics as text.
+     *
+     * @return the snapshot.
+     */
+    String getSnapshot();
+
+    /**
+     * Retrieves the number of calls of an operation, of registrations with an outcome, or of actions of a type.
+     *
+     * @param name the name of the operation, registration outcome or action type.
+     * @return the count.
+     */
+    long count(String name);
+
+    /**
+     * Estimates a latency percentile of an operation or of the registrations with an outcome, from the timed calls.
+     *
+     * @param name       the name of the operation or registration outcome.
+     * @param percentile the percentile, from 0 to 100.
+     * @return the latency in nanoseconds.
+     */
+    long percentileNanos(String name, double percentile);
+
+    /**
+     * Clears all the metrics.
+     */
+    void reset();
+}
@@ -1,16 +1,49 @@
 package gym.management;
 
-import java.util.ArrayList;
-import java.util.List;
+import gym.customers.GymClock;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * Abstract class that provides functionality for managing members
  * and notifying them about updates or events.
+ * Registered members are kept for the lifetime of the sender and spread over a fixed number of delivery lanes,
+ * each a single daemon thread with a bounded queue that owns the members of its partition.
+ * A member is always served by the same lane, so it receives its notifications in the order they were sent,
+ * and a notification to every member is queued once per lane instead of once per member.
+ * A reader of one member's notifications only waits for that member's lane.
+ * The lanes run until {@link #shutdown()} is called.
  */
 public abstract class Sender {
+    private static final int LANE_CAPACITY = 1 << 14;
+
+    private final Lane[] lanes;
+    // Number of queued deliveries that have not completed yet
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong nextId = new AtomicLong();
+    private volatile boolean shutDown;
 
-    // List of registered members who will receive notifications.
-    private final List<Member> members = new ArrayList<>();
+    /**
+     * Constructor to create a Sender with one delivery lane per available processor, up to eight.
+     */
+    protected Sender() {
+        this(Math.min(Runtime.getRuntime().availableProcessors(), 8));
+    }
+
+    /**
+     * Constructor to create a Sender with a given number of delivery lanes.
+     *
+     * @param laneCount the number of delivery lanes.
+     */
+    protected Sender(int laneCount) {
+        lanes = new Lane[Math.max(laneCount, 1)];
+        for (int i = 0; i < lanes.length; i++)
+            lanes[i] = new Lane(getClass().getSimpleName() + "-lane-" + i);
+    }
 
     /**
      * Registers a new member to receive notifications.
@@ -18,13 +51,429 @@ public abstract class Sender {
      * @param member the member to be added to the notification list.
      */
     protected void register(Member member) {
-        members.add(member);
+        member.subscribed(this);
+        Lane lane = laneOf(member);
+        submit(lane, () -> lane.members.add(member));
+    }
+
+    /**
+     * Stops sending notifications to a member.
+     * Notifications sent before this call are still delivered.
+     *
+     * @param member the member to be removed from the notification list.
+     */
+    protected void unregister(Member member) {
+        Lane lane = laneOf(member);
+        submit(lane, () -> lane.members.remove(member));
+    }
+
+    /**
+     * Creates a notification with a new unique ID, stamped with the current time.
+     *
+     * @param message the text of the notification.
+     * @return the new notification.
+     */
+    protected Notification newNotification(String message) {
+        return new Notification(nextId.incrementAndGet(), message, GymClock.getClock().millis());
+    }
+
+    /**
+     * Makes the notifications created from now on get IDs above a given one,
+     * such as the ID of a notification restored from a snapshot.
+     *
+     * @param id the ID already in use.
+     */
+    protected void restoreId(long id) {
+        nextId.accumulateAndGet(id, Math::max);
+    }
+
+    /**
+     * Sends a notification to every registered member, without waiting for the delivery.
+     *
+     * @param notification the notification to send.
+     */
+    protected void notifyMembers(Notification notification) {
+        for (Lane lane : lanes)
+            submit(lane, () -> lane.members.deliver(notification));
     }
 
-    protected void notifyMembers(String newsletter) {
-        for (Member member : members) {
-            member.update(newsletter);
+    /**
+     * Runs an action on every registered member, on the members' delivery lanes and without waiting for it.
+     * The action runs in order with the deliveries, on several lanes at once, so it must be thread-safe
+     * across members; use {@link #awaitDelivery()} to wait for it to complete.
+     *
+     * @param action the action to run on each member.
+     */
+    protected void forEachMember(Consumer<? super Member> action) {
+        for (Lane lane : lanes)
+            submit(lane, () -> lane.members.forEach(action));
+    }
+
+    /**
+     * Sends a notification to a given audience, split by lane and delivered asynchronously.
+     * Every member is served by its own lane, even in a small audience, so it never receives the notification
+     * ahead of one sent earlier.
+     *
+     * @param notification the notification to send.
+     * @param audience     the members to notify; the array must not be changed afterwards.
+     * @param count        the number of members to notify from the start of the array.
+     */
+    protected void notifyMembers(Notification notification, Member[] audience, int count) {
+        if (lanes.length == 1) {
+            submit(lanes[0], () -> deliver(notification, audience, count));
+            return;
+        }
+        // Split the audience by lane, keeping the order of the members within each lane
+        int[] sizes = new int[lanes.length];
+        int[] laneOf = new int[count];
+        for (int i = 0; i < count; i++)
+            sizes[laneOf[i] = laneIndex(audience[i])]++;
+        Member[][] parts = new Member[lanes.length][];
+        for (int lane = 0; lane < lanes.length; lane++)
+            parts[lane] = new Member[sizes[lane]];
+        Arrays.fill(sizes, 0);
+        for (int i = 0; i < count; i++)
+            parts[laneOf[i]][sizes[laneOf[i]]++] = audience[i];
+        for (int lane = 0; lane < lanes.length; lane++) {
+            Member[] part = parts[lane];
+            if (part.length > 0)
+                submit(lanes[lane], () -> deliver(notification, part, part.length));
+        }
+    }
+
+    /**
+     * Blocks until every notification sent so far has been delivered.
+     * Returns at once when called from a delivery lane.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void awaitDelivery() throws InterruptedException {
+        for (Lane lane : lanes)
+            if (lane.thread == Thread.currentThread())
+                return; // A lane cannot wait for its own deliveries
+        synchronized (pending) {
+            while (pending.get() > 0)
+                pending.wait();
         }
     }
 
+    /**
+     * Blocks until every notification sent so far to a member has been delivered to it.
+     * Only the member's lane is waited for, so deliveries queued on the other lanes do not hold up the caller.
+     * Returns at once when called from the member's lane.
+     *
+     * @param member the member whose notifications are awaited.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void awaitDelivery(Member member) throws InterruptedException {
+        Lane lane = laneOf(member);
+        if (lane.thread == Thread.currentThread())
+            return; // A lane cannot wait for its own deliveries
+        long target = lane.queued.get();
+        if (lane.done >= target)
+            return;
+        synchronized (lane) {
+            lane.waiters++;
+            try {
+                while (lane.done < target)
+                    lane.wait();
+            } finally {
+                lane.waiters--;
+            }
+        }
+    }
+
+    /**
+     * Stops the delivery lanes once they have delivered the notifications already sent, and waits for their
+     * threads to end. Must not be called while members are still being registered or notified, and nothing may
+     * be sent through the sender afterwards. Does not wait for the lanes when called from one of them.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void shutdown() throws InterruptedException {
+        synchronized (lanes) {
+            if (shutDown)
+                return;
+            for (Lane lane : lanes)
+                submit(lane, () -> lane.stopped = true);
+            shutDown = true;
+        }
+        for (Lane lane : lanes)
+            if (lane.thread != Thread.currentThread())
+                lane.thread.join();
+    }
+
+    /**
+     * Retrieves the number of deliveries that are queued or running.
+     *
+     * @return the number of pending deliveries.
+     */
+    public long pendingDeliveries() {
+        return pending.get();
+    }
+
+    /**
+     * Delivers a notification to the members of an array.
+     *
+     * @param notification the notification to deliver.
+     * @param audience     the members to notify.
+     * @param count        the number of members to notify from the start of the array.
+     */
+    private static void deliver(Notification notification, Member[] audience, int count) {
+        for (int i = 0; i < count; i++)
+            audience[i].receive(notification);
+    }
+
+    /**
+     * Queues a task on a lane, waiting for room if the lane's queue is full.
+     * The task is counted before it is queued, so a reader waiting for the lane never misses it; the wait
+     * for room is therefore not interruptible, and an interrupt is kept for the caller to see.
+     *
+     * @param lane the lane to run the task.
+     * @param task the task to run.
+     * @throws IllegalStateException if the sender has been shut down.
+     */
+    private void submit(Lane lane, Runnable task) {
+        if (shutDown)
+            throw new IllegalStateException("The sender has been shut down");
+        pending.incrementAndGet();
+        lane.queued.incrementAndGet();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                lane.queue.put(task);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Marks a queued task of a lane as done, waking up threads waiting for the delivery to complete.
+     * Only called from the lane's thread.
+     *
+     * @param lane the lane that ran the task.
+     */
+    private void completed(Lane lane) {
+        lane.done++;
+        if (lane.waiters > 0) {
+            synchronized (lane) {
+                lane.notifyAll();
+            }
+        }
+        if (pending.decrementAndGet() == 0) {
+            synchronized (pending) {
+                pending.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Retrieves the lane that serves a member.
+     *
+     * @param member the member.
+     * @return the member's lane.
+     */
+    private Lane laneOf(Member member) {
+        return lanes[laneIndex(member)];
+    }
+
+    /**
+     * Computes the index of the lane that serves a member.
+     *
+     * @param member the member.
+     * @return the index of the member's lane.
+     */
+    private int laneIndex(Member member) {
+        return Math.floorMod(member.getID(), lanes.length);
+    }
+
+    /**
+     * Delivery lane: a daemon thread running the tasks of its queue one at a time.
+     * Only this thread touches the lane's members, so they need no locking.
+     */
+    private class Lane implements Runnable {
+        final BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(LANE_CAPACITY);
+        final MemberSet members = new MemberSet();
+        final Thread thread;
+        // Tasks ever queued on the lane, counted by the senders, and tasks it has finished, counted by its thread
+        final AtomicLong queued = new AtomicLong();
+        volatile long done;
+        // Threads waiting on the lane for a delivery, changed under the lane's lock
+        volatile int waiters;
+        // Set by the lane's last task, queued by the shutdown
+        boolean stopped;
+
+        /**
+         * Constructor to create a lane and start its thread.
+         *
+         * @param name the name of the lane's thread.
+         */
+        Lane(String name) {
+            thread = new Thread(this, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Runs the queued tasks until the sender is shut down.
+         * A task that fails, even with an Error, is reported and the lane moves on to the next one.
+         */
+        @Override
+        public void run() {
+            while (!stopped) {
+                Runnable task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e) {
+                    continue; // Lanes only stop at the shutdown, after their last delivery
+                }
+                try {
+                    task.run();
+                } catch (Throwable e) {
+                    // A failing member must not stop the deliveries of the others
+                    Thread current = Thread.currentThread();
+                    current.getUncaughtExceptionHandler().uncaughtException(current, e);
+                } finally {
+                    completed(this);
+                }
+            }
+        }
+    }
+
+    /**
+     * Set of members kept in a dense array for fast iteration, with an open-addressing table of their IDs
+     * so that members can be added and removed in constant time.
+     */
+    private static class MemberSet {
+        private Member[] members = new Member[16];
+        private int size;
+        // Hash table of member position + 1 (0 marks an empty slot), probed linearly
+        private int[] table = new int[32];
+
+        /**
+         * Adds a member to the set, unless a member with the same ID is already in it.
+         *
+         * @param member the member to add.
+         */
+        void add(Member member) {
+            int slot = slotOf(member.getID());
+            while (table[slot] != 0) {
+                if (members[table[slot] - 1].getID() == member.getID())
+                    return;
+                slot = (slot + 1) & (table.length - 1);
+            }
+            if (size == members.length)
+                members = Arrays.copyOf(members, size * 2);
+            members[size] = member;
+            table[slot] = ++size;
+            if (size * 2 > table.length)
+                rehash(table.length * 2);
+        }
+
+        /**
+         * Removes the member with the same ID as a given member, moving the last member into its place.
+         *
+         * @param member the member to remove.
+         */
+        void remove(Member member) {
+            int slot = findSlot(member.getID());
+            if (slot < 0)
+                return;
+            int position = table[slot] - 1;
+            deleteSlot(slot);
+            int last = size - 1;
+            if (position != last) {
+                table[findSlot(members[last].getID())] = position + 1;
+                members[position] = members[last];
+            }
+            members[last] = null;
+            size--;
+        }
+
+        /**
+         * Delivers a notification to every member of the set.
+         *
+         * @param notification the notification to deliver.
+         */
+        void deliver(Notification notification) {
+            for (int i = 0; i < size; i++)
+                members[i].receive(notification);
+        }
+
+        /**
+         * Runs an action on every member of the set.
+         *
+         * @param action the action to run.
+         */
+        void forEach(Consumer<? super Member> action) {
+            for (int i = 0; i < size; i++)
+                action.accept(members[i]);
+        }
+
+        /**
+         * Finds the table slot holding an ID.
+         *
+         * @param id the ID to look up.
+         * @return the slot index, or -1 if the ID is not in the set.
+         */
+        private int findSlot(int id) {
+            int slot = slotOf(id);
+            while (table[slot] != 0) {
+                if (members[table[slot] - 1].getID() == id)
+                    return slot;
+                slot = (slot + 1) & (table.length - 1);
+            }
+            return -1;
+        }
+
+        /**
+         * Computes the home slot of an ID.
+         *
+         * @param id the ID to hash.
+         * @return the home slot index.
+         */
+        private int slotOf(int id) {
+            int h = id * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & (table.length - 1);
+        }
+
+        /**
+         * Empties a table slot and shifts back the entries of the probe run that follows it.
+         *
+         * @param slot the slot to empty.
+         */
+        private void deleteSlot(int slot) {
+            int mask = table.length - 1;
+            int hole = slot;
+            int current = (hole + 1) & mask;
+            while (table[current] != 0) {
+                int home = slotOf(members[table[current] - 1].getID());
+                if (((current - home) & mask) >= ((current - hole) & mask)) {
+                    table[hole] = table[current];
+                    hole = current;
+                }
+                current = (current + 1) & mask;
+            }
+            table[hole] = 0;
+        }
+
+        /**
+         * Rebuilds the hash table with a new capacity.
+         *
+         * @param capacity the new table capacity, a power of two.
+         */
+        private void rehash(int capacity) {
+            table = new int[capacity];
+            for (int position = 0; position < size; position++) {
+                int slot = slotOf(members[position].getID());
+                while (table[slot] != 0)
+                    slot = (slot + 1) & (capacity - 1);
+                table[slot] = position + 1;
+            }
+        }
+    }
 }
@@ -0,0 +1,86 @@
+package gym.management;
+
+import gym.management.Sessions.Session;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Index of the gym's sessions by calendar day.
+ * Each day holds a bucket with the sessions taking place on it, so queries for a single day
+ * or a range of days only touch the buckets of the requested days.
+ * All methods are synchronized. Adding a session appends it to its day's bucket in place, and onDay returns
+ * a copy, so the list it returns can be iterated without a lock while sessions are being added.
+ */
+public class SessionCalendar {
+    // Buckets of sessions keyed by the epoch day they take place on, only touched under the calendar's lock
+    private final TreeMap<Integer, List<Session>> days = new TreeMap<>();
+    private int size;
+
+    /**
+     * Adds a session to the bucket of the day it takes place on.
+     *
+     * @param session the session to index.
+     */
+    public synchronized void add(Session session) {
+        days.computeIfAbsent(CustomDate.epochDay(session.getEpochMinute()), day -> new ArrayList<>()).add(session);
+        size++;
+    }
+
+    /**
+     * Retrieves the sessions taking place on a given day.
+     *
+     * @param epochDay the day, as a count of days since 01-01-1970.
+     * @return an unmodifiable copy of the sessions on that day when it was called, empty if there are none.
+     */
+    public synchronized List<Session> onDay(int epochDay) {
+        List<Session> bucket = days.get(epochDay);
+        return bucket == null ? Collections.emptyList() : List.copyOf(bucket);
+    }
+
+    /**
+     * Retrieves the sessions taking place on a given day.
+     *
+     * @param date the day in the format "dd-MM-yyyy".
+     * @return an unmodifiable list of the sessions on that day, empty if there are none.
+     */
+    public List<Session> onDay(String date) {
+        return onDay(CustomDate.epochDay(date));
+    }
+
+    /**
+     * Performs an action for every session taking place between two days, in chronological order of days.
+     *
+     * @param fromEpochDay the first day of the range, inclusive.
+     * @param toEpochDay   the last day of the range, inclusive.
+     * @param action       the action to perform on each session.
+     */
+    public synchronized void forEachBetween(int fromEpochDay, int toEpochDay, Consumer<? super Session> action) {
+        if (fromEpochDay > toEpochDay)
+            return;
+        for (List<Session> sessions : days.subMap(fromEpochDay, true, toEpochDay, true).values())
+            for (Session session : sessions)
+                action.accept(session);
+    }
+
+    /**
+     * Retrieves the number of days that have at least one session.
+     *
+     * @return the number of non-empty day buckets.
+     */
+    public synchronized int dayCount() {
+        return days.size();
+    }
+
+    /**
+     * Retrieves the total number of indexed sessions.
+     *
+     * @return the number of sessions in the calendar.
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,230 @@
+package gym.management.Sessions;
+
+import gym.customers.Client;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Roster of the clients registered for a session, keyed by the client's unique ID.
+ * Clients are kept in dense arrays of IDs and clients, with an open-addressing hash table of primitive int keys
+ * over them, so checking whether a client is registered takes constant time however large the session is,
+ * and iterating reads the arrays directly. Clients are kept in registration order until one is removed,
+ * which moves the last client into the removed client's position.
+ * The roster is not synchronized; sessions change and read it under their lock.
+ */
+public class Roster {
+    private static final Client[] NO_CLIENTS = new Client[0];
+    private static final int[] NO_IDS = new int[0];
+    private static final int[] NO_TABLE = new int[1];
+
+    // Hash table of position + 1 (0 marks an empty slot), probed linearly
+    private int[] table = NO_TABLE;
+    private int[] ids = NO_IDS;
+    private Client[] clients = NO_CLIENTS;
+    private int size;
+
+    /**
+     * Adds a client to the roster.
+     *
+     * @param client the client to add.
+     * @return true if the client was added, false if a client with the same ID is already in the roster.
+     */
+    public boolean add(Client client) {
+        int id = client.getID();
+        if (size == ids.length)
+            grow(Math.max(4, size * 2));
+        int mask = table.length - 1;
+        int slot = slotOf(id, mask);
+        while (table[slot] != 0) {
+            if (ids[table[slot] - 1] == id)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+        ids[size] = id;
+        clients[size] = client;
+        table[slot] = ++size;
+        return true;
+    }
+
+    /**
+     * Removes the client with a given ID from the roster, moving the last client into its position.
+     *
+     * @param id the ID of the client to remove.
+     * @return the removed client, or null if no client with this ID is in the roster.
+     */
+    public Client remove(int id) {
+        int slot = findSlot(id);
+        if (slot < 0)
+            return null;
+        int position = table[slot] - 1;
+        Client removed = clients[position];
+        deleteSlot(slot);
+        int last = --size;
+        if (position != last) {
+            // The last client takes the freed position, and its slot is pointed there
+            ids[position] = ids[last];
+            clients[position] = clients[last];
+            table[findSlot(ids[position])] = position + 1;
+        }
+        clients[last] = null;
+        return removed;
+    }
+
+    /**
+     * Checks whether a client with a given ID is in the roster.
+     *
+     * @param id the ID to check.
+     * @return true if the client is registered, false otherwise.
+     */
+    public boolean contains(int id) {
+        return findSlot(id) >= 0;
+    }
+
+    /**
+     * Retrieves the number of clients in the roster.
+     *
+     * @return the number of registered clients.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the client at a position of the roster.
+     *
+     * @param index the position, from 0 to size() - 1.
+     * @return the client at this position.
+     * @throws IndexOutOfBoundsException if the position is outside the roster.
+     */
+    public Client get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of roster of " + size);
+        return clients[index];
+    }
+
+    /**
+     * Runs an action on every client of the roster, in roster order.
+     *
+     * @param action the action to run; it must not change the roster.
+     */
+    public void forEach(Consumer<? super Client> action) {
+        for (int i = 0; i < size; i++)
+            action.accept(clients[i]);
+    }
+
+    /**
+     * Copies the clients of the roster into an array.
+     *
+     * @param target the array to copy into, whose component type must accept clients.
+     * @param offset the position of the first client in the array.
+     */
+    public void copyTo(Object[] target, int offset) {
+        System.arraycopy(clients, 0, target, offset, size);
+    }
+
+    /**
+     * Retrieves the IDs of the clients in roster order, the compact form in which rosters are saved.
+     *
+     * @return a new array of the client IDs.
+     */
+    public int[] toIdArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Returns a read-only list view of the roster.
+     *
+     * @return a list backed by the roster.
+     */
+    public List<Client> asList() {
+        return new AbstractList<Client>() {
+            @Override
+            public Client get(int index) {
+                return Roster.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Client && Roster.this.contains(((Client) o).getID());
+            }
+        };
+    }
+
+    /**
+     * Finds the table slot holding an ID.
+     *
+     * @param id the ID to look up.
+     * @return the slot index, or -1 if the ID is not in the roster.
+     */
+    private int findSlot(int id) {
+        int mask = table.length - 1;
+        int slot = slotOf(id, mask);
+        while (table[slot] != 0) {
+            if (ids[table[slot] - 1] == id)
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Computes the home slot of an ID in a table of a given size.
+     *
+     * @param id   the ID to hash.
+     * @param mask the table size minus one.
+     * @return the home slot index.
+     */
+    private static int slotOf(int id, int mask) {
+        int h = id * 0x9E3779B9; // Fibonacci hashing spreads consecutive IDs across the table
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Empties a table slot and shifts back the entries of the probe run that follows it,
+     * so that lookups never need tombstones.
+     *
+     * @param slot the slot to empty.
+     */
+    private void deleteSlot(int slot) {
+        int mask = table.length - 1;
+        int hole = slot;
+        int current = (hole + 1) & mask;
+        while (table[current] != 0) {
+            int home = slotOf(ids[table[current] - 1], mask);
+            // Move the entry into the hole if its home slot does not lie between the hole and its position
+            if (((current - home) & mask) >= ((current - hole) & mask)) {
+                table[hole] = table[current];
+                hole = current;
+            }
+            current = (current + 1) & mask;
+        }
+        table[hole] = 0;
+    }
+
+    /**
+     * Grows the arrays to hold a number of clients, rebuilding the hash table at twice that size.
+     *
+     * @param capacity the new number of clients the roster can hold.
+     */
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        clients = Arrays.copyOf(clients, capacity);
+        int[] grown = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+        int mask = grown.length - 1;
+        for (int position = 0; position < size; position++) {
+            int slot = slotOf(ids[position], mask);
+            while (grown[slot] != 0)
+                slot = (slot + 1) & mask;
+            grown[slot] = position + 1;
+        }
+        table = grown;
+    }
+}
@@ -1,101 +1,238 @@
 package gym.management.Sessions;
 
 import gym.customers.Client;
+import gym.management.CustomDate;
 import gym.management.ForumType;
 import gym.management.Instructor;
 
 import java.util.List;
 
 /**
- * Represents a generic session in the gym system.
- * Provides a blueprint for implementing various session types.
+ * Represents a session in the gym.
+ * Every session type shares this class; a session takes its price and capacity from its {@link SessionType}
+ * when it is created and keeps them, so later changes to the type's catalogue entry only affect new sessions.
+ * Sessions are created through the {@link SessionFactory}.
  */
-public interface Session {
+public final class Session {
+    // Every session lasts an hour, the unit of the instructors' hourly salary
+    public static final int DURATION_MINUTES = 60;
+
+    private final Roster roster = new Roster();
+    private final Waitlist waitlist = new Waitlist();
+    private volatile int registerCount = 0; // Changed under the session's lock, readable without it
+    private final int id;
+    private final SessionType type;
+    private final int price;
+    private final int capacity;
+    private final long sessionTime; // Minutes since 01-01-1970 00:00, parsed once at creation
+    private final ForumType forumType;
+    private final Instructor instructor;
 
     /**
-     * Creates a new session.
+     * Constructor to initialize a session with its details.
      *
-     * @param sessionTime the time of the session as a formatted string.
+     * @param id          the unique ID of the session.
+     * @param type        the type of the session.
+     * @param price       the price of the session.
+     * @param capacity    the number of places in the session.
+     * @param sessionTime the time of the session as minutes since 01-01-1970 00:00.
      * @param forumType   the forum type for the session.
      * @param instructor  the instructor conducting the session.
-     * @return a new session instance.
      */
-    Session newSession(String sessionTime, ForumType forumType, Instructor instructor);
+    Session(int id, SessionType type, int price, int capacity, long sessionTime, ForumType forumType, Instructor instructor) {
+        this.id = id;
+        this.type = type;
+        this.price = price;
+        this.capacity = capacity;
+        this.sessionTime = sessionTime;
+        this.forumType = forumType;
+        this.instructor = instructor;
+    }
 
     /**
-     * Retrieves the price of the session.
+     * Returns the unique ID of the session.
+     *
+     * @return the session ID.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns the price of the session.
      *
      * @return the price of the session.
      */
-    int getPrice();
+    public int getPrice() {
+        return price;
+    }
 
     /**
-     * Retrieves the number of available places in the session.
+     * Returns the number of available places for registration.
      *
-     * @return the number of available spots.
+     * @return the number of available places in the session.
      */
-    int getPlaces();
+    public int getPlaces() {
+        return capacity - registerCount;
+    }
 
     /**
-     * Retrieves the scheduled time of the session.
+     * Returns the total number of places in the session.
      *
-     * @return the session time as a formatted string.
+     * @return the capacity of the session.
      */
-    String getTime();
+    public int getCapacity() {
+        return capacity;
+    }
 
     /**
-     * Retrieves the type of the session.
+     * Returns the length of the session.
+     *
+     * @return the duration of the session in minutes.
+     */
+    public int getDuration() {
+        return DURATION_MINUTES;
+    }
+
+    /**
+     * Returns the time at which the session takes place.
+     *
+     * @return the session time in the format "dd-MM-yyyy HH:mm".
+     */
+    public String getTime() {
+        return CustomDate.sessionTime(sessionTime);
+    }
+
+    /**
+     * Returns the time at which the session takes place as an epoch minute.
+     *
+     * @return the session time as minutes since 01-01-1970 00:00.
+     */
+    public long getEpochMinute() {
+        return sessionTime;
+    }
+
+    /**
+     * Returns the type of the session.
      *
      * @return the session type.
      */
-    SessionType getType();
+    public SessionType getType() {
+        return type;
+    }
 
     /**
-     * Retrieves the forum type of the session.
+     * Returns the forum type for the session.
      *
      * @return the forum type.
      */
-    ForumType getForum();
+    public ForumType getForum() {
+        return forumType;
+    }
+
+    /**
+     * Registers a client for the session, increasing the count of registered clients.
+     * This method ensures that the registration count does not exceed the available places.
+     */
+    public void setPlaces() {
+        if (registerCount < capacity)
+            registerCount++;
+    }
 
     /**
-     * Updates the number of available places in the session.
+     * Frees the place of a client who left the session.
      */
-    void setPlaces();
+    public void releasePlace() {
+        if (registerCount > 0)
+            registerCount--;
+    }
 
     /**
-     * Registers a client for the session.
+     * Adds a client to the list of participants for this session.
      *
-     * @param client the client to be added to the session.
+     * @param client the client to be added.
      */
-    void addClient(Client client);
+    public void addClient(Client client) {
+        roster.add(client);
+    }
+
+    /**
+     * Removes a client from the list of participants for this session.
+     *
+     * @param client the client to be removed.
+     * @return true if the client was registered, false otherwise.
+     */
+    public boolean removeClient(Client client) {
+        return roster.remove(client.getID()) != null;
+    }
 
     /**
      * Checks if a client is already registered for the session.
      *
-     * @param client the client to be checked.
+     * @param client the client to check.
      * @return true if the client is registered, false otherwise.
      */
-    boolean isRegistered(Client client);
+    public boolean isRegistered(Client client) {
+        return roster.contains(client.getID());
+    }
 
     /**
-     * Retrieves the list of clients registered for the session.
+     * Returns the list of clients registered for this session.
      *
-     * @return a list of registered clients.
+     * @return a read-only list view of the clients registered for the session.
      */
-    public List<Client> getClientList();
+    public List<Client> getClientList() {
+        return roster.asList();
+    }
 
     /**
-     * Retrieves the instructor conducting the session.
+     * Returns the roster of clients registered for this session.
      *
-     * @return the session's instructor.
+     * @return the session's roster.
      */
-    public Instructor getInstructor();
+    public Roster getRoster() {
+        return roster;
+    }
 
     /**
-     * Provides a string representation of the session.
+     * Returns the waitlist of clients waiting for a place in this session.
+     *
+     * @return the session's waitlist.
+     */
+    public Waitlist getWaitlist() {
+        return waitlist;
+    }
+
+    /**
+     * Returns the instructor of the session.
+     *
+     * @return the instructor conducting the session.
+     */
+    public Instructor getInstructor() {
+        return instructor;
+    }
+
+    /**
+     * Returns a string representation of the session, including the session type, time, forum type,
+     * instructor, and number of registered participants.
      *
      * @return a string describing the session details.
      */
-    public String toString();
+    public String toString() {
+        return appendTo(new StringBuilder(112)).toString();
+    }
 
+    /**
+     * Appends the session's details to a buffer, in the format of its string representation.
+     *
+     * @param out the buffer to append to.
+     * @return the buffer.
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        out.append("Session Type: ").append(this.getType().name()).append(" | Date: ");
+        CustomDate.appendSessionTime(out, sessionTime);
+        return out.append(" | Forum: ").append(this.getForum().name())
+                .append(" | Instructor: ").append(this.getInstructor().getName())
+                .append(" | Participants: ").append(this.registerCount).append('/').append(this.capacity);
+    }
 }
@@ -1,34 +1,66 @@
 package gym.management.Sessions;
 
+import gym.management.CustomDate;
+import gym.management.ForumType;
+import gym.management.Instructor;
+
 /**
- * Factory class to create instances of different session types.
- * This class provides a method to generate a session based on the provided session type.
+ * Factory class to create sessions.
+ * The factory gives every new session a unique ID and the current price and capacity of its type.
  */
 public class SessionFactory {
+    private static int countSession; // Counter for generating unique session IDs
 
     /**
-     * Returns a new session instance based on the provided session type.
-     * The method checks the session type and creates the appropriate session instance.
+     * Creates a new session of a given type.
      *
-     * @param sessionType the type of session to be created.
-     * @return a new session instance of the corresponding type or null if the session type is not recognized.
+     * @param sessionType the type of the session.
+     * @param sessionTime the time of the session in the format "dd-MM-yyyy HH:mm".
+     * @param forumType   the forum type for the session.
+     * @param instructor  the instructor conducting the session.
+     * @return a new session, or null if the session type is null.
      */
-
-    public static Session getSession(SessionType sessionType) {
+    public static Session newSession(SessionType sessionType, String sessionTime, ForumType forumType, Instructor instructor) {
         if (sessionType == null)
             return null;
+        long epochMinute = CustomDate.parseSessionTime(sessionTime);
+        return new Session(nextId(), sessionType, sessionType.getPrice(), sessionType.getCapacity(), epochMinute, forumType, instructor);
+    }
+
+    /**
+     * Rebuilds a session with a known ID, time, price and capacity, such as when restoring saved gym state.
+     *
+     * @param id          the unique ID of the session.
+     * @param sessionType the type of the session.
+     * @param price       the price of the session.
+     * @param capacity    the number of places in the session.
+     * @param epochMinute the time of the session as minutes since 01-01-1970 00:00.
+     * @param forumType   the forum type for the session.
+     * @param instructor  the instructor conducting the session.
+     * @return the restored session.
+     */
+    public static Session restoreSession(int id, SessionType sessionType, int price, int capacity, long epochMinute,
+                                         ForumType forumType, Instructor instructor) {
+        return new Session(reserveId(id), sessionType, price, capacity, epochMinute, forumType, instructor);
+    }
 
-        switch (sessionType.toString()) {
-            case "Pilates":
-                return new Pilates();
-            case "Ninja":
-                return new Ninja();
-            case "MachinePilates":
-                return new MachinePilates();
-            case "ThaiBoxing":
-                return new ThaiBoxing();
-            default:
-                return null;
-        }
+    /**
+     * Generates a unique ID for a new session.
+     *
+     * @return the next session ID, starting from 1.
+     */
+    private static synchronized int nextId() {
+        return ++countSession;
+    }
+
+    /**
+     * Reserves a known session ID, so that IDs generated later remain unique.
+     *
+     * @param id the session ID to reserve.
+     * @return the reserved ID.
+     */
+    private static synchronized int reserveId(int id) {
+        countSession = Math.max(countSession, id);
+        return id;
     }
 }
@@ -1,12 +1,217 @@
 package gym.management.Sessions;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+
 /**
- * Enum representing the different types of sessions available at the gym.
- * This enum defines the types of sessions that can be conducted, such as ThaiBoxing, MachinePilates, Pilates, and Ninja.
+ * Represents the types of sessions available at the gym, together with their price and capacity.
+ * The built-in types are ThaiBoxing, MachinePilates, Pilates and Ninja; more types can be registered at runtime,
+ * and the price and capacity of any type can be loaded from a configuration.
+ * Types are numbered from 0 in the order they were registered, like the constants of an enum, and the catalogue
+ * of all types is an array indexed by that number.
  */
-public enum SessionType {
-    ThaiBoxing,
-    MachinePilates,
-    Pilates,
-    Ninja;
+public final class SessionType {
+    // Catalogue of all types indexed by ordinal, replaced as a whole when a type is registered
+    private static volatile SessionType[] catalogue = new SessionType[0];
+
+    public static final SessionType ThaiBoxing = register("ThaiBoxing", 100, 20);
+    public static final SessionType MachinePilates = register("MachinePilates", 80, 10);
+    public static final SessionType Pilates = register("Pilates", 60, 30);
+    public static final SessionType Ninja = register("Ninja", 150, 5);
+
+    private final String name;
+    private final int ordinal;
+    private volatile int price;
+    private volatile int capacity;
+
+    /**
+     * Private constructor to create a session type.
+     *
+     * @param name     the name of the type.
+     * @param ordinal  the position of the type in the catalogue.
+     * @param price    the price of a session of this type.
+     * @param capacity the number of places in a session of this type.
+     */
+    private SessionType(String name, int ordinal, int price, int capacity) {
+        this.name = name;
+        this.ordinal = ordinal;
+        this.price = price;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Registers a session type, or changes the price and capacity of the type if it already exists.
+     * Sessions keep the price and capacity of their type at the time they were created.
+     *
+     * @param name     the name of the type.
+     * @param price    the price of a session of this type.
+     * @param capacity the number of places in a session of this type.
+     * @return the registered type.
+     * @throws IllegalArgumentException if the name is empty, or the price or capacity is negative.
+     */
+    public static synchronized SessionType register(String name, int price, int capacity) {
+        if (name == null || name.isEmpty())
+            throw new IllegalArgumentException("Session type needs a name");
+        if (price < 0 || capacity < 0)
+            throw new IllegalArgumentException("Invalid price or capacity for session type " + name);
+        SessionType existing = find(name);
+        if (existing != null) {
+            existing.price = price;
+            existing.capacity = capacity;
+            return existing;
+        }
+        SessionType[] current = catalogue;
+        SessionType type = new SessionType(name, current.length, price, capacity);
+        SessionType[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[type.ordinal] = type;
+        catalogue = grown;
+        return type;
+    }
+
+    /**
+     * Loads session types from a configuration holding a price and a capacity for each type,
+     * such as "Pilates.price=60" and "Pilates.capacity=30". Types missing either value are ignored.
+     *
+     * @param config the configuration.
+     * @return the types loaded, in the order of their names.
+     * @throws IllegalArgumentException if a value is not a valid number.
+     */
+    public static List<SessionType> loadCatalogue(Properties config) {
+        List<SessionType> loaded = new ArrayList<>();
+        for (String key : new TreeSet<>(config.stringPropertyNames())) {
+            if (!key.endsWith(".price"))
+                continue;
+            String name = key.substring(0, key.length() - ".price".length());
+            String capacity = config.getProperty(name + ".capacity");
+            if (capacity == null)
+                continue;
+            loaded.add(register(name, Integer.parseInt(config.getProperty(key).trim()), Integer.parseInt(capacity.trim())));
+        }
+        return loaded;
+    }
+
+    /**
+     * Loads session types from a properties file, as described for {@link #loadCatalogue(Properties)}.
+     *
+     * @param file the properties file.
+     * @return the types loaded, in the order of their names.
+     * @throws IOException if the file cannot be read.
+     */
+    public static List<SessionType> loadCatalogue(Path file) throws IOException {
+        Properties config = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            config.load(in);
+        }
+        return loadCatalogue(config);
+    }
+
+    /**
+     * Retrieves all session types, in the order they were registered.
+     *
+     * @return a new array of the types.
+     */
+    public static SessionType[] values() {
+        return catalogue.clone();
+    }
+
+    /**
+     * Retrieves the session type with a given position in the catalogue.
+     *
+     * @param ordinal the position of the type.
+     * @return the type.
+     * @throws ArrayIndexOutOfBoundsException if there is no type at this position.
+     */
+    public static SessionType ofOrdinal(int ordinal) {
+        return catalogue[ordinal];
+    }
+
+    /**
+     * Retrieves the session type with a given name.
+     *
+     * @param name the name of the type.
+     * @return the type.
+     * @throws IllegalArgumentException if there is no type with this name.
+     */
+    public static SessionType valueOf(String name) {
+        SessionType type = find(name);
+        if (type == null)
+            throw new IllegalArgumentException("No session type " + name);
+        return type;
+    }
+
+    /**
+     * Looks up a session type by name.
+     *
+     * @param name the name of the type.
+     * @return the type, or null if there is none.
+     */
+    public static SessionType forName(String name) {
+        return find(name);
+    }
+
+    /**
+     * Finds a session type by name in the catalogue.
+     *
+     * @param name the name of the type.
+     * @return the type, or null if there is none.
+     */
+    private static SessionType find(String name) {
+        for (SessionType type : catalogue)
+            if (type.name.equals(name))
+                return type;
+        return null;
+    }
+
+    /**
+     * Retrieves the name of the type.
+     *
+     * @return the name.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Retrieves the position of the type in the catalogue.
+     *
+     * @return the ordinal of the type.
+     */
+    public int ordinal() {
+        return ordinal;
+    }
+
+    /**
+     * Retrieves the price of new sessions of this type.
+     *
+     * @return the price.
+     */
+    public int getPrice() {
+        return price;
+    }
+
+    /**
+     * Retrieves the number of places in new sessions of this type.
+     *
+     * @return the capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the name of the type.
+     *
+     * @return the name.
+     */
+    public String toString() {
+        return name;
+    }
 }
@@ -0,0 +1,108 @@
+package gym.management.Sessions;
+
+import gym.customers.Client;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * First-in, first-out waitlist of the clients waiting for a place in a full session.
+ * The next client is taken from the head in constant time, and membership is checked in constant time
+ * through a roster of the waiting clients' IDs. Removing a client from the middle of the queue takes time
+ * proportional to their position.
+ * The waitlist is not synchronized; sessions change and read it under their lock.
+ */
+public class Waitlist {
+    private final ArrayDeque<Client> queue = new ArrayDeque<>();
+    private final Roster waiting = new Roster(); // The same clients, for membership checks by ID
+
+    /**
+     * Adds a client at the end of the waitlist.
+     *
+     * @param client the client to add.
+     * @return true if the client was added, false if they are already waiting.
+     */
+    public boolean add(Client client) {
+        if (!waiting.add(client))
+            return false;
+        queue.addLast(client);
+        return true;
+    }
+
+    /**
+     * Takes the client at the head of the waitlist.
+     *
+     * @return the client who has waited longest, or null if the waitlist is empty.
+     */
+    public Client poll() {
+        Client next = queue.pollFirst();
+        if (next != null)
+            waiting.remove(next.getID());
+        return next;
+    }
+
+    /**
+     * Removes a client from the waitlist.
+     *
+     * @param id the ID of the client to remove.
+     * @return true if the client was waiting, false otherwise.
+     */
+    public boolean remove(int id) {
+        if (waiting.remove(id) == null)
+            return false;
+        Client head = queue.peekFirst();
+        if (head != null && head.getID() == id) {
+            queue.pollFirst(); // The common case when replaying a promotion
+            return true;
+        }
+        for (Iterator<Client> it = queue.iterator(); it.hasNext(); ) {
+            if (it.next().getID() == id) {
+                it.remove();
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a client is on the waitlist.
+     *
+     * @param id the ID of the client.
+     * @return true if the client is waiting, false otherwise.
+     */
+    public boolean contains(int id) {
+        return waiting.contains(id);
+    }
+
+    /**
+     * Retrieves the number of clients waiting.
+     *
+     * @return the length of the waitlist.
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Runs an action on every waiting client, from head to tail.
+     *
+     * @param action the action to run; it must not change the waitlist.
+     */
+    public void forEach(Consumer<? super Client> action) {
+        queue.forEach(action);
+    }
+
+    /**
+     * Retrieves the IDs of the waiting clients from head to tail, the compact form in which waitlists are saved.
+     *
+     * @return a new array of the client IDs.
+     */
+    public int[] toIdArray() {
+        int[] ids = new int[queue.size()];
+        int i = 0;
+        for (Client client : queue)
+            ids[i++] = client.getID();
+        return ids;
+    }
+}
@@ -0,0 +1,158 @@
+package gym.management;
+
+import gym.management.Sessions.Session;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sorted timeline of the sessions booked by one instructor or one client.
+ * Bookings never overlap, so a new booking only needs to be compared with the booking that starts just before it
+ * and the one that starts just after it, and checking or adding a booking takes logarithmic time.
+ * All methods are synchronized, as a client may register to several sessions at once under different session locks.
+ */
+public class Timeline {
+    private final TreeMap<Long, Session> bookings = new TreeMap<>(); // By start, as an epoch minute
+
+    /**
+     * Books a session if it does not overlap any session already booked.
+     *
+     * @param session the session to book.
+     * @return true if the session was booked, false if it overlaps a booking.
+     */
+    public synchronized boolean tryBook(Session session) {
+        if (!isFree(session.getEpochMinute(), end(session)))
+            return false;
+        bookings.put(session.getEpochMinute(), session);
+        return true;
+    }
+
+    /**
+     * Books a session known to be valid, such as one restored from saved state.
+     * A session starting at the same time as a booked one is not added again.
+     *
+     * @param session the session to book.
+     */
+    public synchronized void book(Session session) {
+        bookings.putIfAbsent(session.getEpochMinute(), session);
+    }
+
+    /**
+     * Releases the booking of a session.
+     *
+     * @param session the session to release.
+     */
+    public synchronized void release(Session session) {
+        bookings.remove(session.getEpochMinute(), session);
+    }
+
+    /**
+     * Checks whether a period overlaps no booking.
+     *
+     * @param start the start of the period, as an epoch minute.
+     * @param end   the end of the period, excluded.
+     * @return true if the period is free, false otherwise.
+     */
+    public synchronized boolean isFree(long start, long end) {
+        Map.Entry<Long, Session> before = bookings.floorEntry(start);
+        if (before != null && end(before.getValue()) > start)
+            return false;
+        Long after = bookings.higherKey(start);
+        return after == null || after >= end;
+    }
+
+    /**
+     * Finds the free periods of at least a given length within a window.
+     *
+     * @param from    the start of the window, as an epoch minute.
+     * @param to      the end of the window, excluded.
+     * @param minutes the minimum length of a free period.
+     * @return the free periods, in time order.
+     */
+    public synchronized List<Slot> freeSlots(long from, long to, int minutes) {
+        if (to - from < minutes)
+            return Collections.emptyList();
+        List<Slot> free = new ArrayList<>();
+        long cursor = from;
+        // The booking running at the start of the window, if any, delays the first free period
+        Map.Entry<Long, Session> before = bookings.lowerEntry(from);
+        if (before != null)
+            cursor = Math.max(cursor, end(before.getValue()));
+        for (Session booked : bookings.subMap(from, true, to, false).values()) {
+            if (booked.getEpochMinute() - cursor >= minutes)
+                free.add(new Slot(cursor, booked.getEpochMinute()));
+            cursor = Math.max(cursor, end(booked));
+        }
+        if (to - cursor >= minutes)
+            free.add(new Slot(cursor, to));
+        return free;
+    }
+
+    /**
+     * Retrieves the number of sessions booked.
+     *
+     * @return the number of bookings.
+     */
+    public synchronized int size() {
+        return bookings.size();
+    }
+
+    /**
+     * Computes the end of a session.
+     *
+     * @param session the session.
+     * @return the end of the session, as an epoch minute.
+     */
+    private static long end(Session session) {
+        return session.getEpochMinute() + session.getDuration();
+    }
+
+    /**
+     * A free period of a timeline.
+     */
+    public static class Slot {
+        private final long start;
+        private final long end;
+
+        /**
+         * Constructor to create a free period.
+         *
+         * @param start the start of the period, as an epoch minute.
+         * @param end   the end of the period, excluded.
+         */
+        Slot(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Retrieves the start of the period.
+         *
+         * @return the start as an epoch minute.
+         */
+        public long getStart() {
+            return start;
+        }
+
+        /**
+         * Retrieves the end of the period.
+         *
+         * @return the end as an epoch minute, excluded from the period.
+         */
+        public long getEnd() {
+            return end;
+        }
+
+        /**
+         * Returns a string representation of the period.
+         *
+         * @return the start and end in the format "dd-MM-yyyy HH:mm".
+         */
+        public String toString() {
+            return CustomDate.sessionTime(start) + " - " + CustomDate.sessionTime(end);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package gym.management;
+
+import gym.Exception.InstructorNotQualifiedException;
+import gym.Exception.ScheduleConflictException;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timetable of sessions planned by a {@link TimetablePlanner}, with its payroll cost and the demand it leaves unmet.
+ * The sessions are only planned; {@link #schedule(Secretary)} adds them to the gym.
+ */
+public class Timetable {
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Integer> unmet = new LinkedHashMap<>(); // Unplaced sessions by "type/forum"
+    private long cost;
+    private int unmetCount;
+
+    /**
+     * Adds a planned session.
+     *
+     * @param type        the session type.
+     * @param forum       the forum of the session.
+     * @param instructor  the instructor teaching it.
+     * @param epochMinute the start of the session as minutes since 01-01-1970 00:00.
+     * @param wage        the instructor's pay for the session.
+     */
+    protected void add(SessionType type, ForumType forum, Instructor instructor, long epochMinute, int wage) {
+        entries.add(new Entry(type, forum, instructor, epochMinute));
+        cost += wage;
+    }
+
+    /**
+     * Records a session that could not be placed.
+     *
+     * @param type  the session type.
+     * @param forum the forum of the session.
+     */
+    protected void unmet(SessionType type, ForumType forum) {
+        unmet.merge(type + "/" + forum, 1, Integer::sum);
+        unmetCount++;
+    }
+
+    /**
+     * Retrieves the planned sessions.
+     *
+     * @return an unmodifiable list of the sessions, in the order they were planned.
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Retrieves the payroll cost of the timetable.
+     *
+     * @return the sum of the instructors' pay for the planned sessions.
+     */
+    public long getCost() {
+        return cost;
+    }
+
+    /**
+     * Retrieves the number of sessions wanted that could not be placed.
+     *
+     * @return the unmet demand.
+     */
+    public int getUnmet() {
+        return unmetCount;
+    }
+
+    /**
+     * Adds the planned sessions to the gym's schedule.
+     *
+     * @param secretary the secretary creating the sessions.
+     * @return the sessions created, in the order of the timetable.
+     * @throws InstructorNotQualifiedException if an instructor lost a qualification since the plan was made.
+     * @throws ScheduleConflictException       if an instructor was booked at a planned time since the plan was made.
+     */
+    public List<Session> schedule(Secretary secretary) throws InstructorNotQualifiedException, ScheduleConflictException {
+        List<Session> sessions = new ArrayList<>(entries.size());
+        for (Entry entry : entries)
+            sessions.add(secretary.addSession(entry.type, CustomDate.sessionTime(entry.epochMinute), entry.forum, entry.instructor));
+        return sessions;
+    }
+
+    /**
+     * Returns a string representation of the timetable, one planned session per line.
+     *
+     * @return a string describing the timetable.
+     */
+    public String toString() {
+        StringBuilder out = new StringBuilder("Timetable | Sessions: ").append(entries.size())
+                .append(" | Cost: ").append(cost).append(" | Unmet: ").append(unmetCount);
+        if (unmetCount > 0)
+            out.append(' ').append(unmet);
+        for (Entry entry : entries)
+            out.append('\n').append(entry);
+        return out.toString();
+    }
+
+    /**
+     * One planned session.
+     */
+    public static class Entry {
+        private final SessionType type;
+        private final ForumType forum;
+        private final Instructor instructor;
+        private final long epochMinute;
+
+        /**
+         * Constructor to create a planned session.
+         *
+         * @param type        the session type.
+         * @param forum       the forum of the session.
+         * @param instructor  the instructor teaching it.
+         * @param epochMinute the start of the session as minutes since 01-01-1970 00:00.
+         */
+        Entry(SessionType type, ForumType forum, Instructor instructor, long epochMinute) {
+            this.type = type;
+            this.forum = forum;
+            this.instructor = instructor;
+            this.epochMinute = epochMinute;
+        }
+
+        /**
+         * Retrieves the session type.
+         *
+         * @return the type.
+         */
+        public SessionType getType() {
+            return type;
+        }
+
+        /**
+         * Retrieves the forum of the session.
+         *
+         * @return the forum.
+         */
+        public ForumType getForum() {
+            return forum;
+        }
+
+        /**
+         * Retrieves the instructor teaching the session.
+         *
+         * @return the instructor.
+         */
+        public Instructor getInstructor() {
+            return instructor;
+        }
+
+        /**
+         * Retrieves the start of the session.
+         *
+         * @return the start time in the format "dd-MM-yyyy HH:mm".
+         */
+        public String getTime() {
+            return CustomDate.sessionTime(epochMinute);
+        }
+
+        /**
+         * Returns a string representation of the planned session.
+         *
+         * @return a string describing the session.
+         */
+        public String toString() {
+            return "Session Type: " + type + " | Date: " + getTime() + " | Forum: " + forum +
+                    " | Instructor: " + instructor.getName();
+        }
+    }
+}
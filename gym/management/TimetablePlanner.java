@@ -0,0 +1,272 @@
+package gym.management;
+
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Plans a timetable of sessions that meets a demand per session type and forum at the lowest payroll cost.
+ * The planner is given the demand, the candidate time slots of the week, and the instructors with the windows
+ * in which they are available. Each session is given to the cheapest qualified instructor who still has a free
+ * slot, at the earliest such slot, skipping slots that overlap the instructor's other sessions, including
+ * the ones already in the gym's schedule.
+ * Several candidate timetables are built in parallel, each filling the demand in a different order,
+ * and the one leaving the least demand unmet at the lowest cost is kept.
+ */
+public class TimetablePlanner {
+    private static final int DEFAULT_CANDIDATES = 32;
+
+    private final List<Demand> demands = new ArrayList<>();
+    private final List<Long> slotList = new ArrayList<>();
+    private final Map<Instructor, List<long[]>> availability = new LinkedHashMap<>(); // Windows of {start, end}
+
+    /**
+     * Adds a demand for sessions of a type and forum.
+     *
+     * @param type  the session type.
+     * @param forum the forum of the sessions.
+     * @param count the number of sessions wanted in the week.
+     */
+    public void addDemand(SessionType type, ForumType forum, int count) {
+        if (count < 0)
+            throw new IllegalArgumentException("Demand must not be negative");
+        demands.add(new Demand(type, forum, count));
+    }
+
+    /**
+     * Adds a time at which a session may start.
+     *
+     * @param sessionTime the start time in the format "dd-MM-yyyy HH:mm".
+     */
+    public void addSlot(String sessionTime) {
+        slotList.add(CustomDate.parseSessionTime(sessionTime));
+    }
+
+    /**
+     * Adds a window in which an instructor is available. Only sessions that fit entirely in one of the
+     * instructor's windows are given to them; instructors without windows are not used.
+     *
+     * @param instructor the instructor.
+     * @param from       the start of the window in the format "dd-MM-yyyy HH:mm".
+     * @param to         the end of the window in the format "dd-MM-yyyy HH:mm".
+     */
+    public void addAvailability(Instructor instructor, String from, String to) {
+        availability.computeIfAbsent(instructor, i -> new ArrayList<>())
+                .add(new long[]{CustomDate.parseSessionTime(from), CustomDate.parseSessionTime(to)});
+    }
+
+    /**
+     * Plans a timetable from the default number of candidates.
+     *
+     * @return the best timetable found.
+     */
+    public Timetable plan() {
+        return plan(DEFAULT_CANDIDATES);
+    }
+
+    /**
+     * Plans a timetable, building a number of candidate timetables in parallel and keeping the best.
+     *
+     * @param candidates the number of candidate timetables to build.
+     * @return the best timetable found.
+     */
+    public Timetable plan(int candidates) {
+        Problem problem = new Problem();
+        return IntStream.range(0, Math.max(1, candidates)).parallel()
+                .mapToObj(problem::solve)
+                .min(Comparator.comparingInt(Timetable::getUnmet).thenComparingLong(Timetable::getCost))
+                .orElseThrow();
+    }
+
+    /**
+     * Immutable view of the planner's inputs, shared read-only by the candidates built in parallel.
+     */
+    private class Problem {
+        final long[] slots;                // Sorted start times
+        final int[][] overlapping;         // For each slot, the other slots that overlap it
+        final Instructor[] instructors;
+        final int[] wages;
+        final int[][] usable;              // For each instructor, the slots in their windows and free in the gym
+        final int[][] qualified;           // For each demand, the qualified instructors from cheapest to dearest
+        final Demand[] wanted;
+
+        /**
+         * Constructor to prepare the inputs.
+         */
+        Problem() {
+            slots = slotList.stream().mapToLong(Long::longValue).distinct().sorted().toArray();
+            overlapping = new int[slots.length][];
+            for (int s = 0; s < slots.length; s++) {
+                List<Integer> near = new ArrayList<>();
+                for (int t = s - 1; t >= 0 && slots[s] - slots[t] < Session.DURATION_MINUTES; t--)
+                    near.add(t);
+                for (int t = s + 1; t < slots.length && slots[t] - slots[s] < Session.DURATION_MINUTES; t++)
+                    near.add(t);
+                overlapping[s] = near.stream().mapToInt(Integer::intValue).toArray();
+            }
+
+            instructors = availability.keySet().toArray(new Instructor[0]);
+            wages = new int[instructors.length];
+            usable = new int[instructors.length][];
+            Gym gym = Gym.getInstance();
+            for (int i = 0; i < instructors.length; i++) {
+                wages[i] = instructors[i].getSalary();
+                Timeline booked = gym.instructorTimeline(instructors[i]);
+                List<long[]> windows = availability.get(instructors[i]);
+                usable[i] = IntStream.range(0, slots.length).filter(s -> {
+                    long start = slots[s];
+                    long end = start + Session.DURATION_MINUTES;
+                    return within(windows, start, end) && booked.isFree(start, end);
+                }).toArray();
+            }
+
+            wanted = demands.toArray(new Demand[0]);
+            qualified = new int[wanted.length][];
+            for (int d = 0; d < wanted.length; d++) {
+                SessionType type = wanted[d].type;
+                qualified[d] = IntStream.range(0, instructors.length)
+                        .filter(i -> instructors[i].validSessions.contains(type))
+                        .boxed().sorted(Comparator.comparingInt(i -> wages[i]))
+                        .mapToInt(Integer::intValue).toArray();
+            }
+        }
+
+        /**
+         * Builds one candidate timetable.
+         * Candidate 0 serves the demands with the fewest qualified instructors first, as they have the fewest
+         * alternatives; the others serve the sessions in a random order seeded by the candidate number.
+         *
+         * @param candidate the number of the candidate.
+         * @return the candidate timetable.
+         */
+        Timetable solve(int candidate) {
+            int[] order = sessionOrder(candidate);
+            BitSet[] taken = new BitSet[instructors.length];  // Slots each instructor can no longer teach
+            int[] cursor = new int[instructors.length];       // First usable slot that may still be free
+            boolean[] full = new boolean[instructors.length];
+            int[] nextQualified = new int[wanted.length];     // First qualified instructor who may not be full
+            for (int i = 0; i < instructors.length; i++)
+                taken[i] = new BitSet(slots.length);
+
+            Timetable timetable = new Timetable();
+            for (int d : order) {
+                int[] candidates = qualified[d];
+                boolean placed = false;
+                for (int q = nextQualified[d]; q < candidates.length && !placed; q++) {
+                    int i = candidates[q];
+                    int slot = full[i] ? -1 : nextFree(i, taken[i], cursor);
+                    if (slot < 0) {
+                        full[i] = true;
+                        if (q == nextQualified[d])
+                            nextQualified[d]++; // Cheaper instructors never free up again
+                        continue;
+                    }
+                    taken[i].set(slot);
+                    for (int other : overlapping[slot])
+                        taken[i].set(other);
+                    timetable.add(wanted[d].type, wanted[d].forum, instructors[i], slots[slot], wages[i]);
+                    placed = true;
+                }
+                if (!placed)
+                    timetable.unmet(wanted[d].type, wanted[d].forum);
+            }
+            return timetable;
+        }
+
+        /**
+         * Finds an instructor's earliest usable slot that is still free.
+         *
+         * @param i      the instructor's index.
+         * @param taken  the slots the instructor can no longer teach.
+         * @param cursor the first usable slot of each instructor that may still be free, advanced past taken ones.
+         * @return the slot index, or -1 if the instructor has no free slot left.
+         */
+        int nextFree(int i, BitSet taken, int[] cursor) {
+            int[] own = usable[i];
+            int c = cursor[i];
+            while (c < own.length && taken.get(own[c]))
+                c++;
+            cursor[i] = c;
+            // A slot before the cursor is taken for good, but one after it may be free while the cursor's is taken
+            for (int k = c; k < own.length; k++)
+                if (!taken.get(own[k]))
+                    return own[k];
+            return -1;
+        }
+
+        /**
+         * Lists the demand index of every session wanted, in the order a candidate serves them.
+         *
+         * @param candidate the number of the candidate.
+         * @return the demand index of each session to place.
+         */
+        int[] sessionOrder(int candidate) {
+            int total = 0;
+            for (Demand demand : wanted)
+                total += demand.count;
+            int[] order = new int[total];
+            Integer[] byScarcity = IntStream.range(0, wanted.length).boxed().toArray(Integer[]::new);
+            Arrays.sort(byScarcity, Comparator.comparingInt(d -> qualified[d].length));
+            int n = 0;
+            for (int d : byScarcity)
+                for (int k = 0; k < wanted[d].count; k++)
+                    order[n++] = d;
+            if (candidate > 0) {
+                SplittableRandom random = new SplittableRandom(candidate);
+                for (int k = order.length - 1; k > 0; k--) {
+                    int j = random.nextInt(k + 1);
+                    int swap = order[k];
+                    order[k] = order[j];
+                    order[j] = swap;
+                }
+            }
+            return order;
+        }
+    }
+
+    /**
+     * Checks whether a period lies entirely within one of a list of windows.
+     *
+     * @param windows the windows of {start, end}.
+     * @param start   the start of the period.
+     * @param end     the end of the period.
+     * @return true if a window contains the period, false otherwise.
+     */
+    private static boolean within(List<long[]> windows, long start, long end) {
+        for (long[] window : windows)
+            if (window[0] <= start && end <= window[1])
+                return true;
+        return false;
+    }
+
+    /**
+     * A number of sessions wanted for a session type and forum.
+     */
+    private static class Demand {
+        final SessionType type;
+        final ForumType forum;
+        final int count;
+
+        /**
+         * Constructor to create a demand.
+         *
+         * @param type  the session type.
+         * @param forum the forum of the sessions.
+         * @param count the number of sessions wanted.
+         */
+        Demand(SessionType type, ForumType forum, int count) {
+            this.type = type;
+            this.forum = forum;
+            this.count = count;
+        }
+    }
+}
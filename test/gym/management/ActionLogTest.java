@@ -0,0 +1,141 @@
+package gym.management;
+
+import gym.customers.Client;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the action log's spill file: entries of any length, and queries reading the file without the lock.
+ */
+class ActionLogTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * Collects every entry matching a query, page by page.
+     *
+     * @param query the query.
+     * @return the texts of the matching entries, oldest first.
+     */
+    private static List<String> texts(HistoryQuery query) {
+        List<String> texts = new ArrayList<>();
+        for (long cursor = 0; ; ) {
+            HistoryPage page = query.page(cursor, 7);
+            for (HistoryEntry entry : page.getEntries())
+                texts.add(entry.toString());
+            cursor = page.getNextCursor();
+            if (!page.hasMore())
+                return texts;
+        }
+    }
+
+    /**
+     * Records the same actions in a log that spills and in one large enough to keep everything in memory.
+     *
+     * @param logs the logs.
+     */
+    private static void record(ActionLog... logs) {
+        Client client = ClientRegistryTest.client(5000);
+        for (int i = 0; i < 300; i++)
+            for (ActionLog log : logs) {
+                if (i % 3 == 0)
+                    log.appendAt(i, ActionType.ALL_NOTIFIED, null, null, "Message " + i + " é€", 0);
+                else
+                    log.appendAt(i, ActionType.CLIENT_REGISTERED, client, null, null, 0);
+            }
+    }
+
+    /**
+     * An entry whose text is longer than 64KB in UTF-8 is spilled and read back whole.
+     *
+     * @throws Exception if the spill file cannot be written.
+     */
+    @Test
+    void spillsEntriesLongerThan64KB() throws Exception {
+        ActionLog log = new ActionLog(64);
+        log.spillTo(directory.resolve("spill"));
+        String message = "€".repeat(30_000); // Three bytes each in UTF-8
+        log.appendAt(0, ActionType.ALL_NOTIFIED, null, null, message, 0);
+        for (int i = 1; i < 200; i++)
+            log.appendAt(i, ActionType.SALARIES_PAID, null, null, null, 0);
+        assertEquals(0, log.dropped());
+
+        List<String> texts = texts(new HistoryQuery(log, null).type(ActionType.ALL_NOTIFIED));
+        assertEquals(List.of("A message was sent to all gym clients: " + message), texts);
+    }
+
+    /**
+     * A query returns the same entries whether they were spilled or kept in memory.
+     *
+     * @throws Exception if the spill file cannot be written.
+     */
+    @Test
+    void readsSpilledEntriesLikeEntriesInMemory() throws Exception {
+        ActionLog spilling = new ActionLog(32);
+        spilling.spillTo(directory.resolve("spill"));
+        ActionLog memory = new ActionLog(1024);
+        record(spilling, memory);
+        assertTrue(spilling.inMemory() < 300);
+
+        assertEquals(texts(new HistoryQuery(memory, null)), texts(new HistoryQuery(spilling, null)));
+        assertEquals(texts(new HistoryQuery(memory, null).type(ActionType.ALL_NOTIFIED)),
+                texts(new HistoryQuery(spilling, null).type(ActionType.ALL_NOTIFIED)));
+        assertEquals(100, texts(new HistoryQuery(spilling, null).type(ActionType.ALL_NOTIFIED)).size());
+    }
+
+    /**
+     * Actions are recorded by other threads while a query reads the spill file, which it does without the lock.
+     *
+     * @throws Exception if the spill file cannot be written or the recording thread is interrupted.
+     */
+    @Test
+    @Timeout(10)
+    void recordsWhileSpilledEntriesAreRead() throws Exception {
+        ActionLog log = new ActionLog(32);
+        log.spillTo(directory.resolve("spill"));
+        record(log);
+        long before = log.size();
+        List<String> texts = new ArrayList<>();
+        new HistoryQuery(log, null).type(ActionType.ALL_NOTIFIED).writeTo(new Appendable() {
+            @Override
+            public Appendable append(CharSequence text) {
+                return append(text, 0, text.length());
+            }
+
+            @Override
+            public Appendable append(CharSequence text, int start, int end) {
+                texts.add(text.subSequence(start, end).toString());
+                return this;
+            }
+
+            @Override
+            public Appendable append(char c) {
+                return append(String.valueOf(c));
+            }
+        });
+        // Each spilled entry read has another thread record an action, which waits for the lock if it is held
+        List<String> visited = new ArrayList<>();
+        log.scan(new HistoryQuery(log, null), 0, before, (seq, time, type, personId, sessionId, text) -> {
+            Thread writer = new Thread(() -> log.appendAt(1000, ActionType.SALARIES_PAID, null, null, null, 0));
+            writer.start();
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            visited.add(text.toString());
+            return visited.size() < 5;
+        });
+        assertEquals(5, visited.size());
+        assertEquals(before + 5, log.size());
+        assertTrue(String.join("", texts).contains("Message 297 é€"));
+    }
+}
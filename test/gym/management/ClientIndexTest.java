@@ -0,0 +1,148 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Person;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of the balance bins of the client index: searches on the edges of the bins, and clients moved between
+ * bins by balance changes, checked against a scan of every client.
+ */
+class ClientIndexTest {
+    /**
+     * Stops the index of a test from listening to the balance changes of the next one.
+     */
+    @AfterEach
+    void stopListening() {
+        Person.setBalanceListener(null);
+    }
+
+    /**
+     * Lists the balances on and next to the edges of the bins: every balance below 8, and above that the
+     * quarters of each power of two, along with the extreme balances.
+     *
+     * @return the balances, in increasing order.
+     */
+    private static List<Integer> edges() {
+        TreeSet<Integer> edges = new TreeSet<>(List.of(Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -2, -1,
+                Integer.MAX_VALUE - 1, Integer.MAX_VALUE));
+        for (int balance = 0; balance <= 8; balance++)
+            edges.add(balance);
+        for (long power = 8; power <= 1 << 30; power <<= 1)
+            for (int quarter = 0; quarter < 4; quarter++) {
+                long edge = power + quarter * power / 4;
+                for (long balance = edge - 1; balance <= edge + 1; balance++)
+                    if (balance <= Integer.MAX_VALUE)
+                        edges.add((int) balance);
+            }
+        return new ArrayList<>(edges);
+    }
+
+    /**
+     * Creates an index of clients, one per balance, and makes it listen to their balance changes.
+     *
+     * @param balances the balances of the clients.
+     * @param clients  the list to add the created clients to.
+     * @return the index.
+     */
+    private static ClientIndex index(List<Integer> balances, List<Client> clients) {
+        ClientIndex index = new ClientIndex();
+        Person.setBalanceListener(index);
+        for (int i = 0; i < balances.size(); i++) {
+            int id = 1111 + i;
+            Client client = Client.newClient(Person.restore(id, "Client" + id, balances.get(i), Gender.Female,
+                    "01-01-1990", LocalDate.of(1990, 1, 1)));
+            clients.add(client);
+            index.add(client);
+        }
+        return index;
+    }
+
+    /**
+     * Checks a balance range search against a scan of every client.
+     *
+     * @param index   the index.
+     * @param clients the indexed clients, in the order of their IDs.
+     * @param min     the lowest balance searched.
+     * @param max     the balance above the highest searched.
+     */
+    private static void assertRange(ClientIndex index, List<Client> clients, int min, int max) {
+        List<Client> expected = new ArrayList<>();
+        for (Client client : clients)
+            if (client.getBalance() >= min && client.getBalance() < max)
+                expected.add(client);
+        ClientQuery query = new ClientQuery(index).balanceAtLeast(min).balanceBelow(max);
+        assertEquals(expected, query.find(), "balances in [" + min + ", " + max + ")");
+        assertEquals(expected.size(), query.count());
+    }
+
+    /**
+     * Every range between two balances on or next to the edges of the bins finds exactly the clients whose
+     * balance lies in it, and so do the ranges open at one end.
+     */
+    @Test
+    void findsTheBalancesOnTheEdgesOfTheBins() {
+        List<Integer> edges = edges();
+        List<Client> clients = new ArrayList<>();
+        ClientIndex index = index(edges, clients);
+        for (int min : edges) {
+            for (int max : edges)
+                assertRange(index, clients, min, max);
+            List<Client> atLeast = new ArrayList<>();
+            List<Client> below = new ArrayList<>();
+            for (Client client : clients) {
+                if (client.getBalance() >= min)
+                    atLeast.add(client);
+                else
+                    below.add(client);
+            }
+            assertEquals(atLeast, new ClientQuery(index).balanceAtLeast(min).find(), "balances from " + min);
+            assertEquals(below, new ClientQuery(index).balanceBelow(min).find(), "balances below " + min);
+        }
+    }
+
+    /**
+     * Balance changes that cross the edges of the bins in either direction, or stay within a bin, move the
+     * clients to the bins of their new balances.
+     */
+    @Test
+    void followsBalanceChangesAcrossTheEdgesOfTheBins() {
+        List<Integer> edges = new ArrayList<>();
+        for (int balance : edges())
+            if (Math.abs((long) balance) <= 1 << 20)
+                edges.add(balance);
+        List<Client> clients = new ArrayList<>();
+        List<Integer> balances = new ArrayList<>();
+        for (int i = 0; i < 300; i++)
+            balances.add(edges.get(i % edges.size()));
+        ClientIndex index = index(balances, clients);
+        Random random = new Random(11);
+        for (int step = 0; step < 3000; step++) {
+            Client client = clients.get(random.nextInt(clients.size()));
+            int target = edges.get(random.nextInt(edges.size()));
+            switch (random.nextInt(3)) {
+                case 0 -> client.increaseBalance(target - client.getBalance());
+                case 1 -> client.reduceBalance(client.getBalance() - target);
+                default -> client.tryReduceBalance(Math.max(0, client.getBalance() - target));
+            }
+            if (step % 100 == 0) {
+                int min = edges.get(random.nextInt(edges.size()));
+                int max = edges.get(random.nextInt(edges.size()));
+                assertRange(index, clients, min, max);
+            }
+        }
+        for (int i = 0; i < edges.size(); i += 3)
+            for (int j = i; j < edges.size(); j += 5)
+                assertRange(index, clients, edges.get(i), edges.get(j));
+    }
+}
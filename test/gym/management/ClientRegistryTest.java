@@ -0,0 +1,136 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Person;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the open-addressing client registry: lookups after backshift deletes, rehashing and insertion order.
+ */
+class ClientRegistryTest {
+    /**
+     * Creates a client with a given ID.
+     *
+     * @param id the ID of the client.
+     * @return the client.
+     */
+    static Client client(int id) {
+        return Client.newClient(Person.restore(id, "Client" + id, 100, Gender.Female, "01-01-1990", LocalDate.of(1990, 1, 1)));
+    }
+
+    /**
+     * Adding a client twice keeps the first one, and removing returns the client once.
+     */
+    @Test
+    void addsAndRemovesOnce() {
+        ClientRegistry registry = new ClientRegistry();
+        Client first = client(2000);
+        assertTrue(registry.add(first));
+        assertFalse(registry.add(client(2000)));
+        assertSame(first, registry.get(2000));
+        assertSame(first, registry.remove(2000));
+        assertNull(registry.remove(2000));
+        assertNull(registry.get(2000));
+        assertEquals(0, registry.size());
+    }
+
+    /**
+     * Deleting from the middle of a probe run that wraps around the end of the table shifts the rest of
+     * the run back, so every remaining client is still found.
+     */
+    @Test
+    void findsTheRestOfAProbeRunAfterADelete() {
+        // Fifteen IDs with the same home slot, the last of the initial table, stay below the resize threshold
+        List<Integer> colliding = new ArrayList<>();
+        for (int id = 1111; colliding.size() < 15; id++) {
+            int h = id * 0x9E3779B9;
+            if (((h ^ (h >>> 16)) & 31) == 31)
+                colliding.add(id);
+        }
+        for (int removed = 0; removed < colliding.size(); removed++) {
+            ClientRegistry registry = new ClientRegistry();
+            for (int id : colliding)
+                registry.add(client(id));
+            assertEquals(colliding.get(removed), registry.remove(colliding.get(removed)).getID());
+            for (int id : colliding)
+                assertEquals(id != colliding.get(removed), registry.contains(id), "ID " + id);
+            // The freed slot is reused without breaking the run
+            assertTrue(registry.add(client(colliding.get(removed))));
+            for (int id : colliding)
+                assertTrue(registry.contains(id), "ID " + id);
+        }
+    }
+
+    /**
+     * A random mix of additions and removals, through several rehashes, matches an insertion-ordered map.
+     */
+    @Test
+    void matchesAnInsertionOrderedMap() {
+        ClientRegistry registry = new ClientRegistry();
+        Map<Integer, Client> expected = new LinkedHashMap<>();
+        Random random = new Random(42);
+        for (int step = 0; step < 50_000; step++) {
+            int id = 1111 + random.nextInt(4000);
+            if (random.nextInt(3) == 0) {
+                assertSame(expected.remove(id), registry.remove(id));
+            } else {
+                Client client = client(id);
+                assertEquals(!expected.containsKey(id), registry.add(client));
+                expected.putIfAbsent(id, client);
+            }
+            if (step % 5000 == 0)
+                assertSameContents(expected, registry);
+        }
+        assertSameContents(expected, registry);
+    }
+
+    /**
+     * Making room ahead of time keeps the registered clients and their order.
+     */
+    @Test
+    void keepsClientsWhenCapacityIsEnsured() {
+        ClientRegistry registry = new ClientRegistry();
+        Map<Integer, Client> expected = new LinkedHashMap<>();
+        for (int id = 5000; id < 5010; id++) {
+            Client client = client(id);
+            registry.add(client);
+            expected.put(id, client);
+        }
+        registry.ensureCapacity(10_000);
+        for (int id = 6000; id < 16_000; id++) {
+            Client client = client(id);
+            registry.add(client);
+            expected.put(id, client);
+        }
+        assertSameContents(expected, registry);
+    }
+
+    /**
+     * Checks that a registry holds exactly the clients of a map, in the map's order.
+     *
+     * @param expected the expected clients, in insertion order.
+     * @param registry the registry to check.
+     */
+    private static void assertSameContents(Map<Integer, Client> expected, ClientRegistry registry) {
+        assertEquals(expected.size(), registry.size());
+        for (Map.Entry<Integer, Client> entry : expected.entrySet())
+            assertSame(entry.getValue(), registry.get(entry.getKey()));
+        List<Client> order = new ArrayList<>();
+        registry.forEach(order::add);
+        assertEquals(new ArrayList<>(expected.values()), order);
+    }
+}
@@ -0,0 +1,307 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.GymClock;
+import gym.customers.Inbox;
+import gym.customers.InboxRetention;
+import gym.customers.Person;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the gym's journal: the state replayed from a directory copied while the journal was still open,
+ * as after a crash, matches the state of the gym that wrote it.
+ */
+class GymJournalTest {
+    @TempDir
+    Path directory;
+
+    /**
+     * Copies the snapshot and journal files without closing the journal, as a crash would leave them.
+     *
+     * @param from the directory of the open journal.
+     * @param to   the directory to copy to.
+     * @return the directory copied to.
+     * @throws Exception if the files cannot be copied.
+     */
+    static Path crashCopy(Path from, Path to) throws Exception {
+        Files.createDirectories(to);
+        for (String file : List.of("journal.bin", "snapshot.bin"))
+            if (Files.exists(from.resolve(file)))
+                Files.copy(from.resolve(file), to.resolve(file));
+        return to;
+    }
+
+    /**
+     * Replays a directory into a new, empty gym.
+     *
+     * @param directory the directory holding the snapshot and journal files.
+     * @return the replayed gym.
+     * @throws Exception if the files cannot be read.
+     */
+    static Gym replay(Path directory) throws Exception {
+        Gym replayed = new Gym();
+        replayed.openJournal(directory);
+        replayed.closeJournal();
+        replayed.awaitNotifications(); // Replayed notifications are delivered by the replayed gym's lanes
+        return replayed;
+    }
+
+    /**
+     * Describes the notifications of an inbox with their IDs and times, and the inbox's sequence numbers,
+     * read mark and own retention.
+     *
+     * @param inbox the inbox.
+     * @return the description.
+     */
+    private static List<String> describe(Inbox inbox) {
+        List<String> description = new ArrayList<>();
+        description.add(inbox.firstSeq() + " " + inbox.readSeq() + " " + Objects.toString(inbox.ownRetention()));
+        inbox.forEach(notification -> description.add(notification.getId() + " " + notification.getTime() + " "
+                + notification.getMessage()));
+        return description;
+    }
+
+    /**
+     * Reads the end of the committed records from the header of a journal.
+     *
+     * @param directory the directory of the journal.
+     * @return the offset of the end of the last record.
+     * @throws Exception if the journal cannot be read.
+     */
+    static long journalEnd(Path directory) throws Exception {
+        try (FileChannel channel = FileChannel.open(directory.resolve("journal.bin"), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(24);
+            channel.read(header, 0);
+            return header.getLong(16);
+        }
+    }
+
+    /**
+     * Pins the gym's clock to an instant.
+     *
+     * @param instant the instant, such as "2030-01-01T10:00:00Z".
+     */
+    private static void setTime(String instant) {
+        GymClock.setClock(Clock.fixed(Instant.parse(instant), ZoneOffset.UTC));
+    }
+
+    /**
+     * Checks that a replayed gym holds the same state as the gym that was journaled.
+     *
+     * @param expected the journaled gym.
+     * @param clients  the clients of the journaled gym.
+     * @param actual   the replayed gym.
+     */
+    private static void assertSameState(Gym expected, List<Client> clients, Gym actual) {
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(expected.getBalance(), actual.getBalance());
+        for (Client client : clients) {
+            Client restored = actual.getClients().get(client.getID());
+            if (expected.getClients().get(client.getID()) == null) {
+                assertNull(restored, "removed client " + client.getID());
+                continue;
+            }
+            assertNotNull(restored, "client " + client.getID());
+            assertEquals(client.getBalance(), restored.getBalance());
+            assertEquals(client.getNotificationList(), restored.getNotificationList());
+            assertEquals(describe(client.getInbox()), describe(restored.getInbox()), "inbox of " + client.getID());
+        }
+    }
+
+    /**
+     * The gym is replayed from a crash taken after several automatic snapshots, and records written past
+     * the journal's end offset, as a crash in the middle of a record leaves them, are ignored.
+     * Notifications keep their IDs and times, and inboxes their read marks and retention.
+     *
+     * @throws Exception if the journal cannot be written or read.
+     */
+    @Test
+    void replaysTheStateLeftByACrash() throws Exception {
+        setTime("2030-01-01T10:00:00Z");
+        Gym gym = Gym.getInstance();
+        Path live = directory.resolve("live");
+        gym.openJournal(live);
+        gym.getJournal().setSnapshotThreshold(4096); // Snapshots are taken as the work goes on
+        gym.setName("Journaled");
+        gym.setSecretary(new Person("Secretary", 0, Gender.Female, "01-01-1980"), 5000);
+        Secretary secretary = gym.getSecretary();
+
+        SessionType small = SessionType.register("JournalTest", 40, 2);
+        Instructor instructor = secretary.hireInstructor(new Person("Coach", 0, Gender.Male, "01-01-1980"), 70,
+                new ArrayList<>(List.of(small, SessionType.Pilates)));
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < 6; i++)
+            sessions.add(secretary.addSession(i % 2 == 0 ? small : SessionType.Pilates,
+                    String.format("%02d-03-2099 10:00", i + 1), ForumType.All, instructor));
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < 20; i++)
+            clients.add(secretary.registerClient(new Person("Client" + i, 500, i % 2 == 0 ? Gender.Female : Gender.Male,
+                    "01-01-1990")));
+
+        for (int i = 0; i < clients.size(); i++)
+            secretary.registerOrWaitlist(clients.get(i), sessions.get(i % sessions.size()));
+        secretary.registerClientsToLesson(clients.subList(0, 10), sessions.get(5));
+        secretary.notify(sessions.get(0), "Bring water");
+        setTime("2030-01-02T10:00:00Z");
+        secretary.notify(sessions.get(1), "Bring a towel");
+        secretary.notify(sessions.get(1), "Bring shoes");
+        clients.get(1).getInbox().setRetention(InboxRetention.of(1, Duration.ofDays(30)));
+        gym.awaitNotifications();
+        clients.get(0).getInbox().markAllRead();
+        gym.snapshot();
+        setTime("2030-01-03T10:00:00Z");
+        secretary.unregisterClientFromLesson(clients.get(0), sessions.get(0)); // Promotes from the waitlist
+        secretary.notify("The gym closes early today");
+        setTime("2030-01-04T10:00:00Z");
+        secretary.notify("02-03-2099", "Session moved");
+        secretary.unregisterClient(clients.get(19));
+        secretary.paySalaries();
+        gym.awaitNotifications();
+
+        setTime("2030-02-01T10:00:00Z"); // Replayed notifications are not stamped with the time of the replay
+        Path crashed = crashCopy(live, directory.resolve("crashed"));
+        assertSameState(gym, clients, replay(crashed));
+
+        // A record written past the end offset was never committed, and must not be replayed
+        Path torn = crashCopy(live, directory.resolve("torn"));
+        try (FileChannel channel = FileChannel.open(torn.resolve("journal.bin"), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(24);
+            channel.read(header, 0);
+            long end = header.getLong(16);
+            assertTrue(end >= 24);
+            ByteBuffer garbage = ByteBuffer.allocate(64);
+            for (int i = 0; i < 64; i++)
+                garbage.put((byte) (8 + i % 3)); // Record types that would register clients if replayed
+            garbage.flip();
+            channel.write(garbage, end);
+        }
+        assertSameState(gym, clients, replay(torn));
+        gym.closeJournal();
+    }
+
+    /**
+     * A snapshot falls due on the first record of each registration, single or in a batch, after the clients are
+     * charged and before their registrations are recorded; the replayed clients are charged once.
+     *
+     * @throws Exception if the journal cannot be written or read.
+     */
+    @Test
+    void chargesOnceWhenASnapshotFallsDueDuringARegistration() throws Exception {
+        setTime("2030-01-01T10:00:00Z");
+        Gym gym = Gym.getInstance();
+        Path live = directory.resolve("live");
+        gym.openJournal(live);
+        gym.setSecretary(new Person("Secretary", 0, Gender.Female, "01-01-1980"), 5000);
+        Secretary secretary = gym.getSecretary();
+        SessionType type = SessionType.register("SnapshotDue", 60, 3);
+        Session session = secretary.addSession(type, "01-03-2099 10:00", ForumType.All,
+                secretary.hireInstructor(new Person("Coach", 0, Gender.Male, "01-01-1980"), 70,
+                        new ArrayList<>(List.of(type))));
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            clients.add(secretary.registerClient(new Person("Client" + i, 500, Gender.Female, "01-01-1990")));
+        Session batched = secretary.addSession(type, "02-03-2099 10:00", ForumType.All, session.getInstructor());
+
+        gym.getJournal().setSnapshotThreshold(journalEnd(live) - 1);
+        secretary.registerClientToLesson(clients.get(0), session);
+        gym.getJournal().setSnapshotThreshold(journalEnd(live) - 1);
+        assertEquals(RegistrationResult.REGISTERED, secretary.registerOrWaitlist(clients.get(1), session));
+        gym.getJournal().setSnapshotThreshold(journalEnd(live) - 1);
+        assertEquals(3, secretary.registerClientsToLesson(clients.subList(1, 5), batched).registered());
+        assertEquals(440, clients.get(0).getBalance());
+        assertEquals(380, clients.get(1).getBalance());
+        gym.awaitNotifications();
+        assertSameState(gym, clients, replay(crashCopy(live, directory.resolve("crashed"))));
+        gym.closeJournal();
+    }
+
+    /**
+     * Notifications and registrations made by several threads while a snapshot is taken after every change
+     * are all replayed: no snapshot falls between a notification's record and its delivery.
+     *
+     * @throws Exception if the journal cannot be written or read, or a thread is interrupted.
+     */
+    @Test
+    void keepsNotificationsSentDuringConcurrentSnapshots() throws Exception {
+        setTime("2030-01-01T10:00:00Z");
+        Gym gym = Gym.getInstance();
+        Path live = directory.resolve("live");
+        gym.openJournal(live);
+        gym.getJournal().setSnapshotThreshold(0);
+        gym.setSecretary(new Person("Secretary", 0, Gender.Female, "01-01-1980"), 5000);
+        Secretary secretary = gym.getSecretary();
+        SessionType type = SessionType.register("ConcurrentSnapshots", 10, 4);
+        Instructor instructor = secretary.hireInstructor(new Person("Coach", 0, Gender.Male, "01-01-1980"), 70,
+                new ArrayList<>(List.of(type)));
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            sessions.add(secretary.addSession(type, String.format("%02d-03-2099 10:00", i + 1), ForumType.All,
+                    instructor));
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < 12; i++)
+            clients.add(secretary.registerClient(new Person("Client" + i, 1000, Gender.Female, "01-01-1990")));
+
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Random random = new Random(t);
+            boolean notifier = t % 2 == 0;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 150; i++) {
+                        Session session = sessions.get(random.nextInt(sessions.size()));
+                        if (notifier) {
+                            switch (random.nextInt(3)) {
+                                case 0 -> secretary.notify(session, "Session " + i);
+                                case 1 -> secretary.notify("Everyone " + i);
+                                default -> secretary.notify("02-03-2099", "Day " + i);
+                            }
+                        } else {
+                            Client client = clients.get(random.nextInt(clients.size()));
+                            if (random.nextBoolean())
+                                secretary.registerOrWaitlist(client, session);
+                            else
+                                secretary.unregisterClientFromLesson(client, session);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+        assertTrue(failures.isEmpty(), () -> "Failures: " + failures);
+        gym.awaitNotifications();
+
+        assertSameState(gym, clients, replay(crashCopy(live, directory.resolve("crashed"))));
+        gym.closeJournal();
+    }
+}
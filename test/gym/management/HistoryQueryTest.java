@@ -0,0 +1,193 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.GymClock;
+import gym.customers.Person;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of history queries: pages read with cursors across the spill file and the ring, and the entries
+ * of batch registrations found by client.
+ */
+class HistoryQueryTest {
+    private static final ActionType[] TYPES = {ActionType.ALL_NOTIFIED, ActionType.CLIENT_REGISTERED,
+            ActionType.CLIENT_UNREGISTERED, ActionType.SALARIES_PAID};
+
+    @TempDir
+    Path directory;
+
+    /**
+     * An entry recorded by a test, as the model the pages are checked against.
+     *
+     * @param seq      the sequence number of the entry.
+     * @param time     the time of the entry in epoch milliseconds.
+     * @param type     the type of the entry.
+     * @param personId the ID of the person the entry concerns, or 0.
+     */
+    private record Recorded(long seq, long time, ActionType type, int personId) {
+    }
+
+    /**
+     * Records entries of rotating types, one minute apart, in a log and in its model.
+     *
+     * @param log     the log.
+     * @param model   the model of the log's entries.
+     * @param count   the number of entries to record.
+     * @param clients the clients the entries about a client concern, in turn.
+     */
+    private static void record(ActionLog log, List<Recorded> model, int count, Client... clients) {
+        for (int i = 0; i < count; i++) {
+            long seq = model.size();
+            long time = seq * 60_000;
+            ActionType type = TYPES[(int) (seq * 7 % TYPES.length)];
+            Client client = type == ActionType.CLIENT_REGISTERED || type == ActionType.CLIENT_UNREGISTERED
+                    ? clients[(int) (seq % clients.length)] : null;
+            log.appendAt(time, type, client, null, type == ActionType.ALL_NOTIFIED ? "Message " + seq : null, 0);
+            model.add(new Recorded(seq, time, type, client == null ? 0 : client.getID()));
+        }
+    }
+
+    /**
+     * Reads the matches of a query page by page from a cursor, and checks them against the model.
+     *
+     * @param query    the query.
+     * @param model    the model of the log's entries.
+     * @param expected the criteria of the query, applied to the model.
+     * @param cursor   the cursor to read from.
+     * @param limit    the number of entries per page.
+     * @return the cursor after the last page.
+     */
+    private static long assertPages(HistoryQuery query, List<Recorded> model, Predicate<Recorded> expected,
+                                    long cursor, int limit) {
+        List<Long> matches = new ArrayList<>();
+        for (Recorded recorded : model)
+            if (recorded.seq() >= cursor && expected.test(recorded))
+                matches.add(recorded.seq());
+        List<Long> read = new ArrayList<>();
+        while (true) {
+            HistoryPage page = query.page(cursor, limit);
+            assertFalse(page.getEntries().size() > limit);
+            for (HistoryEntry entry : page.getEntries()) {
+                Recorded recorded = model.get((int) entry.getSequence());
+                assertEquals(recorded.time(), entry.getTime());
+                assertEquals(recorded.type(), entry.getType());
+                assertEquals(recorded.personId(), entry.getPersonId());
+                read.add(entry.getSequence());
+            }
+            cursor = page.getNextCursor();
+            if (!page.hasMore())
+                break;
+        }
+        assertEquals(matches, read, "pages of " + limit);
+        return cursor;
+    }
+
+    /**
+     * Pages of every size return the same matches as a scan of the model, whether the entries were spilled
+     * or are still in the ring, and reading on from the cursor of the last page returns only the matches
+     * recorded since.
+     *
+     * @throws Exception if the spill file cannot be written.
+     */
+    @Test
+    void pagesThroughTheSpillFileAndTheRing() throws Exception {
+        GymClock.setClock(Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+        Client first = ClientRegistryTest.client(6000);
+        Client second = ClientRegistryTest.client(6001);
+        ActionLog log = new ActionLog(64);
+        log.spillTo(directory.resolve("spill"));
+        List<Recorded> model = new ArrayList<>();
+        record(log, model, 700, first, second);
+
+        LocalDateTime start = LocalDateTime.of(1970, 1, 1, 1, 0);
+        List<Function<HistoryQuery, HistoryQuery>> queries = List.of(
+                query -> query,
+                query -> query.type(ActionType.CLIENT_REGISTERED),
+                query -> query.client(first),
+                query -> query.client(second).type(ActionType.CLIENT_UNREGISTERED),
+                query -> query.between(start, start.plusHours(2)),
+                query -> query.type(ActionType.ALL_NOTIFIED, ActionType.SALARIES_PAID).between(start, start.plusHours(9)));
+        List<Predicate<Recorded>> criteria = List.of(
+                recorded -> true,
+                recorded -> recorded.type() == ActionType.CLIENT_REGISTERED,
+                recorded -> recorded.personId() == first.getID(),
+                recorded -> recorded.personId() == second.getID() && recorded.type() == ActionType.CLIENT_UNREGISTERED,
+                recorded -> recorded.time() >= 3_600_000 && recorded.time() < 3 * 3_600_000,
+                recorded -> (recorded.type() == ActionType.ALL_NOTIFIED || recorded.type() == ActionType.SALARIES_PAID)
+                        && recorded.time() >= 3_600_000 && recorded.time() < 10 * 3_600_000);
+        long[] cursors = new long[queries.size()];
+        for (int q = 0; q < queries.size(); q++)
+            for (int limit : new int[]{1, 7, 64, 1000})
+                cursors[q] = assertPages(queries.get(q).apply(new HistoryQuery(log, null)), model, criteria.get(q), 0, limit);
+
+        record(log, model, 150, first, second);
+        for (int q = 0; q < queries.size(); q++)
+            assertPages(queries.get(q).apply(new HistoryQuery(log, null)), model, criteria.get(q), cursors[q], 5);
+    }
+
+    /**
+     * The batch registration entry is found in the history of each client it registered, and not in the history
+     * of the clients it turned down, whether the entry is in memory or spilled; no other entry is recorded for
+     * the clients of the batch.
+     *
+     * @throws Exception if the gym cannot be set up or the spill file cannot be written.
+     */
+    @Test
+    void findsBatchRegistrationsByClient() throws Exception {
+        Gym gym = Gym.getInstance();
+        gym.setSecretary(new Person("Secretary", 0, Gender.Female, "01-01-1980"), 5000);
+        Secretary secretary = gym.getSecretary();
+        SessionType type = SessionType.register("BatchHistory", 40, 2);
+        Session session = secretary.addSession(type, "01-06-2099 10:00", ForumType.All,
+                secretary.hireInstructor(new Person("Coach", 0, Gender.Male, "01-01-1980"), 70,
+                        new ArrayList<>(List.of(type))));
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+            clients.add(secretary.registerClient(new Person("Client" + i, i == 1 ? 10 : 100, Gender.Female,
+                    "01-01-1990")));
+        long before = gym.getGymHistory().size();
+
+        RegistrationReport report = secretary.registerClientsToLesson(clients, session);
+        List<RegistrationResult> results = List.of(RegistrationResult.REGISTERED, RegistrationResult.NO_BALANCE,
+                RegistrationResult.REGISTERED, RegistrationResult.NO_PLACES);
+        assertEquals(before + 1, gym.getGymHistory().size());
+
+        // The same entries, spilled by a log too small to keep them in memory
+        ActionLog spilled = new ActionLog(16);
+        spilled.spillTo(directory.resolve("spill"));
+        gym.getGymHistory().forEachEntry((seq, time, action, person, entrySession, text, value) ->
+                spilled.appendAt(time, action, person, entrySession, text, value));
+        for (int i = 0; i < 64; i++)
+            spilled.appendAt(0, ActionType.SALARIES_PAID, null, null, null, 0);
+        for (ActionLog log : List.of(gym.getGymHistory(), spilled)) {
+            for (int i = 0; i < clients.size(); i++) {
+                assertEquals(results.get(i), report.getResult(i));
+                List<HistoryEntry> entries = new HistoryQuery(log, gym).client(clients.get(i))
+                        .type(ActionType.BATCH_REGISTERED).page(0, 10).getEntries();
+                assertEquals(results.get(i) == RegistrationResult.REGISTERED ? 1 : 0, entries.size());
+                for (HistoryEntry entry : entries) {
+                    assertEquals(session.getId(), entry.getSessionId());
+                    assertTrue(entry.toString().startsWith("Registered 2 of 4 clients"), entry.toString());
+                }
+            }
+        }
+    }
+}
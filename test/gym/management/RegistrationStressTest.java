@@ -0,0 +1,124 @@
+package gym.management;
+
+import gym.Exception.ClientNotRegisteredException;
+import gym.Exception.DuplicateClientException;
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Person;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress test of concurrent registrations to small sessions: whatever the interleaving, no session is
+ * overbooked and every debit of a client is credited to the gym.
+ */
+class RegistrationStressTest {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 4000;
+    private static final int CLIENTS = 60;
+    private static final int BALANCE = 100;
+
+    /**
+     * Threads register, waitlist and unregister clients at random on sessions of three places, two of them
+     * at the same time, while the clients' balances only cover a couple of lessons.
+     *
+     * @throws Exception if the gym cannot be set up or a thread is interrupted.
+     */
+    @Test
+    @Timeout(60)
+    void keepsSeatsAndBalancesConsistent() throws Exception {
+        Gym gym = Gym.getInstance();
+        gym.setSecretary(new Person("Secretary", 0, Gender.Female, "01-01-1980"), 5000);
+        Secretary secretary = gym.getSecretary();
+        SessionType small = SessionType.register("StressTest", 40, 3);
+        ArrayList<SessionType> qualifications = new ArrayList<>(List.of(small));
+        List<Session> sessions = new ArrayList<>();
+        sessions.add(secretary.addSession(small, "01-06-2099 10:00", ForumType.All,
+                secretary.hireInstructor(new Person("CoachA", 0, Gender.Male, "01-01-1980"), 70, qualifications)));
+        sessions.add(secretary.addSession(small, "01-06-2099 10:00", ForumType.All,
+                secretary.hireInstructor(new Person("CoachB", 0, Gender.Male, "01-01-1980"), 70, qualifications)));
+        sessions.add(secretary.addSession(small, "02-06-2099 10:00", ForumType.All,
+                secretary.hireInstructor(new Person("CoachC", 0, Gender.Male, "01-01-1980"), 70, qualifications)));
+        List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++)
+            clients.add(secretary.registerClient(new Person("Client" + i, BALANCE, Gender.Female, "01-01-1990")));
+        int gymBalance = gym.getBalance();
+
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(t);
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS; i++) {
+                        Client client = clients.get(random.nextInt(CLIENTS));
+                        Session session = sessions.get(random.nextInt(sessions.size()));
+                        switch (random.nextInt(3)) {
+                            case 0 -> {
+                                try {
+                                    secretary.registerClientToLesson(client, session);
+                                } catch (DuplicateClientException | ClientNotRegisteredException e) {
+                                    // Expected when the client is already registered
+                                }
+                            }
+                            case 1 -> secretary.registerOrWaitlist(client, session);
+                            default -> secretary.unregisterClientFromLesson(client, session);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        // Samples the seats while the registrations run
+        Thread sampler = new Thread(() -> {
+            while (running.get())
+                for (Session session : sessions)
+                    if (session.getPlaces() < 0 || session.getPlaces() > session.getCapacity())
+                        failures.add(new AssertionError("Places out of range: " + session.getPlaces()));
+        });
+        sampler.start();
+        for (Thread thread : threads)
+            thread.start();
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+        running.set(false);
+        sampler.join();
+
+        assertTrue(failures.isEmpty(), () -> "Failures: " + failures);
+        long debited = 0;
+        for (Client client : clients) {
+            assertTrue(client.getBalance() >= 0);
+            debited += BALANCE - client.getBalance();
+        }
+        assertEquals(debited, gym.getBalance() - gymBalance);
+        for (Session session : sessions) {
+            int registered = session.getClientList().size();
+            assertTrue(registered <= session.getCapacity());
+            assertTrue(session.getPlaces() >= 0);
+            assertEquals(session.getCapacity() - registered, session.getPlaces());
+            for (Client client : session.getClientList())
+                assertFalse(session.getWaitlist().contains(client.getID()));
+        }
+        // The two sessions at the same time never share a client
+        for (Client client : sessions.get(0).getClientList())
+            assertFalse(sessions.get(1).isRegistered(client));
+    }
+}
@@ -0,0 +1,240 @@
+package gym.management;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the sender's delivery lanes: membership after removals and rehashing, ordering, failing members
+ * waiting for a single member and the shutdown.
+ */
+class SenderTest {
+    /**
+     * Member recording the IDs of the notifications it receives.
+     */
+    private static class Recorder implements Member {
+        private final int id;
+        final ConcurrentLinkedQueue<Long> received = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Constructor to create a recorder.
+         *
+         * @param id the ID of the member.
+         */
+        Recorder(int id) {
+            this.id = id;
+        }
+
+        /**
+         * Records a newsletter without an ID.
+         *
+         * @param newsletter the newsletter.
+         */
+        @Override
+        public void update(String newsletter) {
+            received.add(0L);
+        }
+
+        /**
+         * Records the ID of a notification.
+         *
+         * @param notification the notification.
+         */
+        @Override
+        public void receive(Notification notification) {
+            received.add(notification.getId());
+        }
+
+        /**
+         * Retrieves the ID of the member.
+         *
+         * @return the ID.
+         */
+        @Override
+        public int getID() {
+            return id;
+        }
+    }
+
+    /**
+     * After many members are added and removed, growing and shrinking the lanes' tables,
+     * a notification to every member reaches exactly the registered ones, once each.
+     *
+     * @throws Exception if the thread is interrupted while waiting.
+     */
+    @Test
+    @Timeout(30)
+    void deliversToExactlyTheRegisteredMembers() throws Exception {
+        NewsletterPublisher publisher = new NewsletterPublisher(3);
+        Random random = new Random(42);
+        List<Recorder> members = new ArrayList<>();
+        boolean[] registered = new boolean[4000];
+        for (int i = 0; i < registered.length; i++)
+            members.add(new Recorder(1111 + i));
+        for (int step = 0; step < 20_000; step++) {
+            int i = random.nextInt(registered.length);
+            if (registered[i])
+                publisher.unregister(members.get(i));
+            else
+                publisher.register(members.get(i));
+            registered[i] = !registered[i];
+        }
+        Notification notification = publisher.sendNewsletter("Hello");
+        publisher.awaitDelivery();
+        for (int i = 0; i < registered.length; i++)
+            assertEquals(registered[i] ? List.of(notification.getId()) : List.of(),
+                    new ArrayList<>(members.get(i).received), "member " + members.get(i).getID());
+    }
+
+    /**
+     * A member notified alone and with everyone receives the notifications in the order they were sent.
+     *
+     * @throws Exception if the thread is interrupted while waiting.
+     */
+    @Test
+    @Timeout(30)
+    void keepsTheOrderOfSmallAndLargeAudiences() throws Exception {
+        NewsletterPublisher publisher = new NewsletterPublisher(4);
+        Recorder member = new Recorder(1200);
+        publisher.register(member);
+        List<Long> sent = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Notification notification = i % 3 == 0 ? publisher.sendNewsletter("All")
+                    : publisher.sendNewsletter("One", new Member[]{member}, 1);
+            sent.add(notification.getId());
+        }
+        publisher.awaitDelivery(member);
+        assertEquals(sent, new ArrayList<>(member.received));
+    }
+
+    /**
+     * A member throwing an Error is reported, and its lane goes on with the deliveries queued after the failure.
+     *
+     * @throws Exception if the thread is interrupted while waiting.
+     */
+    @Test
+    @Timeout(30)
+    void keepsDeliveringAfterAMemberFailsWithAnError() throws Exception {
+        ConcurrentLinkedQueue<Throwable> reported = new ConcurrentLinkedQueue<>();
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> reported.add(e));
+        try {
+            NewsletterPublisher publisher = new NewsletterPublisher(1);
+            Member failing = new Recorder(1300) {
+                /**
+                 * Fails on every notification.
+                 *
+                 * @param notification the notification.
+                 */
+                @Override
+                public void receive(Notification notification) {
+                    throw new AssertionError("Failing member");
+                }
+            };
+            Recorder after = new Recorder(1301);
+            publisher.register(failing);
+            publisher.register(after);
+            Notification first = publisher.sendNewsletter("First");
+            Notification second = publisher.sendNewsletter("Second", new Member[]{failing, after}, 2);
+            publisher.awaitDelivery();
+            assertEquals(2, reported.size());
+            assertTrue(reported.stream().allMatch(e -> e instanceof AssertionError));
+            assertEquals(List.of(), new ArrayList<>(after.received)); // Delivery stops at the failing member
+            Notification third = publisher.sendNewsletter("Third", new Member[]{after}, 1);
+            publisher.awaitDelivery(after);
+            assertEquals(List.of(third.getId()), new ArrayList<>(after.received));
+            assertEquals(0, publisher.pendingDeliveries());
+            assertTrue(first.getId() < second.getId());
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(previous);
+        }
+    }
+
+    /**
+     * Waiting for one member's notifications does not wait for a lane held up by another member.
+     *
+     * @throws Exception if the thread is interrupted while waiting.
+     */
+    @Test
+    @Timeout(30)
+    void waitsOnlyForTheMembersOwnLane() throws Exception {
+        NewsletterPublisher publisher = new NewsletterPublisher(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Member slow = new Recorder(1400) { // Served by lane 0
+            /**
+             * Records a notification once the test releases the lane.
+             *
+             * @param notification the notification.
+             */
+            @Override
+            public void receive(Notification notification) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.receive(notification);
+            }
+        };
+        Recorder quick = new Recorder(1401); // Served by lane 1
+        publisher.sendNewsletter("Slow", new Member[]{slow}, 1);
+        Notification notification = publisher.sendNewsletter("Quick", new Member[]{quick}, 1);
+        publisher.awaitDelivery(quick);
+        assertEquals(List.of(notification.getId()), new ArrayList<>(quick.received));
+        assertTrue(publisher.pendingDeliveries() > 0);
+        release.countDown();
+        publisher.awaitDelivery();
+        assertEquals(0, publisher.pendingDeliveries());
+    }
+
+    /**
+     * The shutdown delivers the notifications already sent, ends the lanes' threads and refuses what is sent
+     * afterwards.
+     *
+     * @throws Exception if the thread is interrupted while waiting.
+     */
+    @Test
+    @Timeout(30)
+    void shutsDownAfterDeliveringWhatWasSent() throws Exception {
+        NewsletterPublisher publisher = new NewsletterPublisher(2);
+        List<Thread> lanes = new ArrayList<>();
+        List<Recorder> members = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Recorder member = new Recorder(1500 + i) {
+                /**
+                 * Records a notification and the lane delivering it.
+                 *
+                 * @param notification the notification.
+                 */
+                @Override
+                public void receive(Notification notification) {
+                    synchronized (lanes) {
+                        lanes.add(Thread.currentThread());
+                    }
+                    super.receive(notification);
+                }
+            };
+            members.add(member);
+            publisher.register(member);
+        }
+        Notification notification = publisher.sendNewsletter("Last");
+        publisher.shutdown();
+        for (Recorder member : members)
+            assertEquals(List.of(notification.getId()), new ArrayList<>(member.received));
+        assertEquals(0, publisher.pendingDeliveries());
+        for (Thread lane : lanes)
+            assertFalse(lane.isAlive());
+        assertThrows(IllegalStateException.class, () -> publisher.sendNewsletter("Late"));
+        publisher.shutdown(); // A second shutdown does nothing
+    }
+}
@@ -0,0 +1,137 @@
+package gym.management.Sessions;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Person;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the session roster's open-addressing table: lookups after backshift deletes, growth and roster order.
+ */
+class RosterTest {
+    /**
+     * Creates a client with a given ID.
+     *
+     * @param id the ID of the client.
+     * @return the client.
+     */
+    private static Client client(int id) {
+        return Client.newClient(Person.restore(id, "Client" + id, 100, Gender.Female, "01-01-1990", LocalDate.of(1990, 1, 1)));
+    }
+
+    /**
+     * Checks that a roster holds exactly the clients of a model, in the model's order.
+     *
+     * @param model  the expected clients, in roster order.
+     * @param roster the roster.
+     */
+    private static void assertRoster(List<Client> model, Roster roster) {
+        assertEquals(model.size(), roster.size());
+        int[] ids = new int[model.size()];
+        for (int i = 0; i < model.size(); i++) {
+            ids[i] = model.get(i).getID();
+            assertSame(model.get(i), roster.get(i));
+            assertTrue(roster.contains(ids[i]));
+        }
+        assertArrayEquals(ids, roster.toIdArray());
+        assertEquals(model, roster.asList());
+    }
+
+    /**
+     * Removing a client moves the last client into its position, and a client is added only once.
+     */
+    @Test
+    void movesTheLastClientIntoARemovedPosition() {
+        Roster roster = new Roster();
+        List<Client> clients = new ArrayList<>();
+        for (int id = 1111; id < 1116; id++) {
+            clients.add(client(id));
+            assertTrue(roster.add(clients.get(clients.size() - 1)));
+        }
+        assertFalse(roster.add(client(1113)));
+        assertSame(clients.get(1), roster.remove(1112));
+        assertNull(roster.remove(1112));
+        assertRoster(List.of(clients.get(0), clients.get(4), clients.get(2), clients.get(3)), roster);
+    }
+
+    /**
+     * Deleting from the middle of a probe run that wraps around the end of the table shifts the rest of
+     * the run back, so every remaining client is still found.
+     */
+    @Test
+    void findsTheRestOfAProbeRunAfterADelete() {
+        // Eight clients grow the roster to eight places, so its table has 16 slots for the clients below
+        Roster roster = new Roster();
+        for (int id = 2000; id < 2008; id++)
+            roster.add(client(id));
+        for (int id = 2000; id < 2008; id++)
+            roster.remove(id);
+        // IDs whose home slot is the last of the table, so their probe run wraps around to the start
+        List<Client> colliding = new ArrayList<>();
+        for (int id = 1111; colliding.size() < 5; id++) {
+            int h = id * 0x9E3779B9;
+            if (((h ^ (h >>> 16)) & 15) == 15)
+                colliding.add(client(id));
+        }
+        List<Client> model = new ArrayList<>();
+        for (Client client : colliding) {
+            roster.add(client);
+            model.add(client);
+        }
+        for (int i = 0; i < 3; i++) {
+            Client removed = model.get(1);
+            assertSame(removed, roster.remove(removed.getID()));
+            model.set(1, model.get(model.size() - 1));
+            model.remove(model.size() - 1);
+            assertFalse(roster.contains(removed.getID()));
+            assertRoster(model, roster);
+        }
+    }
+
+    /**
+     * A long run of random additions and removals, growing the roster several times, leaves the roster
+     * matching a simple list model of its order.
+     */
+    @Test
+    void matchesAListModel() {
+        Random random = new Random(7);
+        Roster roster = new Roster();
+        List<Client> model = new ArrayList<>();
+        Client[] clients = new Client[3000];
+        for (int i = 0; i < clients.length; i++)
+            clients[i] = client(1111 + i);
+        for (int step = 0; step < 50_000; step++) {
+            Client client = clients[random.nextInt(step < 10_000 ? clients.length : 300)];
+            int position = model.indexOf(client);
+            if (random.nextInt(3) > 0) {
+                assertEquals(position < 0, roster.add(client));
+                if (position < 0)
+                    model.add(client);
+            } else {
+                Client removed = roster.remove(client.getID());
+                if (position < 0) {
+                    assertNull(removed);
+                } else {
+                    assertSame(client, removed);
+                    model.set(position, model.get(model.size() - 1));
+                    model.remove(model.size() - 1);
+                }
+            }
+        }
+        assertRoster(model, roster);
+        for (Client client : clients)
+            assertEquals(model.contains(client), roster.contains(client.getID()));
+    }
+}
@@ -0,0 +1,238 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.GymClock;
+import gym.customers.Person;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the promotion of waiting clients when a place opens up in a session.
+ */
+class WaitlistPromotionTest {
+    private static final int PRICE = 50;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Pins the gym's clock to an instant.
+     *
+     * @param instant the instant, such as "2030-01-01T10:00:00Z".
+     */
+    private static void setTime(String instant) {
+        GymClock.setClock(Clock.fixed(Instant.parse(instant), ZoneOffset.UTC));
+    }
+
+    /**
+     * Adds a session of one place to the gym.
+     *
+     * @param secretary the gym's secretary.
+     * @param time      the time of the session, in the format "dd-MM-yyyy HH:mm".
+     * @return the session.
+     * @throws Exception if the session cannot be added.
+     */
+    private static Session singlePlaceSession(Secretary secretary, String time) throws Exception {
+        SessionType type = SessionType.register("Promotion" + time.replaceAll("\\D", ""), PRICE, 1);
+        Instructor instructor = secretary.hireInstructor(new Person("Coach", 0, Gender.Male, "01-01-1980"), 70,
+                new ArrayList<>(List.of(type)));
+        return secretary.addSession(type, time, ForumType.All, instructor);
+    }
+
+    /**
+     * Retrieves the texts of a client's history entries of a type.
+     *
+     * @param secretary the gym's secretary.
+     * @param client    the client.
+     * @param type      the action type.
+     * @return the texts, oldest first.
+     */
+    private static List<String> history(Secretary secretary, Client client, ActionType type) {
+        List<String> texts = new ArrayList<>();
+        for (HistoryEntry entry : secretary.queryHistory().client(client).type(type).page(0, 100).getEntries())
+            texts.add(entry.toString());
+        return texts;
+    }
+
+    /**
+     * A client still waiting when the session has started is dropped instead of being charged for it.
+     *
+     * @throws Exception if the gym cannot be set up.
+     */
+    @Test
+    void dropsAWaitingClientOnceTheSessionHasStarted() throws Exception {
+        setTime("2030-01-01T10:00:00Z");
+        Gym gym = Gym.getInstance();
+        gym.setSecretary(new Person("Secretary", 0, Gender.Female, "01-01-1980"), 5000);
+        Secretary secretary = gym.getSecretary();
+        Session session = singlePlaceSession(secretary, "01-01-2030 12:00");
+        Client registered = secretary.registerClient(new Person("Registered", 100, Gender.Female, "01-01-1990"));
+        Client waiting = secretary.registerClient(new Person("Waiting", 100, Gender.Female, "01-01-1990"));
+        assertEquals(RegistrationResult.REGISTERED, secretary.registerOrWaitlist(registered, session));
+        assertEquals(RegistrationResult.WAITLISTED, secretary.registerOrWaitlist(waiting, session));
+        int gymBalance = gym.getBalance();
+
+        setTime("2030-01-01T13:00:00Z");
+        assertTrue(secretary.unregisterClientFromLesson(registered, session));
+        assertEquals(100, waiting.getBalance());
+        assertEquals(gymBalance - PRICE, gym.getBalance());
+        assertFalse(session.isRegistered(waiting));
+        assertFalse(session.getWaitlist().contains(waiting.getID()));
+        assertEquals(1, session.getPlaces());
+        List<String> skipped = history(secretary, waiting, ActionType.WAITLIST_SKIPPED);
+        assertEquals(1, skipped.size());
+        assertTrue(skipped.get(0).endsWith("the session is no longer in the future"), skipped.get(0));
+    }
+
+    /**
+     * A client who can no longer pay is dropped, and the place goes to the next client, who is charged,
+     * seated and notified.
+     *
+     * @throws Exception if the gym cannot be set up.
+     */
+    @Test
+    void promotesTheNextClientWhoCanPay() throws Exception {
+        setTime("2030-01-01T10:00:00Z");
+        Gym gym = Gym.getInstance();
+        gym.setSecretary(new Person("Secretary", 0, Gender.Female, "01-01-1980"), 5000);
+        Secretary secretary = gym.getSecretary();
+        Session session = singlePlaceSession(secretary, "02-01-2030 12:00");
+        Client registered = secretary.registerClient(new Person("Registered", 100, Gender.Female, "01-01-1990"));
+        Client broke = secretary.registerClient(new Person("Broke", 100, Gender.Female, "01-01-1990"));
+        Client next = secretary.registerClient(new Person("Next", 100, Gender.Female, "01-01-1990"));
+        secretary.registerOrWaitlist(registered, session);
+        secretary.registerOrWaitlist(broke, session);
+        secretary.registerOrWaitlist(next, session);
+        broke.reduceBalance(80);
+        int gymBalance = gym.getBalance();
+
+        assertTrue(secretary.unregisterClientFromLesson(registered, session));
+        assertEquals(20, broke.getBalance());
+        assertTrue(history(secretary, broke, ActionType.WAITLIST_SKIPPED).get(0).endsWith("not enough balance"));
+        assertTrue(session.isRegistered(next));
+        assertEquals(100 - PRICE, next.getBalance());
+        assertEquals(gymBalance, gym.getBalance()); // The refund and the new charge cancel out
+        assertEquals(0, session.getPlaces());
+        assertEquals(0, session.getWaitlist().size());
+        assertEquals(1, history(secretary, next, ActionType.WAITLIST_PROMOTED).size());
+        assertTrue(next.getNotificationList().get(0).startsWith("A place has opened up"));
+    }
+
+    /**
+     * A snapshot taken while a client is being promoted writes them back at the head of the waitlist until
+     * they are charged, and into the roster once they are.
+     *
+     * @throws Exception if the journal cannot be written or read.
+     */
+    @Test
+    void keepsClientsBeingPromotedInSnapshots() throws Exception {
+        setTime("2030-01-01T10:00:00Z");
+        Gym gym = Gym.getInstance();
+        gym.openJournal(directory.resolve("live"));
+        gym.setSecretary(new Person("Secretary", 0, Gender.Female, "01-01-1980"), 5000);
+        Secretary secretary = gym.getSecretary();
+        Session session = singlePlaceSession(secretary, "03-01-2030 12:00");
+        Client registered = secretary.registerClient(new Person("Registered", 100, Gender.Female, "01-01-1990"));
+        Client first = secretary.registerClient(new Person("First", 100, Gender.Female, "01-01-1990"));
+        Client second = secretary.registerClient(new Person("Second", 100, Gender.Female, "01-01-1990"));
+        secretary.registerOrWaitlist(registered, session);
+        secretary.registerOrWaitlist(first, session);
+        secretary.registerOrWaitlist(second, session);
+
+        // The first client is taken off the waitlist as the promotion does, before being charged
+        assertEquals(first, session.getWaitlist().poll());
+        gym.getJournal().promotionStarted(first, session);
+        gym.snapshot();
+        Session restored = replayedSession(session, "uncharged");
+        assertArrayEquals(new int[]{registered.getID()}, restored.getRoster().toIdArray());
+        assertArrayEquals(new int[]{first.getID(), second.getID()}, restored.getWaitlist().toIdArray());
+
+        gym.getJournal().promotionCharged(first, session);
+        gym.snapshot();
+        restored = replayedSession(session, "charged");
+        assertArrayEquals(new int[]{registered.getID(), first.getID()}, restored.getRoster().toIdArray());
+        assertArrayEquals(new int[]{second.getID()}, restored.getWaitlist().toIdArray());
+
+        gym.getJournal().promotionEnded(first, session);
+        gym.snapshot();
+        restored = replayedSession(session, "ended");
+        assertArrayEquals(new int[]{registered.getID()}, restored.getRoster().toIdArray());
+        assertArrayEquals(new int[]{second.getID()}, restored.getWaitlist().toIdArray());
+        gym.closeJournal();
+    }
+
+    /**
+     * A snapshot falls due on the record of a promoted client's charge; the replayed client is charged once
+     * and registered.
+     *
+     * @throws Exception if the journal cannot be written or read.
+     */
+    @Test
+    void chargesAPromotedClientOnceWhenASnapshotFallsDue() throws Exception {
+        setTime("2030-01-01T10:00:00Z");
+        Gym gym = Gym.getInstance();
+        Path live = directory.resolve("live");
+        gym.openJournal(live);
+        gym.setSecretary(new Person("Secretary", 0, Gender.Female, "01-01-1980"), 5000);
+        Secretary secretary = gym.getSecretary();
+        Session session = singlePlaceSession(secretary, "04-01-2030 12:00");
+        Session other = singlePlaceSession(secretary, "05-01-2030 12:00");
+        Client registered = secretary.registerClient(new Person("Registered", 100, Gender.Female, "01-01-1990"));
+        Client waiting = secretary.registerClient(new Person("Waiting", 100, Gender.Female, "01-01-1990"));
+        Client alone = secretary.registerClient(new Person("Alone", 100, Gender.Female, "01-01-1990"));
+        secretary.registerOrWaitlist(registered, session);
+        secretary.registerOrWaitlist(waiting, session);
+        secretary.registerOrWaitlist(alone, other);
+
+        // Measures the records of an unregistration, so that the threshold is passed by the promotion's charge
+        long before = GymJournalTest.journalEnd(live);
+        secretary.unregisterClientFromLesson(alone, other);
+        long unregistration = GymJournalTest.journalEnd(live) - before;
+        gym.getJournal().setSnapshotThreshold(GymJournalTest.journalEnd(live) + unregistration - 1);
+        secretary.unregisterClientFromLesson(registered, session);
+        assertEquals(100 - PRICE, waiting.getBalance());
+        gym.awaitNotifications();
+
+        Gym replayed = GymJournalTest.replay(GymJournalTest.crashCopy(live, directory.resolve("crashed")));
+        assertEquals(gym.getBalance(), replayed.getBalance());
+        assertEquals(100 - PRICE, replayed.getClients().get(waiting.getID()).getBalance());
+        assertEquals(gym.toString(), replayed.toString());
+        gym.closeJournal();
+    }
+
+    /**
+     * Replays the snapshot of the gym's journal into a new gym and finds a session in it.
+     *
+     * @param session the session to find.
+     * @param name    the name of the directory to copy the snapshot to.
+     * @return the replayed session.
+     * @throws Exception if the snapshot cannot be copied or read.
+     */
+    private Session replayedSession(Session session, String name) throws Exception {
+        Path copy = Files.createDirectories(directory.resolve(name));
+        Files.copy(directory.resolve("live").resolve("snapshot.bin"), copy.resolve("snapshot.bin"));
+        Gym replayed = new Gym();
+        replayed.openJournal(copy);
+        replayed.closeJournal();
+        for (Session candidate : replayed.getSessionsList())
+            if (candidate.getId() == session.getId())
+                return candidate;
+        throw new AssertionError("Session " + session.getId() + " was not replayed");
+    }
+}